@@ -0,0 +1,187 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.wildfly.security.auth.server.CredentialSupport;
+import org.wildfly.security.auth.server.RealmIdentity;
+import org.wildfly.security.auth.server.RealmUnavailableException;
+import org.wildfly.security.auth.server.SecurityDomain;
+import org.wildfly.security.auth.server.SecurityRealm;
+import org.wildfly.security.authz.AuthorizationIdentity;
+
+/**
+ * The authentication statistics of a single {@link SecurityDomain}.
+ *
+ * Statistics are recorded by wrapping each {@link SecurityRealm} of the domain, an attempt is a call to
+ * {@link RealmIdentity#verifyCredential(Object)} on an identity obtained from the realm and the latency of the attempt is the
+ * time spent in the realm obtaining the identity and verifying the credential. Mechanisms which obtain the credential from
+ * the realm to perform their own verification are not counted.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+class AuthenticationStatistics {
+
+    private final Counters domain = new Counters();
+    private final Map<String, Counters> realms = new LinkedHashMap<>();
+
+    /**
+     * Wrap a {@link SecurityRealm} of the domain so that authentication attempts against it are recorded.
+     *
+     * @param realmName the name of the realm within the domain.
+     * @param securityRealm the {@link SecurityRealm} to wrap.
+     * @return the wrapping {@link SecurityRealm}.
+     */
+    SecurityRealm wrap(final String realmName, final SecurityRealm securityRealm) {
+        Counters realm = new Counters();
+        realms.put(realmName, realm);
+
+        return new StatisticsSecurityRealm(securityRealm, realm);
+    }
+
+    Counters getDomainCounters() {
+        return domain;
+    }
+
+    Map<String, Counters> getRealmCounters() {
+        return Collections.unmodifiableMap(realms);
+    }
+
+    private void record(final Counters realm, final boolean success, final long nanos) {
+        realm.record(success, nanos);
+        domain.record(success, nanos);
+    }
+
+    static final class Counters {
+
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private void record(final boolean success, final long nanos) {
+            attempts.increment();
+            (success ? successes : failures).increment();
+            latency.record(nanos);
+        }
+
+        long getAttempts() {
+            return attempts.sum();
+        }
+
+        long getSuccesses() {
+            return successes.sum();
+        }
+
+        long getFailures() {
+            return failures.sum();
+        }
+
+        LatencyHistogram getLatency() {
+            return latency;
+        }
+
+    }
+
+    private class StatisticsSecurityRealm implements SecurityRealm {
+
+        private final SecurityRealm delegate;
+        private final Counters counters;
+
+        StatisticsSecurityRealm(final SecurityRealm delegate, final Counters counters) {
+            this.delegate = delegate;
+            this.counters = counters;
+        }
+
+        @Override
+        public RealmIdentity createRealmIdentity(String name) throws RealmUnavailableException {
+            long start = System.nanoTime();
+            RealmIdentity realmIdentity = delegate.createRealmIdentity(name);
+
+            return realmIdentity != null ? new StatisticsRealmIdentity(realmIdentity, counters, System.nanoTime() - start) : null;
+        }
+
+        @Override
+        public CredentialSupport getCredentialSupport(Class<?> credentialType, String algorithmName) throws RealmUnavailableException {
+            return delegate.getCredentialSupport(credentialType, algorithmName);
+        }
+
+    }
+
+    private class StatisticsRealmIdentity implements RealmIdentity {
+
+        private final RealmIdentity delegate;
+        private final Counters counters;
+        private final long lookupTime;
+
+        StatisticsRealmIdentity(final RealmIdentity delegate, final Counters counters, final long lookupTime) {
+            this.delegate = delegate;
+            this.counters = counters;
+            this.lookupTime = lookupTime;
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public CredentialSupport getCredentialSupport(Class<?> credentialType, String algorithmName) throws RealmUnavailableException {
+            return delegate.getCredentialSupport(credentialType, algorithmName);
+        }
+
+        @Override
+        public <C> C getCredential(Class<C> credentialType, String algorithmName) throws RealmUnavailableException {
+            return delegate.getCredential(credentialType, algorithmName);
+        }
+
+        @Override
+        public boolean verifyCredential(Object credential) throws RealmUnavailableException {
+            long start = System.nanoTime();
+            boolean verified = false;
+            try {
+                verified = delegate.verifyCredential(credential);
+                return verified;
+            } finally {
+                record(counters, verified, lookupTime + System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public boolean exists() throws RealmUnavailableException {
+            return delegate.exists();
+        }
+
+        @Override
+        public void dispose() {
+            delegate.dispose();
+        }
+
+        @Override
+        public AuthorizationIdentity getAuthorizationIdentity() throws RealmUnavailableException {
+            return delegate.getAuthorizationIdentity();
+        }
+
+    }
+
+}
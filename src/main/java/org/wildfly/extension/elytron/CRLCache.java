@@ -0,0 +1,328 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.wildfly.extension.elytron._private.ElytronSubsystemMessages.ROOT_LOGGER;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.cert.CRL;
+import java.security.cert.CRLException;
+import java.security.cert.CRLReason;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.cert.CertificateRevokedException;
+import java.security.cert.X509CRL;
+import java.security.cert.X509CRLEntry;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.security.auth.x500.X500Principal;
+
+/**
+ * A cache of the certificate revocation lists (CRLs) contained in a local file.
+ *
+ * The file is parsed once into a hash map of the revoked serial numbers for each issuer so checking a certificate chain takes
+ * constant time per certificate however large the lists are. The file is checked for changes in the background at the refresh
+ * interval by comparing a digest of its content and parsed again only when it has changed, where the new content can not be
+ * loaded the previous lists are retained.
+ *
+ * Where the issuer of a list is a certificate within the trust store the signature of the list is verified as it is loaded.
+ * Lists issued by other authorities, normally intermediate authorities, are verified against the certificate of the issuer
+ * within the chain being checked and an entry is only reported once the list has been verified.
+ *
+ * The next update time of each list is checked as it is loaded and again at each refresh, a list which is out of date is logged
+ * once but still used as the certificates it lists remain revoked.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+class CRLCache {
+
+    private static final String CERTIFICATE_TYPE = "X.509";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final File file;
+    private final KeyStore trustStore;
+    private final long refreshInterval;
+
+    private volatile Revocations revocations;
+    private ScheduledExecutorService executor;
+
+    /**
+     * Construct a new {@link CRLCache}.
+     *
+     * @param file the file containing the PEM or DER encoded certificate revocation lists.
+     * @param trustStore the trust store to verify the signatures of the lists against.
+     * @param refreshInterval the interval in seconds between checks of the file for changes.
+     */
+    CRLCache(final File file, final KeyStore trustStore, final long refreshInterval) {
+        this.file = file;
+        this.trustStore = trustStore;
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Load the file and begin checking it for changes.
+     *
+     * @throws GeneralSecurityException if the file does not contain valid certificate revocation lists.
+     * @throws IOException if the file can not be read.
+     */
+    synchronized void start() throws GeneralSecurityException, IOException {
+        byte[] content = Files.readAllBytes(file.toPath());
+        revocations = Revocations.load(file, content, digest(content), trustStore);
+        revocations.checkNextUpdate(file, System.currentTimeMillis());
+
+        final String threadName = "CRL - " + file.getName();
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::refresh, refreshInterval, refreshInterval, TimeUnit.SECONDS);
+    }
+
+    synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void refresh() {
+        try {
+            // The content is compared as the modification time and length of a replaced file can be unchanged.
+            byte[] content = Files.readAllBytes(file.toPath());
+            byte[] digest = digest(content);
+            if (Arrays.equals(digest, revocations.digest)) {
+                revocations.checkNextUpdate(file, System.currentTimeMillis());
+                return;
+            }
+
+            revocations = Revocations.load(file, content, digest, trustStore);
+            ROOT_LOGGER.crlReloaded(file.getAbsolutePath());
+            revocations.checkNextUpdate(file, System.currentTimeMillis());
+        } catch (GeneralSecurityException | IOException | RuntimeException e) {
+            ROOT_LOGGER.unableToReloadCrl(file.getAbsolutePath(), e);
+        }
+    }
+
+    private static byte[] digest(final byte[] content) throws GeneralSecurityException {
+        return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(content);
+    }
+
+    /**
+     * Check that none of the certificates in a chain have been revoked.
+     *
+     * @param chain the certificate chain to check.
+     * @throws CertificateRevokedException if any certificate in the chain has been revoked.
+     */
+    void checkRevoked(final X509Certificate[] chain) throws CertificateRevokedException {
+        if (chain == null) {
+            return;
+        }
+
+        Map<X500Principal, List<RevocationList>> revoked = revocations.revoked;
+        for (X509Certificate current : chain) {
+            List<RevocationList> lists = revoked.get(current.getIssuerX500Principal());
+            if (lists == null) {
+                continue;
+            }
+            for (RevocationList list : lists) {
+                X509CRLEntry entry = list.serials.get(current.getSerialNumber());
+                if (entry != null && list.isVerified(chain)) {
+                    CRLReason reason = entry.getRevocationReason();
+                    throw new CertificateRevokedException(entry.getRevocationDate(), reason != null ? reason : CRLReason.UNSPECIFIED,
+                            current.getIssuerX500Principal(), Collections.emptyMap());
+                }
+            }
+        }
+    }
+
+    /**
+     * The entries of a single list for a single certificate issuer, an indirect list is split by certificate issuer.
+     */
+    private static final class RevocationList {
+
+        private final X509CRL crl;
+        private final Map<BigInteger, X509CRLEntry> serials = new HashMap<>();
+        /*
+         * The key the list has been verified with or null if it has not yet been verified.
+         */
+        private volatile PublicKey verifiedKey;
+
+        RevocationList(final X509CRL crl, final PublicKey verifiedKey) {
+            this.crl = crl;
+            this.verifiedKey = verifiedKey;
+        }
+
+        /**
+         * Check if the list has been verified, if not it is verified against the certificate of its issuer within the chain.
+         */
+        boolean isVerified(final X509Certificate[] chain) {
+            if (verifiedKey != null) {
+                return true;
+            }
+
+            X500Principal crlIssuer = crl.getIssuerX500Principal();
+            for (X509Certificate current : chain) {
+                if (crlIssuer.equals(current.getSubjectX500Principal())) {
+                    try {
+                        crl.verify(current.getPublicKey());
+                        verifiedKey = current.getPublicKey();
+                        return true;
+                    } catch (GeneralSecurityException e) {
+                        ROOT_LOGGER.tracef(e, "Unable to verify certificate revocation list issued by '%s'", crlIssuer);
+                    }
+                }
+            }
+
+            return false;
+        }
+    }
+
+    private static final class Revocations {
+
+        private final byte[] digest;
+        private final Map<X500Principal, List<RevocationList>> revoked;
+        private final List<X509CRL> crls;
+        /*
+         * The lists already logged as out of date, only accessed by the thread loading or refreshing the lists.
+         */
+        private final Set<X509CRL> outOfDate = new HashSet<>();
+
+        private Revocations(final byte[] digest, final Map<X500Principal, List<RevocationList>> revoked, final List<X509CRL> crls) {
+            this.digest = digest;
+            this.revoked = revoked;
+            this.crls = crls;
+        }
+
+        /**
+         * Log each list which has passed its next update time since it was loaded.
+         */
+        void checkNextUpdate(final File file, final long now) {
+            for (X509CRL current : crls) {
+                Date nextUpdate = current.getNextUpdate();
+                if (nextUpdate != null && nextUpdate.getTime() < now && outOfDate.add(current)) {
+                    ROOT_LOGGER.crlOutOfDate(current.getIssuerX500Principal().getName(), file.getAbsolutePath(), nextUpdate);
+                }
+            }
+        }
+
+        static Revocations load(final File file, final byte[] content, final byte[] digest, final KeyStore trustStore) throws GeneralSecurityException, IOException {
+            final Collection<? extends CRL> crls;
+            try (InputStream is = new ByteArrayInputStream(content)) {
+                crls = CertificateFactory.getInstance(CERTIFICATE_TYPE).generateCRLs(is);
+            }
+
+            Map<X500Principal, List<X509Certificate>> trusted = trustedCertificates(trustStore);
+            Map<X500Principal, List<RevocationList>> revoked = new HashMap<>();
+            List<X509CRL> x509Crls = new ArrayList<>(crls.size());
+            for (CRL current : crls) {
+                if (current instanceof X509CRL == false) {
+                    continue;
+                }
+                X509CRL crl = (X509CRL) current;
+                x509Crls.add(crl);
+                X500Principal crlIssuer = crl.getIssuerX500Principal();
+                PublicKey verifiedKey = verify(crl, trusted.get(crlIssuer));
+                if (verifiedKey == null) {
+                    ROOT_LOGGER.crlIssuerNotTrusted(crlIssuer.getName(), file.getAbsolutePath());
+                }
+
+                Map<X500Principal, RevocationList> lists = new HashMap<>();
+                Collection<? extends X509CRLEntry> entries = crl.getRevokedCertificates();
+                if (entries != null) {
+                    for (X509CRLEntry entry : entries) {
+                        // Entries of an indirect list name the issuer of the certificate where it differs from the list.
+                        X500Principal issuer = entry.getCertificateIssuer() != null ? entry.getCertificateIssuer() : crlIssuer;
+                        lists.computeIfAbsent(issuer, i -> new RevocationList(crl, verifiedKey)).serials.put(entry.getSerialNumber(), entry);
+                    }
+                }
+                for (Map.Entry<X500Principal, RevocationList> list : lists.entrySet()) {
+                    revoked.computeIfAbsent(list.getKey(), i -> new ArrayList<>(1)).add(list.getValue());
+                }
+            }
+
+            return new Revocations(digest, revoked, x509Crls);
+        }
+
+        private static Map<X500Principal, List<X509Certificate>> trustedCertificates(final KeyStore trustStore) throws GeneralSecurityException {
+            KeyStoreSnapshot snapshot = KeyStoreSnapshot.current(trustStore);
+            KeyStore keyStore = snapshot != null ? snapshot.getKeyStore() : trustStore;
+
+            Map<X500Principal, List<X509Certificate>> trusted = new HashMap<>();
+            Enumeration<String> aliases = keyStore.aliases();
+            while (aliases.hasMoreElements()) {
+                Certificate certificate = keyStore.getCertificate(aliases.nextElement());
+                if (certificate instanceof X509Certificate) {
+                    X509Certificate x509Certificate = (X509Certificate) certificate;
+                    trusted.computeIfAbsent(x509Certificate.getSubjectX500Principal(), s -> new ArrayList<>()).add(x509Certificate);
+                }
+            }
+
+            return trusted;
+        }
+
+        /**
+         * Verify the list against the trusted certificates of its issuer.
+         *
+         * @return the key the list was verified with or {@code null} if the issuer is not trusted.
+         * @throws GeneralSecurityException if the issuer is trusted but the list can not be verified.
+         */
+        private static PublicKey verify(final X509CRL crl, final List<X509Certificate> issuers) throws GeneralSecurityException {
+            if (issuers == null) {
+                return null;
+            }
+
+            GeneralSecurityException failure = null;
+            for (X509Certificate current : issuers) {
+                try {
+                    crl.verify(current.getPublicKey());
+                    return current.getPublicKey();
+                } catch (GeneralSecurityException e) {
+                    failure = e;
+                }
+            }
+
+            throw new CRLException(failure);
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.wildfly.security.auth.server.RealmMapper;
+import org.wildfly.security.auth.util.SimpleRegexRealmMapper;
+
+/**
+ * A {@link RealmMapper} caching the realm name the delegate maps each principal name to.
+ *
+ * Only the regular expression based mappers are cached as the mapping of a name by them only changes if the configuration
+ * changes, where one of these delegates to a custom mapper the subsystem wraps it by calling {@link #uncacheable(RealmMapper)}
+ * so it is no longer recognised. The cache must be cleared by calling {@link #clear()} when the configuration changes.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+class CachingRealmMapper implements RealmMapper {
+
+    /**
+     * Stands in for a {@code null} mapping as the cache can not hold {@code null} values.
+     */
+    private static final String DEFAULT = new String();
+
+    private final RealmMapper delegate;
+    private final int maximumSize;
+    private final Map<String, String> mappings = new ConcurrentHashMap<>();
+
+    CachingRealmMapper(final RealmMapper delegate, final int maximumSize) {
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Check if the mapping of a {@link RealmMapper} only depends on the name being mapped and the configuration.
+     *
+     * @param realmMapper the {@link RealmMapper} to check.
+     * @return {@code true} if the results of the {@link RealmMapper} can be cached.
+     */
+    static boolean isCacheable(final RealmMapper realmMapper) {
+        return realmMapper instanceof SimpleRegexRealmMapper;
+    }
+
+    /**
+     * Wrap a {@link RealmMapper} so that {@link #isCacheable(RealmMapper)} no longer recognises it.
+     *
+     * @param realmMapper the {@link RealmMapper} to wrap.
+     * @return the wrapping {@link RealmMapper}.
+     */
+    static RealmMapper uncacheable(final RealmMapper realmMapper) {
+        return realmMapper::getRealmMapping;
+    }
+
+    @Override
+    public String getRealmMapping(String name) {
+        if (name == null) {
+            return delegate.getRealmMapping(name);
+        }
+
+        String realmName = mappings.get(name);
+        if (realmName == null) {
+            realmName = delegate.getRealmMapping(name);
+            if (mappings.size() >= maximumSize) {
+                evict();
+            }
+            mappings.put(name, realmName != null ? realmName : DEFAULT);
+
+            return realmName;
+        }
+
+        return realmName == DEFAULT ? null : realmName;
+    }
+
+    /**
+     * Discard all cached mappings.
+     */
+    void clear() {
+        mappings.clear();
+    }
+
+    int size() {
+        return mappings.size();
+    }
+
+    /**
+     * Discard arbitrary mappings to make space.
+     */
+    private void evict() {
+        Iterator<String> names = mappings.keySet().iterator();
+        while (mappings.size() >= maximumSize && names.hasNext()) {
+            names.next();
+            names.remove();
+        }
+    }
+
+}
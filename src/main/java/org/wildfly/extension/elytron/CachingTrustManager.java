@@ -0,0 +1,339 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509ExtendedTrustManager;
+import javax.security.auth.x500.X500Principal;
+
+/**
+ * An {@link X509ExtendedTrustManager} which caches the result of successfully validating a certificate chain.
+ *
+ * Results are cached keyed by the SHA-256 digest of the chain, the authentication type and the version of the trust store
+ * snapshot the chain was validated against so a reload of the trust store never reuses an earlier result. Cached results expire
+ * after the configured time or when the first certificate in the chain expires, whichever comes first, once the cache is full
+ * the least recently used result is discarded. Where endpoint
+ * identification is required the result depends on the peer so validation is always delegated.
+ *
+ * Where a {@link CRLCache} or {@link OCSPCache} is supplied every chain is checked against it on each call once it has been
+ * validated, including chains with a cached result, so a refreshed revocation list or response takes effect immediately and a
+ * chain which does not validate never causes a revocation check.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+class CachingTrustManager extends X509ExtendedTrustManager {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final KeyStore trustStore;
+    private final TrustManagerFactory trustManagerFactory;
+    private final int maximumSize;
+    private final long timeout;
+    private final CRLCache crlCache;
+    private final OCSPCache ocspCache;
+
+    private final Map<CacheKey, Long> validated;
+    private volatile Delegate delegate;
+
+    /**
+     * Construct a new {@link CachingTrustManager}.
+     *
+     * @param trustStore the trust store, if backed by a {@link KeyStoreSnapshot} the delegate is re-initialised each time a
+     *        new version is published.
+     * @param trustManagerFactory the uninitialised {@link TrustManagerFactory} to create the delegate.
+     * @param maximumSize the maximum number of cached results, {@code 0} disables caching.
+     * @param timeout the time in seconds a result is cached for.
+     * @param crlCache the revocation lists to check chains against, may be {@code null}.
+     * @param ocspCache the OCSP responses to check chains against, may be {@code null}.
+     * @throws GeneralSecurityException if the delegate can not be created.
+     */
+    CachingTrustManager(final KeyStore trustStore, final TrustManagerFactory trustManagerFactory, final int maximumSize, final long timeout,
+            final CRLCache crlCache, final OCSPCache ocspCache) throws GeneralSecurityException {
+        this.trustStore = trustStore;
+        this.trustManagerFactory = trustManagerFactory;
+        this.maximumSize = maximumSize;
+        this.timeout = TimeUnit.SECONDS.toMillis(timeout);
+        this.crlCache = crlCache;
+        this.ocspCache = ocspCache;
+        // Access ordered so the eldest entry is always the least recently used.
+        this.validated = new LinkedHashMap<CacheKey, Long>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, Long> eldest) {
+                return size() > maximumSize;
+            }
+        };
+        KeyStoreSnapshot snapshot = KeyStoreSnapshot.current(trustStore);
+        delegate = createDelegate(snapshot != null ? snapshot.getVersion() : 0, snapshot != null ? snapshot.getKeyStore() : trustStore);
+    }
+
+    private Delegate createDelegate(final long version, final KeyStore keyStore) throws GeneralSecurityException {
+        synchronized (trustManagerFactory) {
+            trustManagerFactory.init(keyStore);
+            for (TrustManager current : trustManagerFactory.getTrustManagers()) {
+                if (current instanceof X509ExtendedTrustManager) {
+                    return new Delegate(version, (X509ExtendedTrustManager) current);
+                }
+            }
+        }
+
+        throw new NoSuchAlgorithmException(trustManagerFactory.getAlgorithm());
+    }
+
+    /**
+     * Get the delegate for the current version of the trust store, if a new version has been published since the delegate
+     * was created a new delegate is created and the results cached against earlier versions are discarded.
+     */
+    private Delegate delegate() throws CertificateException {
+        Delegate delegate = this.delegate;
+        KeyStoreSnapshot snapshot = KeyStoreSnapshot.current(trustStore);
+        if (snapshot == null || snapshot.getVersion() == delegate.version) {
+            return delegate;
+        }
+
+        synchronized (this) {
+            delegate = this.delegate;
+            if (snapshot.getVersion() != delegate.version) {
+                try {
+                    delegate = createDelegate(snapshot.getVersion(), snapshot.getKeyStore());
+                } catch (GeneralSecurityException e) {
+                    throw new CertificateException(e);
+                }
+                this.delegate = delegate;
+                synchronized (validated) {
+                    validated.clear();
+                }
+            }
+        }
+
+        return delegate;
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+        Delegate delegate = delegate();
+        CacheKey key = cacheKey(delegate.version, true, chain, authType);
+        if (isCached(key) == false) {
+            delegate.trustManager.checkClientTrusted(chain, authType);
+            cache(key, chain);
+        }
+        checkRevoked(delegate, chain);
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+        Delegate delegate = delegate();
+        CacheKey key = cacheKey(delegate.version, false, chain, authType);
+        if (isCached(key) == false) {
+            delegate.trustManager.checkServerTrusted(chain, authType);
+            cache(key, chain);
+        }
+        checkRevoked(delegate, chain);
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) throws CertificateException {
+        Delegate delegate = delegate();
+        CacheKey key = requiresIdentification(socket) ? null : cacheKey(delegate.version, true, chain, authType);
+        if (isCached(key) == false) {
+            delegate.trustManager.checkClientTrusted(chain, authType, socket);
+            cache(key, chain);
+        }
+        checkRevoked(delegate, chain);
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) throws CertificateException {
+        Delegate delegate = delegate();
+        CacheKey key = requiresIdentification(socket) ? null : cacheKey(delegate.version, false, chain, authType);
+        if (isCached(key) == false) {
+            delegate.trustManager.checkServerTrusted(chain, authType, socket);
+            cache(key, chain);
+        }
+        checkRevoked(delegate, chain);
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) throws CertificateException {
+        Delegate delegate = delegate();
+        CacheKey key = requiresIdentification(engine) ? null : cacheKey(delegate.version, true, chain, authType);
+        if (isCached(key) == false) {
+            delegate.trustManager.checkClientTrusted(chain, authType, engine);
+            cache(key, chain);
+        }
+        checkRevoked(delegate, chain);
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) throws CertificateException {
+        Delegate delegate = delegate();
+        CacheKey key = requiresIdentification(engine) ? null : cacheKey(delegate.version, false, chain, authType);
+        if (isCached(key) == false) {
+            delegate.trustManager.checkServerTrusted(chain, authType, engine);
+            cache(key, chain);
+        }
+        checkRevoked(delegate, chain);
+    }
+
+    @Override
+    public X509Certificate[] getAcceptedIssuers() {
+        return delegate.trustManager.getAcceptedIssuers();
+    }
+
+    private void checkRevoked(final Delegate delegate, final X509Certificate[] chain) throws CertificateException {
+        if (crlCache != null) {
+            crlCache.checkRevoked(chain);
+        }
+        if (ocspCache != null) {
+            ocspCache.checkRevoked(chain, delegate.issuers);
+        }
+    }
+
+    private static boolean requiresIdentification(Socket socket) {
+        return socket instanceof SSLSocket && requiresIdentification(((SSLSocket) socket).getSSLParameters());
+    }
+
+    private static boolean requiresIdentification(SSLEngine engine) {
+        return engine != null && requiresIdentification(engine.getSSLParameters());
+    }
+
+    private static boolean requiresIdentification(SSLParameters parameters) {
+        String algorithm = parameters.getEndpointIdentificationAlgorithm();
+        return algorithm != null && algorithm.isEmpty() == false;
+    }
+
+    private CacheKey cacheKey(final long version, final boolean client, final X509Certificate[] chain, final String authType) {
+        if (maximumSize == 0 || chain == null || chain.length == 0) {
+            return null;
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            for (X509Certificate current : chain) {
+                digest.update(current.getEncoded());
+            }
+            return new CacheKey(version, client, authType, digest.digest());
+        } catch (NoSuchAlgorithmException | CertificateEncodingException e) {
+            return null;
+        }
+    }
+
+    private boolean isCached(final CacheKey key) {
+        if (key == null) {
+            return false;
+        }
+
+        synchronized (validated) {
+            Long expiry = validated.get(key);
+            if (expiry == null) {
+                return false;
+            } else if (expiry.longValue() < System.currentTimeMillis()) {
+                validated.remove(key);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void cache(final CacheKey key, final X509Certificate[] chain) {
+        if (key == null) {
+            return;
+        }
+
+        long expiry = System.currentTimeMillis() + timeout;
+        for (X509Certificate current : chain) {
+            expiry = Math.min(expiry, current.getNotAfter().getTime());
+        }
+        synchronized (validated) {
+            validated.put(key, expiry);
+        }
+    }
+
+    private static final class Delegate {
+
+        private final long version;
+        private final X509ExtendedTrustManager trustManager;
+        private final Map<X500Principal, X509Certificate> issuers;
+
+        Delegate(final long version, final X509ExtendedTrustManager trustManager) {
+            this.version = version;
+            this.trustManager = trustManager;
+            Map<X500Principal, X509Certificate> issuers = new HashMap<>();
+            for (X509Certificate current : trustManager.getAcceptedIssuers()) {
+                issuers.putIfAbsent(current.getSubjectX500Principal(), current);
+            }
+            this.issuers = issuers;
+        }
+    }
+
+    private static final class CacheKey {
+
+        private final long version;
+        private final boolean client;
+        private final String authType;
+        private final byte[] chainDigest;
+        private final int hashCode;
+
+        CacheKey(final long version, final boolean client, final String authType, final byte[] chainDigest) {
+            this.version = version;
+            this.client = client;
+            this.authType = authType;
+            this.chainDigest = chainDigest;
+            hashCode = Arrays.hashCode(chainDigest) * 31 + (authType != null ? authType.hashCode() : 0);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof CacheKey && equals((CacheKey) obj);
+        }
+
+        private boolean equals(CacheKey other) {
+            return version == other.version && client == other.client
+                    && (authType == null ? other.authType == null : authType.equals(other.authType))
+                    && Arrays.equals(chainDigest, other.chainDigest);
+        }
+    }
+
+}
@@ -21,6 +21,9 @@ package org.wildfly.extension.elytron;
 import java.security.KeyStore;
 import java.security.Provider;
 
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
 import javax.security.sasl.SaslServerFactory;
 
 import org.jboss.as.controller.capability.RuntimeCapability;
@@ -68,6 +71,12 @@ class Capabilities {
         .Builder.of(KEYSTORE_CAPABILITY, true, KeyStore.class)
         .build();
 
+    static final String KEY_MANAGERS_CAPABILITY = CAPABILITY_BASE + "key-managers";
+
+    static final RuntimeCapability<Void> KEY_MANAGERS_RUNTIME_CAPABILITY =  RuntimeCapability
+        .Builder.of(KEY_MANAGERS_CAPABILITY, true, KeyManager[].class)
+        .build();
+
     static final String NAME_REWRITER_CAPABILITY = CAPABILITY_BASE + "name-rewriter";
 
     static final RuntimeCapability<Void> NAME_REWRITER_RUNTIME_CAPABILITY =  RuntimeCapability
@@ -133,6 +142,18 @@ class Capabilities {
         .Builder.of(SECURITY_REALM_CAPABILITY, true, SecurityRealm.class)
         .build();
 
+    static final String SSL_CONTEXT_CAPABILITY = CAPABILITY_BASE + "ssl-context";
+
+    static final RuntimeCapability<Void> SSL_CONTEXT_RUNTIME_CAPABILITY =  RuntimeCapability
+        .Builder.of(SSL_CONTEXT_CAPABILITY, true, SSLContext.class)
+        .build();
+
+    static final String TRUST_MANAGERS_CAPABILITY = CAPABILITY_BASE + "trust-managers";
+
+    static final RuntimeCapability<Void> TRUST_MANAGERS_RUNTIME_CAPABILITY =  RuntimeCapability
+        .Builder.of(TRUST_MANAGERS_CAPABILITY, true, TrustManager[].class)
+        .build();
+
     /**
      * Requirements, capabilities from other subsystems.
      */
@@ -159,19 +159,15 @@ class CertificateChainAttributeDefintions {
     }
 
     /**
-     * Populate the supplied response with the model representation of the certificate chain.
+     * Obtain the SHA-256 finger print of the certificate in the same form as reported in the model.
      *
-     * @param result the response to populate.
-     * @param certificateChain the certificate chain to add to the response.
+     * @param certificate the certificate to obtain the finger print of.
+     * @return the finger print of the certificate.
      * @throws CertificateEncodingException
      * @throws NoSuchAlgorithmException
      */
-    static void writeCertificateChain(final ModelNode result, final Certificate[] certificateChain) throws CertificateEncodingException, NoSuchAlgorithmException {
-        for (Certificate current : certificateChain) {
-            ModelNode certificate = new ModelNode();
-            writeCertificate(certificate, current);
-            result.add(certificate);
-        }
+    static String fingerPrint(final Certificate certificate) throws CertificateEncodingException, NoSuchAlgorithmException {
+        return encodedHexString(digest(SHA_256, certificate.getEncoded()));
     }
 
     private static byte[] digest(final String algorithm, final byte[] encoded) throws NoSuchAlgorithmException {
@@ -30,10 +30,17 @@ import static org.wildfly.extension.elytron.Capabilities.SECURITY_REALM_CAPABILI
 import static org.wildfly.extension.elytron.Capabilities.SECURITY_REALM_RUNTIME_CAPABILITY;
 import static org.wildfly.extension.elytron.ElytronDefinition.commonDependencies;
 import static org.wildfly.extension.elytron.ElytronExtension.asStringIfDefined;
+import static org.wildfly.extension.elytron.ElytronExtension.getRequiredService;
 import static org.wildfly.extension.elytron._private.ElytronSubsystemMessages.ROOT_LOGGER;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
 
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
 import org.jboss.as.controller.AttributeDefinition;
 import org.jboss.as.controller.ObjectListAttributeDefinition;
 import org.jboss.as.controller.ObjectTypeAttributeDefinition;
@@ -48,6 +55,7 @@ import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
 import org.jboss.as.controller.capability.RuntimeCapability;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
 import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.OperationEntry;
@@ -58,8 +66,10 @@ import org.jboss.msc.inject.Injector;
 import org.jboss.msc.service.ServiceBuilder;
 import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceController.Mode;
+import org.jboss.msc.service.ServiceController.State;
 import org.jboss.msc.service.ServiceName;
 import org.jboss.msc.service.ServiceTarget;
+import org.wildfly.extension.elytron.AuthenticationStatistics.Counters;
 import org.wildfly.extension.elytron.DomainService.RealmDependency;
 import org.wildfly.extension.elytron.IdentityResourceDefinition.AuthenticatorOperationHandler;
 import org.wildfly.security.auth.server.NameRewriter;
@@ -154,13 +164,70 @@ class DomainDefinition extends SimpleResourceDefinition {
         .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
         .build();
 
+    static final SimpleAttributeDefinition STATISTICS_ENABLED = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.STATISTICS_ENABLED, ModelType.BOOLEAN, true)
+        .setAllowExpression(true)
+        .setDefaultValue(new ModelNode(false))
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
     private static final AttributeDefinition[] ATTRIBUTES =
-            new AttributeDefinition[] { PRE_REALM_NAME_REWRITER, POST_REALM_NAME_REWRITER, PRINCIPAL_DECODER, REALM_MAPPER, ROLE_MAPPER, PERMISSION_MAPPER, DEFAULT_REALM, REALMS };
+            new AttributeDefinition[] { PRE_REALM_NAME_REWRITER, POST_REALM_NAME_REWRITER, PRINCIPAL_DECODER, REALM_MAPPER, ROLE_MAPPER, PERMISSION_MAPPER, DEFAULT_REALM, REALMS, STATISTICS_ENABLED };
+
+    /*
+     * Runtime Statistics
+     */
+
+    static final SimpleAttributeDefinition AUTHENTICATION_ATTEMPTS = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.AUTHENTICATION_ATTEMPTS, ModelType.LONG)
+        .setStorageRuntime()
+        .build();
+
+    static final SimpleAttributeDefinition AUTHENTICATION_SUCCESSES = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.AUTHENTICATION_SUCCESSES, ModelType.LONG)
+        .setStorageRuntime()
+        .build();
+
+    static final SimpleAttributeDefinition AUTHENTICATION_FAILURES = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.AUTHENTICATION_FAILURES, ModelType.LONG)
+        .setStorageRuntime()
+        .build();
+
+    static final SimpleAttributeDefinition AUTHENTICATION_LATENCY_P50 = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.AUTHENTICATION_LATENCY_P50, ModelType.LONG)
+        .setMeasurementUnit(MeasurementUnit.MICROSECONDS)
+        .setStorageRuntime()
+        .build();
+
+    static final SimpleAttributeDefinition AUTHENTICATION_LATENCY_P95 = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.AUTHENTICATION_LATENCY_P95, ModelType.LONG)
+        .setMeasurementUnit(MeasurementUnit.MICROSECONDS)
+        .setStorageRuntime()
+        .build();
+
+    static final SimpleAttributeDefinition AUTHENTICATION_LATENCY_P99 = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.AUTHENTICATION_LATENCY_P99, ModelType.LONG)
+        .setMeasurementUnit(MeasurementUnit.MICROSECONDS)
+        .setStorageRuntime()
+        .build();
+
+    private static final ObjectTypeAttributeDefinition REALM_STATISTIC = new ObjectTypeAttributeDefinition.Builder(ElytronDescriptionConstants.REALM, REALM_NAME, AUTHENTICATION_ATTEMPTS,
+            AUTHENTICATION_SUCCESSES, AUTHENTICATION_FAILURES, AUTHENTICATION_LATENCY_P50, AUTHENTICATION_LATENCY_P95, AUTHENTICATION_LATENCY_P99)
+        .build();
+
+    static final ObjectListAttributeDefinition REALM_STATISTICS = new ObjectListAttributeDefinition.Builder(ElytronDescriptionConstants.REALM_STATISTICS, REALM_STATISTIC)
+        .setStorageRuntime()
+        .build();
+
+    private static final Map<SimpleAttributeDefinition, ToLongFunction<Counters>> STATISTICS = new LinkedHashMap<>();
+
+    static {
+        STATISTICS.put(AUTHENTICATION_ATTEMPTS, Counters::getAttempts);
+        STATISTICS.put(AUTHENTICATION_SUCCESSES, Counters::getSuccesses);
+        STATISTICS.put(AUTHENTICATION_FAILURES, Counters::getFailures);
+        STATISTICS.put(AUTHENTICATION_LATENCY_P50, c -> TimeUnit.NANOSECONDS.toMicros(c.getLatency().getValueAtPercentile(50)));
+        STATISTICS.put(AUTHENTICATION_LATENCY_P95, c -> TimeUnit.NANOSECONDS.toMicros(c.getLatency().getValueAtPercentile(95)));
+        STATISTICS.put(AUTHENTICATION_LATENCY_P99, c -> TimeUnit.NANOSECONDS.toMicros(c.getLatency().getValueAtPercentile(99)));
+    }
 
     private static final DomainAddHandler ADD = new DomainAddHandler();
     private static final OperationStepHandler REMOVE = new SingleCapabilityServiceRemoveHandler<SecurityDomain>(ADD, SECURITY_DOMAIN_RUNTIME_CAPABILITY, SecurityDomain.class);
     private static final WriteAttributeHandler WRITE = new WriteAttributeHandler(ElytronDescriptionConstants.SECURITY_DOMAIN);
     private static final AuthenticatorOperationHandler AUTHENTICATE = new AuthenticatorOperationHandler();
+    private static final ServiceUtil<SecurityDomain> DOMAIN_SERVICE_UTIL = ServiceUtil.newInstance(SECURITY_DOMAIN_RUNTIME_CAPABILITY, ElytronDescriptionConstants.SECURITY_DOMAIN, SecurityDomain.class);
 
     DomainDefinition() {
         super(new Parameters(PathElement.pathElement(ElytronDescriptionConstants.SECURITY_DOMAIN), ElytronExtension.getResourceDescriptionResolver(ElytronDescriptionConstants.SECURITY_DOMAIN))
@@ -175,6 +242,11 @@ class DomainDefinition extends SimpleResourceDefinition {
         for (AttributeDefinition current : ATTRIBUTES) {
             resourceRegistration.registerReadWriteAttribute(current, null, WRITE);
         }
+
+        for (Entry<SimpleAttributeDefinition, ToLongFunction<Counters>> current : STATISTICS.entrySet()) {
+            resourceRegistration.registerReadOnlyAttribute(current.getKey(), new StatisticsRuntimeHandler(current.getKey()));
+        }
+        resourceRegistration.registerReadOnlyAttribute(REALM_STATISTICS, new RealmStatisticsRuntimeHandler());
     }
 
     @Override
@@ -206,8 +278,9 @@ class DomainDefinition extends SimpleResourceDefinition {
         String permissionMapper = asStringIfDefined(context, PERMISSION_MAPPER, model);
         String realmMapper = asStringIfDefined(context, REALM_MAPPER, model);
         String roleMapper = asStringIfDefined(context, ROLE_MAPPER, model);
+        boolean statisticsEnabled = STATISTICS_ENABLED.resolveModelAttribute(context, model).asBoolean();
 
-        DomainService domain = new DomainService(simpleName, defaultRealm);
+        DomainService domain = new DomainService(simpleName, defaultRealm, statisticsEnabled);
 
         ServiceBuilder<SecurityDomain> domainBuilder = serviceTarget.addService(domainName, domain)
                 .setInitialMode(Mode.ACTIVE);
@@ -351,6 +424,77 @@ class DomainDefinition extends SimpleResourceDefinition {
 
     }
 
+    private static AuthenticationStatistics getStatistics(OperationContext context, ModelNode operation) {
+        ServiceController<SecurityDomain> serviceController = getRequiredService(context.getServiceRegistry(false), DOMAIN_SERVICE_UTIL.serviceName(operation), SecurityDomain.class);
+        if (serviceController.getState() != State.UP) {
+            return null;
+        }
+
+        return ((DomainService) serviceController.getService()).getStatistics();
+    }
+
+    /**
+     * Get the value reported for one of the domain level statistics attributes.
+     *
+     * @param attribute the statistics attribute.
+     * @param statistics the statistics of the domain.
+     * @return the value of the attribute.
+     */
+    static long domainStatistic(final SimpleAttributeDefinition attribute, final AuthenticationStatistics statistics) {
+        return STATISTICS.get(attribute).applyAsLong(statistics.getDomainCounters());
+    }
+
+    /**
+     * Get the value reported for the {@link #REALM_STATISTICS} attribute.
+     *
+     * @param statistics the statistics of the domain.
+     * @return a list with the statistics of each realm in the order the realms are referenced by the domain.
+     */
+    static ModelNode realmStatistics(final AuthenticationStatistics statistics) {
+        ModelNode result = new ModelNode();
+        result.setEmptyList();
+        for (Entry<String, Counters> realm : statistics.getRealmCounters().entrySet()) {
+            ModelNode realmStatistics = new ModelNode();
+            realmStatistics.get(ElytronDescriptionConstants.REALM).set(realm.getKey());
+            for (Entry<SimpleAttributeDefinition, ToLongFunction<Counters>> current : STATISTICS.entrySet()) {
+                realmStatistics.get(current.getKey().getName()).set(current.getValue().applyAsLong(realm.getValue()));
+            }
+            result.add(realmStatistics);
+        }
+
+        return result;
+    }
+
+    private static class StatisticsRuntimeHandler extends AbstractRuntimeOnlyHandler {
+
+        private final SimpleAttributeDefinition attribute;
+
+        StatisticsRuntimeHandler(final SimpleAttributeDefinition attribute) {
+            this.attribute = attribute;
+        }
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            AuthenticationStatistics statistics = getStatistics(context, operation);
+            if (statistics != null) {
+                context.getResult().set(domainStatistic(attribute, statistics));
+            }
+        }
+
+    }
+
+    private static class RealmStatisticsRuntimeHandler extends AbstractRuntimeOnlyHandler {
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            AuthenticationStatistics statistics = getStatistics(context, operation);
+            if (statistics != null) {
+                context.getResult().set(realmStatistics(statistics));
+            }
+        }
+
+    }
+
     private static class WriteAttributeHandler extends RestartParentWriteAttributeHandler {
 
         public WriteAttributeHandler(String parentKeyName) {
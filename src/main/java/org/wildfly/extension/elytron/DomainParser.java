@@ -40,6 +40,7 @@ import static org.wildfly.extension.elytron.ElytronDescriptionConstants.REALM_MA
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.ROLE_DECODER;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.ROLE_MAPPER;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.SECURITY_DOMAIN;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.STATISTICS_ENABLED;
 import static org.wildfly.extension.elytron.ElytronSubsystemParser.verifyNamespace;
 
 import java.util.Arrays;
@@ -102,6 +103,9 @@ class DomainParser {
                     case ROLE_MAPPER:
                         DomainDefinition.ROLE_MAPPER.parseAndSetParameter(value, addDomain, reader);
                         break;
+                    case STATISTICS_ENABLED:
+                        DomainDefinition.STATISTICS_ENABLED.parseAndSetParameter(value, addDomain, reader);
+                        break;
                     default:
                         throw unexpectedAttribute(reader, i);
                 }
@@ -185,6 +189,7 @@ class DomainParser {
         DomainDefinition.PRINCIPAL_DECODER.marshallAsAttribute(domain, writer);
         DomainDefinition.REALM_MAPPER.marshallAsAttribute(domain, writer);
         DomainDefinition.ROLE_MAPPER.marshallAsAttribute(domain, writer);
+        DomainDefinition.STATISTICS_ENABLED.marshallAsAttribute(domain, writer);
 
         List<ModelNode> realms = domain.get(REALMS).asList();
 
@@ -49,10 +49,23 @@ import org.wildfly.security.authz.RoleMapper;
  */
 class DomainService implements Service<SecurityDomain> {
 
+    /**
+     * The maximum number of principal names the realm mapping is cached for.
+     */
+    private static final int REALM_MAPPING_CACHE_SIZE = 1024;
+
+    /**
+     * The maximum number of distinct role sets the result of each role mapper is cached for.
+     */
+    static final int ROLE_MAPPING_CACHE_SIZE = 1024;
+
     private volatile SecurityDomain securityDomain;
+    private volatile AuthenticationStatistics statistics;
+    private volatile CachingRealmMapper realmMappings;
 
     private final String name;
     private final String defaultRealm;
+    private final boolean statisticsEnabled;
     private String preRealmNameRewriter;
     private String postRealmNameRewriter;
     private String roleMapper;
@@ -65,9 +78,10 @@ class DomainService implements Service<SecurityDomain> {
     private final InjectedValue<RealmMapper> realmMapperInjector = new InjectedValue<>();
     private final InjectedValue<PermissionMapper> permissionMapperInjector = new InjectedValue<>();
 
-    DomainService(final String name, final String defaultRealm) {
+    DomainService(final String name, final String defaultRealm, final boolean statisticsEnabled) {
         this.name = name;
         this.defaultRealm = defaultRealm;
+        this.statisticsEnabled = statisticsEnabled;
     }
 
     RealmDependency createRealmDependency(final String realmName) throws OperationFailedException {
@@ -155,22 +169,34 @@ class DomainService implements Service<SecurityDomain> {
             builder.setPrincipalDecoder(principalDecoder);
         }
         RealmMapper realmMapper = realmMapperInjector.getOptionalValue();
+        CachingRealmMapper realmMappings = null;
         if (realmMapper != null) {
+            // A new cache for each start, the domain is restarted if the realm mapper or any of it's delegates is reconfigured.
+            if (CachingRealmMapper.isCacheable(realmMapper)) {
+                realmMappings = new CachingRealmMapper(realmMapper, REALM_MAPPING_CACHE_SIZE);
+                realmMapper = realmMappings;
+            }
             builder.setRealmMapper(realmMapper);
         }
         PermissionMapper permissionMapper = permissionMapperInjector.getOptionalValue();
         if (permissionMapper != null) {
             builder.setPermissionMapper(permissionMapper);
         }
-        if (roleMapper != null) {
-            builder.setRoleMapper(roleMappers.get(roleMapper).getValue());
-        }
+        // Each role mapper is wrapped once so realms sharing a mapper share it's cache, the domain mapping is always wrapped so
+        // identities with equal roles share a single role set.
+        Map<String, RoleMapper> interningRoleMappers = new HashMap<>();
+        builder.setRoleMapper(roleMapper != null ? interningRoleMapper(roleMapper, interningRoleMappers) : new InterningRoleMapper(RoleMapper.IDENTITY_ROLE_MAPPER, ROLE_MAPPING_CACHE_SIZE));
 
+        AuthenticationStatistics statistics = statisticsEnabled ? new AuthenticationStatistics() : null;
         builder.setDefaultRealmName(defaultRealm);
         for (Entry<String, RealmDependency> entry : realms.entrySet()) {
             String realmName = entry.getKey();
             RealmDependency realmDependency = entry.getValue();
-            RealmBuilder realmBuilder = builder.addRealm(realmName, realmDependency.securityRealmInjector.getValue());
+            SecurityRealm securityRealm = realmDependency.securityRealmInjector.getValue();
+            if (statistics != null) {
+                securityRealm = statistics.wrap(realmName, securityRealm);
+            }
+            RealmBuilder realmBuilder = builder.addRealm(realmName, securityRealm);
             if (realmDependency.nameRewriter != null) {
                 realmBuilder.setNameRewriter(nameRewriters.get(realmDependency.nameRewriter).getValue());
             }
@@ -181,16 +207,29 @@ class DomainService implements Service<SecurityDomain> {
                 }
             }
             if (realmDependency.roleMapper != null) {
-                realmBuilder.setRoleMapper(roleMappers.get(realmDependency.roleMapper).getValue());
+                realmBuilder.setRoleMapper(interningRoleMapper(realmDependency.roleMapper, interningRoleMappers));
             }
         }
 
         securityDomain = builder.build();
+        this.statistics = statistics;
+        this.realmMappings = realmMappings;
+    }
+
+    private RoleMapper interningRoleMapper(final String roleMapperName, final Map<String, RoleMapper> interningRoleMappers) {
+        return interningRoleMappers.computeIfAbsent(roleMapperName, n -> new InterningRoleMapper(roleMappers.get(n).getValue(), ROLE_MAPPING_CACHE_SIZE));
     }
 
     @Override
     public void stop(StopContext context) {
        securityDomain = null;
+       statistics = null;
+       CachingRealmMapper realmMappings = this.realmMappings;
+       if (realmMappings != null) {
+           // The domain may still be referenced, it must not keep returning mappings from the previous configuration.
+           realmMappings.clear();
+           this.realmMappings = null;
+       }
     }
 
     @Override
@@ -198,6 +237,24 @@ class DomainService implements Service<SecurityDomain> {
         return securityDomain;
     }
 
+    /**
+     * Get the authentication statistics of the domain.
+     *
+     * @return the authentication statistics or {@code null} if statistics are not enabled or the service is not started.
+     */
+    AuthenticationStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Get the cache of realm mappings of the domain.
+     *
+     * @return the cache or {@code null} if the realm mapper is not cached or the service is not started.
+     */
+    CachingRealmMapper getRealmMappings() {
+        return realmMappings;
+    }
+
     class RealmDependency {
 
         private InjectedValue<SecurityRealm> securityRealmInjector = new InjectedValue<>();
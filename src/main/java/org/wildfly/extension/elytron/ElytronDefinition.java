@@ -104,6 +104,7 @@ class ElytronDefinition extends SimpleResourceDefinition {
 
         // Permission Mapper
         resourceRegistration.registerSubModel(new CustomComponentDefinition<PermissionMapper>(PermissionMapper.class, PERMISSION_MAPPER_RUNTIME_CAPABILITY, ElytronDescriptionConstants.CUSTOM_PERMISSION_MAPPER));
+        resourceRegistration.registerSubModel(PermissionMapperDefinitions.getSimplePermissionMapper());
 
         // Principal Decoders
         resourceRegistration.registerSubModel(PrincipalDecoderDefinitions.getAggregatePrincipalDecoderDefinition());
@@ -143,6 +144,9 @@ class ElytronDefinition extends SimpleResourceDefinition {
 
         // TLS Building Blocks
         resourceRegistration.registerSubModel(new KeyStoreDefinition());
+        resourceRegistration.registerSubModel(SSLDefinitions.getKeyManagerDefinition());
+        resourceRegistration.registerSubModel(SSLDefinitions.getTrustManagerDefinition());
+        resourceRegistration.registerSubModel(SSLDefinitions.getServerSSLContextDefinition());
     }
 
     static ServiceBuilder<?> commonDependencies(ServiceBuilder<?> serviceBuilder) {
@@ -188,12 +192,14 @@ class ElytronDefinition extends SimpleResourceDefinition {
             ServiceTarget target = context.getServiceTarget();
             installService(SecurityPropertyService.SERVICE_NAME, new SecurityPropertyService(), target);
             installService(CoreService.SERVICE_NAME, new CoreService(), target);
+            installService(SharedKeyStoreRegistry.SERVICE_NAME, new SharedKeyStoreRegistry(), target);
         }
 
         @Override
         protected void rollbackRuntime(OperationContext context, ModelNode operation, Resource resource) {
             uninstallSecurityPropertyService(context);
             context.removeService(CoreService.SERVICE_NAME);
+            context.removeService(SharedKeyStoreRegistry.SERVICE_NAME);
         }
 
     }
@@ -210,6 +216,7 @@ class ElytronDefinition extends SimpleResourceDefinition {
                 context.attach(SECURITY_PROPERTY_SERVICE_KEY, securityPropertyService);
             }
             context.removeService(CoreService.SERVICE_NAME);
+            context.removeService(SharedKeyStoreRegistry.SERVICE_NAME);
         }
 
         @Override
@@ -221,6 +228,7 @@ class ElytronDefinition extends SimpleResourceDefinition {
                 installService(SecurityPropertyService.SERVICE_NAME, securityPropertyService, target);
             }
             installService(CoreService.SERVICE_NAME, new CoreService(), target);
+            installService(SharedKeyStoreRegistry.SERVICE_NAME, new SharedKeyStoreRegistry(), target);
         }
 
     }
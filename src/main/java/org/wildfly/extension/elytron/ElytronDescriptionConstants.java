@@ -25,6 +25,7 @@ package org.wildfly.extension.elytron;
  */
 interface ElytronDescriptionConstants {
 
+    String ACTION = "action";
     String ADD_ATTRIBUTE = "add-attribute";
     String ADD_PREFIX_ROLE_MAPPER = "add-prefix-role-mapper";
     String ADD_SUFFIX_ROLE_MAPPER = "add-suffix-role-mapper";
@@ -36,24 +37,35 @@ interface ElytronDescriptionConstants {
     String AGGREGATE_SASL_SERVER_FACTORY = "aggregate-sasl-server-factory";
     String ALIAS = "alias";
     String ALGORITHM = "algorithm";
+    String ALGORITHMS = "algorithms";
     String AND = "and";
     String AS_RDN = "as-rdn";
     String ATTRIBUTE = "attribute";
     String ATTRIBUTE_MAPPING = "attribute-mapping";
     String ATTRIBUTES = "attributes";
+    String AUTHENTICATION_ATTEMPTS = "authentication-attempts";
+    String AUTHENTICATION_FAILURES = "authentication-failures";
+    String AUTHENTICATION_LATENCY_P50 = "authentication-latency-p50";
+    String AUTHENTICATION_LATENCY_P95 = "authentication-latency-p95";
+    String AUTHENTICATION_LATENCY_P99 = "authentication-latency-p99";
     String AUTHENTICATION_LEVEL = "authentication-level";
     String AUTHENTICATION_QUERY = "authentication-query";
     String AUTHENTICATION_REALM = "authentication-realm";
+    String AUTHENTICATION_SUCCESSES = "authentication-successes";
     String AUTHORIZATION_REALM = "authorization-realm";
+    String AVERAGE_HANDSHAKE_TIME = "average-handshake-time";
     String AVAILABLE_MECHANISMS = "available-mechanisms";
 
     String BCRYPT = "bcrypt";
+    String BENCHMARK = "benchmark";
     String BCRYPT_MAPPER = "bcrypt-mapper";
 
     String CERTIFICATE = "certificate";
     String CERTIFICATE_CHAIN = "certificate-chain";
+    String CERTIFICATE_LOOKUP = "certificate-lookup";
     String CERTIFICATES = "certificates";
     String CHAINED_NAME_REWRITER = "chained-name-rewriter";
+    String CIPHER_SUITES = "cipher-suites";
     String CLASS_LOADING = "class-loading";
     String CLASS_NAME = "class-name";
     String CLASS_NAMES = "class-names";
@@ -69,6 +81,9 @@ interface ElytronDescriptionConstants {
     String CONSTANT_ROLE_MAPPER = "constant-role-mapper";
     String CORE_SERVICE = "core-service";
     String CREATION_DATE = "creation-date";
+    String CRL_PATH = "crl-path";
+    String CRL_REFRESH_INTERVAL = "crl-refresh-interval";
+    String CRL_RELATIVE_TO = "crl-relative-to";
     String CREDENTIAL = "credential";
     String CREDENTIALS = "credentials";
     String CUSTOM_NAME_REWRITER = "custom-name-rewriter";
@@ -80,18 +95,29 @@ interface ElytronDescriptionConstants {
     String CUSTOM_ROLE_MAPPER = "custom-role-mapper";
 
     String DATA_SOURCE = "data-source";
+    String DAYS = "days";
     String DEFAULT_REALM = "default-realm";
     String DELEGATE_REALM_MAPPER = "delegate-realm-mapper";
     String DIGEST = "digest";
     String DIR_CONTEXT = "dir-context";
+    String DURATION = "duration";
 
+    String EARLIEST_EXPIRY = "earliest-expiry";
     String EMPTY = "empty";
     String EMPTY_ROLE_DECODER = "empty-role-decoder";
     String ENABLE_CONNECTION_POOLING = "enable-connection-pooling";
     String ENABLING = "enabling";
     String ENCODED = "encoded";
+    String ENTRIES = "entries";
+    String ENTRY = "entry";
     String ENTRY_TYPE = "entry-type";
+    String EXPIRED = "expired";
+    String EXPIRING_WITHIN = "expiring-within";
+    String EXPIRY_COUNTS = "expiry-counts";
+    String EXPIRY_SCAN_INTERVAL = "expiry-scan-interval";
 
+    String FAILED = "failed";
+    String FAILURE_DESCRIPTION = "failure-description";
     String FILE = "file";
     String FILESYSTEM_REALM = "filesystem-realm";
     String FILTER = "filter";
@@ -101,10 +127,12 @@ interface ElytronDescriptionConstants {
     String FINGER_PRINTS = "finger-prints";
     String FORMAT = "format";
     String FROM = "from";
+    String FULL_HANDSHAKE_COUNT = "full-handshake-count";
 
     String GREATER_THAN = "greater-than";
     String GROUPS_PROPERTIES = "groups-properties";
 
+    String HANDSHAKE_COUNT = "handshake-count";
     String HTTP = "http";
     String HTTP_SERVER_AUTHENITCATION = "http-server-authentication";
     String HTTP_SERVER_FACTORY = "http-server-factory";
@@ -112,6 +140,8 @@ interface ElytronDescriptionConstants {
 
     String IDENTITY = "identity";
     String IMPLEMENTATION = "implementation";
+    String IMPORT_ENTRIES = "import-entries";
+    String IN_PROGRESS = "in-progress";
     String INDEX = "index";
     String INFO = "info";
     String ISSUER = "issuer";
@@ -123,16 +153,25 @@ interface ElytronDescriptionConstants {
     String JOINER = "joiner";
 
     String KEY = "key";
+    String KEY_MANAGER = "key-manager";
+    String KEY_MANAGERS = "key-managers";
+    String KEY_PASSWORD = "key-password";
     String KEYSTORE = "keystore";
     String KEYSTORE_REALM = "keystore-realm";
     String KEYSTORES = "keystores";
 
+    String LAST_STORE = "last-store";
+    String LAZY = "lazy";
     String LDAP_REALM = "ldap-realm";
     String LEFT = "left";
     String LESS_THAN = "less-than";
     String LEVELS = "levels";
+    String LIMIT = "limit";
+    String LOAD_ON_DEMAND = "load-on-demand";
     String LOAD = "load";
     String LOAD_SERVICES = "load-services";
+    String LOAD_TIME = "load-time";
+    String LOAD_TIMES = "load-times";
     String LOADED_PROVIDER = "loaded-provider";
     String LOADED_PROVIDERS = "loaded-providers";
     String LOGICAL_OPERATION = "logical-operation";
@@ -152,34 +191,48 @@ interface ElytronDescriptionConstants {
     String NAME = "name";
     String NAME_REWRITER = "name-rewriter";
     String NAME_REWRITERS = "name-rewriters";
+    String NEED_CLIENT_AUTH = "need-client-auth";
     String NOT_AFTER = "not-after";
     String NOT_BEFORE = "not-before";
 
+    String OCSP = "ocsp";
+    String OCSP_CACHE_SIZE = "ocsp-cache-size";
+    String OCSP_RESPONDER = "ocsp-responder";
+    String OCSP_SOFT_FAIL = "ocsp-soft-fail";
+    String OFFSET = "offset";
     String OID = "oid";
+    String OPERATIONS_PER_SECOND = "operations-per-second";
     String OR = "or";
+    String OUTCOME = "outcome";
 
     String PATH = "path";
     String PASSWORD = "password";
     String PASSWORD_INDEX = "password-index";
     String PATTERN = "pattern";
     String PATTERN_FILTER = "pattern-filter";
+    String PERMISSION = "permission";
     String PERMISSION_MAPPER = "permission-mapper";
+    String PERMISSION_MAPPING = "permission-mapping";
+    String PERMISSION_MAPPINGS = "permission-mappings";
     String PERMISSIONS = "permissions";
     String PLAIN_TEXT = "plain-text";
     String POST_REALM_NAME_REWRITER = "post-realm-name-rewriter";
     String PRE_REALM_NAME_REWRITER = "pre-realm-name-rewriter";
     String PREDEFINED_FILTER = "predefined-filter";
+    String PREFERRED = "preferred";
     String PREFIX = "prefix";
     String PRINCIPAL = "principal";
     String PRINCIPAL_DECODER = "principal-decoder";
     String PRINCIPAL_DECODERS = "principal-decoders";
     String PRINCIPAL_MAPPING = "principal-mapping";
     String PRINCIPAL_QUERY = "principal-query";
+    String PRIVATE_KEY = "private-key";
     String PROPERTIES = "properties";
     String PROPERTIES_REALM = "properties-realm";
     String PROPERTY = "property";
     String PROPERTY_LIST = "property-list";
     String PROTOCOL = "protocol";
+    String PROTOCOLS = "protocols";
     String PROVIDER = "provider";
     String PROVIDER_HTTP_SERVER_FACTORY = "provider-http-server-factory";
     String PROVIDER_LOADER = "provider-loader";
@@ -191,20 +244,24 @@ interface ElytronDescriptionConstants {
     String PUBLIC_KEY = "public-key";
 
     String RDN_IDENTIFIER = "rdn-identifier";
+    String READ_ALIASES = "read-aliases";
     String READ_IDENTITY = "read-identity";
     String REALM = "realm";
     String REALM_MAP = "realm-map";
     String REALM_MAPPER = "realm-mapper";
     String REALM_MAPPING = "realm-mapping";
+    String REALM_STATISTICS = "realm-statistics";
     String REALMS = "realms";
     String REGEX_NAME_REWRITER = "regex-name-rewriter";
     String REGEX_NAME_VALIDATING_REWRITER = "regex-name-validating-rewriter";
     String REGISTER = "register";
     String RELATIVE_TO = "relative-to";
     String REMOVE_ATTRIBUTE = "remove-attribute";
+    String REORDER = "reorder";
     String REPLACE_ALL = "replace-all";
     String REPLACEMENT = "replacement";
     String REQUIRED = "required";
+    String RESUMED_HANDSHAKE_COUNT = "resumed-handshake-count";
     String RIGHT = "right";
     String ROLE_DECODER = "role-decoder";
     String ROLE_MAPPER = "role-mapper";
@@ -226,30 +283,43 @@ interface ElytronDescriptionConstants {
     String SECURITY_PROPERTIES = "security-properties";
     String SECURITY_PROPERTY = "security-property";
     String SECURITY_REALMS = "security-realms";
+    String SERVER_SSL_CONTEXT = "server-ssl-context";
+    String SERVER_SSL_CONTEXTS = "server-ssl-contexts";
     String SERVER_NAME = "server-name";
     String SERIAL_NUMBER = "serial-number";
     String SET_PASSWORD = "set-password";
     String SERVICE = "service";
     String SERVICE_LOADER_HTTP_SERVER_FACTORY = "service-loader-http-server-factory";
     String SERVICE_LOADER_SASL_SERVER_FACTORY = "service-loader-sasl-server-factory";
+    String SESSION_CACHE_SIZE = "session-cache-size";
+    String SESSION_TIMEOUT = "session-timeout";
     String SERVICES = "services";
+    String SHARED_KEYSTORE_REGISTRY = "shared-keystore-registry";
     String SIGNATURE = "signature";
     String SIGNATURE_ALGORITHM = "signature-algorithm";
     String SIMPLE_DIGEST = "simple-digest";
     String SIMPLE_DIGEST_MAPPER = "simple-digest-mapper";
+    String SIMPLE_PERMISSION_MAPPER = "simple-permission-mapper";
     String SIMPLE_REGEX_REALM_MAPPER = "simple-regex-realm-mapper";
     String SIMPLE_ROLE_DECODER = "simple-role-decoder";
     String SIZE = "size";
     String SLOT = "slot";
+    String SNI_SELECTION = "sni-selection";
     String SQL = "sql";
     String STATE = "state";
+    String STATISTICS_ENABLED = "statistics-enabled";
     String STORE = "store";
     String SUBJECT = "subject";
+    String SUCCESS = "success";
     String SUFFIX = "suffix";
     String SYNCHRONIZED = "synchronized";
 
+    String TARGET_NAME = "target-name";
+    String TIME = "time";
     String TLS = "tls";
     String TO = "to";
+    String TRUST_MANAGER = "trust-manager";
+    String TRUST_MANAGERS = "trust-managers";
     String TYPE = "type";
 
     String UNSET_PASSWORD = "unset-password";
@@ -257,11 +327,18 @@ interface ElytronDescriptionConstants {
     String USE_RECURSIVE_SEARCH = "use-recursive-search";
     String USERS_PROPERTIES = "users-properties";
 
+    String VALIDATION_CACHE_SIZE = "validation-cache-size";
+    String VALIDATION_CACHE_TIMEOUT = "validation-cache-timeout";
     String VALUE = "value";
     String VERSION = "version";
     String VERSION_COMPARISON = "version-comparison";
 
     String WATCH = "watch";
+    String WANT_CLIENT_AUTH = "want-client-auth";
+    String WITHIN_30_DAYS = "within-30-days";
+    String WITHIN_7_DAYS = "within-7-days";
+    String WITHIN_90_DAYS = "within-90-days";
+    String WRITE_PROVIDER_INDEX = "write-provider-index";
 
     String X500_ATTRIBUTE_PRINCIPAL_DECODER = "x500-attribute-principal-decoder";
     String XOR = "xor";
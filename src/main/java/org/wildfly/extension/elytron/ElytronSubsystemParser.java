@@ -34,6 +34,7 @@ import static org.wildfly.extension.elytron.ElytronDescriptionConstants.HTTP;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.KEY;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.KEYSTORE;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.KEYSTORES;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.KEY_MANAGERS;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.MAPPERS;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.MODULE;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.NAME;
@@ -46,8 +47,11 @@ import static org.wildfly.extension.elytron.ElytronDescriptionConstants.SECURITY
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.SECURITY_PROPERTIES;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.SECURITY_PROPERTY;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.SECURITY_REALMS;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.SERVER_SSL_CONTEXT;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.SERVER_SSL_CONTEXTS;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.SLOT;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.TLS;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.TRUST_MANAGERS;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.VALUE;
 import static org.wildfly.extension.elytron.ElytronExtension.NAMESPACE;
 
@@ -205,12 +209,26 @@ class ElytronSubsystemParser implements XMLElementReader<List<ModelNode>>, XMLEl
     private void readTls(ModelNode parentAddress, XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
         requireNoAttributes(reader);
         boolean keyStoresFound = false;
+        boolean keyManagersFound = false;
+        boolean trustManagersFound = false;
+        boolean serverSSLContextsFound = false;
         while(reader.hasNext() && reader.nextTag() != END_ELEMENT) {
             verifyNamespace(reader);
             String localName = reader.getLocalName();
-            if (KEYSTORES.equals(localName) && keyStoresFound == false) {
+            if (KEYSTORES.equals(localName) && keyStoresFound == false && keyManagersFound == false && trustManagersFound == false
+                    && serverSSLContextsFound == false) {
                 keyStoresFound = true;
                 tlsParser.readKeyStores(parentAddress, reader, operations);
+            } else if (KEY_MANAGERS.equals(localName) && keyManagersFound == false && trustManagersFound == false
+                    && serverSSLContextsFound == false) {
+                keyManagersFound = true;
+                tlsParser.readKeyManagers(parentAddress, reader, operations);
+            } else if (TRUST_MANAGERS.equals(localName) && trustManagersFound == false && serverSSLContextsFound == false) {
+                trustManagersFound = true;
+                tlsParser.readTrustManagers(parentAddress, reader, operations);
+            } else if (SERVER_SSL_CONTEXTS.equals(localName) && serverSSLContextsFound == false) {
+                serverSSLContextsFound = true;
+                tlsParser.readServerSSLContexts(parentAddress, reader, operations);
             } else {
                 throw unexpectedElement(reader);
             }
@@ -385,6 +403,9 @@ class ElytronSubsystemParser implements XMLElementReader<List<ModelNode>>, XMLEl
         boolean hasTlsContent = false;
         boolean hasKeyStore = model.hasDefined(KEYSTORE);
         hasTlsContent = hasTlsContent || hasKeyStore;
+        hasTlsContent = hasTlsContent || model.hasDefined(KEY_MANAGERS);
+        hasTlsContent = hasTlsContent || model.hasDefined(TRUST_MANAGERS);
+        hasTlsContent = hasTlsContent || model.hasDefined(SERVER_SSL_CONTEXT);
 
         if (hasTlsContent) {
             writer.writeStartElement(TLS);
@@ -397,6 +418,9 @@ class ElytronSubsystemParser implements XMLElementReader<List<ModelNode>>, XMLEl
                 }
                 writer.writeEndElement();
             }
+            tlsParser.writeKeyManagers(model, writer);
+            tlsParser.writeTrustManagers(model, writer);
+            tlsParser.writeServerSSLContexts(model, writer);
             writer.writeEndElement();
         }
 
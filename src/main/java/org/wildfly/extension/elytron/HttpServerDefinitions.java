@@ -235,11 +235,12 @@ class HttpServerDefinitions {
                 String provider = asStringIfDefined(context, PROVIDER_LOADER, model);
                 final Supplier<Provider[]> providerSupplier;
                 if (provider != null) {
-                    final InjectedValue<Provider[]> providersInjector = new InjectedValue<Provider[]>();
-                    serviceBuilder.addDependency(context.getCapabilityServiceName(
-                            buildDynamicCapabilityName(PROVIDERS_CAPABILITY, provider), Provider[].class),
-                            Provider[].class, providersInjector);
-                    providerSupplier = providersInjector::getValue;
+                    final InjectedValue<ProviderIndex> providerIndexInjector = new InjectedValue<ProviderIndex>();
+                    serviceBuilder.addDependency(ProviderIndex.serviceName(context.getCapabilityServiceName(
+                            buildDynamicCapabilityName(PROVIDERS_CAPABILITY, provider), Provider[].class)),
+                            ProviderIndex.class, providerIndexInjector);
+                    // Only the providers offering a mechanism factory are passed on to be searched as each mechanism is created.
+                    providerSupplier = () -> providerIndexInjector.getValue().getProviders(HttpServerAuthenticationMechanismFactory.class);
                 } else {
                     providerSupplier = Security::getProviders;
                 }
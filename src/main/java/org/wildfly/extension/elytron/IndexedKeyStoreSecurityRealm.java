@@ -0,0 +1,107 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+
+import org.wildfly.security.auth.provider.KeyStoreBackedSecurityRealm;
+import org.wildfly.security.auth.server.CredentialSupport;
+import org.wildfly.security.auth.server.RealmIdentity;
+import org.wildfly.security.auth.server.RealmUnavailableException;
+import org.wildfly.security.auth.server.SecurityRealm;
+
+/**
+ * A {@link SecurityRealm} backed by a {@link KeyStore} where principal names are resolved to aliases using the
+ * {@link KeyStoreAliasIndex} of the current {@link KeyStoreSnapshot}.
+ *
+ * Where certificate lookup is enabled a name can be an alias, the subject distinguished name of a certificate or the SHA-256
+ * finger print of a certificate, otherwise names are only ever aliases. Names not found in the index are passed to the
+ * {@link KeyStore} unchanged so any lookup it supports natively still succeeds. The delegate realm is created again over the
+ * {@link KeyStore} of each new snapshot so a name is always resolved and looked up against the same version of the content.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+class IndexedKeyStoreSecurityRealm implements SecurityRealm {
+
+    private final KeyStore keyStore;
+    private final boolean certificateLookup;
+    private volatile Delegate delegate;
+
+    IndexedKeyStoreSecurityRealm(final KeyStore keyStore, final boolean certificateLookup) {
+        this.keyStore = keyStore;
+        this.certificateLookup = certificateLookup;
+        KeyStoreSnapshot snapshot = KeyStoreSnapshot.current(keyStore);
+        this.delegate = snapshot != null ? new Delegate(snapshot) : new Delegate(null, keyStore);
+    }
+
+    /**
+     * Get the delegate for the current snapshot of the {@link KeyStore}, if a new version has been published since the
+     * delegate was created a new delegate is created.
+     */
+    private Delegate delegate() {
+        Delegate delegate = this.delegate;
+        KeyStoreSnapshot snapshot = KeyStoreSnapshot.current(keyStore);
+        if (snapshot == null || snapshot == delegate.snapshot) {
+            return delegate;
+        }
+
+        delegate = new Delegate(snapshot);
+        this.delegate = delegate;
+        return delegate;
+    }
+
+    @Override
+    public RealmIdentity createRealmIdentity(String name) throws RealmUnavailableException {
+        Delegate delegate = delegate();
+        if (certificateLookup && delegate.snapshot != null) {
+            try {
+                KeyStoreAliasIndex.Entry entry = delegate.snapshot.getAliasIndex().resolve(name);
+                if (entry != null) {
+                    return delegate.securityRealm.createRealmIdentity(entry.getAlias());
+                }
+            } catch (KeyStoreException e) {
+                throw new RealmUnavailableException(e);
+            }
+        }
+
+        return delegate.securityRealm.createRealmIdentity(name);
+    }
+
+    @Override
+    public CredentialSupport getCredentialSupport(Class<?> credentialType, String algorithmName) throws RealmUnavailableException {
+        return delegate().securityRealm.getCredentialSupport(credentialType, algorithmName);
+    }
+
+    private static final class Delegate {
+
+        private final KeyStoreSnapshot snapshot;
+        private final SecurityRealm securityRealm;
+
+        Delegate(final KeyStoreSnapshot snapshot) {
+            this(snapshot, snapshot.getKeyStore());
+        }
+
+        Delegate(final KeyStoreSnapshot snapshot, final KeyStore keyStore) {
+            this.snapshot = snapshot;
+            this.securityRealm = new KeyStoreBackedSecurityRealm(keyStore);
+        }
+    }
+
+}
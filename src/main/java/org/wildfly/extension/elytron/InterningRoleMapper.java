@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.wildfly.security.authz.RoleMapper;
+
+/**
+ * A {@link RoleMapper} caching the roles the delegate maps each distinct set of roles to, the cached results are shared
+ * by all identities with an equal set of roles so equal role sets are only held once.
+ *
+ * A {@link RoleMapper} only receives the roles to map so the result is expected to depend on the roles alone. Cached results
+ * are read without locking, adding a result is synchronized so the number of cached results never exceeds the maximum.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+class InterningRoleMapper implements RoleMapper {
+
+    private final RoleMapper delegate;
+    private final int maximumSize;
+    private final Map<Set<String>, Set<String>> mappings = new ConcurrentHashMap<>();
+
+    InterningRoleMapper(final RoleMapper delegate, final int maximumSize) {
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+    }
+
+    @Override
+    public Set<String> mapRoles(Set<String> rolesToMap) {
+        if (rolesToMap == null) {
+            return delegate.mapRoles(rolesToMap);
+        }
+
+        Set<String> mappedRoles = mappings.get(rolesToMap);
+        if (mappedRoles == null) {
+            // The key is copied as the set passed in may be modified by the caller.
+            Set<String> key = Collections.unmodifiableSet(new HashSet<>(rolesToMap));
+            Set<String> result = delegate.mapRoles(key);
+            if (result == null) {
+                return null;
+            }
+
+            mappedRoles = Collections.unmodifiableSet(new HashSet<>(result));
+            synchronized (mappings) {
+                Set<String> existing = mappings.get(key);
+                if (existing != null) {
+                    return existing;
+                }
+                if (mappings.size() >= maximumSize) {
+                    evict();
+                }
+                mappings.put(key, mappedRoles);
+            }
+        }
+
+        return mappedRoles;
+    }
+
+    int size() {
+        return mappings.size();
+    }
+
+    /**
+     * Discard arbitrary mappings to make space.
+     */
+    private void evict() {
+        Iterator<Set<String>> roleSets = mappings.keySet().iterator();
+        while (mappings.size() >= maximumSize && roleSets.hasNext()) {
+            roleSets.next();
+            roleSets.remove();
+        }
+    }
+
+}
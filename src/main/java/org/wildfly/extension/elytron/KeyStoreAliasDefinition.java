@@ -21,8 +21,6 @@ package org.wildfly.extension.elytron;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
 import static org.wildfly.extension.elytron.CertificateChainAttributeDefintions.CERTIFICATE;
 import static org.wildfly.extension.elytron.CertificateChainAttributeDefintions.CERTIFICATE_CHAIN;
-import static org.wildfly.extension.elytron.CertificateChainAttributeDefintions.writeCertificate;
-import static org.wildfly.extension.elytron.CertificateChainAttributeDefintions.writeCertificateChain;
 import static org.wildfly.extension.elytron.KeyStoreDefinition.ISO_8601_FORMAT;
 import static org.wildfly.extension.elytron._private.ElytronSubsystemMessages.ROOT_LOGGER;
 
@@ -86,8 +84,12 @@ class KeyStoreAliasDefinition extends SimpleResourceDefinition {
                 String alias = alias(operation);
 
                 Date creationDate;
+                KeyStoreSnapshot snapshot = keyStoreService.getLoadedSnapshot();
+                if (snapshot == null) {
+                    return;
+                }
                 try {
-                    creationDate = keyStoreService.getValue().getCreationDate(alias);
+                    creationDate = snapshot.getKeyStore().getCreationDate(alias);
                 } catch (KeyStoreException | RuntimeException e) {
                     ROOT_LOGGER.tracef(e, "Unable to populate %s", CREATION_DATE);
                     return;
@@ -104,20 +106,13 @@ class KeyStoreAliasDefinition extends SimpleResourceDefinition {
             @Override
             protected void performRuntime(ModelNode result, ModelNode operation, KeyStoreService keyStoreService)
                     throws OperationFailedException {
-                KeyStore keyStore = keyStoreService.getValue();
+                KeyStoreSnapshot snapshot = keyStoreService.getLoadedSnapshot();
+                if (snapshot == null) {
+                    return;
+                }
                 String alias = alias(operation);
                 try {
-                    if (keyStore.entryInstanceOf(alias, PrivateKeyEntry.class)) {
-                        result.set(PrivateKeyEntry.class.getSimpleName());
-                    } else if (keyStore.entryInstanceOf(alias, SecretKeyEntry.class)) {
-                        result.set(SecretKeyEntry.class.getSimpleName());
-                    } else if (keyStore.entryInstanceOf(alias, TrustedCertificateEntry.class)) {
-                        result.set(TrustedCertificateEntry.class.getSimpleName());
-                    } else if (keyStore.entryInstanceOf(alias, PasswordEntry.class)) {
-                        result.set(PasswordEntry.class.getSimpleName());
-                    } else {
-                        result.set("Other");
-                    }
+                    result.set(entryType(snapshot.getKeyStore(), alias));
                 } catch (KeyStoreException | RuntimeException e) {
                     ROOT_LOGGER.tracef(e, "Unable to populate %s", ENTRY_TYPE);
                     return;
@@ -132,13 +127,17 @@ class KeyStoreAliasDefinition extends SimpleResourceDefinition {
             protected void performRuntime(ModelNode result, ModelNode operation, KeyStoreService keyStoreService) throws OperationFailedException {
                 String alias = alias(operation);
 
-                KeyStore keyStore = keyStoreService.getValue();
+                KeyStoreSnapshot snapshot = keyStoreService.getLoadedSnapshot();
+                if (snapshot == null) {
+                    return;
+                }
+                KeyStore keyStore = snapshot.getKeyStore();
                 // If we have a certificate chain don't waste time reporting what would just be the first cert in the chain.
                 try {
                     if (keyStore.getCertificateChain(alias) == null) {
                         Certificate cert = keyStore.getCertificate(alias);
                         if (cert != null) {
-                            writeCertificate(result, cert);
+                            result.set(snapshot.getCertificateModel(cert));
                         }
                     }
                 } catch (KeyStoreException | NoSuchAlgorithmException| RuntimeException | CertificateEncodingException e) {
@@ -154,11 +153,16 @@ class KeyStoreAliasDefinition extends SimpleResourceDefinition {
             protected void performRuntime(ModelNode result, ModelNode operation, KeyStoreService keyStoreService) throws OperationFailedException {
                 String alias = alias(operation);
 
-                KeyStore keyStore = keyStoreService.getValue();
+                KeyStoreSnapshot snapshot = keyStoreService.getLoadedSnapshot();
+                if (snapshot == null) {
+                    return;
+                }
                 try {
-                    Certificate[] chain = keyStore.getCertificateChain(alias);
+                    Certificate[] chain = snapshot.getKeyStore().getCertificateChain(alias);
                     if (chain != null) {
-                        writeCertificateChain(result, chain);
+                        for (Certificate current : chain) {
+                            result.add(snapshot.getCertificateModel(current));
+                        }
                     }
 
                 } catch (KeyStoreException | CertificateEncodingException | NoSuchAlgorithmException | RuntimeException e) {
@@ -170,6 +174,29 @@ class KeyStoreAliasDefinition extends SimpleResourceDefinition {
     }
 
 
+    /**
+     * Identify the type of the entry for the specified alias, the types are as listed in the allowed values of
+     * {@link #ENTRY_TYPE}.
+     *
+     * @param keyStore the {@link KeyStore} containing the entry.
+     * @param alias the alias of the entry.
+     * @return the type of the entry.
+     * @throws KeyStoreException
+     */
+    static String entryType(KeyStore keyStore, String alias) throws KeyStoreException {
+        if (keyStore.entryInstanceOf(alias, PrivateKeyEntry.class)) {
+            return PrivateKeyEntry.class.getSimpleName();
+        } else if (keyStore.entryInstanceOf(alias, SecretKeyEntry.class)) {
+            return SecretKeyEntry.class.getSimpleName();
+        } else if (keyStore.entryInstanceOf(alias, TrustedCertificateEntry.class)) {
+            return TrustedCertificateEntry.class.getSimpleName();
+        } else if (keyStore.entryInstanceOf(alias, PasswordEntry.class)) {
+            return PasswordEntry.class.getSimpleName();
+        } else {
+            return "Other";
+        }
+    }
+
     static String alias(ModelNode operation) {
         String aliasName = null;
         PathAddress pa = PathAddress.pathAddress(operation.require(OP_ADDR));
@@ -196,15 +223,7 @@ class KeyStoreAliasDefinition extends SimpleResourceDefinition {
 
         @Override
         protected void performRuntime(ModelNode result, ModelNode operation, KeyStoreService keyStoreService) throws OperationFailedException {
-            String alias = alias(operation);
-
-            KeyStore keyStore = keyStoreService.getModifiableValue();
-
-            try {
-                keyStore.deleteEntry(alias);
-            } catch (KeyStoreException e) {
-                throw new OperationFailedException(e);
-            }
+            keyStoreService.removeEntry(alias(operation));
         }
 
     }
@@ -0,0 +1,356 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.wildfly.extension.elytron.CertificateChainAttributeDefintions.fingerPrint;
+import static org.wildfly.extension.elytron.KeyStoreAliasDefinition.entryType;
+import static org.wildfly.extension.elytron._private.ElytronSubsystemMessages.ROOT_LOGGER;
+
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.security.auth.x500.X500Principal;
+
+/**
+ * An immutable index of the aliases within a {@link KeyStoreSnapshot}, ordered both by alias and by certificate expiry and
+ * hashed by alias, certificate subject and certificate finger print.
+ *
+ * The index is built in a single pass over the {@link KeyStore} so that management reads of large stores and principal
+ * lookups do not need to enumerate the {@link KeyStore} again for each request.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+final class KeyStoreAliasIndex {
+
+    private static final Comparator<Entry> EXPIRY_ORDER = Comparator.comparingLong(Entry::getNotAfterTime);
+    private static final int FINGER_PRINT_LENGTH = 64;
+
+    private final NavigableMap<String, Entry> entries;
+    private final Entry[] byExpiry;
+    private final Map<String, List<Entry>> byCertificate;
+
+    private KeyStoreAliasIndex(final NavigableMap<String, Entry> entries) {
+        this.entries = Collections.unmodifiableNavigableMap(entries);
+
+        // A subject may be repeated, e.g. a certificate and its renewal, so every match is retained and selected at lookup.
+        Map<String, List<Entry>> byCertificate = new HashMap<>(entries.size() * 4);
+        for (Entry current : entries.values()) {
+            if (current.getSubject() != null) {
+                byCertificate.computeIfAbsent(current.getSubject(), k -> new ArrayList<>(1)).add(current);
+            }
+            if (current.getFingerPrint() != null) {
+                byCertificate.computeIfAbsent(normalizeFingerPrint(current.getFingerPrint()), k -> new ArrayList<>(1)).add(current);
+            }
+        }
+        this.byCertificate = byCertificate;
+
+        List<Entry> expiring = new ArrayList<>(entries.size());
+        for (Entry current : entries.values()) {
+            if (current.hasCertificateValidity()) {
+                expiring.add(current);
+            }
+        }
+        byExpiry = expiring.toArray(new Entry[expiring.size()]);
+        Arrays.sort(byExpiry, EXPIRY_ORDER);
+    }
+
+    static KeyStoreAliasIndex create(final KeyStore keyStore) throws KeyStoreException {
+        NavigableMap<String, Entry> entries = new TreeMap<>();
+        Enumeration<String> aliases = keyStore.aliases();
+        while (aliases.hasMoreElements()) {
+            String alias = aliases.nextElement();
+            entries.put(alias, createEntry(keyStore, alias));
+        }
+
+        return new KeyStoreAliasIndex(entries);
+    }
+
+    /**
+     * Create a new index from this index, only the supplied aliases are read from the {@link KeyStore} again.
+     *
+     * @param keyStore the {@link KeyStore} with the changed content.
+     * @param changed the aliases which have been added, replaced or removed since this index was created.
+     * @return the new index.
+     * @throws KeyStoreException if the {@link KeyStore} can not be read.
+     */
+    KeyStoreAliasIndex withChanges(final KeyStore keyStore, final Collection<String> changed) throws KeyStoreException {
+        NavigableMap<String, Entry> entries = new TreeMap<>(this.entries);
+        for (String alias : changed) {
+            if (keyStore.containsAlias(alias)) {
+                entries.put(alias, createEntry(keyStore, alias));
+            } else {
+                entries.remove(alias);
+            }
+        }
+
+        return new KeyStoreAliasIndex(entries);
+    }
+
+    private static Entry createEntry(final KeyStore keyStore, final String alias) throws KeyStoreException {
+        Certificate certificate = keyStore.getCertificate(alias);
+        Date notBefore = null;
+        Date notAfter = null;
+        String subject = null;
+        if (certificate instanceof X509Certificate) {
+            X509Certificate x509Certificate = (X509Certificate) certificate;
+            notBefore = x509Certificate.getNotBefore();
+            notAfter = x509Certificate.getNotAfter();
+            subject = x509Certificate.getSubjectX500Principal().getName(X500Principal.CANONICAL);
+        }
+        String fingerPrint = null;
+        if (certificate != null) {
+            try {
+                fingerPrint = fingerPrint(certificate);
+            } catch (CertificateEncodingException | NoSuchAlgorithmException e) {
+                ROOT_LOGGER.tracef(e, "Unable to obtain finger print for alias '%s'", alias);
+            }
+        }
+
+        return new Entry(alias, entryType(keyStore, alias), notBefore, notAfter, subject, fingerPrint);
+    }
+
+    boolean contains(final String alias) {
+        return entries.containsKey(alias);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    Set<String> getAliases() {
+        return entries.navigableKeySet();
+    }
+
+    /**
+     * Resolve the entry for a name which may be an alias, the subject distinguished name of a certificate or the SHA-256
+     * finger print of a certificate, with or without delimiters.
+     *
+     * Aliases take precedence. A certificate name only resolves to an entry with a currently valid certificate, where it matches
+     * more than one such entry the entry with the latest expiry is selected, if no single entry can be selected the name is
+     * ambiguous and is not resolved.
+     *
+     * @param name the name to resolve.
+     * @return the matching entry or {@code null} if there is no valid match or the match is ambiguous.
+     */
+    Entry resolve(final String name) {
+        Entry entry = entries.get(name);
+        if (entry != null) {
+            return entry;
+        }
+
+        List<Entry> candidates = byCertificate.get(name);
+        if (candidates == null && name.indexOf('=') > 0) {
+            try {
+                candidates = byCertificate.get(new X500Principal(name).getName(X500Principal.CANONICAL));
+            } catch (IllegalArgumentException e) {
+                // Not a distinguished name.
+            }
+        }
+        if (candidates == null && name.length() >= FINGER_PRINT_LENGTH) {
+            candidates = byCertificate.get(normalizeFingerPrint(name));
+        }
+        if (candidates == null) {
+            return null;
+        }
+
+        entry = select(candidates, System.currentTimeMillis());
+        if (entry == null) {
+            ROOT_LOGGER.tracef("Name '%s' matches %d entries none of which can be selected", name, candidates.size());
+        }
+        return entry;
+    }
+
+    private static Entry select(final List<Entry> candidates, final long now) {
+        Entry selected = null;
+        boolean ambiguous = false;
+        for (Entry current : candidates) {
+            if (current.isValid(now) == false) {
+                continue;
+            }
+            int compared = selected == null ? 1 : Long.compare(current.getNotAfterTime(), selected.getNotAfterTime());
+            if (compared > 0) {
+                selected = current;
+                ambiguous = false;
+            } else if (compared == 0) {
+                ambiguous = true;
+            }
+        }
+
+        return ambiguous ? null : selected;
+    }
+
+    private static String normalizeFingerPrint(final String fingerPrint) {
+        StringBuilder sb = new StringBuilder(FINGER_PRINT_LENGTH);
+        for (int i = 0; i < fingerPrint.length(); i++) {
+            char c = fingerPrint.charAt(i);
+            if (c != ':') {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Get the entries with aliases starting with the supplied prefix, in alias order.
+     *
+     * @param prefix the prefix the aliases must start with or {@code null} for all entries.
+     * @return the matching entries.
+     */
+    Collection<Entry> getEntries(final String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return entries.values();
+        }
+
+        return entries.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+    }
+
+    /**
+     * Get the earliest expiry of any certificate in the index.
+     *
+     * @return the earliest expiry or {@code null} if no entries have an X.509 certificate.
+     */
+    Date getEarliestExpiry() {
+        return byExpiry.length > 0 ? byExpiry[0].getNotAfter() : null;
+    }
+
+    /**
+     * Count the entries with a certificate that expires before the specified time, this includes certificates that have
+     * already expired.
+     *
+     * @param time the time in milliseconds since the epoch.
+     * @return the number of entries expiring before the specified time.
+     */
+    int countExpiringBefore(final long time) {
+        int low = 0;
+        int high = byExpiry.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (byExpiry[mid].getNotAfterTime() < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the entries with a certificate that expires before the specified time ordered by expiry, this includes
+     * certificates that have already expired.
+     *
+     * @param time the time in milliseconds since the epoch.
+     * @return the entries expiring before the specified time.
+     */
+    List<Entry> getExpiringBefore(final long time) {
+        return Collections.unmodifiableList(Arrays.asList(byExpiry).subList(0, countExpiringBefore(time)));
+    }
+
+    static final class Entry {
+
+        private final String alias;
+        private final String entryType;
+        // Held as times as the ordering of the index depends on them, Date is mutable.
+        private final boolean validity;
+        private final long notBefore;
+        private final long notAfter;
+        private final String subject;
+        private final String fingerPrint;
+
+        private Entry(final String alias, final String entryType, final Date notBefore, final Date notAfter, final String subject, final String fingerPrint) {
+            this.alias = alias;
+            this.entryType = entryType;
+            this.validity = notBefore != null && notAfter != null;
+            this.notBefore = validity ? notBefore.getTime() : 0;
+            this.notAfter = validity ? notAfter.getTime() : 0;
+            this.subject = subject;
+            this.fingerPrint = fingerPrint;
+        }
+
+        String getAlias() {
+            return alias;
+        }
+
+        String getEntryType() {
+            return entryType;
+        }
+
+        /**
+         * Get the expiry of the certificate for this entry.
+         *
+         * @return the expiry of the certificate for this entry or {@code null} if there is no X.509 certificate.
+         */
+        Date getNotAfter() {
+            return validity ? new Date(notAfter) : null;
+        }
+
+        boolean hasCertificateValidity() {
+            return validity;
+        }
+
+        long getNotAfterTime() {
+            return notAfter;
+        }
+
+        /**
+         * Check if the certificate for this entry is valid at the specified time.
+         *
+         * @param time the time in milliseconds since the epoch.
+         * @return {@code true} if there is an X.509 certificate valid at the specified time, {@code false} otherwise.
+         */
+        boolean isValid(final long time) {
+            return validity && notBefore <= time && time <= notAfter;
+        }
+
+        /**
+         * Get the canonical subject distinguished name of the certificate for this entry.
+         *
+         * @return the subject of the certificate for this entry or {@code null} if there is no X.509 certificate.
+         */
+        String getSubject() {
+            return subject;
+        }
+
+        /**
+         * Get the SHA-256 finger print of the certificate for this entry.
+         *
+         * @return the finger print of the certificate for this entry or {@code null} if there is no certificate.
+         */
+        String getFingerPrint() {
+            return fingerPrint;
+        }
+    }
+
+}
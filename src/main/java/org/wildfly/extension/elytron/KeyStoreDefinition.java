@@ -32,20 +32,39 @@ import static org.wildfly.extension.elytron.FileAttributeDefinitions.RELATIVE_TO
 import static org.wildfly.extension.elytron.FileAttributeDefinitions.pathName;
 import static org.wildfly.extension.elytron.ProviderAttributeDefinition.LOADED_PROVIDER;
 import static org.wildfly.extension.elytron.ProviderAttributeDefinition.populateProvider;
-import static org.wildfly.extension.elytron.ProviderLoaderDefinition.PROVIDER_LOADER_SERVICE_UTIL;
 import static org.wildfly.extension.elytron.ServiceStateDefinition.STATE;
 import static org.wildfly.extension.elytron.ServiceStateDefinition.populateResponse;
 import static org.wildfly.extension.elytron._private.ElytronSubsystemMessages.ROOT_LOGGER;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
+import java.security.PrivateKey;
 import java.security.Provider;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.spec.PKCS8EncodedKeySpec;
 import java.text.SimpleDateFormat;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
 import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.ObjectListAttributeDefinition;
+import org.jboss.as.controller.ObjectTypeAttributeDefinition;
 import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationContext.ResultAction;
+import org.jboss.as.controller.OperationContext.ResultHandler;
 import org.jboss.as.controller.OperationContext.RollbackHandler;
 import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.OperationStepHandler;
@@ -60,6 +79,9 @@ import org.jboss.as.controller.SimpleOperationDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
 import org.jboss.as.controller.capability.RuntimeCapability;
 import org.jboss.as.controller.descriptions.StandardResourceDescriptionResolver;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
+import org.jboss.as.controller.operations.validation.IntRangeValidator;
+import org.jboss.as.controller.operations.validation.LongRangeValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.OperationEntry;
@@ -74,7 +96,10 @@ import org.jboss.msc.service.ServiceController.Mode;
 import org.jboss.msc.service.ServiceController.State;
 import org.jboss.msc.service.ServiceName;
 import org.jboss.msc.service.ServiceTarget;
+import org.wildfly.extension.elytron.KeyStoreService.ExpiryScan;
+import org.wildfly.extension.elytron.KeyStoreService.ImportKey;
 import org.wildfly.extension.elytron.KeyStoreService.LoadKey;
+import org.wildfly.extension.elytron.KeyStoreService.StoreResult;
 /**
  * A {@link ResourceDefinition} for a single KeyStore.
  *
@@ -123,6 +148,27 @@ final class KeyStoreDefinition extends SimpleResourceDefinition {
         .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
         .build();
 
+    static final SimpleAttributeDefinition WATCH = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.WATCH, ModelType.BOOLEAN, true)
+        .setDefaultValue(new ModelNode(false))
+        .setAllowExpression(true)
+        .setAttributeGroup(ElytronDescriptionConstants.FILE)
+        .setRequires(ElytronDescriptionConstants.PATH)
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition EXPIRY_SCAN_INTERVAL = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.EXPIRY_SCAN_INTERVAL, ModelType.LONG, true)
+        .setAllowExpression(true)
+        .setMeasurementUnit(MeasurementUnit.MINUTES)
+        .setValidator(new LongRangeValidator(1, true))
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition LOAD_ON_DEMAND = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.LOAD_ON_DEMAND, ModelType.BOOLEAN, true)
+        .setDefaultValue(new ModelNode(false))
+        .setAllowExpression(true)
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
     // Resource Resolver
 
     static final StandardResourceDescriptionResolver RESOURCE_RESOLVER = ElytronExtension.getResourceDescriptionResolver(ElytronDescriptionConstants.KEYSTORE);
@@ -141,6 +187,36 @@ final class KeyStoreDefinition extends SimpleResourceDefinition {
         .setStorageRuntime()
         .build();
 
+    static final SimpleAttributeDefinition VERSION = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.VERSION, ModelType.LONG)
+        .setStorageRuntime()
+        .build();
+
+    static final SimpleAttributeDefinition EARLIEST_EXPIRY = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.EARLIEST_EXPIRY, ModelType.STRING)
+        .setStorageRuntime()
+        .build();
+
+    private static final SimpleAttributeDefinition OUTCOME = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.OUTCOME, ModelType.STRING).build();
+
+    private static final SimpleAttributeDefinition TIME = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.TIME, ModelType.STRING).build();
+
+    private static final SimpleAttributeDefinition FAILURE_DESCRIPTION = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.FAILURE_DESCRIPTION, ModelType.STRING, true).build();
+
+    static final ObjectTypeAttributeDefinition LAST_STORE = new ObjectTypeAttributeDefinition.Builder(ElytronDescriptionConstants.LAST_STORE, OUTCOME, TIME, FAILURE_DESCRIPTION)
+        .setStorageRuntime()
+        .build();
+
+    private static final SimpleAttributeDefinition EXPIRED = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.EXPIRED, ModelType.INT).build();
+
+    private static final SimpleAttributeDefinition WITHIN_7_DAYS = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.WITHIN_7_DAYS, ModelType.INT).build();
+
+    private static final SimpleAttributeDefinition WITHIN_30_DAYS = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.WITHIN_30_DAYS, ModelType.INT).build();
+
+    private static final SimpleAttributeDefinition WITHIN_90_DAYS = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.WITHIN_90_DAYS, ModelType.INT).build();
+
+    static final ObjectTypeAttributeDefinition EXPIRY_COUNTS = new ObjectTypeAttributeDefinition.Builder(ElytronDescriptionConstants.EXPIRY_COUNTS, EXPIRED, WITHIN_7_DAYS, WITHIN_30_DAYS, WITHIN_90_DAYS)
+        .setStorageRuntime()
+        .build();
+
     // Operations
 
     static final SimpleOperationDefinition LOAD = new SimpleOperationDefinitionBuilder(ElytronDescriptionConstants.LOAD, RESOURCE_RESOLVER)
@@ -149,7 +225,73 @@ final class KeyStoreDefinition extends SimpleResourceDefinition {
     static final SimpleOperationDefinition STORE = new SimpleOperationDefinitionBuilder(ElytronDescriptionConstants.STORE, RESOURCE_RESOLVER)
         .build();
 
-    private static final AttributeDefinition[] CONFIG_ATTRIBUTES = new AttributeDefinition[] { TYPE, PROVIDER, PASSWORD, PATH, RELATIVE_TO, PROVIDER_LOADER, REQUIRED };
+    static final SimpleAttributeDefinition OFFSET = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.OFFSET, ModelType.INT, true)
+        .setDefaultValue(new ModelNode(0))
+        .setValidator(new IntRangeValidator(0, true))
+        .build();
+
+    static final SimpleAttributeDefinition LIMIT = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.LIMIT, ModelType.INT, true)
+        .setValidator(new IntRangeValidator(1, true))
+        .build();
+
+    static final SimpleAttributeDefinition PREFIX = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.PREFIX, ModelType.STRING, true)
+        .setMinSize(1)
+        .build();
+
+    static final SimpleAttributeDefinition DAYS = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.DAYS, ModelType.INT, false)
+        .setValidator(new IntRangeValidator(0, false))
+        .build();
+
+    static final SimpleOperationDefinition EXPIRING_WITHIN = new SimpleOperationDefinitionBuilder(ElytronDescriptionConstants.EXPIRING_WITHIN, RESOURCE_RESOLVER)
+        .setParameters(DAYS)
+        .setReplyType(ModelType.LIST)
+        .setReplyValueType(ModelType.OBJECT)
+        .setReadOnly()
+        .setRuntimeOnly()
+        .build();
+
+    static final SimpleAttributeDefinition ENTRY_ALIAS = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.ALIAS, ModelType.STRING, false)
+        .setMinSize(1)
+        .build();
+
+    static final SimpleAttributeDefinition ENTRY_CERTIFICATE = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.CERTIFICATE, ModelType.STRING, false)
+        .setMinSize(1)
+        .build();
+
+    static final SimpleAttributeDefinition ENTRY_PRIVATE_KEY = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.PRIVATE_KEY, ModelType.STRING, true)
+        .setMinSize(1)
+        .build();
+
+    static final SimpleAttributeDefinition ENTRY_KEY_PASSWORD = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.KEY_PASSWORD, ModelType.STRING, true)
+        .setMinSize(1)
+        .setRequires(ElytronDescriptionConstants.PRIVATE_KEY)
+        .build();
+
+    static final ObjectTypeAttributeDefinition ENTRY = new ObjectTypeAttributeDefinition.Builder(ElytronDescriptionConstants.ENTRY, ENTRY_ALIAS, ENTRY_CERTIFICATE, ENTRY_PRIVATE_KEY, ENTRY_KEY_PASSWORD)
+        .build();
+
+    static final ObjectListAttributeDefinition ENTRIES = new ObjectListAttributeDefinition.Builder(ElytronDescriptionConstants.ENTRIES, ENTRY)
+        .setMinSize(1)
+        .build();
+
+    static final SimpleAttributeDefinition IMPORT_STORE = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.STORE, ModelType.BOOLEAN, true)
+        .setDefaultValue(new ModelNode(false))
+        .build();
+
+    static final SimpleOperationDefinition IMPORT_ENTRIES = new SimpleOperationDefinitionBuilder(ElytronDescriptionConstants.IMPORT_ENTRIES, RESOURCE_RESOLVER)
+        .setParameters(ENTRIES, IMPORT_STORE)
+        .setRuntimeOnly()
+        .build();
+
+    static final SimpleOperationDefinition READ_ALIASES = new SimpleOperationDefinitionBuilder(ElytronDescriptionConstants.READ_ALIASES, RESOURCE_RESOLVER)
+        .setParameters(OFFSET, LIMIT, PREFIX)
+        .setReplyType(ModelType.LIST)
+        .setReplyValueType(ModelType.OBJECT)
+        .setReadOnly()
+        .setRuntimeOnly()
+        .build();
+
+    private static final AttributeDefinition[] CONFIG_ATTRIBUTES = new AttributeDefinition[] { TYPE, PROVIDER, PASSWORD, PATH, RELATIVE_TO, PROVIDER_LOADER, REQUIRED, WATCH, EXPIRY_SCAN_INTERVAL, LOAD_ON_DEMAND };
 
     private static final KeyStoreAddHandler ADD = new KeyStoreAddHandler();
     private static final OperationStepHandler REMOVE = new SingleCapabilityServiceRemoveHandler<KeyStore>(ADD, KEY_STORE_RUNTIME_CAPABILITY, KeyStore.class);
@@ -185,8 +327,13 @@ final class KeyStoreDefinition extends SimpleResourceDefinition {
 
             @Override
             protected void performRuntime(ModelNode result, ModelNode operation, KeyStoreService keyStoreService) throws OperationFailedException {
+                KeyStoreSnapshot snapshot = keyStoreService.getLoadedSnapshot();
+                if (snapshot == null) {
+                    // Not loaded yet, reading the attribute does not trigger a load on demand.
+                    return;
+                }
                 try {
-                    result.set(keyStoreService.getValue().size());
+                    result.set(snapshot.getKeyStore().size());
                 } catch (KeyStoreException e) {
                     throw ROOT_LOGGER.unableToAccessKeyStore(e);
                 }
@@ -197,8 +344,10 @@ final class KeyStoreDefinition extends SimpleResourceDefinition {
 
             @Override
             protected void performRuntime(ModelNode result, ModelNode operation, KeyStoreService keyStoreService) throws OperationFailedException {
-                SimpleDateFormat sdf = new SimpleDateFormat(ISO_8601_FORMAT);
-                result.set(sdf.format(new Date(keyStoreService.timeSynched())));
+                if (keyStoreService.getLoadedSnapshot() != null) {
+                    SimpleDateFormat sdf = new SimpleDateFormat(ISO_8601_FORMAT);
+                    result.set(sdf.format(new Date(keyStoreService.timeSynched())));
+                }
             }
         });
 
@@ -210,12 +359,80 @@ final class KeyStoreDefinition extends SimpleResourceDefinition {
             }
         });
 
+        resourceRegistration.registerReadOnlyAttribute(VERSION, new KeyStoreRuntimeOnlyHandler(false) {
+
+            @Override
+            protected void performRuntime(ModelNode result, ModelNode operation, KeyStoreService keyStoreService) throws OperationFailedException {
+                KeyStoreSnapshot snapshot = keyStoreService.getLoadedSnapshot();
+                if (snapshot != null) {
+                    result.set(snapshot.getVersion());
+                }
+            }
+        });
+
+        resourceRegistration.registerReadOnlyAttribute(EARLIEST_EXPIRY, new KeyStoreRuntimeOnlyHandler(false) {
+
+            @Override
+            protected void performRuntime(ModelNode result, ModelNode operation, KeyStoreService keyStoreService) throws OperationFailedException {
+                try {
+                    ExpiryScan expiryScan = keyStoreService.getExpiryScan();
+                    Date earliestExpiry = expiryScan != null ? expiryScan.getEarliestExpiry() : null;
+                    if (earliestExpiry != null) {
+                        SimpleDateFormat sdf = new SimpleDateFormat(ISO_8601_FORMAT);
+                        result.set(sdf.format(earliestExpiry));
+                    }
+                } catch (KeyStoreException e) {
+                    throw ROOT_LOGGER.unableToAccessKeyStore(e);
+                }
+            }
+        });
+
+        resourceRegistration.registerReadOnlyAttribute(EXPIRY_COUNTS, new KeyStoreRuntimeOnlyHandler(false) {
+
+            @Override
+            protected void performRuntime(ModelNode result, ModelNode operation, KeyStoreService keyStoreService) throws OperationFailedException {
+                try {
+                    ExpiryScan expiryScan = keyStoreService.getExpiryScan();
+                    if (expiryScan == null) {
+                        return;
+                    }
+                    result.get(ElytronDescriptionConstants.EXPIRED).set(expiryScan.getExpired());
+                    result.get(ElytronDescriptionConstants.WITHIN_7_DAYS).set(expiryScan.getWithin7Days());
+                    result.get(ElytronDescriptionConstants.WITHIN_30_DAYS).set(expiryScan.getWithin30Days());
+                    result.get(ElytronDescriptionConstants.WITHIN_90_DAYS).set(expiryScan.getWithin90Days());
+                } catch (KeyStoreException e) {
+                    throw ROOT_LOGGER.unableToAccessKeyStore(e);
+                }
+            }
+        });
+
+        resourceRegistration.registerReadOnlyAttribute(LAST_STORE, new KeyStoreRuntimeOnlyHandler(false) {
+
+            @Override
+            protected void performRuntime(ModelNode result, ModelNode operation, KeyStoreService keyStoreService) throws OperationFailedException {
+                StoreResult lastStore = keyStoreService.getLastStore();
+                if (lastStore == null) {
+                    return;
+                }
+                Throwable failure = lastStore.getFailure();
+                result.get(ElytronDescriptionConstants.OUTCOME).set(lastStore.isComplete() == false ? ElytronDescriptionConstants.IN_PROGRESS
+                        : failure == null ? ElytronDescriptionConstants.SUCCESS : ElytronDescriptionConstants.FAILED);
+                result.get(ElytronDescriptionConstants.TIME).set(new SimpleDateFormat(ISO_8601_FORMAT).format(new Date(lastStore.getTime())));
+                if (failure != null) {
+                    result.get(ElytronDescriptionConstants.FAILURE_DESCRIPTION).set(failure.getMessage() != null ? failure.getMessage() : failure.toString());
+                }
+            }
+        });
+
         resourceRegistration.registerReadOnlyAttribute(LOADED_PROVIDER, new KeyStoreRuntimeOnlyHandler(false) {
 
             @Override
             protected void performRuntime(ModelNode result, ModelNode operation, KeyStoreService keyStoreService)
                     throws OperationFailedException {
-                populateProvider(result, keyStoreService.getValue().getProvider(), false);
+                KeyStoreSnapshot snapshot = keyStoreService.getLoadedSnapshot();
+                if (snapshot != null) {
+                    populateProvider(result, snapshot.getKeyStore().getProvider(), false);
+                }
             }
         });
     }
@@ -234,6 +451,9 @@ final class KeyStoreDefinition extends SimpleResourceDefinition {
 
         resourceRegistration.registerOperationHandler(LOAD, PersistanceHandler.INSTANCE);
         resourceRegistration.registerOperationHandler(STORE, PersistanceHandler.INSTANCE);
+        resourceRegistration.registerOperationHandler(READ_ALIASES, new ReadAliasesHandler());
+        resourceRegistration.registerOperationHandler(EXPIRING_WITHIN, new ExpiringWithinHandler());
+        resourceRegistration.registerOperationHandler(IMPORT_ENTRIES, new ImportEntriesHandler());
     }
 
     @Override
@@ -258,15 +478,20 @@ final class KeyStoreDefinition extends SimpleResourceDefinition {
             String path = asStringIfDefined(context, PATH, model);
             String relativeTo = null;
             boolean required;
+            boolean watch;
+            ModelNode expiryScanIntervalNode = EXPIRY_SCAN_INTERVAL.resolveModelAttribute(context, model);
+            long expiryScanInterval = expiryScanIntervalNode.isDefined() ? expiryScanIntervalNode.asLong() : 0;
+            boolean loadOnDemand = LOAD_ON_DEMAND.resolveModelAttribute(context, model).asBoolean();
 
             final KeyStoreService keyStoreService;
             if (path != null) {
                 relativeTo = asStringIfDefined(context, RELATIVE_TO, model);
                 required = REQUIRED.resolveModelAttribute(context, model).asBoolean();
+                watch = WATCH.resolveModelAttribute(context, model).asBoolean();
 
-                keyStoreService = KeyStoreService.createFileBasedKeyStoreService(provider, type, passwordArray, relativeTo, path, required);
+                keyStoreService = KeyStoreService.createFileBasedKeyStoreService(provider, type, passwordArray, relativeTo, path, required, watch, expiryScanInterval, loadOnDemand);
             } else {
-                keyStoreService = KeyStoreService.createFileLessKeyStoreService(provider, type, passwordArray);
+                keyStoreService = KeyStoreService.createFileLessKeyStoreService(provider, type, passwordArray, expiryScanInterval, loadOnDemand);
             }
 
             ServiceTarget serviceTarget = context.getServiceTarget();
@@ -275,6 +500,10 @@ final class KeyStoreDefinition extends SimpleResourceDefinition {
             ServiceBuilder<KeyStore> serviceBuilder = serviceTarget.addService(serviceName, keyStoreService)
                     .setInitialMode(Mode.ACTIVE);
 
+            if (path != null) {
+                serviceBuilder.addDependency(SharedKeyStoreRegistry.SERVICE_NAME, SharedKeyStoreRegistry.class, keyStoreService.getSharedKeyStoreRegistryInjector());
+            }
+
             if (relativeTo != null) {
                 serviceBuilder.addDependency(PathManagerService.SERVICE_NAME, PathManager.class, keyStoreService.getPathManagerInjector());
                 serviceBuilder.addDependency(pathName(relativeTo));
@@ -283,7 +512,7 @@ final class KeyStoreDefinition extends SimpleResourceDefinition {
             if (providerLoader != null) {
                 String providersCapabilityName = RuntimeCapability.buildDynamicCapabilityName(PROVIDERS_CAPABILITY, providerLoader);
                 ServiceName providerLoaderServiceName = context.getCapabilityServiceName(providersCapabilityName, Provider[].class);
-                PROVIDER_LOADER_SERVICE_UTIL.addInjection(serviceBuilder, keyStoreService.getProvidersInjector(), providerLoaderServiceName);
+                serviceBuilder.addDependency(ProviderIndex.serviceName(providerLoaderServiceName), ProviderIndex.class, keyStoreService.getProviderIndexInjector());
             }
 
             commonDependencies(serviceBuilder);
@@ -347,7 +576,12 @@ final class KeyStoreDefinition extends SimpleResourceDefinition {
                 return;
             }
 
-            performRuntime(context.getResult(), context, operation, (KeyStoreService) serviceContainer.getService());
+            try {
+                performRuntime(context.getResult(), context, operation, (KeyStoreService) serviceContainer.getService());
+            } catch (IllegalStateException e) {
+                // Reported where a KeyStore loaded on demand can not be loaded.
+                throw ROOT_LOGGER.unableToCompleteOperation(e.getCause() != null ? e.getCause() : e);
+            }
         }
 
         protected void performRuntime(ModelNode result, ModelNode operation,  KeyStoreService keyStoreService) throws OperationFailedException {}
@@ -358,6 +592,163 @@ final class KeyStoreDefinition extends SimpleResourceDefinition {
 
     }
 
+    private static class ReadAliasesHandler extends KeyStoreRuntimeOnlyHandler {
+
+        private ReadAliasesHandler() {
+            super(true);
+        }
+
+        @Override
+        protected void performRuntime(ModelNode result, OperationContext context, ModelNode operation, KeyStoreService keyStoreService) throws OperationFailedException {
+            int offset = OFFSET.resolveModelAttribute(context, operation).asInt();
+            ModelNode limitNode = LIMIT.resolveModelAttribute(context, operation);
+            int limit = limitNode.isDefined() ? limitNode.asInt() : Integer.MAX_VALUE;
+            String prefix = asStringIfDefined(context, PREFIX, operation);
+
+            final KeyStoreAliasIndex aliasIndex;
+            try {
+                aliasIndex = keyStoreService.getSnapshot().getAliasIndex();
+            } catch (KeyStoreException e) {
+                throw ROOT_LOGGER.unableToAccessKeyStore(e);
+            }
+
+            SimpleDateFormat sdf = new SimpleDateFormat(ISO_8601_FORMAT);
+            result.setEmptyList();
+            int position = 0;
+            for (KeyStoreAliasIndex.Entry current : aliasIndex.getEntries(prefix)) {
+                if (position++ < offset) {
+                    continue;
+                }
+                if (limit-- == 0) {
+                    break;
+                }
+
+                ModelNode entry = new ModelNode();
+                entry.get(ElytronDescriptionConstants.ALIAS).set(current.getAlias());
+                entry.get(ElytronDescriptionConstants.ENTRY_TYPE).set(current.getEntryType());
+                if (current.getNotAfter() != null) {
+                    entry.get(ElytronDescriptionConstants.NOT_AFTER).set(sdf.format(current.getNotAfter()));
+                }
+                if (current.getFingerPrint() != null) {
+                    entry.get(ElytronDescriptionConstants.FINGER_PRINT).set(current.getFingerPrint());
+                }
+                result.add(entry);
+            }
+        }
+
+    }
+
+    private static class ExpiringWithinHandler extends KeyStoreRuntimeOnlyHandler {
+
+        private ExpiringWithinHandler() {
+            super(true);
+        }
+
+        @Override
+        protected void performRuntime(ModelNode result, OperationContext context, ModelNode operation, KeyStoreService keyStoreService) throws OperationFailedException {
+            int days = DAYS.resolveModelAttribute(context, operation).asInt();
+            long before = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(days);
+
+            final KeyStoreAliasIndex aliasIndex;
+            try {
+                aliasIndex = keyStoreService.getSnapshot().getAliasIndex();
+            } catch (KeyStoreException e) {
+                throw ROOT_LOGGER.unableToAccessKeyStore(e);
+            }
+
+            SimpleDateFormat sdf = new SimpleDateFormat(ISO_8601_FORMAT);
+            result.setEmptyList();
+            for (KeyStoreAliasIndex.Entry current : aliasIndex.getExpiringBefore(before)) {
+                ModelNode entry = new ModelNode();
+                entry.get(ElytronDescriptionConstants.ALIAS).set(current.getAlias());
+                entry.get(ElytronDescriptionConstants.NOT_AFTER).set(sdf.format(current.getNotAfter()));
+                result.add(entry);
+            }
+        }
+
+    }
+
+    private static class ImportEntriesHandler extends KeyStoreRuntimeOnlyHandler {
+
+        private static final String PEM_BOUNDARY = "-----[^-]*-----";
+
+        private ImportEntriesHandler() {
+            super(true, true);
+        }
+
+        @Override
+        protected void performRuntime(ModelNode result, OperationContext context, ModelNode operation, final KeyStoreService keyStoreService) throws OperationFailedException {
+            final boolean store = IMPORT_STORE.resolveModelAttribute(context, operation).asBoolean();
+
+            Map<String, KeyStore.Entry> entries = new LinkedHashMap<>();
+            Map<String, char[]> keyPasswords = new HashMap<>();
+            for (ModelNode current : ENTRIES.resolveModelAttribute(context, operation).asList()) {
+                String alias = ENTRY_ALIAS.resolveModelAttribute(context, current).asString();
+                Certificate[] certificates = parseCertificates(alias, ENTRY_CERTIFICATE.resolveModelAttribute(context, current).asString());
+                String privateKey = asStringIfDefined(context, ENTRY_PRIVATE_KEY, current);
+                if (privateKey != null && certificates.length > 0) {
+                    entries.put(alias, new KeyStore.PrivateKeyEntry(parsePrivateKey(alias, privateKey, certificates[0].getPublicKey()), certificates));
+                    String keyPassword = asStringIfDefined(context, ENTRY_KEY_PASSWORD, current);
+                    if (keyPassword != null) {
+                        keyPasswords.put(alias, keyPassword.toCharArray());
+                    }
+                } else if (privateKey == null && certificates.length == 1) {
+                    entries.put(alias, new KeyStore.TrustedCertificateEntry(certificates[0]));
+                } else {
+                    throw ROOT_LOGGER.invalidCertificateCount(alias, certificates.length);
+                }
+            }
+
+            final ImportKey importKey = keyStoreService.importEntries(entries, keyPasswords);
+
+            context.completeStep(new ResultHandler() {
+
+                @Override
+                public void handleResult(ResultAction resultAction, OperationContext context, ModelNode operation) {
+                    if (resultAction == ResultAction.ROLLBACK) {
+                        keyStoreService.revertImport(importKey);
+                    } else if (store) {
+                        // Only stored once the import is committed, the operation can no longer fail so the outcome is
+                        // reported by the last-store attribute and the log.
+                        try {
+                            keyStoreService.save();
+                        } catch (OperationFailedException | RuntimeException e) {
+                            ROOT_LOGGER.keyStoreStoreFailed(e);
+                        }
+                    }
+                }
+            });
+        }
+
+        /**
+         * Parse one or more X.509 certificates, either PEM encoded or as Base64 encoded DER.
+         */
+        private static Certificate[] parseCertificates(String alias, String value) throws OperationFailedException {
+            try {
+                byte[] encoded = value.contains("-----") ? value.getBytes(StandardCharsets.US_ASCII) : Base64.getMimeDecoder().decode(value);
+                Collection<? extends Certificate> certificates = CertificateFactory.getInstance("X.509").generateCertificates(new ByteArrayInputStream(encoded));
+
+                return certificates.toArray(new Certificate[certificates.size()]);
+            } catch (CertificateException | IllegalArgumentException e) {
+                throw ROOT_LOGGER.unableToImportEntry(alias, e);
+            }
+        }
+
+        /**
+         * Parse an unencrypted PKCS#8 private key, either PEM encoded or as Base64 encoded DER.
+         */
+        private static PrivateKey parsePrivateKey(String alias, String value, PublicKey publicKey) throws OperationFailedException {
+            try {
+                byte[] encoded = Base64.getMimeDecoder().decode(value.replaceAll(PEM_BOUNDARY, ""));
+
+                return KeyFactory.getInstance(publicKey.getAlgorithm()).generatePrivate(new PKCS8EncodedKeySpec(encoded));
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                throw ROOT_LOGGER.unableToImportEntry(alias, e);
+            }
+        }
+
+    }
+
     private static class PersistanceHandler extends KeyStoreRuntimeOnlyHandler {
 
         private static final PersistanceHandler INSTANCE = new PersistanceHandler();
@@ -381,6 +772,7 @@ final class KeyStoreDefinition extends SimpleResourceDefinition {
                     });
                     break;
                 case ElytronDescriptionConstants.STORE:
+                    // The write completes in the background, the outcome is reported by the last-store attribute.
                     keyStoreService.save();
                     break;
                 default:
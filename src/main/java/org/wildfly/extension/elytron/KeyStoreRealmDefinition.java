@@ -27,6 +27,7 @@ import static org.wildfly.extension.elytron.KeyStoreDefinition.KEY_STORE_UTIL;
 import java.security.KeyStore;
 
 import org.jboss.as.controller.AbstractAddStepHandler;
+import org.jboss.as.controller.AttributeDefinition;
 import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.OperationStepHandler;
@@ -48,7 +49,6 @@ import org.jboss.msc.service.ServiceController.Mode;
 import org.jboss.msc.service.ServiceName;
 import org.jboss.msc.service.ServiceTarget;
 import org.jboss.msc.value.InjectedValue;
-import org.wildfly.security.auth.provider.KeyStoreBackedSecurityRealm;
 import org.wildfly.security.auth.server.SecurityRealm;
 
 
@@ -68,6 +68,14 @@ class KeyStoreRealmDefinition extends SimpleResourceDefinition {
         .setCapabilityReference(KEYSTORE_CAPABILITY, SECURITY_REALM_CAPABILITY, true)
         .build();
 
+    static final SimpleAttributeDefinition CERTIFICATE_LOOKUP = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.CERTIFICATE_LOOKUP, ModelType.BOOLEAN, true)
+        .setDefaultValue(new ModelNode(false))
+        .setAllowExpression(true)
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final AttributeDefinition[] ATTRIBUTES = new AttributeDefinition[] { KEYSTORE, CERTIFICATE_LOOKUP };
+
     private static final AbstractAddStepHandler ADD = new RealmAddHandler();
     private static final OperationStepHandler REMOVE = new SingleCapabilityServiceRemoveHandler<SecurityRealm>(ADD, SECURITY_REALM_RUNTIME_CAPABILITY, SecurityRealm.class);
 
@@ -81,7 +89,10 @@ class KeyStoreRealmDefinition extends SimpleResourceDefinition {
 
     @Override
     public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
-        resourceRegistration.registerReadWriteAttribute(KEYSTORE, null, new WriteAttributeHandler());
+        WriteAttributeHandler writeHandler = new WriteAttributeHandler();
+        for (AttributeDefinition current : ATTRIBUTES) {
+            resourceRegistration.registerReadWriteAttribute(current, null, writeHandler);
+        }
     }
 
     @Override
@@ -92,7 +103,7 @@ class KeyStoreRealmDefinition extends SimpleResourceDefinition {
     private static class RealmAddHandler extends BaseAddHandler {
 
         private RealmAddHandler() {
-            super(SECURITY_REALM_RUNTIME_CAPABILITY, KEYSTORE);
+            super(SECURITY_REALM_RUNTIME_CAPABILITY, ATTRIBUTES);
         }
 
         @Override
@@ -102,8 +113,9 @@ class KeyStoreRealmDefinition extends SimpleResourceDefinition {
             RuntimeCapability<Void> runtimeCapability = SECURITY_REALM_RUNTIME_CAPABILITY.fromBaseCapability(context.getCurrentAddressValue());
             ServiceName realmName = runtimeCapability.getCapabilityServiceName(SecurityRealm.class);
 
+            final boolean certificateLookup = CERTIFICATE_LOOKUP.resolveModelAttribute(context, model).asBoolean();
             final InjectedValue<KeyStore> keyStore = new InjectedValue<KeyStore>();
-            TrivialService<SecurityRealm> keyStoreRealmService = new TrivialService<SecurityRealm>(() -> new KeyStoreBackedSecurityRealm(keyStore.getValue()));
+            TrivialService<SecurityRealm> keyStoreRealmService = new TrivialService<SecurityRealm>(() -> new IndexedKeyStoreSecurityRealm(keyStore.getValue(), certificateLookup));
 
             ServiceBuilder<SecurityRealm> serviceBuilder = serviceTarget.addService(realmName, keyStoreRealmService);
 
@@ -120,7 +132,7 @@ class KeyStoreRealmDefinition extends SimpleResourceDefinition {
     private static class WriteAttributeHandler extends RestartParentWriteAttributeHandler {
 
         WriteAttributeHandler() {
-            super(ElytronDescriptionConstants.KEYSTORE_REALM, KEYSTORE);
+            super(ElytronDescriptionConstants.KEYSTORE_REALM, ATTRIBUTES);
         }
 
         @Override
@@ -21,7 +21,6 @@ package org.wildfly.extension.elytron;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.util.Collections;
-import java.util.Enumeration;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -71,25 +70,13 @@ class KeyStoreResource extends DelegatingResource {
 
     @Override
     public boolean hasChild(PathElement element) {
-        final KeyStore keyStore;
-        try {
-            return (ElytronDescriptionConstants.ALIAS.equals(element.getKey()) && (keyStore = getKeyStore(keyStoreServiceController)) != null && keyStore.containsAlias(element.getValue()));
-        } catch (KeyStoreException e) {
-            return false;
-        }
+        final KeyStoreAliasIndex aliasIndex;
+        return (ElytronDescriptionConstants.ALIAS.equals(element.getKey()) && (aliasIndex = getAliasIndex(keyStoreServiceController)) != null && aliasIndex.contains(element.getValue()));
     }
 
     @Override
     public Resource getChild(PathElement element) {
-        final KeyStore keyStore;
-        try {
-            if (ElytronDescriptionConstants.ALIAS.equals(element.getKey()) && (keyStore = getKeyStore(keyStoreServiceController)) != null && keyStore.containsAlias(element.getValue())) {
-                return PlaceholderResource.INSTANCE;
-            }
-        } catch (KeyStoreException e) {
-        }
-
-        return null;
+        return hasChild(element) ? PlaceholderResource.INSTANCE : null;
     }
 
     @Override
@@ -103,18 +90,9 @@ class KeyStoreResource extends DelegatingResource {
 
     @Override
     public Set<String> getChildrenNames(String childType) {
-        final KeyStore keyStore;
-        try {
-            if (ElytronDescriptionConstants.ALIAS.equals(childType) && (keyStore = getKeyStore(keyStoreServiceController)) != null && keyStore.size() > 0) {
-                Enumeration<String> aliases = keyStore.aliases();
-                Set<String> children = new LinkedHashSet<String>(keyStore.size());
-                while (aliases.hasMoreElements()) {
-                    children.add(aliases.nextElement());
-                }
-
-                return children;
-            }
-        } catch (KeyStoreException e) {
+        final KeyStoreAliasIndex aliasIndex;
+        if (ElytronDescriptionConstants.ALIAS.equals(childType) && (aliasIndex = getAliasIndex(keyStoreServiceController)) != null) {
+            return aliasIndex.getAliases();
         }
 
         return Collections.emptySet();
@@ -122,18 +100,14 @@ class KeyStoreResource extends DelegatingResource {
 
     @Override
     public Set<ResourceEntry> getChildren(String childType) {
-        final KeyStore keyStore;
-        try {
-            if (ElytronDescriptionConstants.ALIAS.equals(childType) && (keyStore = getKeyStore(keyStoreServiceController)) != null && keyStore.size() > 0) {
-                Enumeration<String> aliases = keyStore.aliases();
-                Set<ResourceEntry> children = new LinkedHashSet<ResourceEntry>(keyStore.size());
-                while (aliases.hasMoreElements()) {
-                    children.add(new PlaceholderResource.PlaceholderResourceEntry(ElytronDescriptionConstants.ALIAS, aliases.nextElement()));
-                }
-
-                return children;
+        final KeyStoreAliasIndex aliasIndex;
+        if (ElytronDescriptionConstants.ALIAS.equals(childType) && (aliasIndex = getAliasIndex(keyStoreServiceController)) != null && aliasIndex.size() > 0) {
+            Set<ResourceEntry> children = new LinkedHashSet<ResourceEntry>(aliasIndex.size());
+            for (String alias : aliasIndex.getAliases()) {
+                children.add(new PlaceholderResource.PlaceholderResourceEntry(ElytronDescriptionConstants.ALIAS, alias));
             }
-        } catch (KeyStoreException e) {
+
+            return children;
         }
 
         return Collections.emptySet();
@@ -157,25 +131,29 @@ class KeyStoreResource extends DelegatingResource {
      * @return {@code true} if the {@link KeyStore} is available and contains at least one entry, {@code false} otherwise.
      */
     private boolean containsAliases() {
-        final KeyStore keyStore;
-
-        try {
-            return ((keyStore = getKeyStore(keyStoreServiceController)) != null) && keyStore.size() > 0;
-        } catch (KeyStoreException e) {
-            return false;
-        }
+        final KeyStoreAliasIndex aliasIndex;
+        return ((aliasIndex = getAliasIndex(keyStoreServiceController)) != null) && aliasIndex.size() > 0;
     }
 
     /**
-     * Get the {@link KeyStore} represented by this {@link Resource} or {@code null} if it is not currently available.
+     * Get the index of the aliases of the current snapshot of the {@link KeyStore} represented by this {@link Resource} or
+     * {@code null} if it is not currently available.
      *
-     * @return The {@link KeyStore} represented by this {@link Resource} or {@code null} if it is not currently available.
+     * The index is only rebuilt when a new version of the {@link KeyStore} is published.
+     *
+     * @return The index of the aliases or {@code null} if it is not currently available.
      */
-    static KeyStore getKeyStore(ServiceController<KeyStore> keyStoreServiceController) {
+    static KeyStoreAliasIndex getAliasIndex(ServiceController<KeyStore> keyStoreServiceController) {
         if (keyStoreServiceController == null || keyStoreServiceController.getState() != State.UP) {
             return null;
-        } else {
-            return keyStoreServiceController.getValue();
+        }
+
+        try {
+            // Reading the resource does not trigger a load on demand.
+            KeyStoreSnapshot snapshot = ((KeyStoreService) keyStoreServiceController.getService()).getLoadedSnapshot();
+            return snapshot != null ? snapshot.getAliasIndex() : null;
+        } catch (KeyStoreException e) {
+            return null;
         }
     }
 
@@ -21,18 +21,39 @@ package org.wildfly.extension.elytron;
 import static org.wildfly.extension.elytron.ProviderUtil.identifyProvider;
 import static org.wildfly.extension.elytron._private.ElytronSubsystemMessages.ROOT_LOGGER;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.Provider;
 import java.security.Security;
 import java.security.cert.CertificateException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.services.path.PathEntry;
@@ -48,7 +69,6 @@ import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
 import org.wildfly.security.keystore.AtomicLoadKeyStore;
 import org.wildfly.security.keystore.ModifyTrackingKeyStore;
-import org.wildfly.security.keystore.UnmodifiableKeyStore;
 
 /**
  * A {@link Service} responsible for a single {@link KeyStore} instance.
@@ -57,39 +77,60 @@ import org.wildfly.security.keystore.UnmodifiableKeyStore;
  */
 class KeyStoreService implements Service<KeyStore> {
 
+    private static final long WATCH_INTERVAL = 5000;
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final long MAX_SCAN_AGE = TimeUnit.MINUTES.toMillis(1);
+
     private final String provider;
     private final String type;
     private final char[] password;
     private final String path;
     private final String relativeTo;
     private final boolean required;
+    private final boolean watch;
+    private final long expiryScanInterval;
+    private final boolean loadOnDemand;
 
     private final InjectedValue<PathManager> pathManager = new InjectedValue<PathManager>();
-    private final InjectedValue<Provider[]> providers = new InjectedValue<Provider[]>();
+    private final InjectedValue<ProviderIndex> providerIndex = new InjectedValue<ProviderIndex>();
+    private final InjectedValue<SharedKeyStoreRegistry> sharedKeyStoreRegistry = new InjectedValue<SharedKeyStoreRegistry>();
 
+    private Provider resolvedProvider;
     private File resolvedPath;
     private Handle callbackHandle;
+    private volatile ScheduledExecutorService executor;
+    private FileState fileState;
+    private SharedKeyStore sharedKeyStore;
+    private final Runnable reloadListener = this::sharedKeyStoreChanged;
+    private final AtomicReference<CompletableFuture<Void>> loaded = new AtomicReference<>();
+    private final AtomicReference<StoreResult> lastStore = new AtomicReference<>();
 
     private volatile long synched;
     private volatile AtomicLoadKeyStore keyStore = null;
     private volatile ModifyTrackingKeyStore trackingKeyStore = null;
-    private volatile KeyStore unmodifiableKeyStore = null;
+    private volatile KeyStoreSnapshot snapshot = null;
+    private final Supplier<KeyStoreSnapshot> latest = () -> snapshot;
+    private long nextVersion = 1;
+    private volatile ExpiryScan expiryScan = null;
 
-    private KeyStoreService(String provider, String type, char[] password, String relativeTo, String path, boolean required) {
+    private KeyStoreService(String provider, String type, char[] password, String relativeTo, String path, boolean required, boolean watch, long expiryScanInterval, boolean loadOnDemand) {
         this.provider = provider;
         this.type = type;
         this.password = password != null ? password.clone() : null;
         this.relativeTo = relativeTo;
         this.path = path;
         this.required = required;
+        this.watch = watch;
+        this.expiryScanInterval = expiryScanInterval;
+        this.loadOnDemand = loadOnDemand;
     }
 
-    static KeyStoreService createFileLessKeyStoreService(String provider, String type, char[] password) {
-        return new KeyStoreService(provider, type, password, null, null, false);
+    static KeyStoreService createFileLessKeyStoreService(String provider, String type, char[] password, long expiryScanInterval, boolean loadOnDemand) {
+        return new KeyStoreService(provider, type, password, null, null, false, false, expiryScanInterval, loadOnDemand);
     }
 
-    static KeyStoreService createFileBasedKeyStoreService(String provider, String type, char[] password, String relativeTo, String path, boolean required) {
-        return new KeyStoreService(provider, type, password, relativeTo, path, required);
+    static KeyStoreService createFileBasedKeyStoreService(String provider, String type, char[] password, String relativeTo, String path, boolean required, boolean watch, long expiryScanInterval, boolean loadOnDemand) {
+        return new KeyStoreService(provider, type, password, relativeTo, path, required, watch, expiryScanInterval, loadOnDemand);
     }
 
     /*
@@ -99,27 +140,133 @@ class KeyStoreService implements Service<KeyStore> {
     @Override
     public void start(StartContext startContext) throws StartException {
         try {
-            AtomicLoadKeyStore keyStore = AtomicLoadKeyStore.newInstance(type, resolveProvider());
+            resolvedProvider = resolveProvider();
             if (path != null) {
                 resolveFileLocation();
+                sharedKeyStore = sharedKeyStoreRegistry.getValue().acquire(resolvedPath, type, resolvedProvider, password, reloadListener);
             }
 
-            synched = System.currentTimeMillis();
-            try (InputStream is = resolvedPath != null ? new FileInputStream(resolvedPath) : null) {
-                keyStore.load(is, password);
+            // The single thread is only started on first use by the watch, a store or an expiry scan.
+            final String threadName = "KeyStore - " + (resolvedPath != null ? resolvedPath.getName() : type);
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            if (loadOnDemand == false) {
+                awaitLoaded();
             }
 
-            this.keyStore = keyStore;
-            this.trackingKeyStore = ModifyTrackingKeyStore.modifyTrackingKeyStore(keyStore);
-            this.unmodifiableKeyStore = UnmodifiableKeyStore.unmodifiableKeyStore(keyStore);
-        } catch (GeneralSecurityException | IOException e) {
+            if (watch) {
+                executor.scheduleWithFixedDelay(this::checkForChange, WATCH_INTERVAL, WATCH_INTERVAL, TimeUnit.MILLISECONDS);
+            }
+            if (expiryScanInterval > 0) {
+                executor.scheduleWithFixedDelay(this::scanExpiry, expiryScanInterval, expiryScanInterval, TimeUnit.MINUTES);
+            }
+        } catch (GeneralSecurityException | IOException | RuntimeException e) {
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+            release();
+            releaseSharedKeyStore();
             throw ROOT_LOGGER.unableToStartService(e);
         }
     }
 
+    /**
+     * Load the {@link KeyStore} exactly once, the first caller performs the load and concurrent callers wait for it to
+     * complete. A failure is reported to the callers waiting for that attempt, the next caller attempts the load again.
+     */
+    private void awaitLoaded() throws GeneralSecurityException, IOException {
+        CompletableFuture<Void> loaded;
+        while ((loaded = this.loaded.get()) == null) {
+            CompletableFuture<Void> candidate = new CompletableFuture<>();
+            if (this.loaded.compareAndSet(null, candidate)) {
+                try {
+                    initialLoad();
+                    candidate.complete(null);
+                } catch (GeneralSecurityException | IOException | RuntimeException e) {
+                    candidate.completeExceptionally(e);
+                    this.loaded.compareAndSet(candidate, null);
+                }
+                loaded = candidate;
+                break;
+            }
+        }
+
+        try {
+            loaded.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof GeneralSecurityException) {
+                throw (GeneralSecurityException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw e;
+        }
+    }
+
+    private synchronized void initialLoad() throws GeneralSecurityException, IOException {
+        if (snapshot != null) {
+            return;
+        }
+
+        synched = System.currentTimeMillis();
+        if (resolvedPath != null) {
+            // The working KeyStore is only loaded once it is modified, until then the shared content is used.
+            FileState fileState = FileState.read(resolvedPath);
+            publishKeyStore(sharedKeyStore.load(fileState.lastModified, fileState.digest, fileState.content, reloadListener).getKeyStore());
+            this.fileState = fileState.withoutContent();
+        } else {
+            createWorkingKeyStore();
+            publishKeyStore(keyStore);
+        }
+    }
+
+    /**
+     * Get the current snapshot, loading the {@link KeyStore} first if it is loaded on demand and has not yet been loaded.
+     *
+     * @throws IllegalStateException if the {@link KeyStore} can not be loaded.
+     */
+    private KeyStoreSnapshot loadedSnapshot() {
+        final KeyStoreSnapshot snapshot = this.snapshot;
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        try {
+            awaitLoaded();
+        } catch (GeneralSecurityException | IOException | RuntimeException e) {
+            throw ROOT_LOGGER.unableToLoadKeyStoreOnDemand(e instanceof CompletionException ? e.getCause() : e);
+        }
+        return this.snapshot;
+    }
+
+    /**
+     * Create a new working {@link KeyStore}, the content is copied from the current snapshot where there is one.
+     */
+    private synchronized void createWorkingKeyStore() throws GeneralSecurityException, IOException {
+        AtomicLoadKeyStore keyStore = AtomicLoadKeyStore.newInstance(type, resolvedProvider);
+        if (resolvedPath != null && snapshot != null) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            snapshot.getKeyStore().store(baos, password);
+            try (InputStream is = new ByteArrayInputStream(baos.toByteArray())) {
+                keyStore.load(is, password);
+            }
+        } else {
+            keyStore.load(null, password);
+        }
+
+        this.keyStore = keyStore;
+        this.trackingKeyStore = ModifyTrackingKeyStore.modifyTrackingKeyStore(keyStore);
+    }
+
     private Provider resolveProvider() throws StartException {
-        Provider[] candidates = providers.getOptionalValue();
-        Provider identified = identifyProvider(candidates == null ? Security.getProviders() : candidates, provider, KeyStore.class, type);
+        ProviderIndex index = providerIndex.getOptionalValue();
+        Provider identified = index == null ? identifyProvider(Security.getProviders(), provider, KeyStore.class, type) : index.getProvider(provider, KeyStore.class, type);
         if (identified == null) {
             throw ROOT_LOGGER.noSuitableProvider(type);
         }
@@ -149,35 +296,217 @@ class KeyStoreService implements Service<KeyStore> {
         }
     }
 
-    private AtomicLoadKeyStore.LoadKey load(AtomicLoadKeyStore keyStore) throws GeneralSecurityException, IOException {
-        try (InputStream is = resolvedPath != null ? new FileInputStream(resolvedPath) : null) {
-            return keyStore.revertibleLoad(is, password);
+    /**
+     * Publish a new snapshot where the supplied entries of the working {@link KeyStore} have changed.
+     *
+     * The new snapshot shares the unchanged entries with the current snapshot, once enough entries have changed the working
+     * {@link KeyStore} is copied to start a new base. A {@link KeyStore} not backed by a file can not be copied so the changes
+     * are always held by the snapshot.
+     *
+     * @param changes the changed entries keyed by alias, a {@code null} entry where the alias has been removed.
+     * @param keyPasswords the password protecting each changed key entry.
+     */
+    private synchronized void publish(Map<String, KeyStore.Entry> changes, Function<String, char[]> keyPasswords) {
+        KeyStoreSnapshot snapshot = this.snapshot.withChanges(nextVersion++, changes, keyPasswords, latest);
+        if (resolvedPath != null && snapshot.isCopyDue()) {
+            try {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                keyStore.store(baos, password);
+                KeyStore copy = KeyStore.getInstance(keyStore.getType(), keyStore.getProvider());
+                try (InputStream is = new ByteArrayInputStream(baos.toByteArray())) {
+                    copy.load(is, password);
+                }
+                snapshot = new KeyStoreSnapshot(snapshot.getVersion(), copy, latest);
+            } catch (GeneralSecurityException | IOException | RuntimeException e) {
+                ROOT_LOGGER.tracef(e, "Unable to copy KeyStore '%s', retaining the changed entries instead.", resolvedPath);
+            }
+        }
+
+        publishSnapshot(snapshot);
+    }
+
+    private synchronized void publishKeyStore(KeyStore keyStore) {
+        publishSnapshot(new KeyStoreSnapshot(nextVersion++, keyStore, latest));
+    }
+
+    private synchronized void publishSnapshot(KeyStoreSnapshot snapshot) {
+        this.snapshot = snapshot;
+        // Index the new content in the background so the expiry metrics are ready before they are read.
+        final ScheduledExecutorService executor = this.executor;
+        if (executor != null) {
+            try {
+                executor.execute(this::scanExpiry);
+            } catch (RejectedExecutionException e) {
+                // The service is stopping.
+            }
+        }
+    }
+
+    private void scanExpiry() {
+        if (snapshot == null) {
+            // Not loaded yet, the KeyStore is scanned once it is loaded.
+            return;
+        }
+        try {
+            getExpiryScan(true);
+        } catch (KeyStoreException | RuntimeException e) {
+            ROOT_LOGGER.tracef(e, "Unable to scan KeyStore for expiring certificates.");
+        }
+    }
+
+    private ExpiryScan getExpiryScan(boolean refresh) throws KeyStoreException {
+        final KeyStoreSnapshot snapshot = this.snapshot;
+        if (snapshot == null) {
+            return null;
+        }
+        final long now = System.currentTimeMillis();
+        ExpiryScan expiryScan = this.expiryScan;
+        // The counts depend on the time of the scan as well as the content so are repeated once the scan is too old.
+        if (refresh || expiryScan == null || expiryScan.version != snapshot.getVersion() || now - expiryScan.time >= maxScanAge()) {
+            expiryScan = new ExpiryScan(snapshot.getVersion(), snapshot.getAliasIndex(), now);
+            this.expiryScan = expiryScan;
+        }
+
+        return expiryScan;
+    }
+
+    /**
+     * The age in milliseconds after which the results of a scan are not reused, this is the scan interval where periodic scans
+     * are configured.
+     */
+    private long maxScanAge() {
+        return expiryScanInterval > 0 ? TimeUnit.MINUTES.toMillis(expiryScanInterval) : MAX_SCAN_AGE;
+    }
+
+    /**
+     * Poll the file backing this {@link KeyStore}, if both the last modified time and the digest of the content have changed
+     * the content is loaded, validated and swapped in - on any failure the previous content is restored.
+     */
+    private synchronized void checkForChange() {
+        if (snapshot == null || resolvedPath.lastModified() == fileState.lastModified) {
+            return;
+        }
+
+        try {
+            FileState fileState = FileState.read(resolvedPath);
+            if (fileState.sameContent(this.fileState)) {
+                this.fileState = fileState.withoutContent();
+                return;
+            }
+            if (isModified()) {
+                this.fileState = fileState.withoutContent();
+                ROOT_LOGGER.keyStoreModifiedNotReloaded(resolvedPath.getAbsolutePath());
+                return;
+            }
+
+            SharedKeyStore.State loaded = sharedKeyStore.load(fileState.lastModified, fileState.digest, fileState.content, reloadListener);
+            keyStore = null;
+            trackingKeyStore = null;
+            publishKeyStore(loaded.getKeyStore());
+            this.fileState = fileState.withoutContent();
+            synched = System.currentTimeMillis();
+            ROOT_LOGGER.keyStoreReloaded(resolvedPath.getAbsolutePath());
+        } catch (GeneralSecurityException | IOException e) {
+            // Retried on the next change to the file.
+            this.fileState = new FileState(resolvedPath.lastModified(), this.fileState.digest, null);
+            ROOT_LOGGER.unableToReloadKeyStore(resolvedPath.getAbsolutePath(), e);
         }
     }
 
     @Override
     public void stop(StopContext stopContext) {
-        keyStore = null;
+        if (executor != null) {
+            // Periodic tasks are cancelled but any pending store is allowed to complete.
+            executor.shutdown();
+            executor = null;
+        }
+        release();
+        releaseSharedKeyStore();
         if (callbackHandle != null) {
             callbackHandle.remove();
         }
+        snapshot = null;
+        loaded.set(null);
     }
 
+    private synchronized void release() {
+        keyStore = null;
+        trackingKeyStore = null;
+    }
+
+    private synchronized void releaseSharedKeyStore() {
+        if (sharedKeyStore != null) {
+            sharedKeyStoreRegistry.getValue().release(sharedKeyStore, reloadListener);
+            sharedKeyStore = null;
+        }
+    }
+
+    /**
+     * Get a read only {@link KeyStore} where each call reads from the latest snapshot, so loads, reloads and changes are seen
+     * as they are published - a consumer needing several reads to see the same content obtains the snapshot using
+     * {@link KeyStoreSnapshot#current(KeyStore)}.
+     */
     @Override
     public KeyStore getValue() throws IllegalStateException, IllegalArgumentException {
-        return unmodifiableKeyStore;
+        loadedSnapshot();
+        return KeyStoreSnapshot.live(latest);
     }
 
-    KeyStore getModifiableValue() {
-        return trackingKeyStore;
+    /**
+     * Get the working {@link KeyStore} for modification, once modifications are complete {@link #publish(Map, Function)} must be called
+     * for the changes to become visible to readers of {@link #getValue()}.
+     *
+     * For a {@link KeyStore} backed by a file the working {@link KeyStore} is only created on first use, until then readers
+     * share the content with any other {@link KeyStoreService} loading the same file. A {@link KeyStore} not backed by a file is
+     * the base of the published snapshots so must not be modified.
+     *
+     * @return the working {@link KeyStore}.
+     * @throws OperationFailedException if the working {@link KeyStore} can not be created.
+     */
+    private KeyStore getModifiableValue() throws OperationFailedException {
+        // Loaded before taking the lock as a concurrent load on demand needs the lock to complete.
+        loadedSnapshot();
+        synchronized (this) {
+            if (trackingKeyStore == null) {
+                try {
+                    createWorkingKeyStore();
+                } catch (GeneralSecurityException | IOException e) {
+                    throw ROOT_LOGGER.unableToAccessKeyStore(e);
+                }
+            }
+
+            return trackingKeyStore;
+        }
+    }
+
+    /**
+     * Get the current snapshot of the {@link KeyStore}.
+     *
+     * @return the current snapshot of the {@link KeyStore}.
+     */
+    KeyStoreSnapshot getSnapshot() {
+        return loadedSnapshot();
+    }
+
+    /**
+     * Get the current snapshot of the {@link KeyStore} without loading it, for reads that should not trigger a load on demand.
+     *
+     * @return the current snapshot of the {@link KeyStore} or {@code null} if it has not been loaded yet.
+     */
+    KeyStoreSnapshot getLoadedSnapshot() {
+        return snapshot;
     }
 
     Injector<PathManager> getPathManagerInjector() {
         return pathManager;
     }
 
-    Injector<Provider[]> getProvidersInjector() {
-        return providers;
+    Injector<ProviderIndex> getProviderIndexInjector() {
+        return providerIndex;
+    }
+
+    Injector<SharedKeyStoreRegistry> getSharedKeyStoreRegistryInjector() {
+        return sharedKeyStoreRegistry;
     }
 
     /*
@@ -188,52 +517,519 @@ class KeyStoreService implements Service<KeyStore> {
         return synched;
     }
 
-    LoadKey load() throws OperationFailedException {
+    /**
+     * Get the results of the most recent scan for expiring certificates, if the current snapshot has not yet been scanned or
+     * the scan is older than the scan interval, or one minute where no interval is configured, it is scanned immediately.
+     *
+     * @return the results of the most recent scan for expiring certificates or {@code null} if the {@link KeyStore} has not
+     *         been loaded yet.
+     * @throws KeyStoreException if the {@link KeyStore} can not be read.
+     */
+    ExpiryScan getExpiryScan() throws KeyStoreException {
+        return getExpiryScan(false);
+    }
+
+    synchronized LoadKey load() throws OperationFailedException {
         try {
-            AtomicLoadKeyStore.LoadKey loadKey = load(keyStore);
-            long originalSynced = synched;
+            final SharedKeyStore.State previousShared = sharedKeyStore != null ? sharedKeyStore.getState() : null;
+            if (snapshot == null) {
+                // Not yet loaded on demand or the previous attempt failed, this is now the first load.
+                initialLoad();
+                loaded.set(CompletableFuture.completedFuture(null));
+                return new LoadKey(null, null, synched, null, null, previousShared, sharedState());
+            }
+
+            final LoadKey loadKey;
+            if (resolvedPath != null) {
+                FileState fileState = FileState.read(resolvedPath);
+                SharedKeyStore.State loaded = sharedKeyStore.load(fileState.lastModified, fileState.digest, fileState.content, reloadListener);
+                loadKey = new LoadKey(keyStore, trackingKeyStore, synched, this.fileState, snapshot, previousShared, loaded);
+                keyStore = null;
+                trackingKeyStore = null;
+                publishKeyStore(loaded.getKeyStore());
+                this.fileState = fileState.withoutContent();
+            } else {
+                loadKey = new LoadKey(keyStore, trackingKeyStore, synched, fileState, snapshot, null, null);
+                createWorkingKeyStore();
+                publishKeyStore(keyStore);
+            }
             synched = System.currentTimeMillis();
-            boolean originalModified = trackingKeyStore.isModified();
-            trackingKeyStore.setModified(false);
-            return new LoadKey(loadKey, originalSynced, originalModified);
+            return loadKey;
         } catch (GeneralSecurityException | IOException e) {
             throw ROOT_LOGGER.unableToCompleteOperation(e);
         }
     }
 
-    void revertLoad(final LoadKey loadKey) {
-        keyStore.revert(loadKey.loadKey);
+    synchronized void revertLoad(final LoadKey loadKey) {
+        if (sharedKeyStore != null) {
+            // Other services sharing the file may already have switched to the loaded content, they switch back with us.
+            sharedKeyStore.revert(loadKey.loadedShared, loadKey.previousShared, reloadListener);
+        }
+        if (loadKey.snapshot == null) {
+            // Return to the not yet loaded state.
+            release();
+            snapshot = null;
+            loaded.set(null);
+            return;
+        }
+
+        keyStore = loadKey.keyStore;
+        trackingKeyStore = loadKey.trackingKeyStore;
         synched = loadKey.modifiedTime;
-        trackingKeyStore.setModified(loadKey.modified);
+        fileState = loadKey.fileState;
+        // A new version of the previous content is published as readers may have seen the loaded content.
+        publishSnapshot(loadKey.snapshot.republish(nextVersion++, latest));
     }
 
-    void save() throws OperationFailedException {
+    /**
+     * Apply the supplied entries to the working {@link KeyStore} as a single change, either all of the entries are applied
+     * or none of them are. A single new snapshot is published once all entries have been applied.
+     *
+     * A {@link KeyStore} not backed by a file is not written to, the entries are only held by the published snapshots.
+     *
+     * @param entries the entries to apply keyed by alias.
+     * @param keyPasswords the passwords to protect the key entries with keyed by alias, key entries without a password are
+     *        protected using the {@link KeyStore} password.
+     * @return an {@link ImportKey} that can be passed to {@link #revertImport(ImportKey)} to restore the previous entries.
+     * @throws OperationFailedException if any of the entries could not be applied.
+     */
+    ImportKey importEntries(Map<String, KeyStore.Entry> entries, Map<String, char[]> keyPasswords) throws OperationFailedException {
+        loadedSnapshot();
+        synchronized (this) {
+            if (resolvedPath == null) {
+                final ImportKey importKey = new ImportKey(snapshot, null, isModified());
+                publish(entries, alias -> keyPasswords.getOrDefault(alias, password));
+                trackingKeyStore.setModified(true);
+                return importKey;
+            }
+
+            // The previous content is retained in its stored form so replaced entries keep their own key passwords.
+            final ImportKey importKey;
+            try {
+                importKey = new ImportKey(snapshot, keyStore != null ? serialize(keyStore) : null, isModified());
+            } catch (GeneralSecurityException | IOException e) {
+                throw ROOT_LOGGER.unableToAccessKeyStore(e);
+            }
+
+            final KeyStore keyStore = getModifiableValue();
+            for (Map.Entry<String, KeyStore.Entry> current : entries.entrySet()) {
+                String alias = current.getKey();
+                KeyStore.Entry entry = current.getValue();
+                try {
+                    keyStore.setEntry(alias, entry, entry instanceof KeyStore.TrustedCertificateEntry ? null
+                            : new KeyStore.PasswordProtection(keyPasswords.getOrDefault(alias, password)));
+                } catch (KeyStoreException | RuntimeException e) {
+                    restore(importKey);
+                    throw ROOT_LOGGER.unableToImportEntry(alias, e);
+                }
+            }
+
+            publish(entries, alias -> keyPasswords.getOrDefault(alias, password));
+            return importKey;
+        }
+    }
+
+    synchronized void revertImport(final ImportKey importKey) {
+        restore(importKey);
+        // A new version is published as readers may have seen the imported content.
+        publishSnapshot(importKey.snapshot.republish(nextVersion++, latest));
+    }
+
+    private void restore(final ImportKey importKey) {
+        if (resolvedPath == null) {
+            // The working KeyStore was not written to.
+            trackingKeyStore.setModified(importKey.modified);
+            return;
+        }
+        if (importKey.content == null) {
+            // Return to sharing the content last loaded.
+            keyStore = null;
+            trackingKeyStore = null;
+            return;
+        }
+
+        try {
+            AtomicLoadKeyStore keyStore = AtomicLoadKeyStore.newInstance(type, resolvedProvider);
+            try (InputStream is = new ByteArrayInputStream(importKey.content)) {
+                keyStore.load(is, password);
+            }
+            this.keyStore = keyStore;
+            trackingKeyStore = ModifyTrackingKeyStore.modifyTrackingKeyStore(keyStore);
+            trackingKeyStore.setModified(importKey.modified);
+        } catch (GeneralSecurityException | IOException e) {
+            // The content was serialized by the same provider moments earlier.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] serialize(final KeyStore keyStore) throws GeneralSecurityException, IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        keyStore.store(baos, password);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Remove the entry for an alias from the working {@link KeyStore} and publish the change, a {@link KeyStore} not backed by
+     * a file is not written to.
+     *
+     * @param alias the alias of the entry to remove.
+     * @throws OperationFailedException if the entry can not be removed.
+     */
+    void removeEntry(final String alias) throws OperationFailedException {
+        loadedSnapshot();
+        synchronized (this) {
+            if (resolvedPath == null) {
+                publish(Collections.singletonMap(alias, null), removed -> null);
+                trackingKeyStore.setModified(true);
+                return;
+            }
+            try {
+                getModifiableValue().deleteEntry(alias);
+            } catch (KeyStoreException e) {
+                throw new OperationFailedException(e);
+            }
+            publish(Collections.singletonMap(alias, null), removed -> null);
+        }
+    }
+
+    /**
+     * Store the {@link KeyStore} to its file.
+     *
+     * The serialization and write take place on the service's own thread, the content is written to a temporary file in the
+     * same directory which is synced to disk before being atomically moved over the original so a failure at any point leaves
+     * the previous file intact. The caller does not wait for the write, the outcome is available from {@link #getLastStore()}
+     * and a failure is also logged.
+     *
+     * @return a {@link CompletableFuture} completed once the file has been replaced and the outcome recorded.
+     * @throws OperationFailedException if this {@link KeyStore} is not backed by a file.
+     * @throws IllegalStateException if the service has been stopped.
+     */
+    CompletableFuture<Void> save() throws OperationFailedException {
         if (resolvedPath == null) {
             throw ROOT_LOGGER.cantSaveWithoutFile();
         }
-        try (FileOutputStream fos = new FileOutputStream(resolvedPath)) {
-            keyStore.store(fos, password);
-            synched = System.currentTimeMillis();
-            trackingKeyStore.setModified(false);
+        loadedSnapshot();
+
+        final File resolvedPath = this.resolvedPath;
+        final ScheduledExecutorService executor = this.executor;
+        if (executor == null) {
+            throw ROOT_LOGGER.keyStoreServiceStopped(resolvedPath.getAbsolutePath());
+        }
+
+        // Recorded before the store is queued so the outcome can not be overwritten by the request.
+        final StoreResult requested = new StoreResult(false, System.currentTimeMillis(), null);
+        lastStore.set(requested);
+        final CompletableFuture<Void> stored;
+        try {
+            stored = CompletableFuture.runAsync(() -> store(resolvedPath), executor);
+        } catch (RejectedExecutionException e) {
+            IllegalStateException failure = ROOT_LOGGER.keyStoreServiceStopped(resolvedPath.getAbsolutePath());
+            lastStore.compareAndSet(requested, new StoreResult(true, System.currentTimeMillis(), failure));
+            throw failure;
+        }
+
+        return stored.whenComplete((v, t) -> {
+            Throwable failure = t instanceof CompletionException ? t.getCause() : t;
+            // A later request has already replaced the result of this one.
+            lastStore.compareAndSet(requested, new StoreResult(true, System.currentTimeMillis(), failure));
+            if (failure != null) {
+                ROOT_LOGGER.keyStoreStoreFailed(failure);
+            }
+        });
+    }
+
+    /**
+     * Get the outcome of the most recent request to store the {@link KeyStore}.
+     *
+     * @return the outcome of the most recent request to store the {@link KeyStore} or {@code null} if it has not been stored
+     *         since the service started.
+     */
+    StoreResult getLastStore() {
+        return lastStore.get();
+    }
+
+    private synchronized void store(final File resolvedPath) {
+        final ModifyTrackingKeyStore trackingKeyStore = this.trackingKeyStore;
+        final KeyStoreSnapshot snapshot = this.snapshot;
+        if (trackingKeyStore == null && snapshot == null) {
+            // Queued before the service stopped.
+            throw ROOT_LOGGER.keyStoreServiceStopped(resolvedPath.getAbsolutePath());
+        }
+
+        // Captured first as storing the working KeyStore also clears the flag.
+        final boolean originalModified = isModified();
+        final byte[] content;
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            // Without a working KeyStore the current snapshot is the content last loaded.
+            (trackingKeyStore != null ? trackingKeyStore : snapshot.getKeyStore()).store(baos, password);
+            content = baos.toByteArray();
         } catch (IOException | KeyStoreException | NoSuchAlgorithmException | CertificateException e) {
-            throw ROOT_LOGGER.unableToCompleteOperation(e);
+            if (trackingKeyStore != null) {
+                trackingKeyStore.setModified(originalModified);
+            }
+            throw ROOT_LOGGER.unableToStoreKeyStore(resolvedPath.getAbsolutePath(), e);
+        }
+
+        if (trackingKeyStore != null) {
+            trackingKeyStore.setModified(false);
+        }
+        try {
+            write(resolvedPath, content);
+        } catch (IOException e) {
+            if (trackingKeyStore != null) {
+                trackingKeyStore.setModified(originalModified);
+            }
+            throw ROOT_LOGGER.unableToStoreKeyStore(resolvedPath.getAbsolutePath(), e);
+        }
+        synched = System.currentTimeMillis();
+        fileState = FileState.of(resolvedPath.lastModified(), content);
+    }
+
+    private SharedKeyStore.State sharedState() {
+        return sharedKeyStore != null ? sharedKeyStore.getState() : null;
+    }
+
+    /**
+     * Another {@link KeyStoreService} sharing the same file has loaded new content or reverted a load, switch to the shared
+     * content on this service's own thread.
+     */
+    private void sharedKeyStoreChanged() {
+        final ScheduledExecutorService executor = this.executor;
+        if (executor != null) {
+            try {
+                executor.execute(this::adoptSharedKeyStore);
+            } catch (RejectedExecutionException e) {
+                // The service is stopping.
+            }
         }
     }
 
-    boolean isModified() {
-        return trackingKeyStore.isModified();
+    private synchronized void adoptSharedKeyStore() {
+        final SharedKeyStore.State state = sharedState();
+        if (snapshot == null || state == null || Arrays.equals(state.getDigest(), fileState.digest)) {
+            // Not loaded yet, the shared content is used once it is.
+            return;
+        }
+        if (isModified()) {
+            ROOT_LOGGER.keyStoreModifiedNotReloaded(resolvedPath.getAbsolutePath());
+            return;
+        }
+
+        keyStore = null;
+        trackingKeyStore = null;
+        publishKeyStore(state.getKeyStore());
+        fileState = new FileState(state.getLastModified(), state.getDigest(), null);
+        synched = System.currentTimeMillis();
+        ROOT_LOGGER.keyStoreReloaded(resolvedPath.getAbsolutePath());
+    }
+
+    private static void write(File target, byte[] content) throws IOException {
+        File temp = File.createTempFile("." + target.getName() + "-", ".tmp", target.getAbsoluteFile().getParentFile());
+        try {
+            try (FileOutputStream fos = new FileOutputStream(temp)) {
+                fos.write(content);
+                fos.getFD().sync();
+            }
+            copyAttributes(target.toPath(), temp.toPath());
+            try {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * Copy the permissions, owner and group of the file being replaced to the temporary file, the temporary file is otherwise
+     * only readable by the current user.
+     */
+    private static void copyAttributes(Path source, Path target) throws IOException {
+        PosixFileAttributeView sourceView = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+        PosixFileAttributeView targetView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        if (sourceView == null || targetView == null || Files.exists(source) == false) {
+            return;
+        }
+
+        PosixFileAttributes attributes = sourceView.readAttributes();
+        targetView.setPermissions(attributes.permissions());
+        try {
+            targetView.setGroup(attributes.group());
+            targetView.setOwner(attributes.owner());
+        } catch (IOException e) {
+            // Changing the owner is normally restricted to privileged users.
+            ROOT_LOGGER.tracef(e, "Unable to retain the owner of '%s'", source);
+        }
+    }
+
+    synchronized boolean isModified() {
+        return trackingKeyStore != null && trackingKeyStore.isModified();
     }
 
     class LoadKey {
-        private final AtomicLoadKeyStore.LoadKey loadKey;
+        private final AtomicLoadKeyStore keyStore;
+        private final ModifyTrackingKeyStore trackingKeyStore;
         private final long modifiedTime;
-        private final boolean modified;
+        private final FileState fileState;
+        private final KeyStoreSnapshot snapshot;
+        private final SharedKeyStore.State previousShared;
+        private final SharedKeyStore.State loadedShared;
 
-        LoadKey(AtomicLoadKeyStore.LoadKey loadKey, long modifiedTime, boolean modified) {
-            this.loadKey = loadKey;
+        LoadKey(AtomicLoadKeyStore keyStore, ModifyTrackingKeyStore trackingKeyStore, long modifiedTime, FileState fileState, KeyStoreSnapshot snapshot,
+                SharedKeyStore.State previousShared, SharedKeyStore.State loadedShared) {
+            this.keyStore = keyStore;
+            this.trackingKeyStore = trackingKeyStore;
             this.modifiedTime = modifiedTime;
+            this.fileState = fileState;
+            this.snapshot = snapshot;
+            this.previousShared = previousShared;
+            this.loadedShared = loadedShared;
+        }
+    }
+
+    class ImportKey {
+        private final KeyStoreSnapshot snapshot;
+        private final byte[] content;
+        private final boolean modified;
+
+        ImportKey(KeyStoreSnapshot snapshot, byte[] content, boolean modified) {
+            this.snapshot = snapshot;
+            this.content = content;
             this.modified = modified;
         }
     }
 
+    /**
+     * The outcome of a request to store the {@link KeyStore}.
+     */
+    static final class StoreResult {
+
+        private final boolean complete;
+        private final long time;
+        private final Throwable failure;
+
+        private StoreResult(boolean complete, long time, Throwable failure) {
+            this.complete = complete;
+            this.time = time;
+            this.failure = failure;
+        }
+
+        /**
+         * Check if the store has completed, either successfully or with a failure.
+         *
+         * @return {@code true} if the store has completed.
+         */
+        boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * Get the time the store completed or, while it is still in progress, the time it was requested.
+         *
+         * @return the time in milliseconds since the epoch.
+         */
+        long getTime() {
+            return time;
+        }
+
+        /**
+         * Get the reason the store failed.
+         *
+         * @return the reason the store failed or {@code null} if it is still in progress or succeeded.
+         */
+        Throwable getFailure() {
+            return failure;
+        }
+    }
+
+    /**
+     * The results of scanning a snapshot for expiring certificates.
+     */
+    static final class ExpiryScan {
+
+        private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+        private final long version;
+        private final long time;
+        private final Date earliestExpiry;
+        private final int expired;
+        private final int within7Days;
+        private final int within30Days;
+        private final int within90Days;
+
+        private ExpiryScan(long version, KeyStoreAliasIndex aliasIndex, long now) {
+            this.version = version;
+            this.time = now;
+            earliestExpiry = aliasIndex.getEarliestExpiry();
+            expired = aliasIndex.countExpiringBefore(now);
+            within7Days = aliasIndex.countExpiringBefore(now + 7 * DAY) - expired;
+            within30Days = aliasIndex.countExpiringBefore(now + 30 * DAY) - expired;
+            within90Days = aliasIndex.countExpiringBefore(now + 90 * DAY) - expired;
+        }
+
+        Date getEarliestExpiry() {
+            return earliestExpiry;
+        }
+
+        int getExpired() {
+            return expired;
+        }
+
+        int getWithin7Days() {
+            return within7Days;
+        }
+
+        int getWithin30Days() {
+            return within30Days;
+        }
+
+        int getWithin90Days() {
+            return within90Days;
+        }
+    }
+
+    /**
+     * The last modified time and digest of the file content last seen by this service.
+     */
+    private static final class FileState {
+        private final long lastModified;
+        private final byte[] digest;
+        private final byte[] content;
+
+        private FileState(long lastModified, byte[] digest, byte[] content) {
+            this.lastModified = lastModified;
+            this.digest = digest;
+            this.content = content;
+        }
+
+        static FileState read(File file) throws IOException {
+            long lastModified = file.lastModified();
+            byte[] content = Files.readAllBytes(file.toPath());
+            try {
+                return new FileState(lastModified, MessageDigest.getInstance(DIGEST_ALGORITHM).digest(content), content);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException(e);
+            }
+        }
+
+        static FileState of(long lastModified, byte[] content) {
+            try {
+                return new FileState(lastModified, MessageDigest.getInstance(DIGEST_ALGORITHM).digest(content), null);
+            } catch (NoSuchAlgorithmException e) {
+                // Only forces a reload check on the next change.
+                return new FileState(lastModified, null, null);
+            }
+        }
+
+        FileState withoutContent() {
+            return new FileState(lastModified, digest, null);
+        }
+
+        boolean sameContent(FileState other) {
+            return other != null && Arrays.equals(digest, other.digest);
+        }
+    }
+
 }
@@ -0,0 +1,719 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.wildfly.extension.elytron.CertificateChainAttributeDefintions.writeCertificate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.KeyStoreSpi;
+import java.security.NoSuchAlgorithmException;
+import java.security.UnrecoverableEntryException;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.jboss.dmr.ModelNode;
+
+/**
+ * An immutable, versioned copy of the content of a {@link KeyStore} as published by a {@link KeyStoreService}.
+ *
+ * Whenever the content of the {@link KeyStore} is changed by a management operation or a reload a new snapshot is published,
+ * readers holding an earlier snapshot are never affected by the writes.
+ *
+ * A snapshot is a base {@link KeyStore} which is never modified plus the entries changed since the base was copied, so
+ * publishing a change to a few aliases does not need to copy the whole {@link KeyStore}. Once the changes grow beyond a
+ * fraction of the base the {@link KeyStoreService} copies the content again to start a new base.
+ *
+ * A {@link KeyStore} which is not backed by a file, such as PKCS#11, can not be copied - the {@link KeyStoreService} never
+ * writes to the base of these, every change is held in the changed entries until the {@link KeyStore} is loaded again.
+ *
+ * Consumers which should follow changes hold the view returned by {@link #live(Supplier)} which reads from the latest snapshot
+ * on each call, a consumer needing several reads to agree obtains the snapshot itself using {@link #current(KeyStore)}.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+final class KeyStoreSnapshot {
+
+    /**
+     * The minimum number of changed entries a snapshot holds before the content is copied to a new base.
+     */
+    private static final int MIN_CHANGES = 64;
+
+    private final long version;
+    private final KeyStore base;
+    private final Map<String, Change> changes;
+    private final int size;
+    private final SnapshotKeyStoreSpi keyStoreSpi;
+    private final KeyStore keyStore;
+
+    private volatile KeyStoreAliasIndex aliasIndex;
+    private final KeyStoreAliasIndex previousAliasIndex;
+    private final Set<String> indexChanges;
+    private final Map<Certificate, ModelNode> certificateModels = new ConcurrentHashMap<>();
+
+    /**
+     * Create a snapshot of the whole content of a {@link KeyStore}.
+     *
+     * @param version the version of the snapshot.
+     * @param base the {@link KeyStore} holding the content, the {@link KeyStore} must not be modified once published.
+     * @param latest the supplier of the latest snapshot published by the same {@link KeyStoreService}.
+     */
+    KeyStoreSnapshot(final long version, final KeyStore base, final Supplier<KeyStoreSnapshot> latest) {
+        this(version, base, Collections.emptyMap(), null, Collections.emptySet(), latest);
+    }
+
+    private KeyStoreSnapshot(final long version, final KeyStore base, final Map<String, Change> changes, final KeyStoreAliasIndex previousAliasIndex,
+            final Set<String> indexChanges, final Supplier<KeyStoreSnapshot> latest) {
+        this.version = version;
+        this.base = base;
+        this.changes = changes;
+        this.previousAliasIndex = previousAliasIndex;
+        this.indexChanges = indexChanges;
+
+        try {
+            int size = base.size();
+            for (Map.Entry<String, Change> current : changes.entrySet()) {
+                size += (current.getValue().entry != null ? 1 : 0) - (base.containsAlias(current.getKey()) ? 1 : 0);
+            }
+            this.size = size;
+
+            keyStoreSpi = new SnapshotKeyStoreSpi(this);
+            keyStore = new SnapshotKeyStore(keyStoreSpi, base, latest);
+            keyStore.load(null, null);
+        } catch (GeneralSecurityException | IOException e) {
+            // The base is already loaded and the view does not read the stream.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Create a new snapshot with the supplied changes applied to the content of this snapshot.
+     *
+     * @param version the version of the new snapshot.
+     * @param entries the changed entries keyed by alias, a {@code null} entry where the alias has been removed.
+     * @param keyPasswords the password protecting each key entry.
+     * @param latest the supplier of the latest snapshot published by the same {@link KeyStoreService}.
+     * @return the new snapshot.
+     */
+    KeyStoreSnapshot withChanges(final long version, final Map<String, KeyStore.Entry> entries, final Function<String, char[]> keyPasswords,
+            final Supplier<KeyStoreSnapshot> latest) {
+        Map<String, Change> changes = new HashMap<>(this.changes);
+        Date now = new Date();
+        for (Map.Entry<String, KeyStore.Entry> current : entries.entrySet()) {
+            KeyStore.Entry entry = current.getValue();
+            boolean keyEntry = entry instanceof KeyStore.PrivateKeyEntry || entry instanceof KeyStore.SecretKeyEntry;
+            char[] password = keyEntry ? keyPasswords.apply(current.getKey()) : null;
+            changes.put(current.getKey(), new Change(entry, password != null ? password.clone() : null, now));
+        }
+
+        // Where this snapshot has not been indexed the changes since the last index are carried forward.
+        KeyStoreAliasIndex aliasIndex = this.aliasIndex;
+        Set<String> indexChanges = new HashSet<>(entries.keySet());
+        if (aliasIndex == null && previousAliasIndex != null) {
+            aliasIndex = previousAliasIndex;
+            indexChanges.addAll(this.indexChanges);
+        }
+
+        return new KeyStoreSnapshot(version, base, Collections.unmodifiableMap(changes), aliasIndex, indexChanges, latest);
+    }
+
+    /**
+     * Create a new snapshot with the same content as this snapshot, used to publish earlier content again.
+     *
+     * @param version the version of the new snapshot.
+     * @param latest the supplier of the latest snapshot published by the same {@link KeyStoreService}.
+     * @return the new snapshot.
+     */
+    KeyStoreSnapshot republish(final long version, final Supplier<KeyStoreSnapshot> latest) {
+        return withChanges(version, Collections.emptyMap(), alias -> null, latest);
+    }
+
+    /**
+     * Check if enough entries have changed since the base was copied that the content should be copied to a new base.
+     *
+     * @return {@code true} if the content should be copied to a new base.
+     */
+    boolean isCopyDue() {
+        return changes.size() > Math.max(MIN_CHANGES, (size - changes.size()) / 4);
+    }
+
+    /**
+     * Get the version of this snapshot, versions increase each time a new snapshot is published.
+     *
+     * @return the version of this snapshot.
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the read only {@link KeyStore} for this snapshot, the content of the {@link KeyStore} is fixed for the life of the
+     * snapshot.
+     *
+     * @return the {@link KeyStore} for this snapshot.
+     */
+    KeyStore getKeyStore() {
+        return keyStore;
+    }
+
+    /**
+     * Get the index of the aliases within this snapshot, the index is built on first use.
+     *
+     * Where the snapshot was created from changes to a snapshot which had already been indexed only the changed aliases are
+     * indexed again.
+     *
+     * @return the index of the aliases within this snapshot.
+     * @throws KeyStoreException if the {@link KeyStore} can not be read.
+     */
+    KeyStoreAliasIndex getAliasIndex() throws KeyStoreException {
+        KeyStoreAliasIndex aliasIndex = this.aliasIndex;
+        if (aliasIndex == null) {
+            // Building concurrently is harmless, the content of the snapshot can not change.
+            aliasIndex = previousAliasIndex != null ? previousAliasIndex.withChanges(keyStore, indexChanges) : KeyStoreAliasIndex.create(keyStore);
+            this.aliasIndex = aliasIndex;
+        }
+
+        return aliasIndex;
+    }
+
+    /**
+     * Get the model representation of a {@link Certificate} from this snapshot.
+     *
+     * Renderings are cached for the life of the snapshot so repeated reads of the same certificates do not need to encode
+     * and digest them again, as a new snapshot is published on each change the cache never needs to be invalidated.
+     *
+     * @param certificate the {@link Certificate} to obtain the model representation of.
+     * @return the protected model representation of the {@link Certificate}.
+     * @throws CertificateEncodingException
+     * @throws NoSuchAlgorithmException
+     */
+    ModelNode getCertificateModel(final Certificate certificate) throws CertificateEncodingException, NoSuchAlgorithmException {
+        ModelNode certificateModel = certificateModels.get(certificate);
+        if (certificateModel == null) {
+            certificateModel = new ModelNode();
+            writeCertificate(certificateModel, certificate);
+            certificateModel.protect();
+            ModelNode existing = certificateModels.putIfAbsent(certificate, certificateModel);
+            if (existing != null) {
+                certificateModel = existing;
+            }
+        }
+
+        return certificateModel;
+    }
+
+    /**
+     * Create a read only {@link KeyStore} where each call reads from the latest snapshot, where no snapshot is currently
+     * published the snapshot last read from is used.
+     *
+     * @param latest the supplier of the latest snapshot published by a {@link KeyStoreService}, the supplier must return a
+     *        snapshot when this method is called.
+     * @return the read only {@link KeyStore} following the latest snapshot.
+     */
+    static KeyStore live(final Supplier<KeyStoreSnapshot> latest) {
+        LiveKeyStoreSpi keyStoreSpi = new LiveKeyStoreSpi(latest);
+        KeyStore base = keyStoreSpi.snapshot().base;
+        KeyStore keyStore = new SnapshotKeyStore(keyStoreSpi, base, latest);
+        try {
+            keyStore.load(null, null);
+        } catch (GeneralSecurityException | IOException e) {
+            // The view does not read the stream.
+            throw new IllegalStateException(e);
+        }
+
+        return keyStore;
+    }
+
+    /**
+     * Get the latest snapshot published by the {@link KeyStoreService} which published the snapshot backing a {@link KeyStore}
+     * obtained from {@link #getKeyStore()} or {@link #live(Supplier)}.
+     *
+     * @param keyStore the {@link KeyStore} to obtain the latest snapshot for.
+     * @return the latest snapshot or {@code null} if the {@link KeyStore} is not backed by snapshots or no snapshot is
+     *         currently published.
+     */
+    static KeyStoreSnapshot current(final KeyStore keyStore) {
+        return keyStore instanceof SnapshotKeyStore ? ((SnapshotKeyStore) keyStore).latest.get() : null;
+    }
+
+    private static final class Change {
+
+        private final KeyStore.Entry entry;
+        private final char[] password;
+        private final Date creationDate;
+
+        private Change(final KeyStore.Entry entry, final char[] password, final Date creationDate) {
+            this.entry = entry;
+            this.password = password;
+            this.creationDate = creationDate;
+        }
+
+        private boolean isKeyEntry() {
+            return entry instanceof KeyStore.PrivateKeyEntry || entry instanceof KeyStore.SecretKeyEntry;
+        }
+
+        private Certificate getCertificate() {
+            if (entry instanceof KeyStore.PrivateKeyEntry) {
+                return ((KeyStore.PrivateKeyEntry) entry).getCertificate();
+            } else if (entry instanceof KeyStore.TrustedCertificateEntry) {
+                return ((KeyStore.TrustedCertificateEntry) entry).getTrustedCertificate();
+            }
+            return null;
+        }
+
+        private boolean checkPassword(char[] password) {
+            return password != null && Arrays.equals(this.password, password);
+        }
+    }
+
+    private static class SnapshotKeyStore extends KeyStore {
+
+        private final Supplier<KeyStoreSnapshot> latest;
+
+        SnapshotKeyStore(KeyStoreSpi keyStoreSpi, KeyStore base, Supplier<KeyStoreSnapshot> latest) {
+            super(keyStoreSpi, base.getProvider(), base.getType());
+            this.latest = latest;
+        }
+
+    }
+
+    /**
+     * A read only {@link KeyStoreSpi} delegating each call to the {@link KeyStoreSpi} of the latest snapshot.
+     */
+    private static class LiveKeyStoreSpi extends KeyStoreSpi {
+
+        private final Supplier<KeyStoreSnapshot> latest;
+        private volatile KeyStoreSnapshot last;
+        private boolean loaded;
+
+        LiveKeyStoreSpi(final Supplier<KeyStoreSnapshot> latest) {
+            this.latest = latest;
+            this.last = latest.get();
+        }
+
+        KeyStoreSnapshot snapshot() {
+            KeyStoreSnapshot snapshot = latest.get();
+            if (snapshot == null) {
+                // The service has stopped or returned to the not yet loaded state.
+                return last;
+            }
+            if (snapshot != last) {
+                last = snapshot;
+            }
+            return snapshot;
+        }
+
+        private SnapshotKeyStoreSpi delegate() {
+            return snapshot().keyStoreSpi;
+        }
+
+        @Override
+        public Key engineGetKey(String alias, char[] password) throws NoSuchAlgorithmException, UnrecoverableKeyException {
+            return delegate().engineGetKey(alias, password);
+        }
+
+        @Override
+        public Certificate[] engineGetCertificateChain(String alias) {
+            return delegate().engineGetCertificateChain(alias);
+        }
+
+        @Override
+        public Certificate engineGetCertificate(String alias) {
+            return delegate().engineGetCertificate(alias);
+        }
+
+        @Override
+        public Date engineGetCreationDate(String alias) {
+            return delegate().engineGetCreationDate(alias);
+        }
+
+        @Override
+        public KeyStore.Entry engineGetEntry(String alias, KeyStore.ProtectionParameter protParam) throws KeyStoreException,
+                NoSuchAlgorithmException, UnrecoverableEntryException {
+            return delegate().engineGetEntry(alias, protParam);
+        }
+
+        @Override
+        public boolean engineEntryInstanceOf(String alias, Class<? extends KeyStore.Entry> entryClass) {
+            return delegate().engineEntryInstanceOf(alias, entryClass);
+        }
+
+        @Override
+        public Enumeration<String> engineAliases() {
+            return delegate().engineAliases();
+        }
+
+        @Override
+        public boolean engineContainsAlias(String alias) {
+            return delegate().engineContainsAlias(alias);
+        }
+
+        @Override
+        public int engineSize() {
+            return delegate().engineSize();
+        }
+
+        @Override
+        public boolean engineIsKeyEntry(String alias) {
+            return delegate().engineIsKeyEntry(alias);
+        }
+
+        @Override
+        public boolean engineIsCertificateEntry(String alias) {
+            return delegate().engineIsCertificateEntry(alias);
+        }
+
+        @Override
+        public String engineGetCertificateAlias(Certificate cert) {
+            return delegate().engineGetCertificateAlias(cert);
+        }
+
+        @Override
+        public void engineStore(OutputStream stream, char[] password) throws IOException, NoSuchAlgorithmException, CertificateException {
+            delegate().engineStore(stream, password);
+        }
+
+        @Override
+        public void engineLoad(InputStream stream, char[] password) throws IOException, NoSuchAlgorithmException, CertificateException {
+            if (loaded) {
+                throw new UnsupportedOperationException();
+            }
+            loaded = true;
+        }
+
+        @Override
+        public void engineSetKeyEntry(String alias, Key key, char[] password, Certificate[] chain) throws KeyStoreException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void engineSetKeyEntry(String alias, byte[] key, Certificate[] chain) throws KeyStoreException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void engineSetCertificateEntry(String alias, Certificate cert) throws KeyStoreException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void engineSetEntry(String alias, KeyStore.Entry entry, KeyStore.ProtectionParameter protParam) throws KeyStoreException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void engineDeleteEntry(String alias) throws KeyStoreException {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+    /**
+     * A read only {@link KeyStoreSpi} for a single snapshot, the changed entries are checked before the base {@link KeyStore}.
+     */
+    private static class SnapshotKeyStoreSpi extends KeyStoreSpi {
+
+        private final KeyStore base;
+        private final Map<String, Change> changes;
+        private final int size;
+        private boolean loaded;
+
+        SnapshotKeyStoreSpi(final KeyStoreSnapshot snapshot) {
+            this.base = snapshot.base;
+            this.changes = snapshot.changes;
+            this.size = snapshot.size;
+        }
+
+        @Override
+        public Key engineGetKey(String alias, char[] password) throws NoSuchAlgorithmException, UnrecoverableKeyException {
+            Change change = changes.get(alias);
+            if (change != null) {
+                if (change.isKeyEntry() == false) {
+                    return null;
+                }
+                if (change.checkPassword(password) == false) {
+                    throw new UnrecoverableKeyException(alias);
+                }
+                return change.entry instanceof KeyStore.PrivateKeyEntry ? ((KeyStore.PrivateKeyEntry) change.entry).getPrivateKey()
+                        : ((KeyStore.SecretKeyEntry) change.entry).getSecretKey();
+            }
+
+            try {
+                return base.getKey(alias, password);
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public Certificate[] engineGetCertificateChain(String alias) {
+            Change change = changes.get(alias);
+            if (change != null) {
+                return change.entry instanceof KeyStore.PrivateKeyEntry ? ((KeyStore.PrivateKeyEntry) change.entry).getCertificateChain() : null;
+            }
+
+            try {
+                return base.getCertificateChain(alias);
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public Certificate engineGetCertificate(String alias) {
+            Change change = changes.get(alias);
+            if (change != null) {
+                return change.getCertificate();
+            }
+
+            try {
+                return base.getCertificate(alias);
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public Date engineGetCreationDate(String alias) {
+            Change change = changes.get(alias);
+            if (change != null) {
+                return change.entry != null ? (Date) change.creationDate.clone() : null;
+            }
+
+            try {
+                return base.getCreationDate(alias);
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public KeyStore.Entry engineGetEntry(String alias, KeyStore.ProtectionParameter protParam) throws KeyStoreException,
+                NoSuchAlgorithmException, UnrecoverableEntryException {
+            Change change = changes.get(alias);
+            if (change != null) {
+                if (change.isKeyEntry()) {
+                    if (protParam instanceof KeyStore.PasswordProtection == false
+                            || change.checkPassword(((KeyStore.PasswordProtection) protParam).getPassword()) == false) {
+                        throw new UnrecoverableEntryException(alias);
+                    }
+                }
+                return change.entry;
+            }
+
+            return base.getEntry(alias, protParam);
+        }
+
+        @Override
+        public boolean engineEntryInstanceOf(String alias, Class<? extends KeyStore.Entry> entryClass) {
+            Change change = changes.get(alias);
+            if (change != null) {
+                return entryClass.isInstance(change.entry);
+            }
+
+            try {
+                return base.entryInstanceOf(alias, entryClass);
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public Enumeration<String> engineAliases() {
+            try {
+                if (changes.isEmpty()) {
+                    return base.aliases();
+                }
+
+                List<String> aliases = new ArrayList<>(size);
+                Enumeration<String> baseAliases = base.aliases();
+                while (baseAliases.hasMoreElements()) {
+                    String alias = baseAliases.nextElement();
+                    if (changes.containsKey(alias) == false) {
+                        aliases.add(alias);
+                    }
+                }
+                for (Map.Entry<String, Change> current : changes.entrySet()) {
+                    if (current.getValue().entry != null) {
+                        aliases.add(current.getKey());
+                    }
+                }
+
+                return Collections.enumeration(aliases);
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean engineContainsAlias(String alias) {
+            Change change = changes.get(alias);
+            if (change != null) {
+                return change.entry != null;
+            }
+
+            try {
+                return base.containsAlias(alias);
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public int engineSize() {
+            return size;
+        }
+
+        @Override
+        public boolean engineIsKeyEntry(String alias) {
+            Change change = changes.get(alias);
+            if (change != null) {
+                return change.isKeyEntry();
+            }
+
+            try {
+                return base.isKeyEntry(alias);
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean engineIsCertificateEntry(String alias) {
+            Change change = changes.get(alias);
+            if (change != null) {
+                return change.entry instanceof KeyStore.TrustedCertificateEntry;
+            }
+
+            try {
+                return base.isCertificateEntry(alias);
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public String engineGetCertificateAlias(Certificate cert) {
+            try {
+                if (changes.isEmpty()) {
+                    return base.getCertificateAlias(cert);
+                }
+
+                Enumeration<String> aliases = engineAliases();
+                while (aliases.hasMoreElements()) {
+                    String alias = aliases.nextElement();
+                    if (cert.equals(engineGetCertificate(alias))) {
+                        return alias;
+                    }
+                }
+                return null;
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void engineStore(OutputStream stream, char[] password) throws IOException, NoSuchAlgorithmException, CertificateException {
+            try {
+                if (changes.isEmpty()) {
+                    base.store(stream, password);
+                    return;
+                }
+
+                // Only reached for snapshots holding changes, the base is copied and the changes applied to the copy.
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                base.store(baos, password);
+                KeyStore copy = KeyStore.getInstance(base.getType(), base.getProvider());
+                try (InputStream is = new ByteArrayInputStream(baos.toByteArray())) {
+                    copy.load(is, password);
+                }
+                for (Map.Entry<String, Change> current : changes.entrySet()) {
+                    Change change = current.getValue();
+                    if (change.entry == null) {
+                        if (copy.containsAlias(current.getKey())) {
+                            copy.deleteEntry(current.getKey());
+                        }
+                    } else {
+                        copy.setEntry(current.getKey(), change.entry, change.isKeyEntry() ? new KeyStore.PasswordProtection(change.password) : null);
+                    }
+                }
+                copy.store(stream, password);
+            } catch (KeyStoreException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void engineLoad(InputStream stream, char[] password) throws IOException, NoSuchAlgorithmException, CertificateException {
+            if (loaded) {
+                throw new UnsupportedOperationException();
+            }
+            loaded = true;
+        }
+
+        @Override
+        public void engineSetKeyEntry(String alias, Key key, char[] password, Certificate[] chain) throws KeyStoreException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void engineSetKeyEntry(String alias, byte[] key, Certificate[] chain) throws KeyStoreException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void engineSetCertificateEntry(String alias, Certificate cert) throws KeyStoreException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void engineSetEntry(String alias, KeyStore.Entry entry, KeyStore.ProtectionParameter protParam) throws KeyStoreException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void engineDeleteEntry(String alias) throws KeyStoreException {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
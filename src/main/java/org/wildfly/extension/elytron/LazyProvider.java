@@ -0,0 +1,103 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.wildfly.extension.elytron._private.ElytronSubsystemMessages.ROOT_LOGGER;
+
+import java.security.Provider;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * A lightweight {@link Provider} which stands in for a {@link Provider} which is only instantiated the first time one of it's
+ * services is requested.
+ *
+ * Until then the {@link LazyProvider} is named using the class name of the {@link Provider} it stands in for, the
+ * {@link Service} instances returned are those of the real {@link Provider} so the services are still associated with the real
+ * name.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+final class LazyProvider extends Provider {
+
+    private static final long serialVersionUID = 3593328497698937785L;
+
+    private final String className;
+    private transient Callable<Provider> factory;
+
+    private transient volatile Provider delegate;
+    private transient volatile boolean loaded;
+
+    /**
+     * Construct a new {@link LazyProvider}.
+     *
+     * @param className the class name of the {@link Provider} this stands in for.
+     * @param factory the factory to instantiate and configure the real {@link Provider} on first use.
+     */
+    LazyProvider(final String className, final Callable<Provider> factory) {
+        super(className, 0, "Lazily loaded provider " + className);
+        this.className = className;
+        this.factory = factory;
+    }
+
+    private Provider resolve() {
+        if (loaded == false) {
+            synchronized (this) {
+                if (loaded == false) {
+                    try {
+                        delegate = factory.call();
+                    } catch (Throwable t) {
+                        ROOT_LOGGER.unableToLoadLazyProvider(className, t);
+                    }
+                    factory = null;
+                    loaded = true;
+                }
+            }
+        }
+
+        return delegate;
+    }
+
+    /**
+     * Get the real {@link Provider} without triggering it's instantiation.
+     *
+     * @return the real {@link Provider} or {@code null} if it has not been loaded.
+     */
+    Provider getLoadedProvider() {
+        return delegate;
+    }
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    @Override
+    public Service getService(String type, String algorithm) {
+        Provider provider = resolve();
+        return provider != null ? provider.getService(type, algorithm) : null;
+    }
+
+    @Override
+    public Set<Service> getServices() {
+        Provider provider = resolve();
+        return provider != null ? provider.getServices() : Collections.<Service>emptySet();
+    }
+
+}
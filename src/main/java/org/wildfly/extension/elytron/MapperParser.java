@@ -29,6 +29,7 @@ import static org.jboss.as.controller.parsing.ParseUtils.requireNoContent;
 import static org.jboss.as.controller.parsing.ParseUtils.requireSingleAttribute;
 import static org.jboss.as.controller.parsing.ParseUtils.unexpectedAttribute;
 import static org.jboss.as.controller.parsing.ParseUtils.unexpectedElement;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.ACTION;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.ADD_PREFIX_ROLE_MAPPER;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.ADD_SUFFIX_ROLE_MAPPER;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.AGGREGATE_NAME_REWRITER;
@@ -36,6 +37,7 @@ import static org.wildfly.extension.elytron.ElytronDescriptionConstants.AGGREGAT
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.AGGREGATE_ROLE_MAPPER;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.ATTRIBUTE;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.CHAINED_NAME_REWRITER;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.CLASS_NAME;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.CONSTANT;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.CONSTANT_NAME_REWRITER;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.CONSTANT_ROLE_MAPPER;
@@ -56,11 +58,16 @@ import static org.wildfly.extension.elytron.ElytronDescriptionConstants.MAPPED_R
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.MAPPERS;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.MATCH;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.MAXIMUM_SEGMENTS;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.MODULE;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.NAME;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.NAME_REWRITER;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.NAME_REWRITERS;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.OID;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.PATTERN;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.PERMISSION;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.PERMISSION_MAPPING;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.PERMISSION_MAPPINGS;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.PERMISSIONS;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.PREFIX;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.PRINCIPAL_DECODER;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.PRINCIPAL_DECODERS;
@@ -74,9 +81,11 @@ import static org.wildfly.extension.elytron.ElytronDescriptionConstants.RIGHT;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.ROLES;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.ROLE_MAPPER;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.ROLE_MAPPERS;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.SIMPLE_PERMISSION_MAPPER;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.SIMPLE_REGEX_REALM_MAPPER;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.SIMPLE_ROLE_DECODER;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.SUFFIX;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.TARGET_NAME;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.TO;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.X500_ATTRIBUTE_PRINCIPAL_DECODER;
 import static org.wildfly.extension.elytron.ElytronSubsystemParser.readCustomComponent;
@@ -132,6 +141,9 @@ class MapperParser {
                 case CUSTOM_PERMISSION_MAPPER:
                     readCustomComponent(CUSTOM_PERMISSION_MAPPER, parentAddress, reader, operations);
                     break;
+                case SIMPLE_PERMISSION_MAPPER:
+                    readSimplePermissionMapper(parentAddress, reader, operations);
+                    break;
                 // Principal Decoders
                 case AGGREGATE_PRINCIPAL_DECODER:
                     readAggregatePrincipalDecoderElement(parentAddress, reader, operations);
@@ -419,6 +431,112 @@ class MapperParser {
         requireNoContent(reader);
     }
 
+    private void readSimplePermissionMapper(ModelNode parentAddress, XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
+        ModelNode addPermissionMapper = new ModelNode();
+        addPermissionMapper.get(OP).set(ADD);
+
+        requireSingleAttribute(reader, NAME);
+        String name = reader.getAttributeValue(0);
+
+        addPermissionMapper.get(OP_ADDR).set(parentAddress).add(SIMPLE_PERMISSION_MAPPER, name);
+
+        ModelNode permissionMappings = addPermissionMapper.get(PERMISSION_MAPPINGS);
+        while (reader.hasNext() && reader.nextTag() != END_ELEMENT) {
+            verifyNamespace(reader);
+            String localName = reader.getLocalName();
+            if (PERMISSION_MAPPING.equals(localName) == false) {
+                throw unexpectedElement(reader);
+            }
+
+            readPermissionMapping(permissionMappings, reader);
+        }
+
+        operations.add(addPermissionMapper);
+    }
+
+    private void readPermissionMapping(ModelNode permissionMappings, XMLExtendedStreamReader reader) throws XMLStreamException {
+        ModelNode permissionMapping = new ModelNode();
+
+        Set<String> requiredAttributes = new HashSet<String>(Arrays.asList(new String[] { ROLES }));
+
+        final int count = reader.getAttributeCount();
+        for (int i = 0; i < count; i++) {
+            if (!isNoNamespaceAttribute(reader, i)) {
+                throw unexpectedAttribute(reader, i);
+            } else {
+                String attribute = reader.getAttributeLocalName(i);
+                requiredAttributes.remove(attribute);
+                switch (attribute) {
+                    case ROLES:
+                        for (String role : reader.getListAttributeValue(i)) {
+                            PermissionMapperDefinitions.ROLES.parseAndAddParameterElement(role, permissionMapping, reader);
+                        }
+                        break;
+                    default:
+                        throw unexpectedAttribute(reader, i);
+                }
+            }
+        }
+
+        if (requiredAttributes.isEmpty() == false) {
+            throw missingRequired(reader, requiredAttributes);
+        }
+
+        ModelNode permissions = permissionMapping.get(PERMISSIONS);
+        while (reader.hasNext() && reader.nextTag() != END_ELEMENT) {
+            verifyNamespace(reader);
+            String localName = reader.getLocalName();
+            if (PERMISSION.equals(localName) == false) {
+                throw unexpectedElement(reader);
+            }
+
+            readPermission(permissions, reader);
+        }
+
+        permissionMappings.add(permissionMapping);
+    }
+
+    private void readPermission(ModelNode permissions, XMLExtendedStreamReader reader) throws XMLStreamException {
+        ModelNode permission = new ModelNode();
+
+        Set<String> requiredAttributes = new HashSet<String>(Arrays.asList(new String[] { CLASS_NAME }));
+
+        final int count = reader.getAttributeCount();
+        for (int i = 0; i < count; i++) {
+            final String value = reader.getAttributeValue(i);
+            if (!isNoNamespaceAttribute(reader, i)) {
+                throw unexpectedAttribute(reader, i);
+            } else {
+                String attribute = reader.getAttributeLocalName(i);
+                requiredAttributes.remove(attribute);
+                switch (attribute) {
+                    case CLASS_NAME:
+                        PermissionMapperDefinitions.CLASS_NAME.parseAndSetParameter(value, permission, reader);
+                        break;
+                    case MODULE:
+                        PermissionMapperDefinitions.MODULE.parseAndSetParameter(value, permission, reader);
+                        break;
+                    case TARGET_NAME:
+                        PermissionMapperDefinitions.TARGET_NAME.parseAndSetParameter(value, permission, reader);
+                        break;
+                    case ACTION:
+                        PermissionMapperDefinitions.ACTION.parseAndSetParameter(value, permission, reader);
+                        break;
+                    default:
+                        throw unexpectedAttribute(reader, i);
+                }
+            }
+        }
+
+        if (requiredAttributes.isEmpty() == false) {
+            throw missingRequired(reader, requiredAttributes);
+        }
+
+        requireNoContent(reader);
+
+        permissions.add(permission);
+    }
+
     private void readAggregatePrincipalDecoderElement(ModelNode parentAddress, XMLExtendedStreamReader reader, List<ModelNode> operations)
             throws XMLStreamException {
         ModelNode addNameRewriter = new ModelNode();
@@ -1063,6 +1181,40 @@ class MapperParser {
         return false;
     }
 
+    private boolean writeSimplePermissionMappers(boolean started, ModelNode subsystem, XMLExtendedStreamWriter writer) throws XMLStreamException {
+        if (subsystem.hasDefined(SIMPLE_PERMISSION_MAPPER)) {
+            startMappers(started, writer);
+            ModelNode permissionMappers = subsystem.require(SIMPLE_PERMISSION_MAPPER);
+            for (String name : permissionMappers.keys()) {
+                ModelNode permissionMapper = permissionMappers.require(name);
+                writer.writeStartElement(SIMPLE_PERMISSION_MAPPER);
+                writer.writeAttribute(NAME, name);
+                if (permissionMapper.hasDefined(PERMISSION_MAPPINGS)) {
+                    for (ModelNode permissionMapping : permissionMapper.require(PERMISSION_MAPPINGS).asList()) {
+                        writer.writeStartElement(PERMISSION_MAPPING);
+                        PermissionMapperDefinitions.ROLES.getAttributeMarshaller().marshallAsAttribute(PermissionMapperDefinitions.ROLES, permissionMapping, false, writer);
+                        if (permissionMapping.hasDefined(PERMISSIONS)) {
+                            for (ModelNode permission : permissionMapping.require(PERMISSIONS).asList()) {
+                                writer.writeStartElement(PERMISSION);
+                                PermissionMapperDefinitions.CLASS_NAME.marshallAsAttribute(permission, writer);
+                                PermissionMapperDefinitions.MODULE.marshallAsAttribute(permission, writer);
+                                PermissionMapperDefinitions.TARGET_NAME.marshallAsAttribute(permission, writer);
+                                PermissionMapperDefinitions.ACTION.marshallAsAttribute(permission, writer);
+                                writer.writeEndElement();
+                            }
+                        }
+                        writer.writeEndElement();
+                    }
+                }
+                writer.writeEndElement();
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
     private boolean writeAggregatePrincipalDecoders(boolean started, ModelNode subsystem, XMLExtendedStreamWriter writer) throws XMLStreamException {
         if (subsystem.hasDefined(AGGREGATE_PRINCIPAL_DECODER)) {
             startMappers(started, writer);
@@ -1355,6 +1507,7 @@ class MapperParser {
         mappersStarted = mappersStarted | writeRegexNameValidatingRewriters(mappersStarted, subsystem, writer);
 
         mappersStarted = mappersStarted | writeCustomPermissionMappers(mappersStarted, subsystem, writer);
+        mappersStarted = mappersStarted | writeSimplePermissionMappers(mappersStarted, subsystem, writer);
 
         mappersStarted = mappersStarted | writeAggregatePrincipalDecoders(mappersStarted, subsystem, writer);
         mappersStarted = mappersStarted | writeCustomPrincipalDecoders(mappersStarted, subsystem, writer);
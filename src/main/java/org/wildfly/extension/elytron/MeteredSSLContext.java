@@ -0,0 +1,464 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.nio.ByteBuffer;
+import java.security.KeyManagementException;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+
+/**
+ * An {@link SSLContext} which wraps an initialised {@link SSLContext} to record statistics about the handshakes performed by the
+ * {@link SSLEngine} instances it creates.
+ *
+ * A handshake is timed from the first call to the engine which starts it until the call reporting it has finished. A handshake
+ * which completes with a session created before the handshake started resumed that session rather than negotiating a new one
+ * by a full handshake, this needs no state shared between engines so recording a handshake takes no lock.
+ *
+ * Only handshakes performed by {@link SSLEngine} instances are recorded, sockets created by the socket factories of this
+ * context are not metered.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+final class MeteredSSLContext extends SSLContext {
+
+    private final Statistics statistics;
+
+    private MeteredSSLContext(final MeteredSSLContextSpi spi, final SSLContext delegate) {
+        super(spi, delegate.getProvider(), delegate.getProtocol());
+        this.statistics = spi.statistics;
+    }
+
+    /**
+     * Wrap the supplied {@link SSLContext}.
+     *
+     * @param delegate the initialised {@link SSLContext} to wrap.
+     * @return the wrapping {@link MeteredSSLContext}.
+     */
+    static MeteredSSLContext wrap(final SSLContext delegate) {
+        return new MeteredSSLContext(new MeteredSSLContextSpi(delegate), delegate);
+    }
+
+    long getHandshakeCount() {
+        return statistics.fullHandshakes.sum() + statistics.resumedHandshakes.sum();
+    }
+
+    long getFullHandshakeCount() {
+        return statistics.fullHandshakes.sum();
+    }
+
+    long getResumedHandshakeCount() {
+        return statistics.resumedHandshakes.sum();
+    }
+
+    /**
+     * Get the average time taken to complete a handshake.
+     *
+     * @return the average time in microseconds, {@code 0} if no handshakes have completed.
+     */
+    long getAverageHandshakeTime() {
+        long count = getHandshakeCount();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(statistics.handshakeTime.sum() / count);
+    }
+
+    private static final class Statistics {
+
+        private final LongAdder fullHandshakes = new LongAdder();
+        private final LongAdder resumedHandshakes = new LongAdder();
+        private final LongAdder handshakeTime = new LongAdder();
+
+        void handshakeCompleted(final SSLSession session, final long startTime, final long time) {
+            // A full handshake creates its session after it starts, a resumed session was created by an earlier handshake.
+            (session.getCreationTime() < startTime ? resumedHandshakes : fullHandshakes).increment();
+            handshakeTime.add(time);
+        }
+    }
+
+    private static final class MeteredSSLContextSpi extends SSLContextSpi {
+
+        private final SSLContext delegate;
+        private final Statistics statistics = new Statistics();
+
+        MeteredSSLContextSpi(final SSLContext delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected void engineInit(KeyManager[] km, TrustManager[] tm, SecureRandom sr) throws KeyManagementException {
+            delegate.init(km, tm, sr);
+        }
+
+        @Override
+        protected SSLSocketFactory engineGetSocketFactory() {
+            return delegate.getSocketFactory();
+        }
+
+        @Override
+        protected SSLServerSocketFactory engineGetServerSocketFactory() {
+            return delegate.getServerSocketFactory();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine() {
+            return new MeteredSSLEngine(delegate.createSSLEngine(), statistics);
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine(String host, int port) {
+            return new MeteredSSLEngine(delegate.createSSLEngine(host, port), statistics);
+        }
+
+        @Override
+        protected SSLSessionContext engineGetServerSessionContext() {
+            return delegate.getServerSessionContext();
+        }
+
+        @Override
+        protected SSLSessionContext engineGetClientSessionContext() {
+            return delegate.getClientSessionContext();
+        }
+
+        @Override
+        protected SSLParameters engineGetDefaultSSLParameters() {
+            return delegate.getDefaultSSLParameters();
+        }
+
+        @Override
+        protected SSLParameters engineGetSupportedSSLParameters() {
+            return delegate.getSupportedSSLParameters();
+        }
+    }
+
+    private static final class MeteredSSLEngine extends SSLEngine {
+
+        /*
+         * The application protocol (ALPN) methods were only added to SSLEngine after Java 8 so are delegated to where the
+         * running JVM has them.
+         */
+        private static final MethodHandle GET_APPLICATION_PROTOCOL = findMethod("getApplicationProtocol", MethodType.methodType(String.class));
+        private static final MethodHandle GET_HANDSHAKE_APPLICATION_PROTOCOL = findMethod("getHandshakeApplicationProtocol", MethodType.methodType(String.class));
+        private static final MethodHandle SET_HANDSHAKE_APPLICATION_PROTOCOL_SELECTOR = findMethod("setHandshakeApplicationProtocolSelector", MethodType.methodType(void.class, BiFunction.class));
+
+        private final SSLEngine delegate;
+        private final Statistics statistics;
+
+        private volatile boolean initial = true;
+        /*
+         * The start of the handshake in progress, both guarded by this.
+         */
+        private long handshakeStart;
+        private long handshakeStartTime;
+        private volatile BiFunction<SSLEngine, List<String>, String> applicationProtocolSelector;
+
+        MeteredSSLEngine(final SSLEngine delegate, final Statistics statistics) {
+            super(delegate.getPeerHost(), delegate.getPeerPort());
+            this.delegate = delegate;
+            this.statistics = statistics;
+        }
+
+        private void initialHandshake() {
+            if (initial) {
+                initial = false;
+                handshakeStarted();
+            }
+        }
+
+        private synchronized void handshakeStarted() {
+            if (handshakeStart == 0) {
+                handshakeStart = System.nanoTime();
+                handshakeStartTime = System.currentTimeMillis();
+            }
+        }
+
+        private SSLEngineResult track(final SSLEngineResult result) {
+            HandshakeStatus status = result.getHandshakeStatus();
+            if (status == HandshakeStatus.FINISHED) {
+                handshakeFinished();
+            } else if (status != HandshakeStatus.NOT_HANDSHAKING) {
+                handshakeStarted();
+            }
+
+            return result;
+        }
+
+        private void handshakeFinished() {
+            final long time;
+            final long startTime;
+            synchronized (this) {
+                if (handshakeStart == 0) {
+                    return;
+                }
+                time = System.nanoTime() - handshakeStart;
+                startTime = handshakeStartTime;
+                handshakeStart = 0;
+            }
+
+            statistics.handshakeCompleted(delegate.getSession(), startTime, time);
+        }
+
+        private static MethodHandle findMethod(final String name, final MethodType type) {
+            try {
+                return MethodHandles.publicLookup().findVirtual(SSLEngine.class, name, type);
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                return null;
+            }
+        }
+
+        private Object invoke(final MethodHandle method, final Object... arguments) {
+            if (method == null) {
+                throw new UnsupportedOperationException();
+            }
+
+            try {
+                Object[] withDelegate = new Object[arguments.length + 1];
+                withDelegate[0] = delegate;
+                System.arraycopy(arguments, 0, withDelegate, 1, arguments.length);
+                return method.invokeWithArguments(withDelegate);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new UndeclaredThrowableException(t);
+            }
+        }
+
+        @Override
+        public String getPeerHost() {
+            return delegate.getPeerHost();
+        }
+
+        @Override
+        public int getPeerPort() {
+            return delegate.getPeerPort();
+        }
+
+        @Override
+        public SSLEngineResult wrap(ByteBuffer src, ByteBuffer dst) throws SSLException {
+            initialHandshake();
+            return track(delegate.wrap(src, dst));
+        }
+
+        @Override
+        public SSLEngineResult wrap(ByteBuffer[] srcs, ByteBuffer dst) throws SSLException {
+            initialHandshake();
+            return track(delegate.wrap(srcs, dst));
+        }
+
+        @Override
+        public SSLEngineResult wrap(ByteBuffer[] srcs, int offset, int length, ByteBuffer dst) throws SSLException {
+            initialHandshake();
+            return track(delegate.wrap(srcs, offset, length, dst));
+        }
+
+        @Override
+        public SSLEngineResult unwrap(ByteBuffer src, ByteBuffer dst) throws SSLException {
+            initialHandshake();
+            return track(delegate.unwrap(src, dst));
+        }
+
+        @Override
+        public SSLEngineResult unwrap(ByteBuffer src, ByteBuffer[] dsts) throws SSLException {
+            initialHandshake();
+            return track(delegate.unwrap(src, dsts));
+        }
+
+        @Override
+        public SSLEngineResult unwrap(ByteBuffer src, ByteBuffer[] dsts, int offset, int length) throws SSLException {
+            initialHandshake();
+            return track(delegate.unwrap(src, dsts, offset, length));
+        }
+
+        @Override
+        public void beginHandshake() throws SSLException {
+            initial = false;
+            handshakeStarted();
+            delegate.beginHandshake();
+        }
+
+        @Override
+        public Runnable getDelegatedTask() {
+            return delegate.getDelegatedTask();
+        }
+
+        @Override
+        public void closeInbound() throws SSLException {
+            delegate.closeInbound();
+        }
+
+        @Override
+        public boolean isInboundDone() {
+            return delegate.isInboundDone();
+        }
+
+        @Override
+        public void closeOutbound() {
+            delegate.closeOutbound();
+        }
+
+        @Override
+        public boolean isOutboundDone() {
+            return delegate.isOutboundDone();
+        }
+
+        @Override
+        public String[] getSupportedCipherSuites() {
+            return delegate.getSupportedCipherSuites();
+        }
+
+        @Override
+        public String[] getEnabledCipherSuites() {
+            return delegate.getEnabledCipherSuites();
+        }
+
+        @Override
+        public void setEnabledCipherSuites(String[] suites) {
+            delegate.setEnabledCipherSuites(suites);
+        }
+
+        @Override
+        public String[] getSupportedProtocols() {
+            return delegate.getSupportedProtocols();
+        }
+
+        @Override
+        public String[] getEnabledProtocols() {
+            return delegate.getEnabledProtocols();
+        }
+
+        @Override
+        public void setEnabledProtocols(String[] protocols) {
+            delegate.setEnabledProtocols(protocols);
+        }
+
+        @Override
+        public SSLSession getSession() {
+            return delegate.getSession();
+        }
+
+        @Override
+        public SSLSession getHandshakeSession() {
+            return delegate.getHandshakeSession();
+        }
+
+        @Override
+        public HandshakeStatus getHandshakeStatus() {
+            return delegate.getHandshakeStatus();
+        }
+
+        @Override
+        public void setUseClientMode(boolean mode) {
+            delegate.setUseClientMode(mode);
+        }
+
+        @Override
+        public boolean getUseClientMode() {
+            return delegate.getUseClientMode();
+        }
+
+        @Override
+        public void setNeedClientAuth(boolean need) {
+            delegate.setNeedClientAuth(need);
+        }
+
+        @Override
+        public boolean getNeedClientAuth() {
+            return delegate.getNeedClientAuth();
+        }
+
+        @Override
+        public void setWantClientAuth(boolean want) {
+            delegate.setWantClientAuth(want);
+        }
+
+        @Override
+        public boolean getWantClientAuth() {
+            return delegate.getWantClientAuth();
+        }
+
+        @Override
+        public void setEnableSessionCreation(boolean flag) {
+            delegate.setEnableSessionCreation(flag);
+        }
+
+        @Override
+        public boolean getEnableSessionCreation() {
+            return delegate.getEnableSessionCreation();
+        }
+
+        @Override
+        public SSLParameters getSSLParameters() {
+            return delegate.getSSLParameters();
+        }
+
+        @Override
+        public void setSSLParameters(SSLParameters params) {
+            delegate.setSSLParameters(params);
+        }
+
+        // Not annotated with @Override as the methods only exist from Java 9.
+
+        public String getApplicationProtocol() {
+            return (String) invoke(GET_APPLICATION_PROTOCOL);
+        }
+
+        public String getHandshakeApplicationProtocol() {
+            return (String) invoke(GET_HANDSHAKE_APPLICATION_PROTOCOL);
+        }
+
+        public void setHandshakeApplicationProtocolSelector(BiFunction<SSLEngine, List<String>, String> selector) {
+            // The selector is passed this engine rather than the delegate so it sees the engine the application created.
+            BiFunction<SSLEngine, List<String>, String> wrapped = selector != null ? (engine, protocols) -> selector.apply(this, protocols) : null;
+            invoke(SET_HANDSHAKE_APPLICATION_PROTOCOL_SELECTOR, wrapped);
+            applicationProtocolSelector = selector;
+        }
+
+        public BiFunction<SSLEngine, List<String>, String> getHandshakeApplicationProtocolSelector() {
+            if (SET_HANDSHAKE_APPLICATION_PROTOCOL_SELECTOR == null) {
+                throw new UnsupportedOperationException();
+            }
+            return applicationProtocolSelector;
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+
+}
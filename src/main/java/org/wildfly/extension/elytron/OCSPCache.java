@@ -0,0 +1,704 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.wildfly.extension.elytron._private.ElytronSubsystemMessages.ROOT_LOGGER;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.cert.CRLReason;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.CertificateRevokedException;
+import java.security.cert.X509Certificate;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.security.auth.x500.X500Principal;
+
+import org.wildfly.security.asn1.ASN1;
+import org.wildfly.security.asn1.ASN1Exception;
+import org.wildfly.security.asn1.DERDecoder;
+import org.wildfly.security.asn1.DEREncoder;
+import org.wildfly.security.util.ByteStringBuilder;
+
+/**
+ * A bounded cache of OCSP responses used to check certificate chains for revocation without contacting the responder during a
+ * handshake.
+ *
+ * Only chains which have already been validated against the trust store are checked and only the certificates linked by
+ * issuer to a trusted certificate are checked within them, the signature of each certificate is verified against its issuer
+ * before the responder named in it is contacted so a peer can not direct requests to a responder of its own choosing.
+ *
+ * Checking a chain only ever reads the cache and never waits for the responder. Where no current response is cached for a
+ * certificate the responses for every such certificate of the chain are requested in the background, where soft fail is enabled
+ * the certificate is accepted for that check and where soft fail is disabled the chain is rejected until a current response
+ * reports each certificate as good, so the first handshake with a new chain fails and a retry succeeds once the responses have
+ * been cached. Each response is cached until its {@code nextUpdate}, or for a default period where the responder does not
+ * specify one, and is fetched again in the background once half of that period has passed so responses for certificates in
+ * regular use are replaced before they expire.
+ *
+ * Responses must be signed by the issuer of the certificate or by a responder certificate the issuer has authorised for OCSP
+ * signing and must identify the certificate by the hashes of its issuer name and key as well as its serial number, responses
+ * which can not be verified or have passed their {@code nextUpdate} are discarded.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+class OCSPCache {
+
+    private static final String DIGEST_ALGORITHM = "SHA-1";
+    private static final String CERTIFICATE_TYPE = "X.509";
+    private static final String OID_AUTHORITY_INFO_ACCESS = "1.3.6.1.5.5.7.1.1";
+    private static final String OID_OCSP = "1.3.6.1.5.5.7.48.1";
+    private static final String OID_OCSP_BASIC = "1.3.6.1.5.5.7.48.1.1";
+    private static final String OID_OCSP_SIGNING = "1.3.6.1.5.5.7.3.9";
+    private static final String OID_SHA256 = "2.16.840.1.101.3.4.2.1";
+    private static final String OID_SHA384 = "2.16.840.1.101.3.4.2.2";
+    private static final String OID_SHA512 = "2.16.840.1.101.3.4.2.3";
+    private static final String CONTENT_TYPE = "application/ocsp-request";
+
+    private static final int INTEGER_TAG = 0x02;
+    private static final int ENUMERATED_TAG = 0x0A;
+    private static final int URI_TAG = 6;
+    private static final int GOOD = 0;
+    private static final int REVOKED = 1;
+
+    private static final long DEFAULT_MAX_AGE = TimeUnit.HOURS.toMillis(1);
+    private static final long REFRESH_INTERVAL = 60;
+    private static final int TIMEOUT = (int) TimeUnit.SECONDS.toMillis(10);
+
+    private static final Map<String, String> DIGEST_ALGORITHMS;
+    private static final Map<String, String> SIGNATURE_ALGORITHMS;
+
+    static {
+        Map<String, String> digestAlgorithms = new HashMap<>();
+        digestAlgorithms.put(ASN1.OID_SHA1, "SHA-1");
+        digestAlgorithms.put(OID_SHA256, "SHA-256");
+        digestAlgorithms.put(OID_SHA384, "SHA-384");
+        digestAlgorithms.put(OID_SHA512, "SHA-512");
+        DIGEST_ALGORITHMS = Collections.unmodifiableMap(digestAlgorithms);
+
+
+        Map<String, String> signatureAlgorithms = new HashMap<>();
+        signatureAlgorithms.put(ASN1.OID_SHA1_WITH_RSA, "SHA1withRSA");
+        signatureAlgorithms.put(ASN1.OID_SHA256_WITH_RSA, "SHA256withRSA");
+        signatureAlgorithms.put(ASN1.OID_SHA384_WITH_RSA, "SHA384withRSA");
+        signatureAlgorithms.put(ASN1.OID_SHA512_WITH_RSA, "SHA512withRSA");
+        signatureAlgorithms.put(ASN1.OID_SHA1_WITH_DSA, "SHA1withDSA");
+        signatureAlgorithms.put(ASN1.OID_SHA1_WITH_ECDSA, "SHA1withECDSA");
+        signatureAlgorithms.put(ASN1.OID_SHA256_WITH_ECDSA, "SHA256withECDSA");
+        signatureAlgorithms.put(ASN1.OID_SHA384_WITH_ECDSA, "SHA384withECDSA");
+        signatureAlgorithms.put(ASN1.OID_SHA512_WITH_ECDSA, "SHA512withECDSA");
+        SIGNATURE_ALGORITHMS = Collections.unmodifiableMap(signatureAlgorithms);
+    }
+
+    private final String name;
+    private final URL responder;
+    private final int maximumSize;
+    private final boolean softFail;
+
+    private final Map<CertificateKey, Response> responses = new ConcurrentHashMap<>();
+    private final Set<CertificateKey> pending = ConcurrentHashMap.newKeySet();
+    private volatile ScheduledExecutorService executor;
+
+    /**
+     * Construct a new {@link OCSPCache}.
+     *
+     * @param name the name used for the background thread.
+     * @param responder the responder to use for all certificates, if {@code null} the responder named in the authority
+     *        information access extension of each certificate is used.
+     * @param maximumSize the maximum number of cached responses.
+     * @param softFail if {@code true} a certificate without a current response is accepted, if {@code false} the certificate is
+     *        rejected unless a cached response reports it as good.
+     */
+    OCSPCache(final String name, final URL responder, final int maximumSize, final boolean softFail) {
+        this.name = name;
+        this.responder = responder;
+        this.maximumSize = maximumSize;
+        this.softFail = softFail;
+    }
+
+    synchronized void start() {
+        final String threadName = "OCSP - " + name;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::refresh, REFRESH_INTERVAL, REFRESH_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        pending.clear();
+    }
+
+    /**
+     * Check the certificates of a chain against the cached responses, the chain must already have been validated against the
+     * trust store.
+     *
+     * @param chain the validated certificate chain to check.
+     * @param trustedIssuers the trusted certificates by subject, used to find the trusted issuer within or at the end of the chain.
+     * @throws CertificateRevokedException if a response reports a certificate in the chain as revoked.
+     * @throws CertificateException if soft fail is disabled and no current cached response reports a certificate as good.
+     */
+    void checkRevoked(final X509Certificate[] chain, final Map<X500Principal, X509Certificate> trustedIssuers) throws CertificateException {
+        if (chain == null) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        CertificateException notGood = null;
+        for (X509Certificate[] current : issuedCertificates(chain, trustedIssuers)) {
+            X509Certificate certificate = current[0];
+            X509Certificate issuer = current[1];
+
+            CertificateKey key = new CertificateKey(certificate.getIssuerX500Principal(), certificate.getSerialNumber());
+            Response response = responses.get(key);
+            if (response == null || response.expiry < now) {
+                if (response != null) {
+                    responses.remove(key, response);
+                }
+                // The remaining certificates are still checked so all of the missing responses are fetched together.
+                fetch(key, certificate, issuer);
+                if (softFail == false && notGood == null) {
+                    notGood = ROOT_LOGGER.ocspStatusNotGood(certificate.getSubjectX500Principal().getName());
+                }
+            } else if (response.status == REVOKED) {
+                throw new CertificateRevokedException(response.revocationTime, response.reason, certificate.getIssuerX500Principal(), Collections.emptyMap());
+            } else if (response.status != GOOD && softFail == false && notGood == null) {
+                notGood = ROOT_LOGGER.ocspStatusNotGood(certificate.getSubjectX500Principal().getName());
+            }
+        }
+
+        if (notGood != null) {
+            throw notGood;
+        }
+    }
+
+    /**
+     * Check if any responses are currently being fetched.
+     *
+     * @return {@code true} if any responses are being fetched, {@code false} otherwise.
+     */
+    boolean isFetching() {
+        return pending.isEmpty() == false;
+    }
+
+    /**
+     * Identify the certificates of a chain to check paired with their issuers, the chain is followed from the first certificate
+     * while each certificate is issued by the next until a certificate issued by a trusted certificate is reached. Where no
+     * trusted certificate is reached nothing is checked so a responder is never contacted for a certificate which does not
+     * chain to the trust store.
+     */
+    private static List<X509Certificate[]> issuedCertificates(final X509Certificate[] chain, final Map<X500Principal, X509Certificate> trustedIssuers) {
+        List<X509Certificate[]> issued = new ArrayList<>(chain.length);
+        for (int i = 0; i < chain.length; i++) {
+            X509Certificate certificate = chain[i];
+            X500Principal issuerName = certificate.getIssuerX500Principal();
+            X509Certificate trusted = trustedIssuers.get(issuerName);
+            if (trusted != null) {
+                if (issuerName.equals(certificate.getSubjectX500Principal()) == false) {
+                    // Not the trust anchor itself.
+                    issued.add(new X509Certificate[] { certificate, trusted });
+                }
+                return issued;
+            }
+            if (i + 1 == chain.length || issuerName.equals(chain[i + 1].getSubjectX500Principal()) == false) {
+                break;
+            }
+            issued.add(new X509Certificate[] { certificate, chain[i + 1] });
+        }
+
+        return Collections.emptyList();
+    }
+
+    private void fetch(final CertificateKey key, final X509Certificate certificate, final X509Certificate issuer) {
+        if (pending.add(key) == false) {
+            // Already being fetched.
+            return;
+        }
+
+        try {
+            ScheduledExecutorService executor = this.executor;
+            if (executor == null) {
+                pending.remove(key);
+                return;
+            }
+            executor.execute(() -> {
+                try {
+                    Response response = request(certificate, issuer);
+                    if (response != null) {
+                        cache(key, response);
+                    }
+                } catch (GeneralSecurityException | IOException | RuntimeException e) {
+                    ROOT_LOGGER.unableToObtainOcspResponse(certificate.getSubjectX500Principal().getName(), e);
+                } finally {
+                    pending.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The cache is stopping.
+            pending.remove(key);
+        }
+    }
+
+    private void cache(final CertificateKey key, final Response response) {
+        final long now = System.currentTimeMillis();
+        if (responses.containsKey(key) == false && responses.size() >= maximumSize) {
+            evict(now);
+        }
+        responses.put(key, response);
+    }
+
+    /**
+     * Discard expired responses, if the cache is still full the responses closest to expiry are discarded to make space.
+     */
+    private void evict(final long now) {
+        Iterator<Response> values = responses.values().iterator();
+        while (values.hasNext()) {
+            if (values.next().expiry < now) {
+                values.remove();
+            }
+        }
+
+        while (responses.size() >= maximumSize) {
+            Map.Entry<CertificateKey, Response> first = null;
+            for (Map.Entry<CertificateKey, Response> current : responses.entrySet()) {
+                if (first == null || current.getValue().expiry < first.getValue().expiry) {
+                    first = current;
+                }
+            }
+            if (first == null || responses.remove(first.getKey(), first.getValue()) == false) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Pre-fetch the responses which have passed their refresh time so they are replaced before they expire.
+     */
+    private void refresh() {
+        final long now = System.currentTimeMillis();
+        for (Map.Entry<CertificateKey, Response> current : responses.entrySet()) {
+            Response response = current.getValue();
+            if (response.expiry < now) {
+                responses.remove(current.getKey(), response);
+            } else if (response.refreshAt <= now) {
+                fetch(current.getKey(), response.certificate, response.issuer);
+            }
+        }
+    }
+
+    private Response request(final X509Certificate certificate, final X509Certificate issuer) throws GeneralSecurityException, IOException {
+        // Never trust the responder location of a certificate the issuer did not sign.
+        certificate.verify(issuer.getPublicKey());
+
+        URL responder = this.responder != null ? this.responder : responderLocation(certificate);
+        if (responder == null) {
+            return null;
+        }
+
+        MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        byte[] issuerNameHash = digest.digest(issuer.getSubjectX500Principal().getEncoded());
+        byte[] issuerKeyHash = digest.digest(subjectPublicKey(issuer.getPublicKey()));
+
+        byte[] response = post(responder, encodeRequest(issuerNameHash, issuerKeyHash, certificate.getSerialNumber()));
+
+        return decodeResponse(response, certificate, issuer);
+    }
+
+    private static byte[] post(final URL responder, final byte[] request) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) responder.openConnection();
+        try {
+            connection.setConnectTimeout(TIMEOUT);
+            connection.setReadTimeout(TIMEOUT);
+            connection.setDoOutput(true);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", CONTENT_TYPE);
+            connection.setFixedLengthStreamingMode(request.length);
+            try (OutputStream os = connection.getOutputStream()) {
+                os.write(request);
+            }
+
+            try (InputStream is = connection.getInputStream()) {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                int count;
+                while ((count = is.read(buffer)) != -1) {
+                    baos.write(buffer, 0, count);
+                }
+                return baos.toByteArray();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static URL responderLocation(final X509Certificate certificate) throws IOException {
+        byte[] extension = certificate.getExtensionValue(OID_AUTHORITY_INFO_ACCESS);
+        if (extension == null) {
+            return null;
+        }
+
+        try {
+            DERDecoder decoder = new DERDecoder(new DERDecoder(extension).decodeOctetString());
+            decoder.startSequence();
+            while (decoder.hasNextElement()) {
+                decoder.startSequence();
+                String accessMethod = decoder.decodeObjectIdentifier();
+                if (OID_OCSP.equals(accessMethod) && decoder.isNextType(ASN1.CONTEXT_SPECIFIC_MASK, URI_TAG, false)) {
+                    decoder.decodeImplicit(URI_TAG);
+                    return new URL(decoder.decodeIA5String());
+                }
+                while (decoder.hasNextElement()) {
+                    decoder.skipElement();
+                }
+                decoder.endSequence();
+            }
+        } catch (ASN1Exception e) {
+            throw new IOException(e);
+        }
+
+        return null;
+    }
+
+    private static byte[] subjectPublicKey(final PublicKey publicKey) throws IOException {
+        try {
+            DERDecoder decoder = new DERDecoder(publicKey.getEncoded());
+            decoder.startSequence();
+            decoder.skipElement();
+            return decoder.decodeBitString();
+        } catch (ASN1Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static byte[] encodeRequest(final byte[] issuerNameHash, final byte[] issuerKeyHash, final BigInteger serialNumber) throws IOException {
+        ByteStringBuilder target = new ByteStringBuilder();
+        DEREncoder encoder = new DEREncoder(target);
+        try {
+            encoder.startSequence(); // OCSPRequest
+            encoder.startSequence(); // TBSRequest
+            encoder.startSequence(); // requestList
+            encoder.startSequence(); // Request
+            encoder.startSequence(); // CertID
+            encoder.startSequence();
+            encoder.encodeObjectIdentifier(ASN1.OID_SHA1);
+            encoder.encodeNull();
+            encoder.endSequence();
+            encoder.encodeOctetString(issuerNameHash);
+            encoder.encodeOctetString(issuerKeyHash);
+            encoder.writeEncoded(encodeInteger(serialNumber));
+            encoder.endSequence();
+            encoder.endSequence();
+            encoder.endSequence();
+            encoder.endSequence();
+            encoder.endSequence();
+            encoder.flush();
+        } catch (ASN1Exception e) {
+            throw new IOException(e);
+        }
+
+        return target.toArray();
+    }
+
+    private static byte[] encodeInteger(final BigInteger value) {
+        byte[] content = value.toByteArray();
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(content.length + 6);
+        encoded.write(INTEGER_TAG);
+        if (content.length < 0x80) {
+            encoded.write(content.length);
+        } else {
+            byte[] length = BigInteger.valueOf(content.length).toByteArray();
+            int offset = length[0] == 0 ? 1 : 0;
+            encoded.write(0x80 | (length.length - offset));
+            encoded.write(length, offset, length.length - offset);
+        }
+        encoded.write(content, 0, content.length);
+
+        return encoded.toByteArray();
+    }
+
+    private static Response decodeResponse(final byte[] encoded, final X509Certificate certificate, final X509Certificate issuer) throws GeneralSecurityException, IOException {
+        try {
+            DERDecoder decoder = new DERDecoder(encoded);
+            decoder.startSequence(); // OCSPResponse
+            if (decoder.peekType() != ENUMERATED_TAG) {
+                throw new IOException("Invalid OCSP response");
+            }
+            byte[] responseStatus = decoder.drainElementValue();
+            if (responseStatus.length != 1 || responseStatus[0] != 0 || decoder.hasNextElement() == false) {
+                throw new IOException("Unsuccessful OCSP response status " + (responseStatus.length == 1 ? responseStatus[0] : -1));
+            }
+
+            decoder.startExplicit(0);
+            decoder.startSequence(); // ResponseBytes
+            if (OID_OCSP_BASIC.equals(decoder.decodeObjectIdentifier()) == false) {
+                throw new IOException("Unsupported OCSP response type");
+            }
+            DERDecoder basic = new DERDecoder(decoder.decodeOctetString());
+            basic.startSequence(); // BasicOCSPResponse
+            byte[] tbsResponseData = basic.drainElement();
+            basic.startSequence();
+            String signatureAlgorithm = basic.decodeObjectIdentifier();
+            while (basic.hasNextElement()) {
+                basic.skipElement();
+            }
+            basic.endSequence();
+            byte[] signature = basic.decodeBitString();
+            List<X509Certificate> certificates = new ArrayList<>();
+            if (basic.hasNextElement()) {
+                basic.startExplicit(0);
+                basic.startSequence();
+                CertificateFactory certificateFactory = CertificateFactory.getInstance(CERTIFICATE_TYPE);
+                while (basic.hasNextElement()) {
+                    certificates.add((X509Certificate) certificateFactory.generateCertificate(new ByteArrayInputStream(basic.drainElement())));
+                }
+            }
+
+            verifySignature(tbsResponseData, signatureAlgorithm, signature, certificates, issuer);
+
+            return decodeResponseData(tbsResponseData, certificate, issuer);
+        } catch (ASN1Exception | ParseException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void verifySignature(final byte[] tbsResponseData, final String signatureAlgorithm, final byte[] signature,
+            final List<X509Certificate> certificates, final X509Certificate issuer) throws GeneralSecurityException {
+        String algorithm = SIGNATURE_ALGORITHMS.get(signatureAlgorithm);
+        if (algorithm == null) {
+            algorithm = signatureAlgorithm;
+        }
+
+        if (verify(algorithm, issuer.getPublicKey(), tbsResponseData, signature)) {
+            return;
+        }
+
+        for (X509Certificate current : certificates) {
+            // A delegated responder must be issued by the same issuer and authorised for OCSP signing.
+            List<String> extendedKeyUsage = current.getExtendedKeyUsage();
+            if (extendedKeyUsage == null || extendedKeyUsage.contains(OID_OCSP_SIGNING) == false
+                    || current.getIssuerX500Principal().equals(issuer.getSubjectX500Principal()) == false) {
+                continue;
+            }
+            try {
+                current.checkValidity();
+                current.verify(issuer.getPublicKey());
+            } catch (GeneralSecurityException e) {
+                continue;
+            }
+            if (verify(algorithm, current.getPublicKey(), tbsResponseData, signature)) {
+                return;
+            }
+        }
+
+        throw new CertificateException("OCSP response signature could not be verified");
+    }
+
+    private static boolean verify(final String algorithm, final PublicKey publicKey, final byte[] data, final byte[] signature) throws GeneralSecurityException {
+        Signature verifier = Signature.getInstance(algorithm);
+        try {
+            verifier.initVerify(publicKey);
+            verifier.update(data);
+            return verifier.verify(signature);
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    private static Response decodeResponseData(final byte[] tbsResponseData, final X509Certificate certificate, final X509Certificate issuer)
+            throws ASN1Exception, ParseException, GeneralSecurityException, IOException {
+        DERDecoder decoder = new DERDecoder(tbsResponseData);
+        decoder.startSequence(); // ResponseData
+        if (decoder.isNextType(ASN1.CONTEXT_SPECIFIC_MASK, 0, true)) {
+            decoder.skipElement(); // version
+        }
+        decoder.skipElement(); // responderID
+        decoder.skipElement(); // producedAt
+        decoder.startSequence(); // responses
+        while (decoder.hasNextElement()) {
+            decoder.startSequence(); // SingleResponse
+            decoder.startSequence(); // CertID
+            decoder.startSequence();
+            String hashAlgorithm = decoder.decodeObjectIdentifier();
+            while (decoder.hasNextElement()) {
+                decoder.skipElement();
+            }
+            decoder.endSequence();
+            byte[] issuerNameHash = decoder.decodeOctetString();
+            byte[] issuerKeyHash = decoder.decodeOctetString();
+            BigInteger serialNumber = new BigInteger(decoder.drainElementValue());
+            decoder.endSequence();
+
+            if (serialNumber.equals(certificate.getSerialNumber()) == false
+                    || isIssuer(issuer, hashAlgorithm, issuerNameHash, issuerKeyHash) == false) {
+                while (decoder.hasNextElement()) {
+                    decoder.skipElement();
+                }
+                decoder.endSequence();
+                continue;
+            }
+
+            int status = decoder.peekType() & ASN1.TAG_NUMBER_MASK;
+            Date revocationTime = null;
+            CRLReason reason = CRLReason.UNSPECIFIED;
+            if (status == REVOKED) {
+                decoder.decodeImplicit(REVOKED);
+                decoder.startSequence(); // RevokedInfo
+                revocationTime = parseTime(decoder.drainElementValue());
+                if (decoder.hasNextElement()) {
+                    decoder.startExplicit(0);
+                    int reasonCode = decoder.drainElementValue()[0];
+                    decoder.endExplicit();
+                    if (reasonCode >= 0 && reasonCode < CRLReason.values().length) {
+                        reason = CRLReason.values()[reasonCode];
+                    }
+                }
+                decoder.endSequence();
+            } else {
+                decoder.skipElement();
+            }
+
+            Date thisUpdate = parseTime(decoder.drainElementValue());
+            Date nextUpdate = null;
+            if (decoder.hasNextElement() && decoder.isNextType(ASN1.CONTEXT_SPECIFIC_MASK, 0, true)) {
+                decoder.startExplicit(0);
+                nextUpdate = parseTime(decoder.drainElementValue());
+                decoder.endExplicit();
+            }
+
+            long issued = thisUpdate.getTime();
+            long expiry = nextUpdate != null ? nextUpdate.getTime() : issued + DEFAULT_MAX_AGE;
+            if (expiry < System.currentTimeMillis()) {
+                throw new CertificateException("OCSP response has passed its next update time");
+            }
+            return new Response(status, revocationTime, reason, issued + (expiry - issued) / 2, expiry, certificate, issuer);
+        }
+
+        throw new CertificateException("OCSP response does not include the certificate");
+    }
+
+    /**
+     * Check the issuer identified by the {@code CertID} of a response is the issuer of the certificate being checked.
+     */
+    private static boolean isIssuer(final X509Certificate issuer, final String hashAlgorithm, final byte[] issuerNameHash, final byte[] issuerKeyHash)
+            throws GeneralSecurityException, IOException {
+        String algorithm = DIGEST_ALGORITHMS.get(hashAlgorithm);
+        if (algorithm == null) {
+            return false;
+        }
+
+        MessageDigest digest = MessageDigest.getInstance(algorithm);
+        return MessageDigest.isEqual(issuerNameHash, digest.digest(issuer.getSubjectX500Principal().getEncoded()))
+                && MessageDigest.isEqual(issuerKeyHash, digest.digest(subjectPublicKey(issuer.getPublicKey())));
+    }
+
+    private static Date parseTime(final byte[] generalizedTime) throws ParseException {
+        String value = new String(generalizedTime, StandardCharsets.US_ASCII);
+        // Fractions of a second are not needed to decide if a response is current.
+        int fraction = value.indexOf('.');
+        if (fraction > 0) {
+            value = value.substring(0, fraction) + "Z";
+        }
+        SimpleDateFormat format = new SimpleDateFormat("yyyyMMddHHmmss'Z'");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        return format.parse(value);
+    }
+
+    private static final class Response {
+
+        private final int status;
+        private final Date revocationTime;
+        private final CRLReason reason;
+        private final long refreshAt;
+        private final long expiry;
+        private final X509Certificate certificate;
+        private final X509Certificate issuer;
+
+        Response(final int status, final Date revocationTime, final CRLReason reason, final long refreshAt, final long expiry,
+                final X509Certificate certificate, final X509Certificate issuer) {
+            this.status = status;
+            this.revocationTime = revocationTime;
+            this.reason = reason;
+            this.refreshAt = refreshAt;
+            this.expiry = expiry;
+            this.certificate = certificate;
+            this.issuer = issuer;
+        }
+    }
+
+    private static final class CertificateKey {
+
+        private final X500Principal issuer;
+        private final BigInteger serialNumber;
+        private final int hashCode;
+
+        CertificateKey(final X500Principal issuer, final BigInteger serialNumber) {
+            this.issuer = issuer;
+            this.serialNumber = serialNumber;
+            hashCode = issuer.hashCode() * 31 + serialNumber.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof CertificateKey && equals((CertificateKey) obj);
+        }
+
+        private boolean equals(CertificateKey other) {
+            return issuer.equals(other.issuer) && serialNumber.equals(other.serialNumber);
+        }
+    }
+
+}
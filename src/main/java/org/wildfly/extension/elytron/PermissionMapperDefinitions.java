@@ -0,0 +1,225 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.wildfly.extension.elytron.Capabilities.PERMISSION_MAPPER_RUNTIME_CAPABILITY;
+import static org.wildfly.extension.elytron.ClassLoadingAttributeDefinitions.resolveClassLoader;
+import static org.wildfly.extension.elytron.ElytronDefinition.commonDependencies;
+import static org.wildfly.extension.elytron.ElytronExtension.asStringIfDefined;
+import static org.wildfly.extension.elytron.SecurityActions.doPrivileged;
+import static org.wildfly.extension.elytron._private.ElytronSubsystemMessages.ROOT_LOGGER;
+
+import java.lang.reflect.Constructor;
+import java.security.Permission;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.jboss.as.controller.AbstractAddStepHandler;
+import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.ObjectListAttributeDefinition;
+import org.jboss.as.controller.ObjectTypeAttributeDefinition;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.ResourceDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.StringListAttributeDefinition;
+import org.jboss.as.controller.capability.RuntimeCapability;
+import org.jboss.as.controller.registry.AttributeAccess;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.msc.service.ServiceBuilder;
+import org.jboss.msc.service.ServiceController.Mode;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.ServiceTarget;
+import org.jboss.msc.service.StartException;
+import org.wildfly.extension.elytron.SimplePermissionMapper.Mapping;
+import org.wildfly.security.authz.PermissionMapper;
+
+/**
+ * Container class for the {@link PermissionMapper} definitions.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+class PermissionMapperDefinitions {
+
+    static final SimpleAttributeDefinition CLASS_NAME = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.CLASS_NAME, ModelType.STRING, false)
+        .setAllowExpression(true)
+        .setMinSize(1)
+        .build();
+
+    static final SimpleAttributeDefinition MODULE = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.MODULE, ModelType.STRING, true)
+        .setAllowExpression(true)
+        .setMinSize(1)
+        .build();
+
+    static final SimpleAttributeDefinition TARGET_NAME = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.TARGET_NAME, ModelType.STRING, true)
+        .setAllowExpression(true)
+        .setMinSize(1)
+        .build();
+
+    static final SimpleAttributeDefinition ACTION = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.ACTION, ModelType.STRING, true)
+        .setAllowExpression(true)
+        .setMinSize(1)
+        .build();
+
+    static final ObjectTypeAttributeDefinition PERMISSION = new ObjectTypeAttributeDefinition.Builder(ElytronDescriptionConstants.PERMISSION, CLASS_NAME, MODULE, TARGET_NAME, ACTION)
+        .build();
+
+    static final ObjectListAttributeDefinition PERMISSIONS = new ObjectListAttributeDefinition.Builder(ElytronDescriptionConstants.PERMISSIONS, PERMISSION)
+        .build();
+
+    static final StringListAttributeDefinition ROLES = new StringListAttributeDefinition.Builder(ElytronDescriptionConstants.ROLES)
+        .setAllowExpression(true)
+        .setMinSize(1)
+        .build();
+
+    static final ObjectTypeAttributeDefinition PERMISSION_MAPPING = new ObjectTypeAttributeDefinition.Builder(ElytronDescriptionConstants.PERMISSION_MAPPING, ROLES, PERMISSIONS)
+        .build();
+
+    static final ObjectListAttributeDefinition PERMISSION_MAPPINGS = new ObjectListAttributeDefinition.Builder(ElytronDescriptionConstants.PERMISSION_MAPPINGS, PERMISSION_MAPPING)
+        .setAllowNull(true)
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static ResourceDefinition getSimplePermissionMapper() {
+        AttributeDefinition[] attributes = new AttributeDefinition[] { PERMISSION_MAPPINGS };
+        AbstractAddStepHandler add = new SimplePermissionMapperAddHandler(attributes);
+
+        return new TrivialResourceDefinition<PermissionMapper>(ElytronDescriptionConstants.SIMPLE_PERMISSION_MAPPER, PERMISSION_MAPPER_RUNTIME_CAPABILITY, PermissionMapper.class, add, attributes);
+    }
+
+    private static class SimplePermissionMapperAddHandler extends BaseAddHandler {
+
+        private SimplePermissionMapperAddHandler(AttributeDefinition[] attributes) {
+            super(PERMISSION_MAPPER_RUNTIME_CAPABILITY, attributes);
+        }
+
+        @Override
+        protected void performRuntime(OperationContext context, ModelNode operation, ModelNode model) throws OperationFailedException {
+            ServiceTarget serviceTarget = context.getServiceTarget();
+            RuntimeCapability<Void> runtimeCapability = PERMISSION_MAPPER_RUNTIME_CAPABILITY.fromBaseCapability(context.getCurrentAddressValue());
+            ServiceName permissionMapperName = runtimeCapability.getCapabilityServiceName(PermissionMapper.class);
+
+            final List<MappingConfig> mappingConfigs = new ArrayList<>();
+            ModelNode permissionMappings = PERMISSION_MAPPINGS.resolveModelAttribute(context, model);
+            if (permissionMappings.isDefined()) {
+                for (ModelNode currentMapping : permissionMappings.asList()) {
+                    MappingConfig mappingConfig = new MappingConfig(new HashSet<>(ROLES.unwrap(context, currentMapping)));
+                    ModelNode permissions = PERMISSIONS.resolveModelAttribute(context, currentMapping);
+                    if (permissions.isDefined()) {
+                        for (ModelNode currentPermission : permissions.asList()) {
+                            mappingConfig.permissions.add(new PermissionConfig(CLASS_NAME.resolveModelAttribute(context, currentPermission).asString(),
+                                    asStringIfDefined(context, MODULE, currentPermission), asStringIfDefined(context, TARGET_NAME, currentPermission),
+                                    asStringIfDefined(context, ACTION, currentPermission)));
+                        }
+                    }
+                    mappingConfigs.add(mappingConfig);
+                }
+            }
+
+            TrivialService<PermissionMapper> permissionMapperService = new TrivialService<PermissionMapper>(() -> createPermissionMapper(mappingConfigs));
+
+            ServiceBuilder<PermissionMapper> serviceBuilder = serviceTarget.addService(permissionMapperName, permissionMapperService);
+            commonDependencies(serviceBuilder)
+                .setInitialMode(Mode.LAZY)
+                .install();
+        }
+
+    }
+
+    private static PermissionMapper createPermissionMapper(final List<MappingConfig> mappingConfigs) throws StartException {
+        List<Mapping> mappings = new ArrayList<>(mappingConfigs.size());
+        for (MappingConfig currentMapping : mappingConfigs) {
+            List<Permission> permissions = new ArrayList<>(currentMapping.permissions.size());
+            for (PermissionConfig currentPermission : currentMapping.permissions) {
+                permissions.add(createPermission(currentPermission));
+            }
+            mappings.add(new Mapping(currentMapping.roles, permissions));
+        }
+
+        return new SimplePermissionMapper(mappings);
+    }
+
+    /**
+     * Create a {@link Permission} using the constructor matching the target name and action supplied, where the permission
+     * does not require a value the constructor taking fewer arguments is preferred.
+     */
+    private static Permission createPermission(final PermissionConfig config) throws StartException {
+        try {
+            ClassLoader classLoader = doPrivileged((PrivilegedExceptionAction<ClassLoader>) () -> resolveClassLoader(config.module, null));
+            Class<? extends Permission> permissionClazz = classLoader.loadClass(config.className).asSubclass(Permission.class);
+
+            if (config.action == null) {
+                if (config.targetName == null) {
+                    Constructor<? extends Permission> constructor = getConstructor(permissionClazz);
+                    if (constructor != null) {
+                        return constructor.newInstance();
+                    }
+                }
+                Constructor<? extends Permission> constructor = getConstructor(permissionClazz, String.class);
+                if (constructor != null) {
+                    return constructor.newInstance(config.targetName);
+                }
+            }
+
+            return permissionClazz.getConstructor(String.class, String.class).newInstance(config.targetName, config.action);
+        } catch (Exception e) {
+            throw ROOT_LOGGER.unableToCreatePermission(config.className, config.targetName, config.action, e);
+        }
+    }
+
+    private static Constructor<? extends Permission> getConstructor(Class<? extends Permission> permissionClazz, Class<?> ... parameterTypes) {
+        try {
+            return permissionClazz.getConstructor(parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static class MappingConfig {
+
+        private final HashSet<String> roles;
+        private final List<PermissionConfig> permissions = new ArrayList<>();
+
+        MappingConfig(final HashSet<String> roles) {
+            this.roles = roles;
+        }
+
+    }
+
+    private static class PermissionConfig {
+
+        private final String className;
+        private final String module;
+        private final String targetName;
+        private final String action;
+
+        PermissionConfig(final String className, final String module, final String targetName, final String action) {
+            this.className = className;
+            this.module = module;
+            this.targetName = targetName;
+            this.action = action;
+        }
+
+    }
+
+}
@@ -24,12 +24,14 @@ import static org.wildfly.extension.elytron.ClassLoadingAttributeDefinitions.SLO
 
 import java.security.Provider;
 import java.security.Provider.Service;
+import java.util.concurrent.TimeUnit;
 
 import org.jboss.as.controller.AttributeDefinition;
 import org.jboss.as.controller.ObjectListAttributeDefinition;
 import org.jboss.as.controller.ObjectTypeAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
 
@@ -78,6 +80,18 @@ class ProviderAttributeDefinition {
         .setAllowNull(false)
         .build();
 
+    private static final SimpleAttributeDefinition LOAD_TIME = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.LOAD_TIME, ModelType.LONG)
+        .setMeasurementUnit(MeasurementUnit.MICROSECONDS)
+        .build();
+
+    private static final ObjectTypeAttributeDefinition PROVIDER_LOAD_TIME = new ObjectTypeAttributeDefinition.Builder(ElytronDescriptionConstants.PROVIDER, NAME, LOAD_TIME)
+        .build();
+
+    static final ObjectListAttributeDefinition LOAD_TIMES = new ObjectListAttributeDefinition.Builder(ElytronDescriptionConstants.LOAD_TIMES, PROVIDER_LOAD_TIME)
+        .setStorageRuntime()
+        .setAllowNull(false)
+        .build();
+
     /*
      *  Provider Configuration Attributes
      */
@@ -91,6 +105,12 @@ class ProviderAttributeDefinition {
         .setDefaultValue(new ModelNode(false))
         .build();
 
+    static final SimpleAttributeDefinition LAZY = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.LAZY, ModelType.BOOLEAN)
+        .setAttributeGroup(ElytronDescriptionConstants.CLASS_LOADING)
+        .setAllowExpression(true)
+        .setDefaultValue(new ModelNode(false))
+        .build();
+
     static final SimpleAttributeDefinition KEY = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.KEY, ModelType.STRING, false)
         .setAllowExpression(true)
         .setMinSize(1)
@@ -132,7 +152,7 @@ class ProviderAttributeDefinition {
         .setAttributeGroup(ElytronDescriptionConstants.CONFIGURATION)
         .build();
 
-    private static final AttributeDefinition[] PROVIDER_ATTRIBUTES = { MODULE, SLOT, LOAD_SERVICES, CLASS_NAMES, PATH, RELATIVE_TO };
+    private static final AttributeDefinition[] PROVIDER_ATTRIBUTES = { MODULE, SLOT, LOAD_SERVICES, LAZY, CLASS_NAMES, PATH, RELATIVE_TO };
 
     static final ObjectTypeAttributeDefinition PROVIDER = new ObjectTypeAttributeDefinition.Builder(ElytronDescriptionConstants.PROVIDER, combine(null, PROVIDER_ATTRIBUTES, PROPERTY_LIST))
         .build();
@@ -177,11 +197,33 @@ class ProviderAttributeDefinition {
     static void populateProviders(final ModelNode response, final Provider[] providers) {
         for (Provider current : providers) {
             ModelNode providerModel = new ModelNode();
-            populateProvider(providerModel, current, true);
+            if (current instanceof LazyProvider) {
+                // Reading the services must not trigger loading, once loaded the real provider is described instead.
+                Provider loaded = ((LazyProvider) current).getLoadedProvider();
+                populateProvider(providerModel, loaded != null ? loaded : current, loaded != null);
+            } else {
+                populateProvider(providerModel, current, true);
+            }
             response.add(providerModel);
         }
     }
 
+    /**
+     * Populate the supplied response {@link ModelNode} with the time taken to load each {@link Provider} in the included array.
+     *
+     * @param response the response to populate.
+     * @param providers the array of {@link Provider} instances.
+     * @param loadTimes the time in nanoseconds taken to load each {@link Provider}.
+     */
+    static void populateLoadTimes(final ModelNode response, final Provider[] providers, final long[] loadTimes) {
+        for (int i = 0; i < providers.length; i++) {
+            ModelNode loadTimeModel = new ModelNode();
+            loadTimeModel.get(ElytronDescriptionConstants.NAME).set(providers[i].getName());
+            loadTimeModel.get(ElytronDescriptionConstants.LOAD_TIME).set(TimeUnit.NANOSECONDS.toMicros(loadTimes[i]));
+            response.add(loadTimeModel);
+        }
+    }
+
     private static void addServices(final ModelNode providerModel, final Provider provider) {
         ModelNode servicesModel = providerModel.get(ElytronDescriptionConstants.SERVICES);
 
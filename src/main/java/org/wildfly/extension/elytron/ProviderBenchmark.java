@@ -0,0 +1,138 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.Provider;
+import java.security.Signature;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * A simple micro-benchmark of the implementation of an algorithm by a {@link Provider}.
+ *
+ * Each operation processes a fixed size block of data, the operation is repeated for a warm up period of the same length
+ * before the operations completed within the measured period are counted. The results are only intended to compare the
+ * providers of an algorithm on the same server and are not comparable across algorithms.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+final class ProviderBenchmark {
+
+    static final String MESSAGE_DIGEST = "MessageDigest";
+    static final String MAC = "Mac";
+    static final String CIPHER = "Cipher";
+    static final String SIGNATURE = "Signature";
+
+    private static final int BLOCK_SIZE = 1024;
+    private static final byte[] DATA = new byte[BLOCK_SIZE];
+
+    private ProviderBenchmark() {
+    }
+
+    static boolean isSupported(final String type) {
+        return MESSAGE_DIGEST.equals(type) || MAC.equals(type) || CIPHER.equals(type) || SIGNATURE.equals(type);
+    }
+
+    /**
+     * Measure the number of operations per second the {@link Provider} completes for the algorithm.
+     *
+     * @param type the service type, one of {@link #MESSAGE_DIGEST}, {@link #MAC}, {@link #CIPHER} or {@link #SIGNATURE}.
+     * @param algorithm the algorithm, for a {@link Cipher} this can be a full transformation.
+     * @param provider the {@link Provider} to benchmark.
+     * @param duration the duration of the measured period in milliseconds.
+     * @return the number of operations completed per second.
+     * @throws GeneralSecurityException if the {@link Provider} can not perform the operation.
+     */
+    static long operationsPerSecond(final String type, final String algorithm, final Provider provider, final long duration) throws GeneralSecurityException {
+        final Operation operation = createOperation(type, algorithm, provider);
+
+        // Warm up for the same period before measuring so the first provider benchmarked is not penalised by compilation.
+        run(operation, TimeUnit.MILLISECONDS.toNanos(duration));
+        long start = System.nanoTime();
+        long count = run(operation, TimeUnit.MILLISECONDS.toNanos(duration));
+
+        return count * TimeUnit.SECONDS.toNanos(1) / Math.max(1, System.nanoTime() - start);
+    }
+
+    private static long run(final Operation operation, final long nanos) throws GeneralSecurityException {
+        final long end = System.nanoTime() + nanos;
+        long count = 0;
+        do {
+            operation.perform();
+            count++;
+        } while (System.nanoTime() < end);
+
+        return count;
+    }
+
+    private static Operation createOperation(final String type, final String algorithm, final Provider provider) throws GeneralSecurityException {
+        switch (type) {
+            case MESSAGE_DIGEST: {
+                final MessageDigest messageDigest = MessageDigest.getInstance(algorithm, provider);
+                return () -> messageDigest.digest(DATA);
+            }
+            case MAC: {
+                final Mac mac = Mac.getInstance(algorithm, provider);
+                mac.init(new SecretKeySpec(new byte[32], algorithm));
+                return () -> mac.doFinal(DATA);
+            }
+            case CIPHER: {
+                final Cipher cipher = Cipher.getInstance(algorithm, provider);
+                int slash = algorithm.indexOf('/');
+                final SecretKey key = KeyGenerator.getInstance(slash > 0 ? algorithm.substring(0, slash) : algorithm).generateKey();
+                // Initialised for each operation so modes such as GCM use a new IV each time.
+                return () -> {
+                    cipher.init(Cipher.ENCRYPT_MODE, key);
+                    cipher.doFinal(DATA);
+                };
+            }
+            case SIGNATURE: {
+                final Signature signature = Signature.getInstance(algorithm, provider);
+                int with = algorithm.toUpperCase(Locale.ENGLISH).indexOf("WITH");
+                String keyAlgorithm = with > 0 ? algorithm.substring(with + 4) : algorithm;
+                final KeyPair keyPair = KeyPairGenerator.getInstance("ECDSA".equalsIgnoreCase(keyAlgorithm) ? "EC" : keyAlgorithm).generateKeyPair();
+                signature.initSign(keyPair.getPrivate());
+                return () -> {
+                    signature.update(DATA);
+                    signature.sign();
+                };
+            }
+            default:
+                throw new IllegalArgumentException(type);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+
+        void perform() throws GeneralSecurityException;
+
+    }
+
+}
@@ -0,0 +1,336 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.wildfly.extension.elytron._private.ElytronSubsystemMessages.ROOT_LOGGER;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.Provider;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+import org.jboss.modules.DependencySpec;
+import org.jboss.modules.Module;
+import org.jboss.modules.ModuleClassLoader;
+import org.jboss.modules.ModuleDependencySpec;
+import org.jboss.modules.ModuleIdentifier;
+import org.jboss.modules.ModuleLoadException;
+import org.jboss.modules.ModuleLoader;
+
+/**
+ * Utility methods for the precomputed index of the {@link Provider} class names a module offers for {@link ServiceLoader}
+ * discovery.
+ *
+ * The index is a file written next to the {@code module.xml} of the module so that discovery at boot is a read of a single small
+ * file instead of a search of every resource root visible to the module. As discovery also reads the provider configuration
+ * files of the modules the module depends on the index records a fingerprint of the other files in the module directory and
+ * in the directory of each module reachable through its dependencies, where the fingerprint no longer matches the index is
+ * stale and discovery falls back to {@link ServiceLoader}.
+ *
+ * The index is written to a temporary file which is then moved over the index so a concurrent boot never reads a partially
+ * written index.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+class ProviderDiscoveryIndex {
+
+    static final String INDEX_FILE = "java.security.Provider.index";
+
+    private static final String SERVICES_FILE = "META-INF/services/" + Provider.class.getName();
+    private static final String MODULE_XML = "module.xml";
+    private static final String DEFAULT_SLOT = "main";
+    private static final String FINGERPRINT_PREFIX = "#fingerprint=";
+    private static final String TEMP_PREFIX = "." + INDEX_FILE + "-";
+
+    /**
+     * Read the class names from the {@link ServiceLoader} provider configuration files visible to the {@link ClassLoader} in
+     * the order {@link ServiceLoader} would have instantiated them.
+     *
+     * @param classLoader the {@link ClassLoader} to search.
+     * @return the class names of the providers.
+     * @throws IOException if the provider configuration files can not be read.
+     */
+    static Set<String> discoverClassNames(final ClassLoader classLoader) throws IOException {
+        Set<String> classNames = new LinkedHashSet<String>();
+        Enumeration<URL> resources = classLoader.getResources(SERVICES_FILE);
+        while (resources.hasMoreElements()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(resources.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int comment = line.indexOf('#');
+                    String className = (comment >= 0 ? line.substring(0, comment) : line).trim();
+                    if (className.isEmpty() == false) {
+                        classNames.add(className);
+                    }
+                }
+            }
+        }
+
+        return classNames;
+    }
+
+    /**
+     * Read the index for the specified module.
+     *
+     * @param module the name of the module, can be {@code null}.
+     * @param slot the slot of the module, can be {@code null} for the default slot.
+     * @param classLoader the {@link ClassLoader} of the module, used to locate the modules it depends on.
+     * @return the class names of the providers or {@code null} if there is no current index for the module.
+     */
+    static List<String> read(final String module, final String slot, final ClassLoader classLoader) {
+        File moduleDir = locateModule(module, slot);
+        File indexFile = moduleDir != null ? new File(moduleDir, INDEX_FILE) : null;
+        if (indexFile == null || indexFile.isFile() == false) {
+            return null;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), StandardCharsets.UTF_8))) {
+            String expected = FINGERPRINT_PREFIX + fingerprint(moduleDir, classLoader);
+            List<String> classNames = new ArrayList<String>();
+            boolean current = false;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(FINGERPRINT_PREFIX)) {
+                    current = line.equals(expected);
+                } else if (line.isEmpty() == false && line.startsWith("#") == false) {
+                    classNames.add(line);
+                }
+            }
+
+            if (current == false) {
+                ROOT_LOGGER.staleProviderIndex(indexFile.getAbsolutePath());
+                return null;
+            }
+
+            return classNames;
+        } catch (IOException e) {
+            ROOT_LOGGER.staleProviderIndex(indexFile.getAbsolutePath());
+            return null;
+        }
+    }
+
+    /**
+     * Write the index for the specified module.
+     *
+     * @param module the name of the module.
+     * @param slot the slot of the module, can be {@code null} for the default slot.
+     * @param classLoader the {@link ClassLoader} of the module, used to locate the modules it depends on.
+     * @param classNames the class names of the providers to write to the index.
+     * @return the index file written or {@code null} if the module could not be located on the module path.
+     * @throws IOException if the index can not be written.
+     */
+    static File write(final String module, final String slot, final ClassLoader classLoader, final Collection<String> classNames) throws IOException {
+        File moduleDir = locateModule(module, slot);
+        if (moduleDir == null) {
+            return null;
+        }
+
+        // The fingerprint is calculated before the temporary file is created within the module directory.
+        String fingerprint = fingerprint(moduleDir, classLoader);
+        File indexFile = new File(moduleDir, INDEX_FILE);
+        File temp = File.createTempFile(TEMP_PREFIX, ".tmp", moduleDir);
+        try {
+            try (FileOutputStream fos = new FileOutputStream(temp)) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(fos, StandardCharsets.UTF_8));
+                writer.write("# The providers offered by this module for ServiceLoader discovery, written by the elytron subsystem.\n");
+                writer.write(FINGERPRINT_PREFIX + fingerprint + '\n');
+                for (String current : classNames) {
+                    writer.write(current + '\n');
+                }
+                writer.flush();
+                fos.getFD().sync();
+            }
+            try {
+                Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+
+        return indexFile;
+    }
+
+    /**
+     * Calculate a fingerprint of the module directory and the directory of each module reachable through its dependencies.
+     */
+    private static String fingerprint(final File moduleDir, final ClassLoader classLoader) {
+        long hash = fingerprint(17, moduleDir);
+        for (File current : dependencyDirs(classLoader)) {
+            hash = 31 * hash + current.getAbsolutePath().hashCode();
+            hash = fingerprint(hash, current);
+        }
+
+        return Long.toHexString(hash);
+    }
+
+    /**
+     * Add the name, size and modification time of each file in the directory other than the index itself to the hash.
+     */
+    private static long fingerprint(long hash, final File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return hash;
+        }
+        Arrays.sort(files);
+
+        for (File current : files) {
+            String name = current.getName();
+            if (INDEX_FILE.equals(name) == false && name.startsWith(TEMP_PREFIX) == false) {
+                hash = 31 * hash + name.hashCode();
+                hash = 31 * hash + current.length();
+                hash = 31 * hash + current.lastModified();
+            }
+        }
+
+        return hash;
+    }
+
+    /**
+     * Locate the directory of each module on the module path reachable through the dependencies of the module of the
+     * {@link ClassLoader}, in the order the dependencies are declared.
+     */
+    private static List<File> dependencyDirs(final ClassLoader classLoader) {
+        List<File> dirs = new ArrayList<File>();
+        if (classLoader instanceof ModuleClassLoader == false) {
+            return dirs;
+        }
+
+        Module root = ((ModuleClassLoader) classLoader).getModule();
+        Set<ModuleIdentifier> visited = new HashSet<ModuleIdentifier>();
+        visited.add(root.getIdentifier());
+        Deque<Module> remaining = new ArrayDeque<Module>();
+        remaining.add(root);
+        while (remaining.isEmpty() == false) {
+            Module module = remaining.poll();
+            for (DependencySpec current : module.getDependencies()) {
+                if (current instanceof ModuleDependencySpec == false) {
+                    continue;
+                }
+                ModuleDependencySpec dependency = (ModuleDependencySpec) current;
+                ModuleIdentifier identifier = dependency.getIdentifier();
+                if (visited.add(identifier) == false) {
+                    continue;
+                }
+
+                File dir = locateModule(identifier.getName(), identifier.getSlot());
+                if (dir != null) {
+                    dirs.add(dir);
+                }
+                ModuleLoader moduleLoader = dependency.getModuleLoader() != null ? dependency.getModuleLoader() : module.getModuleLoader();
+                try {
+                    remaining.add(moduleLoader.loadModule(identifier));
+                } catch (ModuleLoadException e) {
+                    // An optional dependency which is not available contributes nothing.
+                }
+            }
+        }
+
+        return dirs;
+    }
+
+    /**
+     * Locate the directory containing the {@code module.xml} of the module using the module path in the same way as the
+     * local module loader, including any layers and add-ons.
+     */
+    private static File locateModule(final String module, final String slot) {
+        if (module == null) {
+            return null;
+        }
+
+        String modulePath = System.getProperty("module.path", System.getenv("JAVA_MODULEPATH"));
+        if (modulePath == null) {
+            return null;
+        }
+
+        String relativePath = module.replace('.', File.separatorChar) + File.separatorChar + (slot != null ? slot : DEFAULT_SLOT);
+        for (String root : modulePath.split(File.pathSeparator)) {
+            for (File current : candidateRoots(new File(root))) {
+                File moduleDir = new File(current, relativePath);
+                if (new File(moduleDir, MODULE_XML).isFile()) {
+                    return moduleDir;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static List<File> candidateRoots(final File root) {
+        List<File> roots = new ArrayList<File>();
+        roots.add(root);
+
+        File layersDir = new File(root, "system" + File.separatorChar + "layers");
+        List<String> layers = new ArrayList<String>();
+        File layersConf = new File(root, "layers.conf");
+        if (layersConf.isFile()) {
+            Properties properties = new Properties();
+            try (InputStream is = new FileInputStream(layersConf)) {
+                properties.load(is);
+                for (String current : properties.getProperty("layers", "").split(",")) {
+                    if (current.trim().isEmpty() == false) {
+                        layers.add(current.trim());
+                    }
+                }
+            } catch (IOException e) {
+                // The layers will be ignored as they would be by the module loader.
+            }
+        }
+        if (layers.contains("base") == false) {
+            layers.add("base");
+        }
+        for (String current : layers) {
+            roots.add(new File(layersDir, current));
+        }
+
+        File[] addOns = new File(root, "system" + File.separatorChar + "add-ons").listFiles(File::isDirectory);
+        if (addOns != null) {
+            Arrays.sort(addOns);
+            roots.addAll(Arrays.asList(addOns));
+        }
+
+        return roots;
+    }
+
+}
@@ -0,0 +1,319 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import java.security.Provider;
+import java.security.Provider.Service;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.msc.service.ServiceName;
+
+/**
+ * An index of the {@link Service} instances offered by an array of {@link Provider} instances, keyed by service
+ * type and then by algorithm or alias.
+ *
+ * The index is built once when the providers are loaded so that selecting a provider for a service type and algorithm is a
+ * pair of hash lookups rather than a search of every provider. The {@link Service} instances for each key retain the order of
+ * the providers in the array so the first entry is the one {@link ProviderUtil#identifyProvider(Provider[], String, Class, String)}
+ * would have selected.
+ *
+ * The index is not modified after it is built other than to record a preferred {@link Service} for a type and algorithm, such
+ * as the fastest implementation identified by benchmarking, the preferred {@link Service} is returned ahead of the provider order.
+ *
+ * A {@link LazyProvider} is not indexed as that would require the real {@link Provider} to be instantiated, instead each lookup
+ * checks the {@link LazyProvider} instances positioned before the best indexed match so they are only instantiated when a lookup
+ * reaches them.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+final class ProviderIndex {
+
+    private static final String ALIAS_PREFIX = "Alg.Alias.";
+    private static final Provider[] NO_PROVIDERS = new Provider[0];
+
+    private final Map<String, Map<String, List<Service>>> services;
+    private final Map<String, Provider[]> providersByType;
+    private final Map<Service, Integer> positions;
+    private final LazyProvider[] lazyProviders;
+    private final int[] lazyPositions;
+
+    private volatile Map<String, Service> preferred = Collections.emptyMap();
+
+    private ProviderIndex(final Map<String, Map<String, List<Service>>> services, final Map<String, Provider[]> providersByType,
+            final Map<Service, Integer> positions, final LazyProvider[] lazyProviders, final int[] lazyPositions) {
+        this.services = services;
+        this.providersByType = providersByType;
+        this.positions = positions;
+        this.lazyProviders = lazyProviders;
+        this.lazyPositions = lazyPositions;
+    }
+
+    /**
+     * Build the index for the supplied array of {@link Provider} instances.
+     *
+     * @param providers the {@link Provider} instances to index.
+     * @return the new {@link ProviderIndex}.
+     */
+    static ProviderIndex create(final Provider[] providers) {
+        Map<String, Map<String, List<Service>>> services = new HashMap<String, Map<String, List<Service>>>();
+        Map<String, Set<Provider>> providersByType = new HashMap<String, Set<Provider>>();
+        Map<Service, Integer> positions = new IdentityHashMap<Service, Integer>();
+        List<LazyProvider> lazyProviders = new ArrayList<LazyProvider>();
+        List<Integer> lazyPositions = new ArrayList<Integer>();
+
+        for (int i = 0; i < providers.length; i++) {
+            Provider provider = providers[i];
+            if (provider instanceof LazyProvider) {
+                lazyProviders.add((LazyProvider) provider);
+                lazyPositions.add(i);
+                continue;
+            }
+
+            for (Service service : provider.getServices()) {
+                add(services, positions, i, service.getType(), service.getAlgorithm(), service);
+                providersByType.computeIfAbsent(service.getType(), t -> new LinkedHashSet<Provider>()).add(provider);
+            }
+
+            // Aliases are only available from the legacy properties of the provider.
+            for (Object key : provider.keySet()) {
+                if (key instanceof String && ((String) key).startsWith(ALIAS_PREFIX)) {
+                    String typeAndAlias = ((String) key).substring(ALIAS_PREFIX.length());
+                    int dot = typeAndAlias.indexOf('.');
+                    if (dot > 0) {
+                        String type = typeAndAlias.substring(0, dot);
+                        Service service = provider.getService(type, typeAndAlias.substring(dot + 1));
+                        if (service != null) {
+                            add(services, positions, i, type, typeAndAlias.substring(dot + 1), service);
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<String, Map<String, List<Service>>> immutableServices = new HashMap<String, Map<String, List<Service>>>(services.size());
+        for (Map.Entry<String, Map<String, List<Service>>> type : services.entrySet()) {
+            Map<String, List<Service>> algorithms = new HashMap<String, List<Service>>(type.getValue().size());
+            for (Map.Entry<String, List<Service>> algorithm : type.getValue().entrySet()) {
+                algorithms.put(algorithm.getKey(), Collections.unmodifiableList(algorithm.getValue()));
+            }
+            immutableServices.put(type.getKey(), Collections.unmodifiableMap(algorithms));
+        }
+
+        // Any LazyProvider may offer any type so is included for every type in it's original position.
+        Map<String, Provider[]> immutableProvidersByType = new HashMap<String, Provider[]>(providersByType.size());
+        for (Map.Entry<String, Set<Provider>> type : providersByType.entrySet()) {
+            Set<Provider> typeProviders = type.getValue();
+            if (lazyProviders.isEmpty() == false) {
+                Set<Provider> merged = new LinkedHashSet<Provider>();
+                for (Provider current : providers) {
+                    if (current instanceof LazyProvider || typeProviders.contains(current)) {
+                        merged.add(current);
+                    }
+                }
+                typeProviders = merged;
+            }
+            immutableProvidersByType.put(type.getKey(), typeProviders.toArray(new Provider[typeProviders.size()]));
+        }
+
+        int[] lazyPositionArray = new int[lazyPositions.size()];
+        for (int i = 0; i < lazyPositionArray.length; i++) {
+            lazyPositionArray[i] = lazyPositions.get(i);
+        }
+
+        return new ProviderIndex(Collections.unmodifiableMap(immutableServices), Collections.unmodifiableMap(immutableProvidersByType),
+                positions, lazyProviders.toArray(new LazyProvider[lazyProviders.size()]), lazyPositionArray);
+    }
+
+    private static void add(final Map<String, Map<String, List<Service>>> services, final Map<Service, Integer> positions, final int position,
+            final String type, final String algorithm, final Service service) {
+        List<Service> serviceList = services.computeIfAbsent(type, t -> new HashMap<String, List<Service>>())
+                .computeIfAbsent(algorithm.toUpperCase(Locale.ENGLISH), a -> new ArrayList<Service>(1));
+        // An alias can resolve to a service already added for the same provider.
+        if (serviceList.isEmpty() || serviceList.get(serviceList.size() - 1).getProvider() != service.getProvider()) {
+            serviceList.add(service);
+            positions.put(service, position);
+        }
+    }
+
+    /**
+     * Get the {@link Service} instances for the specified type and algorithm in provider order, algorithms and aliases are
+     * matched ignoring case as they are by {@link Provider#getService(String, String)}.
+     *
+     * @param type the service type.
+     * @param algorithm the algorithm or alias.
+     * @return the matching {@link Service} instances, an empty list if there are none.
+     */
+    List<Service> getServices(final String type, final String algorithm) {
+        List<Service> indexed = getIndexedServices(type, algorithm);
+        Service preferredService = preferred.get(preferenceKey(type, algorithm));
+        if (lazyProviders.length == 0 && preferredService == null) {
+            return indexed;
+        }
+
+        List<Service> merged = new ArrayList<Service>(indexed.size() + lazyProviders.length + 1);
+        if (preferredService != null) {
+            merged.add(preferredService);
+        }
+        int lazy = 0;
+        for (Service current : indexed) {
+            int position = positions.get(current);
+            for (; lazy < lazyProviders.length && lazyPositions[lazy] < position; lazy++) {
+                addIfPresent(merged, lazyProviders[lazy].getService(type, algorithm));
+            }
+            merged.add(current);
+        }
+        for (; lazy < lazyProviders.length; lazy++) {
+            addIfPresent(merged, lazyProviders[lazy].getService(type, algorithm));
+        }
+        if (preferredService != null) {
+            // The preferred service is only listed once, ahead of any other service from the same provider.
+            for (int i = merged.size() - 1; i > 0; i--) {
+                if (merged.get(i).getProvider() == preferredService.getProvider()) {
+                    merged.remove(i);
+                }
+            }
+        }
+
+        return Collections.unmodifiableList(merged);
+    }
+
+    private List<Service> getIndexedServices(final String type, final String algorithm) {
+        Map<String, List<Service>> algorithms = services.get(type);
+        List<Service> serviceList = algorithms != null ? algorithms.get(algorithm.toUpperCase(Locale.ENGLISH)) : null;
+
+        return serviceList != null ? serviceList : Collections.<Service>emptyList();
+    }
+
+    /**
+     * Prefer the {@link Service} of the supplied {@link Provider} for the type and algorithm, subsequent lookups return the
+     * preferred {@link Service} ahead of the provider order.
+     *
+     * @param type the service type.
+     * @param algorithm the algorithm.
+     * @param provider the {@link Provider} to prefer.
+     * @return {@code true} if the {@link Provider} offers the service and is now preferred, {@code false} otherwise.
+     */
+    synchronized boolean prefer(final String type, final String algorithm, final Provider provider) {
+        Service service = provider.getService(type, algorithm);
+        if (service == null) {
+            return false;
+        }
+
+        Map<String, Service> preferred = new HashMap<String, Service>(this.preferred);
+        preferred.put(preferenceKey(type, algorithm), service);
+        this.preferred = Collections.unmodifiableMap(preferred);
+
+        return true;
+    }
+
+    private static String preferenceKey(final String type, final String algorithm) {
+        return type + '.' + algorithm.toUpperCase(Locale.ENGLISH);
+    }
+
+    private static void addIfPresent(final List<Service> services, final Service service) {
+        if (service != null) {
+            services.add(service);
+        }
+    }
+
+    /**
+     * Identify the first {@link Provider} that matches the required criteria.
+     *
+     * @param name the expected name of the provider, can be {@code null} if the name is not important.
+     * @param type the service type being searched for.
+     * @param algorithm the algorithm the service needs to support.
+     * @return the selected {@link Provider} or {@code null} if no provider matches.
+     */
+    Provider getProvider(final String name, final Class<?> type, final String algorithm) {
+        final String typeName = type.getSimpleName();
+        if (preferred.isEmpty() == false) {
+            Provider provider = matches(preferred.get(preferenceKey(typeName, algorithm)), name);
+            if (provider != null) {
+                return provider;
+            }
+        }
+
+        int lazy = 0;
+        for (Service current : getIndexedServices(typeName, algorithm)) {
+            if (lazyProviders.length > 0) {
+                int position = positions.get(current);
+                for (; lazy < lazyProviders.length && lazyPositions[lazy] < position; lazy++) {
+                    Provider provider = matches(lazyProviders[lazy].getService(typeName, algorithm), name);
+                    if (provider != null) {
+                        return provider;
+                    }
+                }
+            }
+            Provider provider = matches(current, name);
+            if (provider != null) {
+                return provider;
+            }
+        }
+        for (; lazy < lazyProviders.length; lazy++) {
+            Provider provider = matches(lazyProviders[lazy].getService(typeName, algorithm), name);
+            if (provider != null) {
+                return provider;
+            }
+        }
+
+        return null;
+    }
+
+    private static Provider matches(final Service service, final String name) {
+        if (service != null && (name == null || name.equals(service.getProvider().getName()))) {
+            return service.getProvider();
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the {@link Provider} instances offering at least one service of the specified type in provider order.
+     *
+     * @param type the service type.
+     * @return the matching {@link Provider} instances, an empty array if there are none.
+     */
+    Provider[] getProviders(final Class<?> type) {
+        Provider[] providers = providersByType.get(type.getSimpleName());
+        if (providers == null) {
+            return lazyProviders.length == 0 ? NO_PROVIDERS : lazyProviders.clone();
+        }
+
+        return providers.clone();
+    }
+
+    /**
+     * Get the name of the service for the index of the providers loaded by the service with the supplied name.
+     *
+     * @param providersServiceName the name of the service supplying the {@link Provider} instances.
+     * @return the name of the service supplying the {@link ProviderIndex}.
+     */
+    static ServiceName serviceName(final ServiceName providersServiceName) {
+        return providersServiceName.append(ElytronDescriptionConstants.INDEX);
+    }
+
+}
@@ -22,19 +22,32 @@ import static org.wildfly.extension.elytron.Capabilities.PROVIDERS_RUNTIME_CAPAB
 import static org.wildfly.extension.elytron.ClassLoadingAttributeDefinitions.CLASS_NAMES;
 import static org.wildfly.extension.elytron.ClassLoadingAttributeDefinitions.MODULE;
 import static org.wildfly.extension.elytron.ClassLoadingAttributeDefinitions.SLOT;
+import static org.wildfly.extension.elytron.ClassLoadingAttributeDefinitions.resolveClassLoader;
 import static org.wildfly.extension.elytron.ElytronDefinition.commonDependencies;
 import static org.wildfly.extension.elytron.ElytronExtension.asStringIfDefined;
 import static org.wildfly.extension.elytron.ElytronExtension.getRequiredService;
 import static org.wildfly.extension.elytron.FileAttributeDefinitions.pathName;
 import static org.wildfly.extension.elytron.ProviderAttributeDefinition.INDEXED_PROVIDERS;
 import static org.wildfly.extension.elytron.ProviderAttributeDefinition.LOADED_PROVIDERS;
+import static org.wildfly.extension.elytron.ProviderAttributeDefinition.LOAD_TIMES;
 import static org.wildfly.extension.elytron.ProviderAttributeDefinition.PROVIDERS;
+import static org.wildfly.extension.elytron.ProviderAttributeDefinition.populateLoadTimes;
 import static org.wildfly.extension.elytron.ProviderAttributeDefinition.populateProviders;
+import static org.wildfly.extension.elytron.SecurityActions.doPrivileged;
+import static org.wildfly.extension.elytron._private.ElytronSubsystemMessages.ROOT_LOGGER;
 
+import java.io.File;
+import java.security.GeneralSecurityException;
+import java.security.PrivilegedExceptionAction;
 import java.security.Provider;
+import java.security.Provider.Service;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.jboss.as.controller.AbstractAddStepHandler;
 import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
@@ -52,8 +65,10 @@ import org.jboss.as.controller.SimpleOperationDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
 import org.jboss.as.controller.StringListAttributeDefinition;
 import org.jboss.as.controller.capability.RuntimeCapability;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
 import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
 import org.jboss.as.controller.descriptions.StandardResourceDescriptionResolver;
+import org.jboss.as.controller.operations.validation.LongRangeValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.OperationEntry;
@@ -62,10 +77,13 @@ import org.jboss.as.controller.services.path.PathManager;
 import org.jboss.as.controller.services.path.PathManagerService;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
+import org.jboss.msc.service.AbstractServiceListener;
 import org.jboss.msc.service.ServiceBuilder;
 import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceController.Mode;
 import org.jboss.msc.service.ServiceController.State;
+import org.jboss.msc.service.ServiceController.Substate;
+import org.jboss.msc.service.ServiceController.Transition;
 import org.jboss.msc.service.ServiceName;
 import org.jboss.msc.service.ServiceTarget;
 import org.wildfly.extension.elytron.ProviderLoaderService.PropertyListBuilder;
@@ -88,7 +106,17 @@ class ProviderLoaderDefinition extends SimpleResourceDefinition {
         .build();
 
     private static final AbstractAddStepHandler ADD = new ProviderAddHandler();
-    private static final OperationStepHandler REMOVE = new SingleCapabilityServiceRemoveHandler<Provider[]>(ADD, PROVIDERS_RUNTIME_CAPABILITY, Provider[].class);
+    private static final OperationStepHandler REMOVE = new SingleCapabilityServiceRemoveHandler<Provider[]>(ADD, PROVIDERS_RUNTIME_CAPABILITY, Provider[].class) {
+
+        @Override
+        protected void performRuntime(OperationContext context, ModelNode operation, ModelNode model) {
+            if (context.isResourceServiceRestartAllowed()) {
+                context.removeService(ProviderIndex.serviceName(serviceName(context.getCurrentAddressValue())));
+            }
+            super.performRuntime(context, operation, model);
+        }
+
+    };
     private static final OperationStepHandler WRITE = new WriteAttributeHandler();
 
     private static final StandardResourceDescriptionResolver RESOLVER = ElytronExtension.getResourceDescriptionResolver(ElytronDescriptionConstants.PROVIDER_LOADER);
@@ -97,6 +125,38 @@ class ProviderLoaderDefinition extends SimpleResourceDefinition {
         .setParameters(REGISTER, PROVIDERS)
         .build();
 
+    static final StringListAttributeDefinition ALGORITHMS = new StringListAttributeDefinition.Builder(ElytronDescriptionConstants.ALGORITHMS)
+        .setMinSize(1)
+        .build();
+
+    static final SimpleAttributeDefinition DURATION = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.DURATION, ModelType.LONG, true)
+        .setDefaultValue(new ModelNode(200L))
+        .setMeasurementUnit(MeasurementUnit.MILLISECONDS)
+        .setValidator(new LongRangeValidator(1, 10000, true, false))
+        .build();
+
+    /*
+     * The maximum time in milliseconds a single benchmark operation is allowed to take.
+     */
+    private static final long MAXIMUM_BENCHMARK_TIME = TimeUnit.MINUTES.toMillis(1);
+
+    static final SimpleAttributeDefinition REORDER = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.REORDER, ModelType.BOOLEAN, true)
+        .setDefaultValue(new ModelNode(false))
+        .build();
+
+    private static final SimpleOperationDefinition BENCHMARK = new SimpleOperationDefinitionBuilder(ElytronDescriptionConstants.BENCHMARK, RESOLVER)
+        .setParameters(ALGORITHMS, DURATION, REORDER)
+        .setReplyType(ModelType.LIST)
+        .setReplyValueType(ModelType.OBJECT)
+        .setRuntimeOnly()
+        .build();
+
+    private static final SimpleOperationDefinition WRITE_PROVIDER_INDEX = new SimpleOperationDefinitionBuilder(ElytronDescriptionConstants.WRITE_PROVIDER_INDEX, RESOLVER)
+        .setReplyType(ModelType.LIST)
+        .setReplyValueType(ModelType.STRING)
+        .setRuntimeOnly()
+        .build();
+
     public ProviderLoaderDefinition() {
         super(new Parameters(PathElement.pathElement(ElytronDescriptionConstants.PROVIDER_LOADER), RESOLVER)
                 .setRemoveHandler(REMOVE)
@@ -110,6 +170,7 @@ class ProviderLoaderDefinition extends SimpleResourceDefinition {
 
         resourceRegistration.registerReadOnlyAttribute(INDEXED_PROVIDERS, new ProvidersAttributeHandler());
         resourceRegistration.registerReadOnlyAttribute(LOADED_PROVIDERS, new LoadedProvidersAttributeHandler());
+        resourceRegistration.registerReadOnlyAttribute(LOAD_TIMES, new LoadTimesAttributeHandler());
     }
 
     @Override
@@ -122,6 +183,8 @@ class ProviderLoaderDefinition extends SimpleResourceDefinition {
         super.registerOperations(resourceRegistration);
         // We needed a custom add operation so we could specify the parameters.
         resourceRegistration.registerOperationHandler(ADD_DEFINITION, ADD);
+        resourceRegistration.registerOperationHandler(WRITE_PROVIDER_INDEX, new WriteProviderIndexHandler());
+        resourceRegistration.registerOperationHandler(BENCHMARK, new BenchmarkHandler());
     }
 
     private static class WriteAttributeHandler extends RestartParentWriteAttributeHandler {
@@ -159,6 +222,7 @@ class ProviderLoaderDefinition extends SimpleResourceDefinition {
                     .setModule(asStringIfDefined(context, MODULE, current))
                     .setSlot(asStringIfDefined(context, SLOT, current))
                     .setLoadServices(ProviderAttributeDefinition.LOAD_SERVICES.resolveModelAttribute(context, current).asBoolean())
+                    .setLazy(ProviderAttributeDefinition.LAZY.resolveModelAttribute(context, current).asBoolean())
                     .setClassNames(asStringArrayIfDefined(context, CLASS_NAMES, current))
                     .setPath(asStringIfDefined(context, FileAttributeDefinitions.PATH, current));
 
@@ -197,6 +261,13 @@ class ProviderLoaderDefinition extends SimpleResourceDefinition {
 
             commonDependencies(serviceBuilder);
             serviceBuilder.install();
+
+            // The index is installed as a separate service so consumers can depend on it in place of the providers.
+            TrivialService<ProviderIndex> indexService = new TrivialService<ProviderIndex>(providerLoaderService::getIndex);
+            serviceTarget.addService(ProviderIndex.serviceName(serviceName), indexService)
+                    .addDependency(serviceName)
+                    .setInitialMode(Mode.ACTIVE)
+                    .install();
         }
     }
 
@@ -245,4 +316,171 @@ class ProviderLoaderDefinition extends SimpleResourceDefinition {
 
     }
 
+    private static class LoadTimesAttributeHandler extends AbstractRuntimeOnlyHandler {
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            ServiceName providerLoaderName = PROVIDER_LOADER_SERVICE_UTIL.serviceName(operation);
+            ServiceController<Provider[]> serviceContainer = getRequiredService(context.getServiceRegistry(false), providerLoaderName, Provider[].class);
+            if (serviceContainer.getState() != State.UP) {
+                return;
+            }
+
+            ProviderLoaderService providerLoaderService = (ProviderLoaderService) serviceContainer.getService();
+            Provider[] providers = providerLoaderService.getValue();
+            long[] loadTimes = providerLoaderService.getLoadTimes();
+            if (providers != null && loadTimes != null) {
+                populateLoadTimes(context.getResult(), providers, loadTimes);
+            }
+        }
+
+    }
+
+    private static class WriteProviderIndexHandler extends AbstractRuntimeOnlyHandler {
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            ModelNode model = context.readResource(PathAddress.EMPTY_ADDRESS).getModel();
+            ModelNode result = context.getResult();
+            result.setEmptyList();
+
+            if (model.hasDefined(ElytronDescriptionConstants.PROVIDERS)) {
+                for (ModelNode current : model.require(ElytronDescriptionConstants.PROVIDERS).asList()) {
+                    final String module = asStringIfDefined(context, MODULE, current);
+                    final String slot = asStringIfDefined(context, SLOT, current);
+                    // Only module based service loader discovery can use an index.
+                    if (module == null || ProviderAttributeDefinition.LOAD_SERVICES.resolveModelAttribute(context, current).asBoolean() == false) {
+                        continue;
+                    }
+
+                    try {
+                        File indexFile = doPrivileged((PrivilegedExceptionAction<File>) () -> {
+                            ClassLoader classLoader = resolveClassLoader(module, slot);
+                            return ProviderDiscoveryIndex.write(module, slot, classLoader, ProviderDiscoveryIndex.discoverClassNames(classLoader));
+                        });
+                        if (indexFile != null) {
+                            result.add(indexFile.getAbsolutePath());
+                        }
+                    } catch (Exception e) {
+                        throw ROOT_LOGGER.unableToCompleteOperation(e);
+                    }
+                }
+            }
+        }
+
+    }
+
+    private static class BenchmarkHandler extends AbstractRuntimeOnlyHandler {
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            String[] algorithms = asStringArrayIfDefined(context, ALGORITHMS, operation);
+            long duration = DURATION.resolveModelAttribute(context, operation).asLong();
+            boolean reorder = REORDER.resolveModelAttribute(context, operation).asBoolean();
+
+            // Validate all of the algorithms before any are benchmarked.
+            for (String current : algorithms) {
+                int dot = current.indexOf('.');
+                if (dot < 1 || dot == current.length() - 1 || ProviderBenchmark.isSupported(current.substring(0, dot)) == false) {
+                    throw ROOT_LOGGER.unsupportedBenchmarkAlgorithm(current);
+                }
+            }
+
+            ServiceName providerLoaderName = PROVIDER_LOADER_SERVICE_UTIL.serviceName(operation);
+            ServiceController<Provider[]> serviceContainer = getRequiredService(context.getServiceRegistry(false), providerLoaderName, Provider[].class);
+            if (serviceContainer.getState() != State.UP) {
+                throw ROOT_LOGGER.requiredServiceNotUp(providerLoaderName, serviceContainer.getState());
+            }
+            ProviderLoaderService providerLoaderService = (ProviderLoaderService) serviceContainer.getService();
+            ProviderIndex index = providerLoaderService.getIndex();
+
+            Map<String, Set<Provider>> candidatesByAlgorithm = new LinkedHashMap<String, Set<Provider>>();
+            long estimate = 0;
+            for (String current : algorithms) {
+                int dot = current.indexOf('.');
+                String type = current.substring(0, dot);
+                String algorithm = current.substring(dot + 1);
+
+                // A transformation may only be registered against the cipher algorithm.
+                Set<Provider> candidates = new LinkedHashSet<Provider>();
+                for (Service service : index.getServices(type, algorithm)) {
+                    candidates.add(service.getProvider());
+                }
+                int slash = algorithm.indexOf('/');
+                if (ProviderBenchmark.CIPHER.equals(type) && slash > 0) {
+                    for (Service service : index.getServices(type, algorithm.substring(0, slash))) {
+                        candidates.add(service.getProvider());
+                    }
+                }
+                candidatesByAlgorithm.put(current, candidates);
+                // Each provider is warmed up and then measured for the duration.
+                estimate += 2 * duration * candidates.size();
+            }
+            // The whole operation is bounded before any provider is benchmarked.
+            if (estimate > MAXIMUM_BENCHMARK_TIME) {
+                throw ROOT_LOGGER.benchmarkTooLong(estimate, MAXIMUM_BENCHMARK_TIME);
+            }
+
+            ModelNode result = context.getResult();
+            result.setEmptyList();
+            boolean preferenceChanged = false;
+            for (Map.Entry<String, Set<Provider>> current : candidatesByAlgorithm.entrySet()) {
+                int dot = current.getKey().indexOf('.');
+                String type = current.getKey().substring(0, dot);
+                String algorithm = current.getKey().substring(dot + 1);
+
+                Map<Provider, Long> measured = new LinkedHashMap<Provider, Long>();
+                Provider fastest = null;
+                for (Provider provider : current.getValue()) {
+                    try {
+                        long operationsPerSecond = ProviderBenchmark.operationsPerSecond(type, algorithm, provider, duration);
+                        measured.put(provider, operationsPerSecond);
+                        if (fastest == null || operationsPerSecond > measured.get(fastest)) {
+                            fastest = provider;
+                        }
+                    } catch (GeneralSecurityException | RuntimeException e) {
+                        // A provider which can not perform the operation is not included in the results.
+                    }
+                }
+
+                boolean preferred = false;
+                if (reorder && fastest != null) {
+                    List<Service> services = index.getServices(type, algorithm);
+                    Provider previous = services.isEmpty() ? null : services.get(0).getProvider();
+                    preferred = providerLoaderService.prefer(type, algorithm, fastest);
+                    preferenceChanged |= preferred && previous != fastest;
+                }
+                for (Map.Entry<Provider, Long> entry : measured.entrySet()) {
+                    ModelNode resultEntry = new ModelNode();
+                    resultEntry.get(ElytronDescriptionConstants.ALGORITHM).set(current.getKey());
+                    resultEntry.get(ElytronDescriptionConstants.PROVIDER).set(entry.getKey().getName());
+                    resultEntry.get(ElytronDescriptionConstants.OPERATIONS_PER_SECOND).set(entry.getValue());
+                    resultEntry.get(ElytronDescriptionConstants.PREFERRED).set(preferred && entry.getKey() == fastest);
+                    result.add(resultEntry);
+                }
+            }
+
+            if (preferenceChanged && context.isResourceServiceRestartAllowed()) {
+                // Key stores and SSL contexts select their provider as they start so are restarted with the index they depend on.
+                restart(context.getServiceRegistry(true).getRequiredService(ProviderIndex.serviceName(providerLoaderName)));
+            }
+        }
+
+        private static void restart(final ServiceController<?> controller) {
+            controller.addListener(new AbstractServiceListener<Object>() {
+
+                @Override
+                public void transition(ServiceController<? extends Object> controller, Transition transition) {
+                    if (transition.getAfter() == Substate.DOWN) {
+                        controller.removeListener(this);
+                        controller.setMode(Mode.ACTIVE);
+                    }
+                }
+
+            });
+            controller.setMode(Mode.NEVER);
+        }
+
+    }
+
 }
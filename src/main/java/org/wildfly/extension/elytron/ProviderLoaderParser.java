@@ -32,6 +32,7 @@ import static org.wildfly.extension.elytron.ElytronDescriptionConstants.CLASS_NA
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.CONFIGURATION_FILE;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.CONFIGURATION_PROPERTIES;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.KEY;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.LAZY;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.LOAD_SERVICES;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.MODULE;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.NAME;
@@ -130,6 +131,9 @@ class ProviderLoaderParser {
                     case LOAD_SERVICES:
                         ProviderAttributeDefinition.LOAD_SERVICES.parseAndSetParameter(value, provider, reader);
                         break;
+                    case LAZY:
+                        ProviderAttributeDefinition.LAZY.parseAndSetParameter(value, provider, reader);
+                        break;
                     case CLASS_NAMES:
                         for (String className : reader.getListAttributeValue(i)) {
                             ClassLoadingAttributeDefinitions.CLASS_NAMES.parseAndAddParameterElement(className, provider, reader);
@@ -253,6 +257,7 @@ class ProviderLoaderParser {
                 ClassLoadingAttributeDefinitions.MODULE.marshallAsAttribute(currentProvider, writer);
                 ClassLoadingAttributeDefinitions.SLOT.marshallAsAttribute(currentProvider, writer);
                 ProviderAttributeDefinition.LOAD_SERVICES.marshallAsAttribute(currentProvider, writer);
+                ProviderAttributeDefinition.LAZY.marshallAsAttribute(currentProvider, writer);
                 ClassLoadingAttributeDefinitions.CLASS_NAMES.getAttributeMarshaller().marshallAsAttribute(ClassLoadingAttributeDefinitions.CLASS_NAMES, currentProvider, false, writer);
 
                 if (currentProvider.hasDefined(PATH)) {
@@ -24,10 +24,11 @@ import static org.wildfly.extension.elytron._private.ElytronSubsystemMessages.RO
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Constructor;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedExceptionAction;
 import java.security.Provider;
@@ -35,9 +36,18 @@ import java.security.Security;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import org.jboss.as.controller.services.path.PathEntry;
@@ -60,6 +70,19 @@ import org.jboss.msc.value.InjectedValue;
  * The order of the {@link Provider} instances will either be the order the class names were specified or will be in
  * {@link ServiceLoader} discovery order.
  *
+ * Where more than one provider configuration is defined the configurations are loaded in parallel, the resulting array is
+ * still ordered by configuration.
+ *
+ * Where a module used for {@link ServiceLoader} discovery has a current precomputed index of it's providers, written by the
+ * {@code write-provider-index} operation, the index is used instead of searching for the provider configuration files.
+ *
+ * Where a provider configuration is lazy each {@link Provider} is represented by a {@link LazyProvider} and is only instantiated
+ * the first time one of it's services is requested.
+ *
+ * The providers preferred for an algorithm following a benchmark are retained by the service and applied again to the new
+ * {@link ProviderIndex} each time the service is restarted, they are not persisted so do not survive the removal of the
+ * resource or a reload.
+ *
  * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
  */
 class ProviderLoaderService implements Service<Provider[]> {
@@ -71,6 +94,10 @@ class ProviderLoaderService implements Service<Provider[]> {
     private final List<Handle> callbackHandles = new ArrayList<Handle>();
 
     private volatile Provider[] providers;
+    private volatile long[] loadTimes;
+    private volatile ProviderIndex index;
+
+    private final Map<String, Preference> preferences = new ConcurrentHashMap<String, Preference>();
 
     private ProviderLoaderService(final boolean register, final ProviderConfig[] providerConfig) {
         this.register = register;
@@ -80,13 +107,49 @@ class ProviderLoaderService implements Service<Provider[]> {
     @Override
     public void start(StartContext context) throws StartException {
 
+        ExecutorService executor = null;
         try {
-            ArrayList<Provider> providerList = new ArrayList<Provider>();
+            // Resolve and read the configuration files first, this registers the path callbacks and is not thread safe.
+            List<Supplier<InputStream>> configurationSuppliers = new ArrayList<Supplier<InputStream>>(providerConfig.length);
             for (ProviderConfig currentConfig : providerConfig) {
-                providerList.addAll(loadProviders(currentConfig));
+                configurationSuppliers.add(getConfigurationSupplier(currentConfig));
             }
 
-            Provider[] providers = providerList.toArray(new Provider[providerList.size()]);
+            List<LoadedProvider> loadedList = new ArrayList<LoadedProvider>();
+            if (providerConfig.length == 1) {
+                loadedList.addAll(loadProviders(providerConfig[0], configurationSuppliers.get(0)));
+            } else if (providerConfig.length > 1) {
+                // Each configuration is independent so they are loaded in parallel, the results are combined in the declared order.
+                final int threads = Math.min(providerConfig.length, Runtime.getRuntime().availableProcessors());
+                final AtomicInteger threadCount = new AtomicInteger();
+                executor = Executors.newFixedThreadPool(threads, r -> {
+                    Thread thread = new Thread(r, "Provider Loader - " + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+                List<Future<List<LoadedProvider>>> futures = new ArrayList<Future<List<LoadedProvider>>>(providerConfig.length);
+                for (int i = 0; i < providerConfig.length; i++) {
+                    final ProviderConfig currentConfig = providerConfig[i];
+                    final Supplier<InputStream> configurationSupplier = configurationSuppliers.get(i);
+                    futures.add(executor.submit(() -> loadProviders(currentConfig, configurationSupplier)));
+                }
+                for (Future<List<LoadedProvider>> current : futures) {
+                    try {
+                        loadedList.addAll(current.get());
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        throw cause instanceof Exception ? (Exception) cause : e;
+                    }
+                }
+            }
+
+            Provider[] providers = new Provider[loadedList.size()];
+            long[] loadTimes = new long[providers.length];
+            for (int i = 0; i < providers.length; i++) {
+                providers[i] = loadedList.get(i).provider;
+                loadTimes[i] = loadedList.get(i).loadTime;
+            }
             if (register) {
                 doPrivileged((PrivilegedExceptionAction<Void>) () -> {
                     registerProviders(providers);
@@ -94,6 +157,10 @@ class ProviderLoaderService implements Service<Provider[]> {
                 });
             }
 
+            ProviderIndex index = ProviderIndex.create(providers);
+            applyPreferences(index, providers);
+            this.index = index;
+            this.loadTimes = loadTimes;
             this.providers = providers;
         } catch (Exception e) {
             clearCallbacks();
@@ -103,64 +170,137 @@ class ProviderLoaderService implements Service<Provider[]> {
                 throw (StartException) e.getCause();
             }
             throw ROOT_LOGGER.unableToStartService(e);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
         }
     }
 
-    private List<Provider> loadProviders(ProviderConfig config) throws Exception {
+    /**
+     * Load the {@link Provider} instances for a single configuration, the time taken to load each {@link Provider} is recorded
+     * with it.
+     */
+    private List<LoadedProvider> loadProviders(ProviderConfig config, Supplier<InputStream> configurationStreamSupplier) throws Exception {
         ClassLoader classLoader = doPrivileged((PrivilegedExceptionAction<ClassLoader>) () -> resolveClassLoader(config.getModule(), config.getSlot()));
-        ArrayList<Provider> providers = new ArrayList<Provider>();
+        if (config.isLazy()) {
+            return loadLazyProviders(config, classLoader, configurationStreamSupplier);
+        }
+
+        ArrayList<LoadedProvider> providers = new ArrayList<LoadedProvider>();
         Set<String> discovered = new HashSet<String>();
 
         if (config.loadServices()) {
-            ServiceLoader<Provider> loader = ServiceLoader.load(Provider.class, classLoader);
-            loader.iterator().forEachRemaining((Provider p) -> {
-                providers.add(p);
-                discovered.add(p.getClass().getName());
-            });
+            List<String> indexed = doPrivileged((PrivilegedAction<List<String>>) () -> ProviderDiscoveryIndex.read(config.getModule(), config.getSlot(), classLoader));
+            if (indexed != null) {
+                // Instantiated as ServiceLoader would have but without searching for the provider configuration files.
+                for (String className : indexed) {
+                    long start = System.nanoTime();
+                    Provider p = classLoader.loadClass(className).asSubclass(Provider.class).newInstance();
+                    providers.add(new LoadedProvider(p, System.nanoTime() - start));
+                    discovered.add(className);
+                }
+            } else {
+                ServiceLoader<Provider> loader = ServiceLoader.load(Provider.class, classLoader);
+                Iterator<Provider> iterator = loader.iterator();
+                long start = System.nanoTime();
+                while (iterator.hasNext()) {
+                    Provider p = iterator.next();
+                    long end = System.nanoTime();
+                    providers.add(new LoadedProvider(p, end - start));
+                    discovered.add(p.getClass().getName());
+                    start = end;
+                }
+            }
         }
 
-        final Supplier<InputStream> configurationStreamSupplier = getConfigurationSupplier(config);
         if (configurationStreamSupplier != null) {
-            for (Provider p : providers) {
+            for (LoadedProvider current : providers) {
+                long start = System.nanoTime();
                 try (InputStream is = configurationStreamSupplier.get()) {
-                    p.load(is);
+                    current.provider.load(is);
                 }
+                current.loadTime += System.nanoTime() - start;
             }
         }
 
         for (String className : config.getClassNames()) {
             if (discovered.contains(className) == false) {
-                Class<? extends Provider> providerClazz = classLoader.loadClass(className).asSubclass(Provider.class);
-                Provider provider = null;
-                if (configurationStreamSupplier != null) {
-                    Constructor<?>[] constructors = providerClazz.getConstructors();
-                    for (Constructor<?> current : constructors) {
-                        Class<?>[] parameterTypes = current.getParameterTypes();
-                        if (parameterTypes.length == 1 && parameterTypes[0].isAssignableFrom(InputStream.class)) {
-                            try (InputStream is = configurationStreamSupplier.get()) {
-                                provider = (Provider) current.newInstance(configurationStreamSupplier.get());
-                            }
-                            break;
-                        }
-                    }
-                }
+                long start = System.nanoTime();
+                Provider provider = createProvider(classLoader.loadClass(className).asSubclass(Provider.class), configurationStreamSupplier);
+                providers.add(new LoadedProvider(provider, System.nanoTime() - start));
+            }
+        }
 
-                if (provider == null) {
-                    provider = providerClazz.newInstance();
+        return providers;
+    }
+
+    /**
+     * Create a {@link LazyProvider} for each provider of a configuration, where service loader discovery is used the provider
+     * configuration files are read directly so that no {@link Provider} is instantiated.
+     */
+    private List<LoadedProvider> loadLazyProviders(ProviderConfig config, ClassLoader classLoader, Supplier<InputStream> configurationStreamSupplier) throws IOException {
+        ArrayList<LoadedProvider> providers = new ArrayList<LoadedProvider>();
+        Set<String> discovered = new HashSet<String>();
+
+        if (config.loadServices()) {
+            List<String> indexed = doPrivileged((PrivilegedAction<List<String>>) () -> ProviderDiscoveryIndex.read(config.getModule(), config.getSlot(), classLoader));
+            for (String className : indexed != null ? indexed : ProviderDiscoveryIndex.discoverClassNames(classLoader)) {
+                long start = System.nanoTime();
+                // Instantiated as ServiceLoader would have, with the configuration loaded afterwards.
+                LazyProvider provider = new LazyProvider(className, () -> doPrivileged((PrivilegedExceptionAction<Provider>) () -> {
+                    Provider p = classLoader.loadClass(className).asSubclass(Provider.class).newInstance();
                     if (configurationStreamSupplier != null) {
                         try (InputStream is = configurationStreamSupplier.get()) {
-                            provider.load(configurationStreamSupplier.get());
+                            p.load(is);
                         }
                     }
-                }
+                    return p;
+                }));
+                providers.add(new LoadedProvider(provider, System.nanoTime() - start));
+                discovered.add(className);
+            }
+        }
 
-                providers.add(provider);
+        for (String className : config.getClassNames()) {
+            if (discovered.contains(className) == false) {
+                long start = System.nanoTime();
+                LazyProvider provider = new LazyProvider(className, () -> doPrivileged((PrivilegedExceptionAction<Provider>) () ->
+                        createProvider(classLoader.loadClass(className).asSubclass(Provider.class), configurationStreamSupplier)));
+                providers.add(new LoadedProvider(provider, System.nanoTime() - start));
             }
         }
 
         return providers;
     }
 
+    private static Provider createProvider(Class<? extends Provider> providerClazz, Supplier<InputStream> configurationStreamSupplier) throws Exception {
+        Provider provider = null;
+        if (configurationStreamSupplier != null) {
+            Constructor<?>[] constructors = providerClazz.getConstructors();
+            for (Constructor<?> current : constructors) {
+                Class<?>[] parameterTypes = current.getParameterTypes();
+                if (parameterTypes.length == 1 && parameterTypes[0].isAssignableFrom(InputStream.class)) {
+                    try (InputStream is = configurationStreamSupplier.get()) {
+                        provider = (Provider) current.newInstance(is);
+                    }
+                    break;
+                }
+            }
+        }
+
+        if (provider == null) {
+            provider = providerClazz.newInstance();
+            if (configurationStreamSupplier != null) {
+                try (InputStream is = configurationStreamSupplier.get()) {
+                    provider.load(is);
+                }
+            }
+        }
+
+        return provider;
+    }
+
     private void registerProviders(final Provider[] providers) throws StartException {
         for (int i = 0; i < providers.length; i++) {
             if (Security.addProvider(providers[i]) < 0) {
@@ -172,20 +312,20 @@ class ProviderLoaderService implements Service<Provider[]> {
         }
     }
 
-    private static InputStream toInputStream(final File file) {
-        try {
-            SecurityActions.doPrivileged((PrivilegedExceptionAction<InputStream>) () -> new FileInputStream(file) );
-            return new FileInputStream(file);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+    private static byte[] readFully(final File file) throws Exception {
+        return doPrivileged((PrivilegedExceptionAction<byte[]>) () -> Files.readAllBytes(file.toPath()));
     }
 
-    private Supplier<InputStream> getConfigurationSupplier(ProviderConfig config) {
+    /**
+     * Get a {@link Supplier} of the configuration for the {@link Provider} instances of a configuration, where the
+     * configuration is in a file the file is read once and each call returns a new stream over the same content.
+     */
+    private Supplier<InputStream> getConfigurationSupplier(ProviderConfig config) throws Exception {
         if (config.getPath() != null) {
             final File configFile = resolveFileLocation(config.getPath(), config.getRelativeTo());
+            final byte[] configBytes = readFully(configFile);
 
-            return () -> toInputStream(configFile);
+            return () -> new ByteArrayInputStream(configBytes);
         }
 
         List<Property> configurationProperties = config.getPropertyList();
@@ -246,6 +386,8 @@ class ProviderLoaderService implements Service<Provider[]> {
         clearCallbacks();
 
         providers = null;
+        loadTimes = null;
+        index = null;
     }
 
     private void unregisterProviders() {
@@ -263,6 +405,87 @@ class ProviderLoaderService implements Service<Provider[]> {
         return providers == null ? null : providers.clone();
     }
 
+    /**
+     * Get the time taken to load each {@link Provider}, in the same order as the array returned by {@link #getValue()}.
+     *
+     * @return the time taken to load each {@link Provider} in nanoseconds or {@code null} if the service is not started.
+     */
+    long[] getLoadTimes() {
+        return loadTimes == null ? null : loadTimes.clone();
+    }
+
+    /**
+     * Get the index of the services offered by the loaded {@link Provider} instances, the index is built once as the providers
+     * are loaded.
+     *
+     * @return the {@link ProviderIndex} or {@code null} if the service is not started.
+     */
+    ProviderIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Prefer the {@link Provider} for the type and algorithm in the current {@link ProviderIndex}, the preference is retained
+     * and applied again each time the service is restarted.
+     *
+     * @param type the service type.
+     * @param algorithm the algorithm.
+     * @param provider the loaded {@link Provider} to prefer.
+     * @return {@code true} if the {@link Provider} is now preferred, {@code false} otherwise.
+     */
+    synchronized boolean prefer(final String type, final String algorithm, final Provider provider) {
+        ProviderIndex index = this.index;
+        if (index == null || index.prefer(type, algorithm, provider) == false) {
+            return false;
+        }
+
+        preferences.put(type + '.' + algorithm.toUpperCase(Locale.ENGLISH), new Preference(type, algorithm, className(provider)));
+        return true;
+    }
+
+    /**
+     * Apply the retained preferences to a new index, the providers are identified by class name as each restart loads new
+     * instances.
+     */
+    private void applyPreferences(final ProviderIndex index, final Provider[] providers) {
+        for (Preference current : preferences.values()) {
+            for (Provider provider : providers) {
+                // A LazyProvider is named after the class it stands in for so is only instantiated if it is the one preferred.
+                if (current.className.equals(className(provider)) && index.prefer(current.type, current.algorithm, provider)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private static String className(final Provider provider) {
+        return provider instanceof LazyProvider ? provider.getName() : provider.getClass().getName();
+    }
+
+    private static class Preference {
+
+        private final String type;
+        private final String algorithm;
+        private final String className;
+
+        Preference(final String type, final String algorithm, final String className) {
+            this.type = type;
+            this.algorithm = algorithm;
+            this.className = className;
+        }
+    }
+
+    private static class LoadedProvider {
+
+        private final Provider provider;
+        private long loadTime;
+
+        private LoadedProvider(Provider provider, long loadTime) {
+            this.provider = provider;
+            this.loadTime = loadTime;
+        }
+    }
+
     private static class Property {
 
         private final String key;
@@ -287,15 +510,17 @@ class ProviderLoaderService implements Service<Provider[]> {
         private final String module;
         private final String slot;
         private final boolean loadServices;
+        private final boolean lazy;
         private final String[] classNames;
         private final String path;
         private final String relativeTo;
         private final List<Property> propertyList;
 
-        private ProviderConfig(String module, String slot, boolean loadServices, String[] classNames, String path, String relativeTo, List<Property> propertyList) {
+        private ProviderConfig(String module, String slot, boolean loadServices, boolean lazy, String[] classNames, String path, String relativeTo, List<Property> propertyList) {
             this.module = module;
             this.slot = slot;
             this.loadServices = loadServices;
+            this.lazy = lazy;
             this.classNames = classNames;
             this.path = path;
             this.relativeTo = relativeTo;
@@ -314,6 +539,10 @@ class ProviderLoaderService implements Service<Provider[]> {
             return loadServices;
         }
 
+        private boolean isLazy() {
+            return lazy;
+        }
+
         private String[] getClassNames() {
             return classNames;
         }
@@ -370,6 +599,7 @@ class ProviderLoaderService implements Service<Provider[]> {
         private String module;
         private String slot;
         private boolean loadServices;
+        private boolean lazy;
         private String[] classNames;
         private String path;
         private String relativeTo;
@@ -397,6 +627,12 @@ class ProviderLoaderService implements Service<Provider[]> {
             return this;
         }
 
+        ProviderConfigBuilder setLazy(boolean lazy) {
+            this.lazy = lazy;
+
+            return this;
+        }
+
         ProviderConfigBuilder setClassNames(final String[] classNames) {
             this.classNames = classNames == null ? new String[0] : classNames.clone();
 
@@ -426,7 +662,7 @@ class ProviderLoaderService implements Service<Provider[]> {
         }
 
         ProviderLoaderServiceBuilder build() {
-            serviceBuilder.add(new ProviderConfig(module, slot, loadServices, classNames, path, relativeTo, propertyList));
+            serviceBuilder.add(new ProviderConfig(module, slot, loadServices, lazy, classNames, path, relativeTo, propertyList));
 
             return serviceBuilder;
         }
@@ -160,7 +160,9 @@ class RealmMapperDefinitions {
                 if (delegate == null) {
                     return new SimpleRegexRealmMapper(compiledPattern);
                 } else {
-                    return new SimpleRegexRealmMapper(compiledPattern, delegate);
+                    RealmMapper realmMapper = new SimpleRegexRealmMapper(compiledPattern, delegate);
+                    // The mapping by a custom mapper may change at any time so must not be cached.
+                    return CachingRealmMapper.isCacheable(delegate) ? realmMapper : CachingRealmMapper.uncacheable(realmMapper);
                 }
             });
 
@@ -240,7 +242,8 @@ class RealmMapperDefinitions {
                 if (delegate == null) {
                     return new MappedRegexRealmMapper(compiledPattern, realmRealmMap);
                 } else {
-                    return new MappedRegexRealmMapper(compiledPattern, delegate, realmRealmMap);
+                    RealmMapper realmMapper = new MappedRegexRealmMapper(compiledPattern, delegate, realmRealmMap);
+                    return CachingRealmMapper.isCacheable(delegate) ? realmMapper : CachingRealmMapper.uncacheable(realmMapper);
                 }
             });
 
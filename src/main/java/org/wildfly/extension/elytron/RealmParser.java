@@ -34,6 +34,7 @@ import static org.wildfly.extension.elytron.ElytronDescriptionConstants.ATTRIBUT
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.ATTRIBUTE_MAPPING;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.AUTHENTICATION_REALM;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.AUTHORIZATION_REALM;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.CERTIFICATE_LOOKUP;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.CONFIGURATION;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.CUSTOM_REALM;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.DIR_CONTEXT;
@@ -299,6 +300,9 @@ class RealmParser {
                     case KEYSTORE:
                         KeyStoreRealmDefinition.KEYSTORE.parseAndSetParameter(value, addRealm, reader);
                         break;
+                    case CERTIFICATE_LOOKUP:
+                        KeyStoreRealmDefinition.CERTIFICATE_LOOKUP.parseAndSetParameter(value, addRealm, reader);
+                        break;
                     default:
                         throw unexpectedAttribute(reader, i);
                 }
@@ -704,7 +708,9 @@ class RealmParser {
             for (String name : realms.keys()) {
                 writer.writeStartElement(KEYSTORE_REALM);
                 writer.writeAttribute(NAME, name);
-                KeyStoreRealmDefinition.KEYSTORE.marshallAsAttribute(realms.require(name), writer);
+                ModelNode model = realms.require(name);
+                KeyStoreRealmDefinition.KEYSTORE.marshallAsAttribute(model, writer);
+                KeyStoreRealmDefinition.CERTIFICATE_LOOKUP.marshallAsAttribute(model, writer);
                 writer.writeEndElement();
             }
             return true;
@@ -0,0 +1,236 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.wildfly.extension.elytron._private.ElytronSubsystemMessages.ROOT_LOGGER;
+
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedKeyManager;
+
+/**
+ * An {@link X509ExtendedKeyManager} which re-initialises the {@link KeyManagerFactory} each time a new version of the
+ * {@link KeyStoreSnapshot} backing the {@link KeyStore} is published, the key managers created by the JDK copy the keys when
+ * initialised so would otherwise never see a reload or modification of the {@link KeyStore}.
+ *
+ * A handshake chooses an alias and then requests the key and certificate chain for it in separate calls, a new version may be
+ * published in between. The aliases chosen are therefore tagged with the version of the delegate that chose them and the
+ * previous delegate is retained so the key and chain are always obtained from the same delegate as the alias.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+class ReloadingKeyManager extends X509ExtendedKeyManager {
+
+    private static final char VERSION_START = '[';
+    private static final char VERSION_END = ']';
+
+    private final KeyStore keyStore;
+    private final KeyManagerFactory keyManagerFactory;
+    private final char[] password;
+
+    private volatile Delegate delegate;
+    private volatile long failedVersion = -1;
+
+    /**
+     * Construct a new {@link ReloadingKeyManager}.
+     *
+     * @param keyStore the {@link KeyStore} containing the keys, if backed by a {@link KeyStoreSnapshot} the delegate is
+     *        re-initialised each time a new version is published.
+     * @param keyManagerFactory the uninitialised {@link KeyManagerFactory} to create the delegate.
+     * @param password the password to recover the keys from the {@link KeyStore}.
+     * @throws GeneralSecurityException if the delegate can not be created.
+     */
+    ReloadingKeyManager(final KeyStore keyStore, final KeyManagerFactory keyManagerFactory, final char[] password) throws GeneralSecurityException {
+        this.keyStore = keyStore;
+        this.keyManagerFactory = keyManagerFactory;
+        this.password = password;
+        KeyStoreSnapshot snapshot = KeyStoreSnapshot.current(keyStore);
+        delegate = createDelegate(snapshot != null ? snapshot.getVersion() : 0, snapshot != null ? snapshot.getKeyStore() : keyStore);
+    }
+
+    private Delegate createDelegate(final long version, final KeyStore keyStore) throws GeneralSecurityException {
+        synchronized (keyManagerFactory) {
+            keyManagerFactory.init(keyStore, password);
+            for (KeyManager current : keyManagerFactory.getKeyManagers()) {
+                if (current instanceof X509ExtendedKeyManager) {
+                    return new Delegate(version, (X509ExtendedKeyManager) current, null);
+                }
+            }
+        }
+
+        throw new NoSuchAlgorithmException(keyManagerFactory.getAlgorithm());
+    }
+
+    /**
+     * Get the delegate for the current version of the {@link KeyStore}, if a new version has been published since the delegate
+     * was created a new delegate is created - if that fails the previous delegate remains in use.
+     */
+    private Delegate delegate() {
+        Delegate delegate = this.delegate;
+        KeyStoreSnapshot snapshot = KeyStoreSnapshot.current(keyStore);
+        if (snapshot == null || snapshot.getVersion() == delegate.version || snapshot.getVersion() == failedVersion) {
+            return delegate;
+        }
+
+        synchronized (this) {
+            delegate = this.delegate;
+            if (snapshot.getVersion() != delegate.version && snapshot.getVersion() != failedVersion) {
+                try {
+                    Delegate created = createDelegate(snapshot.getVersion(), snapshot.getKeyStore());
+                    // Only a single previous delegate is retained, a handshake spanning two reloads uses the current delegate.
+                    delegate = new Delegate(created.version, created.keyManager, delegate.withoutPrevious());
+                    this.delegate = delegate;
+                } catch (GeneralSecurityException e) {
+                    failedVersion = snapshot.getVersion();
+                    ROOT_LOGGER.unableToReloadKeyManager(e);
+                }
+            }
+        }
+
+        return delegate;
+    }
+
+    /**
+     * Get the delegate which chose a tagged alias, an alias which is not tagged or was chosen by a delegate no longer retained is
+     * resolved by the current delegate.
+     */
+    private Delegate delegate(final String alias) {
+        Delegate delegate = delegate();
+        long version = version(alias);
+        if (version < 0 || version == delegate.version) {
+            return delegate;
+        }
+
+        Delegate previous = delegate.previous;
+        return previous != null && previous.version == version ? previous : delegate;
+    }
+
+    /**
+     * Tag an alias with the version of the delegate that chose it.
+     *
+     * @param version the version of the delegate.
+     * @param alias the alias chosen by the delegate, may be {@code null}.
+     * @return the tagged alias or {@code null} if no alias was chosen.
+     */
+    static String tag(final long version, final String alias) {
+        return alias != null ? VERSION_START + Long.toString(version) + VERSION_END + alias : null;
+    }
+
+    /**
+     * Get the version an alias was tagged with.
+     *
+     * @param alias the possibly tagged alias.
+     * @return the version the alias was tagged with or {@code -1} if the alias is not tagged.
+     */
+    static long version(final String alias) {
+        if (alias == null || alias.isEmpty() || alias.charAt(0) != VERSION_START) {
+            return -1;
+        }
+        int end = alias.indexOf(VERSION_END);
+        if (end < 2) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(alias.substring(1, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Remove the version tag from an alias.
+     *
+     * @param alias the possibly tagged alias.
+     * @return the alias without the tag.
+     */
+    static String untag(final String alias) {
+        return version(alias) < 0 ? alias : alias.substring(alias.indexOf(VERSION_END) + 1);
+    }
+
+    @Override
+    public String[] getClientAliases(String keyType, Principal[] issuers) {
+        return delegate().keyManager.getClientAliases(keyType, issuers);
+    }
+
+    @Override
+    public String chooseClientAlias(String[] keyType, Principal[] issuers, Socket socket) {
+        Delegate delegate = delegate();
+        return tag(delegate.version, delegate.keyManager.chooseClientAlias(keyType, issuers, socket));
+    }
+
+    @Override
+    public String chooseEngineClientAlias(String[] keyType, Principal[] issuers, SSLEngine engine) {
+        Delegate delegate = delegate();
+        return tag(delegate.version, delegate.keyManager.chooseEngineClientAlias(keyType, issuers, engine));
+    }
+
+    @Override
+    public String[] getServerAliases(String keyType, Principal[] issuers) {
+        return delegate().keyManager.getServerAliases(keyType, issuers);
+    }
+
+    @Override
+    public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket) {
+        Delegate delegate = delegate();
+        return tag(delegate.version, delegate.keyManager.chooseServerAlias(keyType, issuers, socket));
+    }
+
+    @Override
+    public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
+        Delegate delegate = delegate();
+        return tag(delegate.version, delegate.keyManager.chooseEngineServerAlias(keyType, issuers, engine));
+    }
+
+    @Override
+    public X509Certificate[] getCertificateChain(String alias) {
+        return delegate(alias).keyManager.getCertificateChain(untag(alias));
+    }
+
+    @Override
+    public PrivateKey getPrivateKey(String alias) {
+        return delegate(alias).keyManager.getPrivateKey(untag(alias));
+    }
+
+    private static final class Delegate {
+
+        private final long version;
+        private final X509ExtendedKeyManager keyManager;
+        private final Delegate previous;
+
+        Delegate(final long version, final X509ExtendedKeyManager keyManager, final Delegate previous) {
+            this.version = version;
+            this.keyManager = keyManager;
+            this.previous = previous;
+        }
+
+        Delegate withoutPrevious() {
+            return previous == null ? this : new Delegate(version, keyManager, null);
+        }
+    }
+
+}
@@ -0,0 +1,400 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.wildfly.extension.elytron._private.ElytronSubsystemMessages.ROOT_LOGGER;
+
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateParsingException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
+import javax.net.ssl.ExtendedSSLSession;
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SNIServerName;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.StandardConstants;
+import javax.net.ssl.X509ExtendedKeyManager;
+import javax.security.auth.x500.X500Principal;
+
+/**
+ * An {@link X509ExtendedKeyManager} which selects the server certificate using the host name requested by the client using the
+ * server name indication (SNI) extension.
+ *
+ * The host names of each private key entry are taken from the DNS subject alternative names of its certificate, or the common
+ * name of the subject where it has none, and indexed in hash maps so selection takes constant time however many entries the
+ * {@link KeyStore} contains. A wildcard name matches exactly one leftmost label so it is indexed by the remainder of the name
+ * and found by removing the first label of the requested name. Only certificates valid at the time of the handshake are
+ * selected, where several entries share a host name the certificate expiring last is preferred, exact names are preferred over
+ * wildcards and where nothing matches the delegate selects the alias.
+ *
+ * The index is held against the version of the {@link KeyStoreSnapshot} it was built from and replaced as a whole when a new
+ * version is published, a handshake always uses a single complete index. As with the {@link ReloadingKeyManager} used as the
+ * delegate the aliases selected are tagged with the version of the index and the previous index is retained, so the key and
+ * certificate chain of a selected alias come from the same index even if a new version is published during the handshake.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+class SNIKeyManager extends X509ExtendedKeyManager {
+
+    private static final int DNS_NAME = 2;
+    private static final String COMMON_NAME = "CN";
+    private static final String WILDCARD_PREFIX = "*.";
+
+    private final KeyStore keyStore;
+    private final char[] password;
+    private final ReloadingKeyManager delegate;
+
+    private volatile HostNameIndex index;
+    private volatile long failedVersion = -1;
+
+    /**
+     * Construct a new {@link SNIKeyManager}.
+     *
+     * @param keyStore the {@link KeyStore} containing the server keys, if backed by a {@link KeyStoreSnapshot} the index is
+     *        rebuilt each time a new version is published.
+     * @param password the password to recover the keys from the {@link KeyStore}.
+     * @param delegate the key manager for the same {@link KeyStore} to use where no entry matches the requested host name.
+     * @throws GeneralSecurityException if the {@link KeyStore} can not be indexed.
+     */
+    SNIKeyManager(final KeyStore keyStore, final char[] password, final ReloadingKeyManager delegate) throws GeneralSecurityException {
+        this.keyStore = keyStore;
+        this.password = password;
+        this.delegate = delegate;
+        KeyStoreSnapshot snapshot = KeyStoreSnapshot.current(keyStore);
+        index = HostNameIndex.create(snapshot != null ? snapshot.getVersion() : 0, snapshot != null ? snapshot.getKeyStore() : keyStore, password);
+    }
+
+    /**
+     * Get the index for the current version of the {@link KeyStore}, if a new version has been published since the index was
+     * built a new index is built and published in its place.
+     */
+    private HostNameIndex index() {
+        HostNameIndex index = this.index;
+        KeyStoreSnapshot snapshot = KeyStoreSnapshot.current(keyStore);
+        if (snapshot == null || snapshot.getVersion() == index.version || snapshot.getVersion() == failedVersion) {
+            return index;
+        }
+
+        synchronized (this) {
+            index = this.index;
+            if (snapshot.getVersion() != index.version && snapshot.getVersion() != failedVersion) {
+                try {
+                    index = HostNameIndex.create(snapshot.getVersion(), snapshot.getKeyStore(), password).withPrevious(index);
+                    this.index = index;
+                } catch (GeneralSecurityException e) {
+                    failedVersion = snapshot.getVersion();
+                    ROOT_LOGGER.unableToIndexHostNames(e);
+                }
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Get the index an alias was selected from, an alias which is not tagged or was selected from an index no longer retained is
+     * resolved using the current index.
+     */
+    private HostNameIndex index(final String alias) {
+        HostNameIndex index = index();
+        long version = ReloadingKeyManager.version(alias);
+        if (version < 0 || version == index.version) {
+            return index;
+        }
+
+        HostNameIndex previous = index.previous;
+        return previous != null && previous.version == version ? previous : index;
+    }
+
+    @Override
+    public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
+        String alias = engine != null ? select(keyType, engine.getHandshakeSession()) : null;
+
+        return alias != null ? alias : delegate.chooseEngineServerAlias(keyType, issuers, engine);
+    }
+
+    @Override
+    public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket) {
+        String alias = socket instanceof SSLSocket ? select(keyType, ((SSLSocket) socket).getHandshakeSession()) : null;
+
+        return alias != null ? alias : delegate.chooseServerAlias(keyType, issuers, socket);
+    }
+
+    private String select(final String keyType, final SSLSession handshakeSession) {
+        if (keyType == null || handshakeSession instanceof ExtendedSSLSession == false) {
+            return null;
+        }
+
+        for (SNIServerName current : ((ExtendedSSLSession) handshakeSession).getRequestedServerNames()) {
+            if (current.getType() == StandardConstants.SNI_HOST_NAME) {
+                String hostName = current instanceof SNIHostName ? ((SNIHostName) current).getAsciiName() : new SNIHostName(current.getEncoded()).getAsciiName();
+                HostNameIndex index = index();
+                Entry entry = index.select(normalize(hostName), keyType, System.currentTimeMillis());
+
+                return entry != null ? ReloadingKeyManager.tag(index.version, entry.alias) : null;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public PrivateKey getPrivateKey(String alias) {
+        // An alias chosen by the delegate is not in the index and is resolved by the delegate.
+        Entry entry = index(alias).byAlias.get(ReloadingKeyManager.untag(alias));
+
+        return entry != null ? entry.privateKey : delegate.getPrivateKey(alias);
+    }
+
+    @Override
+    public X509Certificate[] getCertificateChain(String alias) {
+        Entry entry = index(alias).byAlias.get(ReloadingKeyManager.untag(alias));
+
+        return entry != null ? entry.certificateChain.clone() : delegate.getCertificateChain(alias);
+    }
+
+    @Override
+    public String[] getServerAliases(String keyType, Principal[] issuers) {
+        return delegate.getServerAliases(keyType, issuers);
+    }
+
+    @Override
+    public String[] getClientAliases(String keyType, Principal[] issuers) {
+        return delegate.getClientAliases(keyType, issuers);
+    }
+
+    @Override
+    public String chooseClientAlias(String[] keyType, Principal[] issuers, Socket socket) {
+        return delegate.chooseClientAlias(keyType, issuers, socket);
+    }
+
+    @Override
+    public String chooseEngineClientAlias(String[] keyType, Principal[] issuers, SSLEngine engine) {
+        return delegate.chooseEngineClientAlias(keyType, issuers, engine);
+    }
+
+    private static String normalize(final String hostName) {
+        String normalized = hostName.toLowerCase(Locale.ROOT);
+
+        return normalized.endsWith(".") ? normalized.substring(0, normalized.length() - 1) : normalized;
+    }
+
+    /**
+     * Get the host names a certificate is valid for, the DNS subject alternative names or where there are none the common name
+     * of the subject.
+     */
+    private static Set<String> hostNames(final X509Certificate certificate) {
+        Set<String> hostNames = new LinkedHashSet<>();
+        try {
+            Collection<List<?>> alternativeNames = certificate.getSubjectAlternativeNames();
+            if (alternativeNames != null) {
+                for (List<?> current : alternativeNames) {
+                    if (((Integer) current.get(0)).intValue() == DNS_NAME) {
+                        hostNames.add(normalize((String) current.get(1)));
+                    }
+                }
+            }
+        } catch (CertificateParsingException e) {
+            return Collections.emptySet();
+        }
+
+        if (hostNames.isEmpty()) {
+            try {
+                for (Rdn current : new LdapName(certificate.getSubjectX500Principal().getName(X500Principal.RFC2253)).getRdns()) {
+                    if (COMMON_NAME.equalsIgnoreCase(current.getType())) {
+                        hostNames.add(normalize(current.getValue().toString()));
+                    }
+                }
+            } catch (InvalidNameException e) {
+                return Collections.emptySet();
+            }
+        }
+
+        return hostNames;
+    }
+
+    private static final class HostNameIndex {
+
+        private static final Comparator<Entry> PREFERENCE = Comparator.comparing((Entry e) -> e.certificateChain[0].getNotAfter()).reversed();
+
+        private final long version;
+        private final Map<String, Entry> byAlias;
+        private final Map<String, Entry[]> exact;
+        private final Map<String, Entry[]> wildcard;
+        private final HostNameIndex previous;
+
+        private HostNameIndex(final long version, final Map<String, Entry> byAlias, final Map<String, Entry[]> exact, final Map<String, Entry[]> wildcard,
+                final HostNameIndex previous) {
+            this.version = version;
+            this.byAlias = byAlias;
+            this.exact = exact;
+            this.wildcard = wildcard;
+            this.previous = previous;
+        }
+
+        /**
+         * Create a copy of this index retaining the supplied index as the previous index, only a single previous index is
+         * retained.
+         */
+        HostNameIndex withPrevious(final HostNameIndex previous) {
+            HostNameIndex retained = previous.previous == null ? previous : new HostNameIndex(previous.version, previous.byAlias, previous.exact, previous.wildcard, null);
+            return new HostNameIndex(version, byAlias, exact, wildcard, retained);
+        }
+
+        static HostNameIndex create(final long version, final KeyStore keyStore, final char[] password) throws GeneralSecurityException {
+            Map<String, Entry> byAlias = new HashMap<>();
+            Map<String, List<Entry>> exact = new HashMap<>();
+            Map<String, List<Entry>> wildcard = new HashMap<>();
+
+            Enumeration<String> aliases = keyStore.aliases();
+            while (aliases.hasMoreElements()) {
+                String alias = aliases.nextElement();
+                if (keyStore.isKeyEntry(alias) == false) {
+                    continue;
+                }
+
+                Certificate[] chain = keyStore.getCertificateChain(alias);
+                if (chain == null || chain.length == 0) {
+                    continue;
+                }
+                X509Certificate[] certificateChain = new X509Certificate[chain.length];
+                for (int i = 0; i < chain.length; i++) {
+                    if (chain[i] instanceof X509Certificate == false) {
+                        certificateChain = null;
+                        break;
+                    }
+                    certificateChain[i] = (X509Certificate) chain[i];
+                }
+                if (certificateChain == null) {
+                    continue;
+                }
+
+                final Key key;
+                try {
+                    key = keyStore.getKey(alias, password);
+                } catch (UnrecoverableKeyException e) {
+                    // Protected by a different password so not available to the delegate either.
+                    continue;
+                }
+                if (key instanceof PrivateKey == false) {
+                    continue;
+                }
+
+                Entry entry = new Entry(alias, (PrivateKey) key, certificateChain);
+                byAlias.put(alias, entry);
+                for (String hostName : hostNames(certificateChain[0])) {
+                    if (hostName.startsWith(WILDCARD_PREFIX)) {
+                        String suffix = hostName.substring(WILDCARD_PREFIX.length());
+                        if (suffix.indexOf('*') < 0) {
+                            wildcard.computeIfAbsent(suffix, s -> new ArrayList<>()).add(entry);
+                        }
+                    } else if (hostName.indexOf('*') < 0) {
+                        exact.computeIfAbsent(hostName, s -> new ArrayList<>()).add(entry);
+                    }
+                }
+            }
+
+            return new HostNameIndex(version, byAlias, toArrays(exact), toArrays(wildcard), null);
+        }
+
+        private static Map<String, Entry[]> toArrays(final Map<String, List<Entry>> entries) {
+            Map<String, Entry[]> result = new HashMap<>(entries.size() * 4 / 3 + 1);
+            for (Map.Entry<String, List<Entry>> current : entries.entrySet()) {
+                List<Entry> value = current.getValue();
+                value.sort(PREFERENCE);
+                result.put(current.getKey(), value.toArray(new Entry[value.size()]));
+            }
+
+            return result;
+        }
+
+        Entry select(final String hostName, final String keyType, final long now) {
+            Entry entry = select(exact.get(hostName), keyType, now);
+            if (entry == null) {
+                int firstDot = hostName.indexOf('.');
+                if (firstDot > 0) {
+                    entry = select(wildcard.get(hostName.substring(firstDot + 1)), keyType, now);
+                }
+            }
+
+            return entry;
+        }
+
+        private static Entry select(final Entry[] candidates, final String keyType, final long now) {
+            if (candidates != null) {
+                // Key types such as EC_EC name the key algorithm followed by the algorithm of the signature.
+                int separator = keyType.indexOf('_');
+                String keyAlgorithm = separator > 0 ? keyType.substring(0, separator) : keyType;
+                for (Entry current : candidates) {
+                    if (keyAlgorithm.equals(current.privateKey.getAlgorithm()) && current.isValid(now)) {
+                        return current;
+                    }
+                }
+            }
+
+            return null;
+        }
+    }
+
+    private static final class Entry {
+
+        private final String alias;
+        private final PrivateKey privateKey;
+        private final X509Certificate[] certificateChain;
+
+        Entry(final String alias, final PrivateKey privateKey, final X509Certificate[] certificateChain) {
+            this.alias = alias;
+            this.privateKey = privateKey;
+            this.certificateChain = certificateChain;
+        }
+
+        /**
+         * Check if the certificate of this entry is valid at the specified time, a certificate not yet valid or already
+         * expired would be rejected by the client.
+         */
+        boolean isValid(final long time) {
+            X509Certificate certificate = certificateChain[0];
+            return certificate.getNotBefore().getTime() <= time && time <= certificate.getNotAfter().getTime();
+        }
+    }
+
+}
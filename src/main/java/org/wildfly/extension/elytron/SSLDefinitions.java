@@ -0,0 +1,645 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.jboss.as.controller.capability.RuntimeCapability.buildDynamicCapabilityName;
+import static org.wildfly.extension.elytron.Capabilities.KEYSTORE_CAPABILITY;
+import static org.wildfly.extension.elytron.Capabilities.KEY_MANAGERS_CAPABILITY;
+import static org.wildfly.extension.elytron.Capabilities.KEY_MANAGERS_RUNTIME_CAPABILITY;
+import static org.wildfly.extension.elytron.Capabilities.PROVIDERS_CAPABILITY;
+import static org.wildfly.extension.elytron.Capabilities.SSL_CONTEXT_CAPABILITY;
+import static org.wildfly.extension.elytron.Capabilities.SSL_CONTEXT_RUNTIME_CAPABILITY;
+import static org.wildfly.extension.elytron.Capabilities.TRUST_MANAGERS_CAPABILITY;
+import static org.wildfly.extension.elytron.Capabilities.TRUST_MANAGERS_RUNTIME_CAPABILITY;
+import static org.wildfly.extension.elytron.ElytronExtension.asStringIfDefined;
+import static org.wildfly.extension.elytron.ElytronExtension.getRequiredService;
+import static org.wildfly.extension.elytron.FileAttributeDefinitions.pathName;
+import static org.wildfly.extension.elytron.KeyStoreDefinition.KEY_STORE_UTIL;
+import static org.wildfly.extension.elytron.ProviderUtil.identifyProvider;
+import static org.wildfly.extension.elytron._private.ElytronSubsystemMessages.ROOT_LOGGER;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.Provider;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.jboss.as.controller.AbstractAddStepHandler;
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
+import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.ResourceDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.StringListAttributeDefinition;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
+import org.jboss.as.controller.operations.validation.IntRangeValidator;
+import org.jboss.as.controller.operations.validation.LongRangeValidator;
+import org.jboss.as.controller.registry.AttributeAccess;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.as.controller.services.path.PathManager;
+import org.jboss.as.controller.services.path.PathManagerService;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.msc.service.ServiceBuilder;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceController.State;
+import org.jboss.msc.service.StartException;
+import org.jboss.msc.value.InjectedValue;
+import org.wildfly.extension.elytron.TrivialService.ValueSupplier;
+import org.wildfly.security.ssl.SSLConfigurator;
+import org.wildfly.security.ssl.SSLUtils;
+
+/**
+ * Definitions for resources used to configure SSL.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+class SSLDefinitions {
+
+    private static final String PROTOCOL = "TLS";
+
+    static final ServiceUtil<SSLContext> SERVER_SSL_CONTEXT_UTIL = ServiceUtil.newInstance(SSL_CONTEXT_RUNTIME_CAPABILITY, ElytronDescriptionConstants.SERVER_SSL_CONTEXT, SSLContext.class);
+
+    static final SimpleAttributeDefinition ALGORITHM = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.ALGORITHM, ModelType.STRING, true)
+        .setAllowExpression(true)
+        .setMinSize(1)
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition PROVIDER = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.PROVIDER, ModelType.STRING, true)
+        .setAllowExpression(true)
+        .setMinSize(1)
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition KEY_MANAGERS_PROVIDER_LOADER = providerLoader(KEY_MANAGERS_CAPABILITY);
+
+    static final SimpleAttributeDefinition TRUST_MANAGERS_PROVIDER_LOADER = providerLoader(TRUST_MANAGERS_CAPABILITY);
+
+    static final SimpleAttributeDefinition KEY_MANAGERS_KEYSTORE = keyStore(KEY_MANAGERS_CAPABILITY);
+
+    static final SimpleAttributeDefinition TRUST_MANAGERS_KEYSTORE = keyStore(TRUST_MANAGERS_CAPABILITY);
+
+    static final SimpleAttributeDefinition PASSWORD = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.PASSWORD, ModelType.STRING, false)
+        .setAllowExpression(true)
+        .setMinSize(1)
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition SNI_SELECTION = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.SNI_SELECTION, ModelType.BOOLEAN, true)
+        .setAllowExpression(true)
+        .setDefaultValue(new ModelNode(false))
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition VALIDATION_CACHE_SIZE = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.VALIDATION_CACHE_SIZE, ModelType.INT, true)
+        .setAllowExpression(true)
+        .setDefaultValue(new ModelNode(1000))
+        .setValidator(new IntRangeValidator(0, true, true))
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition VALIDATION_CACHE_TIMEOUT = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.VALIDATION_CACHE_TIMEOUT, ModelType.LONG, true)
+        .setAllowExpression(true)
+        .setDefaultValue(new ModelNode(300L))
+        .setMeasurementUnit(MeasurementUnit.SECONDS)
+        .setValidator(new LongRangeValidator(1, true))
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition CRL_PATH = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.CRL_PATH, ModelType.STRING, true)
+        .setAllowExpression(true)
+        .setMinSize(1)
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition CRL_RELATIVE_TO = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.CRL_RELATIVE_TO, ModelType.STRING, true)
+        .setAllowExpression(true)
+        .setMinSize(1)
+        .setRequires(ElytronDescriptionConstants.CRL_PATH)
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition CRL_REFRESH_INTERVAL = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.CRL_REFRESH_INTERVAL, ModelType.LONG, true)
+        .setAllowExpression(true)
+        .setDefaultValue(new ModelNode(60L))
+        .setMeasurementUnit(MeasurementUnit.SECONDS)
+        .setValidator(new LongRangeValidator(1, true))
+        .setRequires(ElytronDescriptionConstants.CRL_PATH)
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition OCSP = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.OCSP, ModelType.BOOLEAN, true)
+        .setAllowExpression(true)
+        .setDefaultValue(new ModelNode(false))
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition OCSP_RESPONDER = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.OCSP_RESPONDER, ModelType.STRING, true)
+        .setAllowExpression(true)
+        .setMinSize(1)
+        .setRequires(ElytronDescriptionConstants.OCSP)
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition OCSP_CACHE_SIZE = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.OCSP_CACHE_SIZE, ModelType.INT, true)
+        .setAllowExpression(true)
+        .setDefaultValue(new ModelNode(1000))
+        .setValidator(new IntRangeValidator(1, true, true))
+        .setRequires(ElytronDescriptionConstants.OCSP)
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition OCSP_SOFT_FAIL = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.OCSP_SOFT_FAIL, ModelType.BOOLEAN, true)
+        .setAllowExpression(true)
+        .setDefaultValue(new ModelNode(true))
+        .setRequires(ElytronDescriptionConstants.OCSP)
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition SSL_CONTEXT_PROVIDER_LOADER = providerLoader(SSL_CONTEXT_CAPABILITY);
+
+    static final SimpleAttributeDefinition KEY_MANAGERS = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.KEY_MANAGERS, ModelType.STRING, false)
+        .setAllowExpression(true)
+        .setMinSize(1)
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .setCapabilityReference(KEY_MANAGERS_CAPABILITY, SSL_CONTEXT_CAPABILITY, true)
+        .build();
+
+    static final SimpleAttributeDefinition TRUST_MANAGERS = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.TRUST_MANAGERS, ModelType.STRING, true)
+        .setAllowExpression(true)
+        .setMinSize(1)
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .setCapabilityReference(TRUST_MANAGERS_CAPABILITY, SSL_CONTEXT_CAPABILITY, true)
+        .build();
+
+    static final StringListAttributeDefinition PROTOCOLS = new StringListAttributeDefinition.Builder(ElytronDescriptionConstants.PROTOCOLS)
+        .setAllowExpression(true)
+        .setAllowNull(true)
+        .setMinSize(1)
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final StringListAttributeDefinition CIPHER_SUITES = new StringListAttributeDefinition.Builder(ElytronDescriptionConstants.CIPHER_SUITES)
+        .setAllowExpression(true)
+        .setAllowNull(true)
+        .setMinSize(1)
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition WANT_CLIENT_AUTH = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.WANT_CLIENT_AUTH, ModelType.BOOLEAN, true)
+        .setAllowExpression(true)
+        .setDefaultValue(new ModelNode(false))
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition NEED_CLIENT_AUTH = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.NEED_CLIENT_AUTH, ModelType.BOOLEAN, true)
+        .setAllowExpression(true)
+        .setDefaultValue(new ModelNode(false))
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition SESSION_CACHE_SIZE = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.SESSION_CACHE_SIZE, ModelType.INT, true)
+        .setAllowExpression(true)
+        .setValidator(new IntRangeValidator(0, true, true))
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition SESSION_TIMEOUT = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.SESSION_TIMEOUT, ModelType.INT, true)
+        .setAllowExpression(true)
+        .setMeasurementUnit(MeasurementUnit.SECONDS)
+        .setValidator(new IntRangeValidator(0, true, true))
+        .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+        .build();
+
+    static final SimpleAttributeDefinition HANDSHAKE_COUNT = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.HANDSHAKE_COUNT, ModelType.LONG)
+        .setStorageRuntime()
+        .build();
+
+    static final SimpleAttributeDefinition FULL_HANDSHAKE_COUNT = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.FULL_HANDSHAKE_COUNT, ModelType.LONG)
+        .setStorageRuntime()
+        .build();
+
+    static final SimpleAttributeDefinition RESUMED_HANDSHAKE_COUNT = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.RESUMED_HANDSHAKE_COUNT, ModelType.LONG)
+        .setStorageRuntime()
+        .build();
+
+    static final SimpleAttributeDefinition AVERAGE_HANDSHAKE_TIME = new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.AVERAGE_HANDSHAKE_TIME, ModelType.LONG)
+        .setMeasurementUnit(MeasurementUnit.MICROSECONDS)
+        .setStorageRuntime()
+        .build();
+
+    private static SimpleAttributeDefinition providerLoader(String dependentCapability) {
+        return new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.PROVIDER_LOADER, ModelType.STRING, true)
+            .setAllowExpression(true)
+            .setMinSize(1)
+            .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+            .setCapabilityReference(PROVIDERS_CAPABILITY, dependentCapability, true)
+            .build();
+    }
+
+    private static SimpleAttributeDefinition keyStore(String dependentCapability) {
+        return new SimpleAttributeDefinitionBuilder(ElytronDescriptionConstants.KEYSTORE, ModelType.STRING, false)
+            .setAllowExpression(true)
+            .setMinSize(1)
+            .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+            .setCapabilityReference(KEYSTORE_CAPABILITY, dependentCapability, true)
+            .build();
+    }
+
+    static ResourceDefinition getKeyManagerDefinition() {
+        AttributeDefinition[] attributes = new AttributeDefinition[] { ALGORITHM, PROVIDER, KEY_MANAGERS_PROVIDER_LOADER, KEY_MANAGERS_KEYSTORE, PASSWORD, SNI_SELECTION };
+        AbstractAddStepHandler add = new TrivialAddHandler<KeyManager[]>(KEY_MANAGERS_RUNTIME_CAPABILITY, KeyManager[].class, attributes) {
+
+            @Override
+            protected ValueSupplier<KeyManager[]> getValueSupplier(ServiceBuilder<KeyManager[]> serviceBuilder, OperationContext context, ModelNode model) throws OperationFailedException {
+                final String algorithm = algorithm(context, model, KeyManagerFactory.getDefaultAlgorithm());
+                final String provider = asStringIfDefined(context, PROVIDER, model);
+                final InjectedValue<ProviderIndex> providerIndex = providerIndex(serviceBuilder, context, model, KEY_MANAGERS_PROVIDER_LOADER);
+                final InjectedValue<KeyStore> keyStore = keyStore(serviceBuilder, context, model, KEY_MANAGERS_KEYSTORE);
+                final char[] password = PASSWORD.resolveModelAttribute(context, model).asString().toCharArray();
+                final boolean sniSelection = SNI_SELECTION.resolveModelAttribute(context, model).asBoolean();
+
+                return () -> {
+                    Provider resolvedProvider = resolveProvider(providerIndex, provider, KeyManagerFactory.class, algorithm);
+                    try {
+                        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(algorithm, resolvedProvider);
+                        // The KeyStore is a view of the current snapshot of the keystore resource, the key manager is
+                        // re-initialised as new snapshots are published.
+                        ReloadingKeyManager keyManager = new ReloadingKeyManager(keyStore.getValue(), keyManagerFactory, password);
+                        if (sniSelection) {
+                            return new KeyManager[] { new SNIKeyManager(keyStore.getValue(), password, keyManager) };
+                        }
+
+                        return new KeyManager[] { keyManager };
+                    } catch (GeneralSecurityException e) {
+                        throw ROOT_LOGGER.unableToStartService(e);
+                    }
+                };
+            }
+        };
+
+        return new TrivialResourceDefinition<KeyManager[]>(ElytronDescriptionConstants.KEY_MANAGERS, KEY_MANAGERS_RUNTIME_CAPABILITY, KeyManager[].class, add, attributes);
+    }
+
+    static ResourceDefinition getTrustManagerDefinition() {
+        AttributeDefinition[] attributes = new AttributeDefinition[] { ALGORITHM, PROVIDER, TRUST_MANAGERS_PROVIDER_LOADER, TRUST_MANAGERS_KEYSTORE, VALIDATION_CACHE_SIZE, VALIDATION_CACHE_TIMEOUT,
+                CRL_PATH, CRL_RELATIVE_TO, CRL_REFRESH_INTERVAL, OCSP, OCSP_RESPONDER, OCSP_CACHE_SIZE, OCSP_SOFT_FAIL };
+        AbstractAddStepHandler add = new TrivialAddHandler<TrustManager[]>(TRUST_MANAGERS_RUNTIME_CAPABILITY, TrustManager[].class, attributes) {
+
+            @Override
+            protected ValueSupplier<TrustManager[]> getValueSupplier(ServiceBuilder<TrustManager[]> serviceBuilder, OperationContext context, ModelNode model) throws OperationFailedException {
+                final String algorithm = algorithm(context, model, TrustManagerFactory.getDefaultAlgorithm());
+                final String provider = asStringIfDefined(context, PROVIDER, model);
+                final InjectedValue<ProviderIndex> providerIndex = providerIndex(serviceBuilder, context, model, TRUST_MANAGERS_PROVIDER_LOADER);
+                final InjectedValue<KeyStore> keyStore = keyStore(serviceBuilder, context, model, TRUST_MANAGERS_KEYSTORE);
+                final int cacheSize = VALIDATION_CACHE_SIZE.resolveModelAttribute(context, model).asInt();
+                final long cacheTimeout = VALIDATION_CACHE_TIMEOUT.resolveModelAttribute(context, model).asLong();
+
+                final String crlPath = asStringIfDefined(context, CRL_PATH, model);
+                final String crlRelativeTo = asStringIfDefined(context, CRL_RELATIVE_TO, model);
+                final long crlRefreshInterval = CRL_REFRESH_INTERVAL.resolveModelAttribute(context, model).asLong();
+                final InjectedValue<PathManager> pathManager = new InjectedValue<PathManager>();
+                if (crlRelativeTo != null) {
+                    serviceBuilder.addDependency(PathManagerService.SERVICE_NAME, PathManager.class, pathManager);
+                    serviceBuilder.addDependency(pathName(crlRelativeTo));
+                }
+
+                final boolean ocsp = OCSP.resolveModelAttribute(context, model).asBoolean();
+                final String ocspResponder = asStringIfDefined(context, OCSP_RESPONDER, model);
+                final int ocspCacheSize = OCSP_CACHE_SIZE.resolveModelAttribute(context, model).asInt();
+                final boolean ocspSoftFail = OCSP_SOFT_FAIL.resolveModelAttribute(context, model).asBoolean();
+                final String name = context.getCurrentAddressValue();
+
+                return new ValueSupplier<TrustManager[]>() {
+
+                    private CRLCache crlCache;
+                    private OCSPCache ocspCache;
+
+                    @Override
+                    public TrustManager[] get() throws StartException {
+                        Provider resolvedProvider = resolveProvider(providerIndex, provider, TrustManagerFactory.class, algorithm);
+                        try {
+                            TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(algorithm, resolvedProvider);
+                            if (crlPath != null) {
+                                File crlFile = new File(crlRelativeTo != null ? pathManager.getValue().resolveRelativePathEntry(crlPath, crlRelativeTo) : crlPath);
+                                crlCache = new CRLCache(crlFile, keyStore.getValue(), crlRefreshInterval);
+                                crlCache.start();
+                            }
+                            if (ocsp) {
+                                ocspCache = new OCSPCache(name, ocspResponder != null ? new URL(ocspResponder) : null, ocspCacheSize, ocspSoftFail);
+                                ocspCache.start();
+                            }
+
+                            return new TrustManager[] { new CachingTrustManager(keyStore.getValue(), trustManagerFactory, cacheSize, cacheTimeout, crlCache, ocspCache) };
+                        } catch (GeneralSecurityException | IOException e) {
+                            dispose();
+                            throw ROOT_LOGGER.unableToStartService(e);
+                        }
+                    }
+
+                    @Override
+                    public void dispose() {
+                        if (crlCache != null) {
+                            crlCache.stop();
+                            crlCache = null;
+                        }
+                        if (ocspCache != null) {
+                            ocspCache.stop();
+                            ocspCache = null;
+                        }
+                    }
+                };
+            }
+        };
+
+        return new TrivialResourceDefinition<TrustManager[]>(ElytronDescriptionConstants.TRUST_MANAGERS, TRUST_MANAGERS_RUNTIME_CAPABILITY, TrustManager[].class, add, attributes);
+    }
+
+    static ResourceDefinition getServerSSLContextDefinition() {
+        AttributeDefinition[] attributes = new AttributeDefinition[] { KEY_MANAGERS, TRUST_MANAGERS, SSL_CONTEXT_PROVIDER_LOADER, PROTOCOLS,
+                CIPHER_SUITES, WANT_CLIENT_AUTH, NEED_CLIENT_AUTH, SESSION_CACHE_SIZE, SESSION_TIMEOUT };
+        AbstractAddStepHandler add = new TrivialAddHandler<SSLContext>(SSL_CONTEXT_RUNTIME_CAPABILITY, SSLContext.class, attributes) {
+
+            @Override
+            protected ValueSupplier<SSLContext> getValueSupplier(ServiceBuilder<SSLContext> serviceBuilder, OperationContext context, ModelNode model) throws OperationFailedException {
+                final InjectedValue<ProviderIndex> providerIndex = providerIndex(serviceBuilder, context, model, SSL_CONTEXT_PROVIDER_LOADER);
+                final InjectedValue<KeyManager[]> keyManagers = new InjectedValue<KeyManager[]>();
+                serviceBuilder.addDependency(context.getCapabilityServiceName(
+                        buildDynamicCapabilityName(KEY_MANAGERS_CAPABILITY, KEY_MANAGERS.resolveModelAttribute(context, model).asString()), KeyManager[].class),
+                        KeyManager[].class, keyManagers);
+
+                final InjectedValue<TrustManager[]> trustManagers = new InjectedValue<TrustManager[]>();
+                final String trustManagersName = asStringIfDefined(context, TRUST_MANAGERS, model);
+                if (trustManagersName != null) {
+                    serviceBuilder.addDependency(context.getCapabilityServiceName(
+                            buildDynamicCapabilityName(TRUST_MANAGERS_CAPABILITY, trustManagersName), TrustManager[].class),
+                            TrustManager[].class, trustManagers);
+                }
+
+                final String[] protocols = asStringArrayIfDefined(context, PROTOCOLS, model);
+                final String[] cipherSuites = asStringArrayIfDefined(context, CIPHER_SUITES, model);
+                final boolean wantClientAuth = WANT_CLIENT_AUTH.resolveModelAttribute(context, model).asBoolean();
+                final boolean needClientAuth = NEED_CLIENT_AUTH.resolveModelAttribute(context, model).asBoolean();
+                final ModelNode sessionCacheSize = SESSION_CACHE_SIZE.resolveModelAttribute(context, model);
+                final ModelNode sessionTimeout = SESSION_TIMEOUT.resolveModelAttribute(context, model);
+
+                return () -> {
+                    Provider resolvedProvider = resolveProvider(providerIndex, null, SSLContext.class, PROTOCOL);
+                    try {
+                        SSLContext sslContext = SSLContext.getInstance(PROTOCOL, resolvedProvider);
+                        sslContext.init(keyManagers.getValue(), trustManagersName != null ? trustManagers.getValue() : null, null);
+
+                        SSLSessionContext sessionContext = sslContext.getServerSessionContext();
+                        if (sessionCacheSize.isDefined()) {
+                            sessionContext.setSessionCacheSize(sessionCacheSize.asInt());
+                        }
+                        if (sessionTimeout.isDefined()) {
+                            sessionContext.setSessionTimeout(sessionTimeout.asInt());
+                        }
+
+                        SSLEngine engine = sslContext.createSSLEngine();
+                        if (protocols != null && select(protocols, engine.getSupportedProtocols()).length == 0) {
+                            throw ROOT_LOGGER.noSupportedValues(ElytronDescriptionConstants.PROTOCOLS);
+                        }
+                        if (cipherSuites != null && select(cipherSuites, engine.getSupportedCipherSuites()).length == 0) {
+                            throw ROOT_LOGGER.noSupportedValues(ElytronDescriptionConstants.CIPHER_SUITES);
+                        }
+
+                        SSLContext configured = SSLUtils.createConfiguredSslContext(sslContext,
+                                new ServerConfigurator(protocols, cipherSuites, wantClientAuth, needClientAuth));
+
+                        return MeteredSSLContext.wrap(configured);
+                    } catch (GeneralSecurityException e) {
+                        throw ROOT_LOGGER.unableToStartService(e);
+                    }
+                };
+            }
+        };
+
+        return new TrivialResourceDefinition<SSLContext>(ElytronDescriptionConstants.SERVER_SSL_CONTEXT, SSL_CONTEXT_RUNTIME_CAPABILITY, SSLContext.class, add, attributes) {
+
+            @Override
+            public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
+                super.registerAttributes(resourceRegistration);
+
+                resourceRegistration.registerReadOnlyAttribute(HANDSHAKE_COUNT, new SSLContextRuntimeHandler(MeteredSSLContext::getHandshakeCount));
+                resourceRegistration.registerReadOnlyAttribute(FULL_HANDSHAKE_COUNT, new SSLContextRuntimeHandler(MeteredSSLContext::getFullHandshakeCount));
+                resourceRegistration.registerReadOnlyAttribute(RESUMED_HANDSHAKE_COUNT, new SSLContextRuntimeHandler(MeteredSSLContext::getResumedHandshakeCount));
+                resourceRegistration.registerReadOnlyAttribute(AVERAGE_HANDSHAKE_TIME, new SSLContextRuntimeHandler(MeteredSSLContext::getAverageHandshakeTime));
+            }
+
+        };
+    }
+
+    private static String algorithm(OperationContext context, ModelNode model, String defaultAlgorithm) throws OperationFailedException {
+        String algorithm = asStringIfDefined(context, ALGORITHM, model);
+        return algorithm != null ? algorithm : defaultAlgorithm;
+    }
+
+    private static InjectedValue<ProviderIndex> providerIndex(ServiceBuilder<?> serviceBuilder, OperationContext context, ModelNode model, SimpleAttributeDefinition providerLoaderAttribute) throws OperationFailedException {
+        final InjectedValue<ProviderIndex> providerIndex = new InjectedValue<ProviderIndex>();
+        String providerLoader = asStringIfDefined(context, providerLoaderAttribute, model);
+        if (providerLoader != null) {
+            serviceBuilder.addDependency(ProviderIndex.serviceName(context.getCapabilityServiceName(
+                    buildDynamicCapabilityName(PROVIDERS_CAPABILITY, providerLoader), Provider[].class)),
+                    ProviderIndex.class, providerIndex);
+        }
+
+        return providerIndex;
+    }
+
+    private static InjectedValue<KeyStore> keyStore(ServiceBuilder<?> serviceBuilder, OperationContext context, ModelNode model, SimpleAttributeDefinition keyStoreAttribute) throws OperationFailedException {
+        final InjectedValue<KeyStore> keyStore = new InjectedValue<KeyStore>();
+        String keyStoreCapabilityName = buildDynamicCapabilityName(KEYSTORE_CAPABILITY, keyStoreAttribute.resolveModelAttribute(context, model).asString());
+        KEY_STORE_UTIL.addInjection(serviceBuilder, keyStore, context.getCapabilityServiceName(keyStoreCapabilityName, KeyStore.class));
+
+        return keyStore;
+    }
+
+    /**
+     * Select the configured values which are also supported, retaining the configured order.
+     */
+    private static String[] select(String[] configured, String[] supported) {
+        List<String> supportedList = Arrays.asList(supported);
+        List<String> selected = new ArrayList<String>(configured.length);
+        for (String current : configured) {
+            if (supportedList.contains(current)) {
+                selected.add(current);
+            }
+        }
+
+        return selected.toArray(new String[selected.size()]);
+    }
+
+    private static String[] asStringArrayIfDefined(OperationContext context, StringListAttributeDefinition attributeDefinition, ModelNode model) throws OperationFailedException {
+        ModelNode resolved = attributeDefinition.resolveModelAttribute(context, model);
+        if (resolved.isDefined()) {
+            List<ModelNode> values = resolved.asList();
+            String[] response = new String[values.size()];
+            for (int i = 0; i < response.length; i++) {
+                response[i] = values.get(i).asString();
+            }
+            return response;
+        }
+        return null;
+    }
+
+    private static Provider resolveProvider(InjectedValue<ProviderIndex> providerIndex, String provider, Class<?> type, String algorithm) throws StartException {
+        ProviderIndex index = providerIndex.getOptionalValue();
+        Provider resolved = index == null ? identifyProvider(Security.getProviders(), provider, type, algorithm) : index.getProvider(provider, type, algorithm);
+        if (resolved == null) {
+            throw ROOT_LOGGER.noSuitableProvider(algorithm);
+        }
+
+        return resolved;
+    }
+
+    private static class SSLContextRuntimeHandler extends AbstractRuntimeOnlyHandler {
+
+        private final ToLongFunction<MeteredSSLContext> metric;
+
+        SSLContextRuntimeHandler(final ToLongFunction<MeteredSSLContext> metric) {
+            this.metric = metric;
+        }
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            ServiceController<SSLContext> serviceController = getRequiredService(context.getServiceRegistry(false),
+                    SERVER_SSL_CONTEXT_UTIL.serviceName(operation), SSLContext.class);
+            if (serviceController.getState() != State.UP) {
+                return;
+            }
+
+            SSLContext sslContext = serviceController.getValue();
+            if (sslContext instanceof MeteredSSLContext) {
+                context.getResult().set(metric.applyAsLong((MeteredSSLContext) sslContext));
+            }
+        }
+
+    }
+
+    /**
+     * An {@link SSLConfigurator} applying the configured protocols, cipher suites and client authentication to each server side
+     * {@link SSLEngine}, {@link SSLSocket} and {@link SSLServerSocket} created from the {@link SSLContext}.
+     *
+     * Where protocols or cipher suites are configured only those also supported by the provider are enabled in the configured
+     * order, otherwise the defaults of the provider are used.
+     */
+    private static class ServerConfigurator implements SSLConfigurator {
+
+        private final String[] protocols;
+        private final String[] cipherSuites;
+        private final boolean wantClientAuth;
+        private final boolean needClientAuth;
+
+        ServerConfigurator(final String[] protocols, final String[] cipherSuites, final boolean wantClientAuth, final boolean needClientAuth) {
+            this.protocols = protocols;
+            this.cipherSuites = cipherSuites;
+            this.wantClientAuth = wantClientAuth;
+            this.needClientAuth = needClientAuth;
+        }
+
+        @Override
+        public void configure(SSLContext context, SSLServerSocket serverSocket) {
+            serverSocket.setUseClientMode(false);
+            if (cipherSuites != null) {
+                serverSocket.setEnabledCipherSuites(select(cipherSuites, serverSocket.getSupportedCipherSuites()));
+            }
+            if (protocols != null) {
+                serverSocket.setEnabledProtocols(select(protocols, serverSocket.getSupportedProtocols()));
+            }
+            if (needClientAuth) {
+                serverSocket.setNeedClientAuth(true);
+            } else if (wantClientAuth) {
+                serverSocket.setWantClientAuth(true);
+            }
+        }
+
+        @Override
+        public void configure(SSLContext context, SSLSocket socket) {
+            socket.setUseClientMode(false);
+            if (cipherSuites != null) {
+                socket.setEnabledCipherSuites(select(cipherSuites, socket.getSupportedCipherSuites()));
+            }
+            if (protocols != null) {
+                socket.setEnabledProtocols(select(protocols, socket.getSupportedProtocols()));
+            }
+            if (needClientAuth) {
+                socket.setNeedClientAuth(true);
+            } else if (wantClientAuth) {
+                socket.setWantClientAuth(true);
+            }
+        }
+
+        @Override
+        public void configure(SSLContext context, SSLEngine engine) {
+            engine.setUseClientMode(false);
+            if (cipherSuites != null) {
+                engine.setEnabledCipherSuites(select(cipherSuites, engine.getSupportedCipherSuites()));
+            }
+            if (protocols != null) {
+                engine.setEnabledProtocols(select(protocols, engine.getSupportedProtocols()));
+            }
+            if (needClientAuth) {
+                engine.setNeedClientAuth(true);
+            } else if (wantClientAuth) {
+                engine.setWantClientAuth(true);
+            }
+        }
+
+        @Override
+        public SSLParameters getDefaultSSLParameters(SSLContext context, SSLParameters original) {
+            SSLParameters supported = context.getSupportedSSLParameters();
+            if (cipherSuites != null) {
+                original.setCipherSuites(select(cipherSuites, supported.getCipherSuites()));
+            }
+            if (protocols != null) {
+                original.setProtocols(select(protocols, supported.getProtocols()));
+            }
+            if (needClientAuth) {
+                original.setNeedClientAuth(true);
+            } else if (wantClientAuth) {
+                original.setWantClientAuth(true);
+            }
+            return original;
+        }
+
+    }
+
+}
@@ -317,8 +317,9 @@ class SaslServerDefinitions {
 
                 String provider = asStringIfDefined(context, PROVIDER_LOADER, model);
 
-                final InjectedValue<Provider[]> providerInjector = new InjectedValue<Provider[]>();
-                final Supplier<Provider[]> providerSupplier = provider != null ? (providerInjector::getValue) : (Security::getProviders);
+                // Only the providers offering a SaslServerFactory are passed on to be searched as each mechanism is created.
+                final InjectedValue<ProviderIndex> providerIndexInjector = new InjectedValue<ProviderIndex>();
+                final Supplier<Provider[]> providerSupplier = provider != null ? (() -> providerIndexInjector.getValue().getProviders(SaslServerFactory.class)) : (Security::getProviders);
 
                 TrivialService<SaslServerFactory> saslServiceFactoryService = new TrivialService<SaslServerFactory>(() -> new SecurityProviderSaslServerFactory(providerSupplier));
 
@@ -327,8 +328,8 @@ class SaslServerDefinitions {
                 ServiceBuilder<SaslServerFactory> serviceBuilder = serviceTarget.addService(saslServerFactoryName, saslServiceFactoryService);
 
                 if (provider != null) {
-                    serviceBuilder.addDependency(context.getCapabilityServiceName(RuntimeCapability.buildDynamicCapabilityName(PROVIDERS_CAPABILITY, provider),
-                            Provider[].class), Provider[].class, providerInjector);
+                    serviceBuilder.addDependency(ProviderIndex.serviceName(context.getCapabilityServiceName(RuntimeCapability.buildDynamicCapabilityName(PROVIDERS_CAPABILITY, provider),
+                            Provider[].class)), ProviderIndex.class, providerIndexInjector);
                 }
 
                 return serviceBuilder;
@@ -0,0 +1,267 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link KeyStore} loaded from a file and shared read only between all of the {@link KeyStoreService} instances that load
+ * the same file with the same type, provider and password.
+ *
+ * Instances are held by the {@link SharedKeyStoreRegistry} and reference counted, the content is loaded by the first service
+ * to need it and the instance is discarded once the last service releases it. Where one service loads new content from the
+ * file, or reverts a load, the remaining services holding a reference are notified so that they switch to the same content.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+final class SharedKeyStore {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final Key key;
+    private final String type;
+    private final Provider provider;
+    private final char[] password;
+
+    /*
+     * The reload listeners of the services holding a reference.
+     */
+    private final Set<Runnable> references = new HashSet<>();
+
+    private volatile State state;
+
+    SharedKeyStore(final Key key, final String type, final Provider provider, final char[] password) {
+        this.key = key;
+        this.type = type;
+        this.provider = provider;
+        this.password = password != null ? password.clone() : null;
+    }
+
+    Key getKey() {
+        return key;
+    }
+
+    void addReference(final Runnable reloadListener) {
+        synchronized (references) {
+            references.add(reloadListener);
+        }
+    }
+
+    /**
+     * Remove a reference.
+     *
+     * @return {@code true} if this was the last reference.
+     */
+    boolean removeReference(final Runnable reloadListener) {
+        synchronized (references) {
+            return references.remove(reloadListener) && references.isEmpty();
+        }
+    }
+
+    /**
+     * Get the content most recently loaded.
+     *
+     * @return the content most recently loaded or {@code null} if no content has been loaded.
+     */
+    State getState() {
+        return state;
+    }
+
+    /**
+     * Obtain the {@link KeyStore} for the supplied file content.
+     *
+     * If the content matches the content most recently loaded the existing content is returned, otherwise the content is
+     * loaded and validated and the other holders of a reference are notified so that they can switch to it.
+     *
+     * @param lastModified the last modified time of the file the content was read from.
+     * @param digest the digest of the content.
+     * @param content the content of the file.
+     * @param caller the reload listener of the caller, the caller is not notified of its own load.
+     * @return the loaded content, the {@link KeyStore} must not be modified.
+     * @throws GeneralSecurityException if the content can not be loaded or is not valid.
+     * @throws IOException if the content can not be loaded.
+     */
+    State load(final long lastModified, final byte[] digest, final byte[] content, final Runnable caller) throws GeneralSecurityException, IOException {
+        final State state;
+        final boolean reloaded;
+        synchronized (this) {
+            if (this.state != null && Arrays.equals(this.state.digest, digest)) {
+                return this.state;
+            }
+
+            KeyStore keyStore = KeyStore.getInstance(type, provider);
+            try (InputStream is = new ByteArrayInputStream(content)) {
+                keyStore.load(is, password);
+            }
+            validate(keyStore);
+
+            reloaded = this.state != null;
+            state = new State(keyStore, digest, lastModified);
+            this.state = state;
+        }
+
+        if (reloaded) {
+            notifyReferences(caller);
+        }
+
+        return state;
+    }
+
+    /**
+     * Revert a load, if the content is still the content loaded the previous content is restored and the other holders of a
+     * reference are notified so that they switch back to it.
+     *
+     * @param loaded the content returned by the load being reverted.
+     * @param previous the content before the load.
+     * @param caller the reload listener of the caller.
+     */
+    void revert(final State loaded, final State previous, final Runnable caller) {
+        synchronized (this) {
+            if (previous == null || loaded == previous || state != loaded) {
+                // Nothing changed or the content has been replaced again since.
+                return;
+            }
+            state = previous;
+        }
+
+        notifyReferences(caller);
+    }
+
+    private void notifyReferences(final Runnable caller) {
+        final List<Runnable> listeners;
+        synchronized (references) {
+            listeners = new ArrayList<>(references);
+        }
+        for (Runnable current : listeners) {
+            if (current != caller) {
+                current.run();
+            }
+        }
+    }
+    /**
+     * Verify every entry of a newly loaded {@link KeyStore} can be read before it replaces the existing content.
+     */
+    private static void validate(KeyStore keyStore) throws KeyStoreException {
+        Enumeration<String> aliases = keyStore.aliases();
+        while (aliases.hasMoreElements()) {
+            String alias = aliases.nextElement();
+            if (keyStore.isCertificateEntry(alias) && keyStore.getCertificate(alias) == null) {
+                throw new KeyStoreException(alias);
+            }
+            if (keyStore.isKeyEntry(alias)) {
+                keyStore.getCertificateChain(alias);
+            }
+        }
+    }
+
+    private static byte[] digest(final char[] password) throws IOException {
+        if (password == null) {
+            return null;
+        }
+
+        ByteBuffer encoded = StandardCharsets.UTF_8.encode(CharBuffer.wrap(password));
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            messageDigest.update(encoded);
+            return messageDigest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        } finally {
+            Arrays.fill(encoded.array(), (byte) 0);
+        }
+    }
+
+    /**
+     * The content of the {@link KeyStore} as loaded from the file.
+     */
+    static final class State {
+
+        private final KeyStore keyStore;
+        private final byte[] digest;
+        private final long lastModified;
+
+        private State(final KeyStore keyStore, final byte[] digest, final long lastModified) {
+            this.keyStore = keyStore;
+            this.digest = digest;
+            this.lastModified = lastModified;
+        }
+
+        KeyStore getKeyStore() {
+            return keyStore;
+        }
+
+        byte[] getDigest() {
+            return digest;
+        }
+
+        long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    static final class Key {
+
+        private final String path;
+        private final String type;
+        private final String provider;
+        private final byte[] passwordDigest;
+        private final int hashCode;
+
+        Key(final String path, final String type, final String provider, final char[] password) throws IOException {
+            this.path = path;
+            this.type = type;
+            this.provider = provider;
+            this.passwordDigest = digest(password);
+            hashCode = ((path.hashCode() * 31 + type.hashCode()) * 31 + provider.hashCode()) * 31 + Arrays.hashCode(passwordDigest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && equals((Key) obj);
+        }
+
+        private boolean equals(Key other) {
+            return path.equals(other.path) && type.equals(other.type) && provider.equals(other.provider)
+                    && Arrays.equals(passwordDigest, other.passwordDigest);
+        }
+    }
+
+}
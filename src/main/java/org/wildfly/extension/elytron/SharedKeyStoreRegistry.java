@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.KeyStore;
+import java.security.Provider;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.msc.service.Service;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StartException;
+import org.jboss.msc.service.StopContext;
+
+/**
+ * A {@link Service} holding the {@link SharedKeyStore} instances of the subsystem.
+ *
+ * The registry lives for as long as the subsystem, each {@link KeyStoreService} backed by a file acquires a reference when it
+ * starts and releases it when it stops so a {@link SharedKeyStore} is discarded once the last service using it has stopped.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+class SharedKeyStoreRegistry implements Service<SharedKeyStoreRegistry> {
+
+    static final ServiceName SERVICE_NAME = ElytronExtension.BASE_SERVICE_NAME.append(ElytronDescriptionConstants.SHARED_KEYSTORE_REGISTRY);
+
+    private final Map<SharedKeyStore.Key, SharedKeyStore> sharedKeyStores = new HashMap<>();
+
+    @Override
+    public void start(StartContext context) throws StartException {
+    }
+
+    @Override
+    public void stop(StopContext context) {
+        synchronized (sharedKeyStores) {
+            sharedKeyStores.clear();
+        }
+    }
+
+    @Override
+    public SharedKeyStoreRegistry getValue() throws IllegalStateException, IllegalArgumentException {
+        return this;
+    }
+
+    /**
+     * Acquire a reference to the {@link SharedKeyStore} for the specified file, type, provider and password.
+     *
+     * @param file the file the {@link KeyStore} is loaded from.
+     * @param type the type of the {@link KeyStore}.
+     * @param provider the {@link Provider} of the {@link KeyStore}.
+     * @param password the password of the {@link KeyStore}.
+     * @param reloadListener called when the shared content changes because another holder of the reference has loaded new
+     *        content or reverted a load, this is also the reference to pass to {@link #release(SharedKeyStore, Runnable)}.
+     * @return the {@link SharedKeyStore}.
+     * @throws IOException if the file can not be resolved.
+     */
+    SharedKeyStore acquire(final File file, final String type, final Provider provider, final char[] password, final Runnable reloadListener) throws IOException {
+        final SharedKeyStore.Key key = new SharedKeyStore.Key(file.getCanonicalPath(), type, provider.getName(), password);
+        synchronized (sharedKeyStores) {
+            SharedKeyStore sharedKeyStore = sharedKeyStores.get(key);
+            if (sharedKeyStore == null) {
+                sharedKeyStore = new SharedKeyStore(key, type, provider, password);
+                sharedKeyStores.put(key, sharedKeyStore);
+            }
+            sharedKeyStore.addReference(reloadListener);
+
+            return sharedKeyStore;
+        }
+    }
+
+    /**
+     * Release a reference previously obtained from {@link #acquire(File, String, Provider, char[], Runnable)}.
+     *
+     * @param sharedKeyStore the {@link SharedKeyStore} the reference was acquired for.
+     * @param reloadListener the reload listener the reference was acquired with.
+     */
+    void release(final SharedKeyStore sharedKeyStore, final Runnable reloadListener) {
+        synchronized (sharedKeyStores) {
+            if (sharedKeyStore.removeReference(reloadListener)) {
+                sharedKeyStores.remove(sharedKeyStore.getKey(), sharedKeyStore);
+            }
+        }
+    }
+
+}
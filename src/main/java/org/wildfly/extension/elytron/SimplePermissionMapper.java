@@ -0,0 +1,192 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import java.security.AllPermission;
+import java.security.Permission;
+import java.security.PermissionCollection;
+import java.security.Permissions;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.wildfly.security.authz.PermissionMapper;
+
+/**
+ * A {@link PermissionMapper} granting the permissions of each mapping where the identity holds at least one of the roles of the
+ * mapping.
+ *
+ * The roles are indexed to the mappings referencing them so the mappings matched by a set of roles are found without
+ * scanning the mappings, the {@link PermissionCollection} for each distinct combination of matched mappings is built once,
+ * made read only and shared by every identity matching the same combination.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+class SimplePermissionMapper implements PermissionMapper {
+
+    /**
+     * The maximum number of combinations of mappings a {@link PermissionCollection} is cached for.
+     */
+    private static final int CACHE_SIZE = 1024;
+
+    private static final PermissionCollection EMPTY = new ImmutablePermissionCollection(Collections.<Permission>emptyList());
+
+    private final Map<String, BitSet> roleIndex = new HashMap<>();
+    private final List<List<Permission>> permissions = new ArrayList<>();
+    private final Map<BitSet, PermissionCollection> collections = new ConcurrentHashMap<>();
+
+    SimplePermissionMapper(final List<Mapping> mappings) {
+        for (int i = 0; i < mappings.size(); i++) {
+            Mapping current = mappings.get(i);
+            for (String role : current.roles) {
+                roleIndex.computeIfAbsent(role, r -> new BitSet()).set(i);
+            }
+            permissions.add(current.permissions);
+        }
+    }
+
+    @Override
+    public PermissionCollection mapPermissions(Principal principal, Set<String> roles) {
+        BitSet matched = null;
+        if (roles != null) {
+            for (String role : roles) {
+                BitSet mappings = roleIndex.get(role);
+                if (mappings != null) {
+                    if (matched == null) {
+                        matched = (BitSet) mappings.clone();
+                    } else {
+                        matched.or(mappings);
+                    }
+                }
+            }
+        }
+
+        if (matched == null) {
+            return EMPTY;
+        }
+
+        PermissionCollection permissionCollection = collections.get(matched);
+        if (permissionCollection == null) {
+            List<Permission> granted = new ArrayList<>();
+            for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+                granted.addAll(permissions.get(i));
+            }
+            permissionCollection = new ImmutablePermissionCollection(granted);
+
+            if (collections.size() >= CACHE_SIZE) {
+                evict();
+            }
+            PermissionCollection existing = collections.putIfAbsent(matched, permissionCollection);
+            if (existing != null) {
+                permissionCollection = existing;
+            }
+        }
+
+        return permissionCollection;
+    }
+
+    /**
+     * Discard arbitrary collections to make space.
+     */
+    private void evict() {
+        Iterator<BitSet> combinations = collections.keySet().iterator();
+        while (collections.size() >= CACHE_SIZE && combinations.hasNext()) {
+            combinations.next();
+            combinations.remove();
+        }
+    }
+
+    /**
+     * A mapping from a set of roles to the permissions granted to an identity holding any of them.
+     */
+    static final class Mapping {
+
+        private final Set<String> roles;
+        private final List<Permission> permissions;
+
+        Mapping(final Set<String> roles, final List<Permission> permissions) {
+            this.roles = roles;
+            this.permissions = permissions;
+        }
+
+    }
+
+    /**
+     * A read only {@link PermissionCollection} indexing the permissions by type so {@link #implies(Permission)} only consults
+     * the permissions of the same type, checks do not lock the collection.
+     */
+    private static final class ImmutablePermissionCollection extends PermissionCollection {
+
+        private static final long serialVersionUID = -3227326018785458215L;
+
+        private final List<Permission> permissions;
+        private final Map<Class<? extends Permission>, PermissionCollection> byType = new HashMap<>();
+        private final boolean allPermission;
+
+        ImmutablePermissionCollection(final Collection<Permission> permissions) {
+            this.permissions = Collections.unmodifiableList(new ArrayList<>(permissions));
+
+            boolean allPermission = false;
+            for (Permission current : this.permissions) {
+                allPermission = allPermission || current instanceof AllPermission;
+                byType.computeIfAbsent(current.getClass(), c -> {
+                    PermissionCollection typeCollection = current.newPermissionCollection();
+                    return typeCollection != null ? typeCollection : new Permissions();
+                }).add(current);
+            }
+            for (PermissionCollection current : byType.values()) {
+                current.setReadOnly();
+            }
+            this.allPermission = allPermission;
+
+            setReadOnly();
+        }
+
+        @Override
+        public void add(Permission permission) {
+            throw new SecurityException("attempt to add a Permission to a readonly PermissionCollection");
+        }
+
+        @Override
+        public boolean implies(Permission permission) {
+            if (allPermission) {
+                return true;
+            }
+
+            PermissionCollection typeCollection = byType.get(permission.getClass());
+            return typeCollection != null && typeCollection.implies(permission);
+        }
+
+        @Override
+        public Enumeration<Permission> elements() {
+            return Collections.enumeration(permissions);
+        }
+
+    }
+
+}
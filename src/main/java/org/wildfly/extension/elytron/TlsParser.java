@@ -28,8 +28,12 @@ import static org.jboss.as.controller.parsing.ParseUtils.requireNoAttributes;
 import static org.jboss.as.controller.parsing.ParseUtils.requireNoContent;
 import static org.jboss.as.controller.parsing.ParseUtils.unexpectedAttribute;
 import static org.jboss.as.controller.parsing.ParseUtils.unexpectedElement;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.EXPIRY_SCAN_INTERVAL;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.FILE;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.KEYSTORE;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.KEY_MANAGER;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.KEY_MANAGERS;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.LOAD_ON_DEMAND;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.NAME;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.PASSWORD;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.PATH;
@@ -37,7 +41,12 @@ import static org.wildfly.extension.elytron.ElytronDescriptionConstants.PROVIDER
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.PROVIDER_LOADER;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.RELATIVE_TO;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.REQUIRED;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.SERVER_SSL_CONTEXT;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.SERVER_SSL_CONTEXTS;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.TRUST_MANAGER;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.TRUST_MANAGERS;
 import static org.wildfly.extension.elytron.ElytronDescriptionConstants.TYPE;
+import static org.wildfly.extension.elytron.ElytronDescriptionConstants.WATCH;
 import static org.wildfly.extension.elytron.ElytronSubsystemParser.verifyNamespace;
 
 import java.util.Arrays;
@@ -47,6 +56,9 @@ import java.util.Set;
 
 import javax.xml.stream.XMLStreamException;
 
+import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.StringListAttributeDefinition;
 import org.jboss.dmr.ModelNode;
 import org.jboss.staxmapper.XMLExtendedStreamReader;
 import org.jboss.staxmapper.XMLExtendedStreamWriter;
@@ -58,6 +70,20 @@ import org.jboss.staxmapper.XMLExtendedStreamWriter;
  */
 class TlsParser {
 
+    private static final AttributeDefinition[] KEY_MANAGER_ATTRIBUTES = new AttributeDefinition[] { SSLDefinitions.ALGORITHM,
+            SSLDefinitions.PROVIDER, SSLDefinitions.KEY_MANAGERS_PROVIDER_LOADER, SSLDefinitions.KEY_MANAGERS_KEYSTORE,
+            SSLDefinitions.PASSWORD, SSLDefinitions.SNI_SELECTION };
+
+    private static final AttributeDefinition[] TRUST_MANAGER_ATTRIBUTES = new AttributeDefinition[] { SSLDefinitions.ALGORITHM,
+            SSLDefinitions.PROVIDER, SSLDefinitions.TRUST_MANAGERS_PROVIDER_LOADER, SSLDefinitions.TRUST_MANAGERS_KEYSTORE,
+            SSLDefinitions.VALIDATION_CACHE_SIZE, SSLDefinitions.VALIDATION_CACHE_TIMEOUT, SSLDefinitions.CRL_PATH,
+            SSLDefinitions.CRL_RELATIVE_TO, SSLDefinitions.CRL_REFRESH_INTERVAL, SSLDefinitions.OCSP, SSLDefinitions.OCSP_RESPONDER,
+            SSLDefinitions.OCSP_CACHE_SIZE, SSLDefinitions.OCSP_SOFT_FAIL };
+
+    private static final AttributeDefinition[] SERVER_SSL_CONTEXT_ATTRIBUTES = new AttributeDefinition[] { SSLDefinitions.KEY_MANAGERS,
+            SSLDefinitions.TRUST_MANAGERS, SSLDefinitions.SSL_CONTEXT_PROVIDER_LOADER, SSLDefinitions.PROTOCOLS, SSLDefinitions.CIPHER_SUITES,
+            SSLDefinitions.WANT_CLIENT_AUTH, SSLDefinitions.NEED_CLIENT_AUTH, SSLDefinitions.SESSION_CACHE_SIZE, SSLDefinitions.SESSION_TIMEOUT };
+
     /*
      * KeyStores
      */
@@ -105,6 +131,12 @@ class TlsParser {
                     case PASSWORD:
                         KeyStoreDefinition.PASSWORD.parseAndSetParameter(value, addKeyStore, reader);
                         break;
+                    case EXPIRY_SCAN_INTERVAL:
+                        KeyStoreDefinition.EXPIRY_SCAN_INTERVAL.parseAndSetParameter(value, addKeyStore, reader);
+                        break;
+                    case LOAD_ON_DEMAND:
+                        KeyStoreDefinition.LOAD_ON_DEMAND.parseAndSetParameter(value, addKeyStore, reader);
+                        break;
                     default:
                         throw unexpectedAttribute(reader, i);
                 }
@@ -150,6 +182,9 @@ class TlsParser {
                     case REQUIRED:
                         KeyStoreDefinition.REQUIRED.parseAndSetParameter(value, addOp, reader);
                         break;
+                    case WATCH:
+                        KeyStoreDefinition.WATCH.parseAndSetParameter(value, addOp, reader);
+                        break;
                     default:
                         throw unexpectedAttribute(reader, i);
                 }
@@ -169,13 +204,136 @@ class TlsParser {
         KeyStoreDefinition.PROVIDER.marshallAsAttribute(keyStore, writer);
         KeyStoreDefinition.PROVIDER_LOADER.marshallAsAttribute(keyStore, writer);
         KeyStoreDefinition.PASSWORD.marshallAsAttribute(keyStore, writer);
+        KeyStoreDefinition.EXPIRY_SCAN_INTERVAL.marshallAsAttribute(keyStore, writer);
+        KeyStoreDefinition.LOAD_ON_DEMAND.marshallAsAttribute(keyStore, writer);
 
         if (keyStore.hasDefined(PATH)) {
             writer.writeStartElement(FILE);
             FileAttributeDefinitions.RELATIVE_TO.marshallAsAttribute(keyStore, writer);
             FileAttributeDefinitions.PATH.marshallAsAttribute(keyStore, writer);
             KeyStoreDefinition.REQUIRED.marshallAsAttribute(keyStore, writer);
+            KeyStoreDefinition.WATCH.marshallAsAttribute(keyStore, writer);
+
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+    }
+
+    /*
+     * Key and Trust Managers and SSLContexts
+     */
+
+    void readKeyManagers(ModelNode parentAddress, XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
+        readResources(parentAddress, reader, operations, KEY_MANAGER, KEY_MANAGERS, KEY_MANAGER_ATTRIBUTES);
+    }
+
+    void readTrustManagers(ModelNode parentAddress, XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
+        readResources(parentAddress, reader, operations, TRUST_MANAGER, TRUST_MANAGERS, TRUST_MANAGER_ATTRIBUTES);
+    }
 
+    void readServerSSLContexts(ModelNode parentAddress, XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
+        readResources(parentAddress, reader, operations, SERVER_SSL_CONTEXT, SERVER_SSL_CONTEXT, SERVER_SSL_CONTEXT_ATTRIBUTES);
+    }
+
+    private void readResources(ModelNode parentAddress, XMLExtendedStreamReader reader, List<ModelNode> operations, String elementName,
+            String resourceType, AttributeDefinition[] attributes) throws XMLStreamException {
+        requireNoAttributes(reader);
+        while(reader.hasNext() && reader.nextTag() != END_ELEMENT) {
+            verifyNamespace(reader);
+            String localName = reader.getLocalName();
+            if (elementName.equals(localName)) {
+                readResource(parentAddress, reader, operations, resourceType, attributes);
+            } else {
+                throw unexpectedElement(reader);
+            }
+        }
+    }
+
+    private void readResource(ModelNode parentAddress, XMLExtendedStreamReader reader, List<ModelNode> list, String resourceType,
+            AttributeDefinition[] attributes) throws XMLStreamException {
+        ModelNode addResource = new ModelNode();
+        addResource.get(OP).set(ADD);
+        Set<String> requiredAttributes = new HashSet<String>();
+        requiredAttributes.add(NAME);
+        for (AttributeDefinition current : attributes) {
+            if (current.isAllowNull() == false) {
+                requiredAttributes.add(current.getXmlName());
+            }
+        }
+        String name = null;
+
+        final int count = reader.getAttributeCount();
+        for (int i = 0; i < count; i++) {
+            final String value = reader.getAttributeValue(i);
+            if (!isNoNamespaceAttribute(reader, i)) {
+                throw unexpectedAttribute(reader, i);
+            } else {
+                String attribute = reader.getAttributeLocalName(i);
+                requiredAttributes.remove(attribute);
+                if (NAME.equals(attribute)) {
+                    name = value;
+                } else {
+                    AttributeDefinition definition = findAttribute(attributes, attribute);
+                    if (definition instanceof SimpleAttributeDefinition) {
+                        ((SimpleAttributeDefinition) definition).parseAndSetParameter(value, addResource, reader);
+                    } else if (definition instanceof StringListAttributeDefinition) {
+                        for (String current : reader.getListAttributeValue(i)) {
+                            ((StringListAttributeDefinition) definition).parseAndAddParameterElement(current, addResource, reader);
+                        }
+                    } else {
+                        throw unexpectedAttribute(reader, i);
+                    }
+                }
+            }
+        }
+
+        if (requiredAttributes.isEmpty() == false) {
+            throw missingRequired(reader, requiredAttributes);
+        }
+
+        addResource.get(OP_ADDR).set(parentAddress).add(resourceType, name);
+        list.add(addResource);
+
+        requireNoContent(reader);
+    }
+
+    private static AttributeDefinition findAttribute(AttributeDefinition[] attributes, String xmlName) {
+        for (AttributeDefinition current : attributes) {
+            if (current.getXmlName().equals(xmlName)) {
+                return current;
+            }
+        }
+
+        return null;
+    }
+
+    void writeKeyManagers(ModelNode subsystem, XMLExtendedStreamWriter writer) throws XMLStreamException {
+        writeResources(subsystem, writer, KEY_MANAGERS, KEY_MANAGERS, KEY_MANAGER, KEY_MANAGER_ATTRIBUTES);
+    }
+
+    void writeTrustManagers(ModelNode subsystem, XMLExtendedStreamWriter writer) throws XMLStreamException {
+        writeResources(subsystem, writer, TRUST_MANAGERS, TRUST_MANAGERS, TRUST_MANAGER, TRUST_MANAGER_ATTRIBUTES);
+    }
+
+    void writeServerSSLContexts(ModelNode subsystem, XMLExtendedStreamWriter writer) throws XMLStreamException {
+        writeResources(subsystem, writer, SERVER_SSL_CONTEXT, SERVER_SSL_CONTEXTS, SERVER_SSL_CONTEXT, SERVER_SSL_CONTEXT_ATTRIBUTES);
+    }
+
+    private void writeResources(ModelNode subsystem, XMLExtendedStreamWriter writer, String resourceType, String containerName,
+            String elementName, AttributeDefinition[] attributes) throws XMLStreamException {
+        if (subsystem.hasDefined(resourceType) == false) {
+            return;
+        }
+
+        writer.writeStartElement(containerName);
+        ModelNode resources = subsystem.require(resourceType);
+        for (String name : resources.keys()) {
+            ModelNode resource = resources.require(name);
+            writer.writeStartElement(elementName);
+            writer.writeAttribute(NAME, name);
+            for (AttributeDefinition current : attributes) {
+                current.getAttributeMarshaller().marshallAsAttribute(current, resource, false, writer);
+            }
             writer.writeEndElement();
         }
         writer.writeEndElement();
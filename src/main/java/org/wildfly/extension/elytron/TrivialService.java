@@ -55,6 +55,7 @@ class TrivialService<T> implements Service<T> {
 
     @Override
     public void stop(StopContext context) {
+        valueSupplier.dispose();
         value = null;
     }
 
@@ -72,5 +73,11 @@ class TrivialService<T> implements Service<T> {
 
         T get() throws StartException;
 
+        /**
+         * Release any resources held by the value previously returned by {@link #get()}, called when the service stops.
+         */
+        default void dispose() {
+        }
+
     }
 }
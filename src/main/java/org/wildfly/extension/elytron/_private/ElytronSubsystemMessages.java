@@ -19,9 +19,12 @@
 package org.wildfly.extension.elytron._private;
 
 import static org.jboss.logging.Logger.Level.INFO;
+import static org.jboss.logging.Logger.Level.WARN;
 
 import java.security.KeyStore;
 import java.security.Provider;
+import java.security.cert.CertificateException;
+import java.util.Date;
 
 import org.jboss.as.controller.OperationFailedException;
 import org.jboss.logging.BasicLogger;
@@ -196,4 +199,234 @@ public interface ElytronSubsystemMessages extends BasicLogger {
 
     @Message(id = 17, value = "Security realm [%s] is not modifiable.")
     OperationFailedException realmNotModifiable(ServiceName serviceName);
+
+    /**
+     * Logged when a watched {@link KeyStore} file has changed and the new content has been loaded.
+     *
+     * @param path the path of the file that has been reloaded.
+     */
+    @LogMessage(level = INFO)
+    @Message(id = 18, value = "KeyStore file '%s' has changed and has been reloaded.")
+    void keyStoreReloaded(String path);
+
+    /**
+     * Logged when a watched {@link KeyStore} file has changed but the new content could not be loaded, the previously loaded
+     * content is retained.
+     *
+     * @param path the path of the file that could not be reloaded.
+     * @param cause the underlying cause of the failure.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 19, value = "Unable to reload KeyStore file '%s', the previously loaded content has been retained.")
+    void unableToReloadKeyStore(String path, @Cause Exception cause);
+
+    /**
+     * Logged when a watched {@link KeyStore} file has changed but the in-memory representation has modifications that have
+     * not been stored.
+     *
+     * @param path the path of the file that has changed.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 20, value = "KeyStore file '%s' has changed but the in-memory KeyStore has been modified since it was last loaded or stored, the file will not be reloaded automatically.")
+    void keyStoreModifiedNotReloaded(String path);
+
+    /**
+     * A {@link RuntimeException} where a {@link KeyStore} could not be stored to its file.
+     *
+     * @param path the path of the file being written.
+     * @param cause the underlying cause of the failure.
+     * @return The {@link RuntimeException} for the error.
+     */
+    @Message(id = 21, value = "Unable to store KeyStore to file '%s', the previous content of the file has been retained.")
+    RuntimeException unableToStoreKeyStore(String path, @Cause Exception cause);
+
+    /**
+     * Logged where a background store of a {@link KeyStore} has failed.
+     *
+     * @param cause the underlying cause of the failure.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 22, value = "Storing the KeyStore has failed.")
+    void keyStoreStoreFailed(@Cause Throwable cause);
+
+    /**
+     * An {@link OperationFailedException} where an entry could not be imported into a {@link KeyStore}.
+     *
+     * @param alias the alias of the entry being imported.
+     * @param cause the underlying cause of the failure.
+     * @return The {@link OperationFailedException} for the error.
+     */
+    @Message(id = 23, value = "Unable to import the entry for alias '%s'.")
+    OperationFailedException unableToImportEntry(String alias, @Cause Exception cause);
+
+    /**
+     * An {@link OperationFailedException} where an entry being imported has an invalid number of certificates, an entry with a
+     * private key requires at least one certificate and an entry without a private key requires exactly one.
+     *
+     * @param alias the alias of the entry being imported.
+     * @param count the number of certificates supplied.
+     * @return The {@link OperationFailedException} for the error.
+     */
+    @Message(id = 24, value = "The entry for alias '%s' contains %d certificates, an entry with a private key requires at least one certificate and an entry without a private key requires exactly one.")
+    OperationFailedException invalidCertificateCount(String alias, int count);
+
+    /**
+     * An {@link IllegalStateException} where a {@link java.security.KeyStore} configured to load on demand can not be loaded.
+     *
+     * @param cause the underlying cause of the failure.
+     * @return The {@link IllegalStateException} for the error.
+     */
+    @Message(id = 25, value = "Unable to load the KeyStore on demand.")
+    IllegalStateException unableToLoadKeyStoreOnDemand(@Cause Throwable cause);
+
+    /**
+     * A {@link StartException} where none of the configured values of an attribute are supported.
+     *
+     * @param attribute the name of the attribute.
+     * @return The {@link StartException} for the error.
+     */
+    @Message(id = 26, value = "None of the configured values of '%s' are supported.")
+    StartException noSupportedValues(String attribute);
+
+    /**
+     * Logged where the host names of a new version of a {@link KeyStore} could not be indexed for SNI based selection, the
+     * index of the previous version is retained.
+     *
+     * @param cause the underlying cause of the failure.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 27, value = "Unable to index the host names of the updated KeyStore for SNI selection, the previous index has been retained.")
+    void unableToIndexHostNames(@Cause Exception cause);
+
+    /**
+     * Logged when a file of certificate revocation lists has changed and the new content has been loaded.
+     *
+     * @param path the path of the file that has been reloaded.
+     */
+    @LogMessage(level = INFO)
+    @Message(id = 28, value = "Certificate revocation list file '%s' has changed and has been reloaded.")
+    void crlReloaded(String path);
+
+    /**
+     * Logged when a file of certificate revocation lists has changed but the new content could not be loaded, the previously
+     * loaded lists are retained.
+     *
+     * @param path the path of the file that could not be reloaded.
+     * @param cause the underlying cause of the failure.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 29, value = "Unable to reload certificate revocation list file '%s', the previously loaded lists have been retained.")
+    void unableToReloadCrl(String path, @Cause Exception cause);
+
+    /**
+     * Logged when a lazily loaded {@link java.security.Provider} could not be loaded on first use, the provider will offer no
+     * services.
+     *
+     * @param className the class name of the provider that could not be loaded.
+     * @param cause the underlying cause of the failure.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 30, value = "Unable to load lazily loaded provider '%s', the provider will not offer any services.")
+    void unableToLoadLazyProvider(String className, @Cause Throwable cause);
+
+    /**
+     * Logged when the precomputed index of the providers of a module is out of date or can not be read.
+     *
+     * @param path the path of the index file.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 31, value = "Provider index '%s' is out of date or can not be read, ServiceLoader discovery will be used instead.")
+    void staleProviderIndex(String path);
+
+    /**
+     * An {@link OperationFailedException} where an algorithm to benchmark is not of a supported service type.
+     *
+     * @param algorithm the algorithm requested.
+     * @return The {@link OperationFailedException} for the error.
+     */
+    @Message(id = 32, value = "Unable to benchmark '%s', algorithms must be specified as one of the types MessageDigest, Mac, Cipher or Signature followed by '.' and the algorithm name.")
+    OperationFailedException unsupportedBenchmarkAlgorithm(String algorithm);
+
+    /**
+     * A {@link StartException} where a configured {@link java.security.Permission} can not be created.
+     *
+     * @param className the class name of the permission.
+     * @param targetName the target name of the permission, can be {@code null}.
+     * @param action the action of the permission, can be {@code null}.
+     * @param cause the underlying cause of the failure.
+     * @return The {@link StartException} for the error.
+     */
+    @Message(id = 33, value = "Unable to create permission '%s' with target name '%s' and action '%s'.")
+    StartException unableToCreatePermission(String className, String targetName, String action, @Cause Exception cause);
+
+    /**
+     * An {@link IllegalStateException} where a {@link KeyStore} can not be stored as the service has been stopped.
+     *
+     * @param path the path of the file that would have been written.
+     * @return The {@link IllegalStateException} for the error.
+     */
+    @Message(id = 34, value = "Unable to store KeyStore to file '%s' as the KeyStore service has been stopped.")
+    IllegalStateException keyStoreServiceStopped(String path);
+
+    /**
+     * Logged where the key manager can not be initialised from an updated {@link KeyStore}.
+     *
+     * @param cause the underlying cause of the failure.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 35, value = "Unable to initialise the key manager from the updated KeyStore, the previous key manager has been retained.")
+    void unableToReloadKeyManager(@Cause Exception cause);
+
+    /**
+     * Logged where the issuer of a certificate revocation list is not within the trust store so the list can not be verified
+     * as it is loaded.
+     *
+     * @param issuer the name of the issuer of the list.
+     * @param path the path of the file containing the list.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 36, value = "The issuer '%s' of a certificate revocation list in file '%s' is not in the trust store, the list will only be used once verified against the issuer certificate of a chain being checked.")
+    void crlIssuerNotTrusted(String issuer, String path);
+
+    /**
+     * Logged where an OCSP response can not be obtained or verified for a certificate.
+     *
+     * @param subject the subject of the certificate.
+     * @param cause the underlying cause of the failure.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 37, value = "Unable to obtain an OCSP response for certificate '%s'.")
+    void unableToObtainOcspResponse(String subject, @Cause Exception cause);
+
+    /**
+     * A {@link CertificateException} where OCSP soft fail is disabled and no current response reports a certificate as good.
+     *
+     * @param subject the subject of the certificate.
+     * @return The {@link CertificateException} for the error.
+     */
+    @Message(id = 38, value = "No current OCSP response reports certificate '%s' as good.")
+    CertificateException ocspStatusNotGood(String subject);
+
+    /**
+     * Logged where a certificate revocation list is past the time its issuer was due to publish its next update, the list is
+     * still used as the certificates it lists remain revoked.
+     *
+     * @param issuer the name of the issuer of the list.
+     * @param path the path of the file containing the list.
+     * @param nextUpdate the time the next update was due.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 39, value = "The certificate revocation list issued by '%s' in file '%s' was due to be updated at %s, certificates revoked since then will not be detected until the file is updated.")
+    void crlOutOfDate(String issuer, String path, Date nextUpdate);
+
+    /**
+     * An {@link OperationFailedException} where benchmarking every provider of the requested algorithms would take longer than
+     * a single operation is allowed to run.
+     *
+     * @param estimate the estimated time in milliseconds to benchmark the providers.
+     * @param limit the maximum time in milliseconds allowed.
+     * @return The {@link OperationFailedException} for the error.
+     */
+    @Message(id = 40, value = "Benchmarking the providers of the requested algorithms would take %dms which exceeds the limit of %dms, reduce the number of algorithms or the duration.")
+    OperationFailedException benchmarkTooLong(long estimate, long limit);
 }
@@ -0,0 +1,267 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.junit.Test;
+import org.wildfly.extension.elytron.AuthenticationStatistics.Counters;
+import org.wildfly.security.auth.server.CredentialSupport;
+import org.wildfly.security.auth.server.RealmIdentity;
+import org.wildfly.security.auth.server.RealmUnavailableException;
+import org.wildfly.security.auth.server.SecurityRealm;
+import org.wildfly.security.authz.AuthorizationIdentity;
+
+/**
+ * Tests of {@link AuthenticationStatistics} and the attributes reporting them.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+public class AuthenticationStatisticsTestCase {
+
+    private static final String PASSWORD = "password";
+    private static final String UNAVAILABLE = "unavailable";
+
+    @Test
+    public void testAttemptsCounted() throws Exception {
+        AuthenticationStatistics statistics = new AuthenticationStatistics();
+        SecurityRealm realmOne = statistics.wrap("RealmOne", new TestRealm(0));
+        SecurityRealm realmTwo = statistics.wrap("RealmTwo", new TestRealm(0));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(verify(realmOne, PASSWORD));
+        }
+        assertFalse(verify(realmOne, "wrong"));
+        assertFalse(verify(realmTwo, "wrong"));
+
+        assertCounts(statistics.getRealmCounters().get("RealmOne"), 4, 3, 1);
+        assertCounts(statistics.getRealmCounters().get("RealmTwo"), 1, 0, 1);
+        assertCounts(statistics.getDomainCounters(), 5, 3, 2);
+    }
+
+    @Test
+    public void testUnavailableCountedAsFailure() throws Exception {
+        AuthenticationStatistics statistics = new AuthenticationStatistics();
+        SecurityRealm realm = statistics.wrap("RealmOne", new TestRealm(0));
+
+        try {
+            verify(realm, UNAVAILABLE);
+            fail("Expected RealmUnavailableException");
+        } catch (RealmUnavailableException e) {
+        }
+
+        assertCounts(statistics.getDomainCounters(), 1, 0, 1);
+    }
+
+    @Test
+    public void testOnlyVerificationCounted() throws Exception {
+        AuthenticationStatistics statistics = new AuthenticationStatistics();
+        SecurityRealm realm = statistics.wrap("RealmOne", new TestRealm(0));
+
+        assertNull(realm.createRealmIdentity(null));
+        RealmIdentity identity = realm.createRealmIdentity("user");
+        identity.getCredential(String.class, null);
+        identity.exists();
+        identity.dispose();
+
+        assertCounts(statistics.getDomainCounters(), 0, 0, 0);
+    }
+
+    @Test
+    public void testConcurrentAttempts() throws Exception {
+        final int threads = 8;
+        final int iterations = 10000;
+        final AuthenticationStatistics statistics = new AuthenticationStatistics();
+        final SecurityRealm realmOne = statistics.wrap("RealmOne", new TestRealm(0));
+        final SecurityRealm realmTwo = statistics.wrap("RealmTwo", new TestRealm(0));
+        final CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            final SecurityRealm realm = i % 2 == 0 ? realmOne : realmTwo;
+            workers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < iterations; j++) {
+                        verify(realm, j % 2 == 0 ? PASSWORD : "wrong");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RealmUnavailableException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread current : workers) {
+            current.join();
+        }
+
+        long perRealm = threads / 2 * iterations;
+        assertCounts(statistics.getRealmCounters().get("RealmOne"), perRealm, perRealm / 2, perRealm / 2);
+        assertCounts(statistics.getRealmCounters().get("RealmTwo"), perRealm, perRealm / 2, perRealm / 2);
+        assertCounts(statistics.getDomainCounters(), 2 * perRealm, perRealm, perRealm);
+    }
+
+    @Test
+    public void testReadAttributeOutput() throws Exception {
+        AuthenticationStatistics statistics = new AuthenticationStatistics();
+        SecurityRealm slow = statistics.wrap("Slow", new TestRealm(5));
+        SecurityRealm fast = statistics.wrap("Fast", new TestRealm(0));
+
+        verify(slow, PASSWORD);
+        verify(slow, "wrong");
+        verify(fast, PASSWORD);
+
+        assertEquals(3, DomainDefinition.domainStatistic(DomainDefinition.AUTHENTICATION_ATTEMPTS, statistics));
+        assertEquals(2, DomainDefinition.domainStatistic(DomainDefinition.AUTHENTICATION_SUCCESSES, statistics));
+        assertEquals(1, DomainDefinition.domainStatistic(DomainDefinition.AUTHENTICATION_FAILURES, statistics));
+        // Two of the three attempts took at least 5ms and the latency is reported in microseconds.
+        assertTrue(DomainDefinition.domainStatistic(DomainDefinition.AUTHENTICATION_LATENCY_P50, statistics) >= 4800);
+        assertTrue(DomainDefinition.domainStatistic(DomainDefinition.AUTHENTICATION_LATENCY_P99, statistics) >= 4800);
+
+        ModelNode realmStatistics = DomainDefinition.realmStatistics(statistics);
+        assertEquals(ModelType.LIST, realmStatistics.getType());
+        List<ModelNode> realms = realmStatistics.asList();
+        assertEquals(2, realms.size());
+
+        // Reported in the order the realms are referenced.
+        ModelNode first = realms.get(0);
+        assertEquals("Slow", first.get(ElytronDescriptionConstants.REALM).asString());
+        assertEquals(2, first.get(DomainDefinition.AUTHENTICATION_ATTEMPTS.getName()).asLong());
+        assertEquals(1, first.get(DomainDefinition.AUTHENTICATION_SUCCESSES.getName()).asLong());
+        assertEquals(1, first.get(DomainDefinition.AUTHENTICATION_FAILURES.getName()).asLong());
+        assertTrue(first.get(DomainDefinition.AUTHENTICATION_LATENCY_P50.getName()).asLong() >= 4800);
+        assertTrue(first.get(DomainDefinition.AUTHENTICATION_LATENCY_P95.getName()).asLong() >= 4800);
+        assertTrue(first.get(DomainDefinition.AUTHENTICATION_LATENCY_P99.getName()).asLong() >= 4800);
+
+        ModelNode second = realms.get(1);
+        assertEquals("Fast", second.get(ElytronDescriptionConstants.REALM).asString());
+        assertEquals(1, second.get(DomainDefinition.AUTHENTICATION_ATTEMPTS.getName()).asLong());
+        assertEquals(1, second.get(DomainDefinition.AUTHENTICATION_SUCCESSES.getName()).asLong());
+        assertEquals(0, second.get(DomainDefinition.AUTHENTICATION_FAILURES.getName()).asLong());
+        assertTrue(second.get(DomainDefinition.AUTHENTICATION_LATENCY_P50.getName()).asLong() < 4800);
+    }
+
+    @Test
+    public void testReadAttributeOutputNoAttempts() {
+        AuthenticationStatistics statistics = new AuthenticationStatistics();
+        statistics.wrap("RealmOne", new TestRealm(0));
+
+        assertEquals(0, DomainDefinition.domainStatistic(DomainDefinition.AUTHENTICATION_ATTEMPTS, statistics));
+        assertEquals(0, DomainDefinition.domainStatistic(DomainDefinition.AUTHENTICATION_LATENCY_P99, statistics));
+        ModelNode realm = DomainDefinition.realmStatistics(statistics).get(0);
+        assertEquals("RealmOne", realm.get(ElytronDescriptionConstants.REALM).asString());
+        assertEquals(0, realm.get(DomainDefinition.AUTHENTICATION_LATENCY_P50.getName()).asLong());
+    }
+
+    private static boolean verify(SecurityRealm realm, String credential) throws RealmUnavailableException {
+        RealmIdentity identity = realm.createRealmIdentity("user");
+        try {
+            return identity.verifyCredential(credential);
+        } finally {
+            identity.dispose();
+        }
+    }
+
+    private static void assertCounts(Counters counters, long attempts, long successes, long failures) {
+        assertEquals(attempts, counters.getAttempts());
+        assertEquals(successes, counters.getSuccesses());
+        assertEquals(failures, counters.getFailures());
+    }
+
+    private static class TestRealm implements SecurityRealm {
+
+        private final long delay;
+
+        TestRealm(final long delay) {
+            this.delay = delay;
+        }
+
+        @Override
+        public RealmIdentity createRealmIdentity(String name) throws RealmUnavailableException {
+            return name == null ? null : new TestIdentity(name);
+        }
+
+        @Override
+        public CredentialSupport getCredentialSupport(Class<?> credentialType, String algorithmName) throws RealmUnavailableException {
+            return CredentialSupport.UNSUPPORTED;
+        }
+
+        private class TestIdentity implements RealmIdentity {
+
+            private final String name;
+
+            TestIdentity(final String name) {
+                this.name = name;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public CredentialSupport getCredentialSupport(Class<?> credentialType, String algorithmName) throws RealmUnavailableException {
+                return CredentialSupport.UNSUPPORTED;
+            }
+
+            @Override
+            public <C> C getCredential(Class<C> credentialType, String algorithmName) throws RealmUnavailableException {
+                return null;
+            }
+
+            @Override
+            public boolean verifyCredential(Object credential) throws RealmUnavailableException {
+                if (delay > 0) {
+                    try {
+                        Thread.sleep(delay);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                if (UNAVAILABLE.equals(credential)) {
+                    throw new RealmUnavailableException();
+                }
+                return PASSWORD.equals(credential);
+            }
+
+            @Override
+            public boolean exists() throws RealmUnavailableException {
+                return true;
+            }
+
+            @Override
+            public AuthorizationIdentity getAuthorizationIdentity() throws RealmUnavailableException {
+                return AuthorizationIdentity.EMPTY;
+            }
+        }
+    }
+
+}
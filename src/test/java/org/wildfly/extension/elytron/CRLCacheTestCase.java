@@ -0,0 +1,312 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.CertificateRevokedException;
+import java.security.cert.X509Certificate;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import javax.security.auth.x500.X500Principal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.security.asn1.ASN1;
+
+/**
+ * Tests of {@link CRLCache} using lists generated by the test.
+ *
+ * The trust store only contains 'Test CA', 'Other CA' is only known from the chains being checked.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+public class CRLCacheTestCase {
+
+    private static final char[] PASSWORD = "Elytron".toCharArray();
+    private static final String OID_CERTIFICATE_ISSUER = "2.5.29.29";
+
+    private X509Certificate ca;
+    private PrivateKey caKey;
+    private PrivateKey rogueKey;
+    private X509Certificate server;
+    private X509Certificate otherCa;
+    private PrivateKey otherCaKey;
+    private X509Certificate leaf;
+    private KeyStore trustStore;
+
+    private File file;
+    private CRLCache crlCache;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyStore ocsp = load("ocsp.keystore");
+        ca = (X509Certificate) ocsp.getCertificate("ca");
+        caKey = (PrivateKey) ocsp.getKey("ca", PASSWORD);
+        rogueKey = (PrivateKey) ocsp.getKey("rogue", PASSWORD);
+        server = (X509Certificate) ocsp.getCertificate("server");
+
+        KeyStore crl = load("crl.keystore");
+        otherCa = (X509Certificate) crl.getCertificate("otherca");
+        otherCaKey = (PrivateKey) crl.getKey("otherca", PASSWORD);
+        leaf = (X509Certificate) crl.getCertificate("leaf");
+
+        trustStore = KeyStore.getInstance("JKS");
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry("ca", ca);
+
+        file = File.createTempFile("crl", ".der");
+    }
+
+    @After
+    public void tearDown() {
+        if (crlCache != null) {
+            crlCache.stop();
+        }
+        file.delete();
+    }
+
+    @Test
+    public void testDirect() throws Exception {
+        write(crl(ca, caKey, hour(1), revoked(server, null)));
+        start(60);
+        assertRevoked(server, ca);
+        // The entry only applies to certificates from the issuer of the list.
+        assertNotRevoked(leaf, otherCa);
+    }
+
+    @Test
+    public void testNotListed() throws Exception {
+        write(crl(ca, caKey, hour(1)));
+        start(60);
+        assertNotRevoked(server, ca);
+    }
+
+    @Test
+    public void testIndirect() throws Exception {
+        write(crl(ca, caKey, hour(1), revoked(server, null), revoked(leaf, otherCa)));
+        start(60);
+        assertRevoked(server, ca);
+        // Verified against the trust store as it was loaded so the chain does not need to contain the issuer.
+        assertRevoked(leaf);
+    }
+
+    @Test
+    public void testIndirectIssuerNotApplied() throws Exception {
+        // Without the certificate issuer extension the serial number is for a certificate issued by the list issuer.
+        write(crl(ca, caKey, hour(1), revoked(leaf, null)));
+        start(60);
+        assertNotRevoked(leaf, otherCa);
+    }
+
+    @Test
+    public void testVerifiedAgainstChainIssuer() throws Exception {
+        write(crl(otherCa, otherCaKey, hour(1), revoked(leaf, null)));
+        start(60);
+        // The issuer of the list is not trusted and not in the chain so the list can not be verified.
+        assertNotRevoked(leaf);
+        assertRevoked(leaf, otherCa);
+    }
+
+    @Test
+    public void testChainIssuerSignatureMismatch() throws Exception {
+        write(crl(otherCa, caKey, hour(1), revoked(leaf, null)));
+        start(60);
+        assertNotRevoked(leaf, otherCa);
+    }
+
+    @Test(expected = GeneralSecurityException.class)
+    public void testTrustedIssuerSignatureMismatch() throws Exception {
+        write(crl(ca, rogueKey, hour(1), revoked(server, null)));
+        start(60);
+    }
+
+    @Test
+    public void testOutOfDateStillUsed() throws Exception {
+        write(crl(ca, caKey, hour(-1), revoked(server, null)));
+        start(60);
+        assertRevoked(server, ca);
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        write(crl(ca, caKey, hour(1)));
+        start(1);
+        assertNotRevoked(server, ca);
+
+        write(crl(ca, caKey, hour(1), revoked(server, null)));
+        long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (System.currentTimeMillis() < timeout) {
+            try {
+                crlCache.checkRevoked(new X509Certificate[] { server, ca });
+            } catch (CertificateRevokedException e) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        fail("Expected CertificateRevokedException once the list was reloaded.");
+    }
+
+    @Test
+    public void testInvalidContentRetainsPrevious() throws Exception {
+        write(crl(ca, caKey, hour(1), revoked(server, null)));
+        start(1);
+        write("Not a CRL".getBytes(StandardCharsets.US_ASCII));
+        Thread.sleep(TimeUnit.SECONDS.toMillis(2));
+        assertRevoked(server, ca);
+    }
+
+    private void start(final long refreshInterval) throws Exception {
+        crlCache = new CRLCache(file, trustStore, refreshInterval);
+        crlCache.start();
+    }
+
+    private void assertRevoked(final X509Certificate... chain) {
+        try {
+            crlCache.checkRevoked(chain);
+            fail("Expected CertificateRevokedException");
+        } catch (CertificateRevokedException e) {
+        }
+    }
+
+    private void assertNotRevoked(final X509Certificate... chain) throws CertificateRevokedException {
+        crlCache.checkRevoked(chain);
+    }
+
+    private void write(final byte[] content) throws Exception {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        Files.write(temp.toPath(), content);
+        temp.renameTo(file);
+    }
+
+    private static KeyStore load(final String name) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (InputStream is = CRLCacheTestCase.class.getResourceAsStream(name)) {
+            keyStore.load(is, PASSWORD);
+        }
+        return keyStore;
+    }
+
+    private static Date hour(final int hours) {
+        return new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(hours));
+    }
+
+    /**
+     * Create an entry revoking a certificate, where the issuer of the certificate is supplied the entry names it using the
+     * certificate issuer extension of an indirect list.
+     */
+    private static byte[] revoked(final X509Certificate certificate, final X509Certificate certificateIssuer) {
+        byte[] serial = der(0x02, certificate.getSerialNumber().toByteArray());
+        byte[] revocationDate = time(hour(-1));
+        if (certificateIssuer == null) {
+            return der(0x30, serial, revocationDate);
+        }
+
+        byte[] generalNames = der(0x30, der(0xA4, certificateIssuer.getSubjectX500Principal().getEncoded()));
+        byte[] extension = der(0x30, oid(OID_CERTIFICATE_ISSUER), der(0x01, new byte[] { (byte) 0xFF }), der(0x04, generalNames));
+        return der(0x30, serial, revocationDate, der(0x30, extension));
+    }
+
+    /**
+     * Create a version 2 certificate revocation list naming the subject of the issuer certificate as the issuer of the list.
+     */
+    private static byte[] crl(final X509Certificate issuer, final PrivateKey signingKey, final Date nextUpdate, final byte[]... entries) throws Exception {
+        byte[] algorithm = der(0x30, oid(ASN1.OID_SHA256_WITH_RSA), der(0x05));
+        X500Principal issuerName = issuer.getSubjectX500Principal();
+        byte[] tbsCertList;
+        if (entries.length > 0) {
+            tbsCertList = der(0x30, der(0x02, BigInteger.ONE.toByteArray()), algorithm, issuerName.getEncoded(), time(hour(-2)), time(nextUpdate),
+                    der(0x30, entries));
+        } else {
+            tbsCertList = der(0x30, der(0x02, BigInteger.ONE.toByteArray()), algorithm, issuerName.getEncoded(), time(hour(-2)), time(nextUpdate));
+        }
+
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(signingKey);
+        signature.update(tbsCertList);
+        byte[] signed = signature.sign();
+        byte[] bitString = new byte[signed.length + 1];
+        System.arraycopy(signed, 0, bitString, 1, signed.length);
+
+        return der(0x30, tbsCertList, algorithm, der(0x03, bitString));
+    }
+
+    private static byte[] time(final Date date) {
+        SimpleDateFormat format = new SimpleDateFormat("yyMMddHHmmss'Z'");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return der(0x17, format.format(date).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] oid(final String oid) {
+        String[] parts = oid.split("\\.");
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        encoded.write(Integer.parseInt(parts[0]) * 40 + Integer.parseInt(parts[1]));
+        for (int i = 2; i < parts.length; i++) {
+            long value = Long.parseLong(parts[i]);
+            byte[] base128 = new byte[10];
+            int length = 0;
+            do {
+                base128[length++] = (byte) (value & 0x7F);
+                value >>>= 7;
+            } while (value != 0);
+            for (int j = length - 1; j >= 0; j--) {
+                encoded.write(base128[j] | (j > 0 ? 0x80 : 0));
+            }
+        }
+        return der(0x06, encoded.toByteArray());
+    }
+
+    private static byte[] der(final int tag, final byte[]... contents) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (byte[] current : contents) {
+            content.write(current, 0, current.length);
+        }
+        int length = content.size();
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(length + 6);
+        encoded.write(tag);
+        if (length < 0x80) {
+            encoded.write(length);
+        } else if (length < 0x100) {
+            encoded.write(0x81);
+            encoded.write(length);
+        } else {
+            encoded.write(0x82);
+            encoded.write(length >> 8);
+            encoded.write(length);
+        }
+        byte[] bytes = content.toByteArray();
+        encoded.write(bytes, 0, bytes.length);
+        return encoded.toByteArray();
+    }
+
+}
@@ -0,0 +1,230 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import org.wildfly.security.auth.server.CredentialSupport;
+import org.wildfly.security.auth.server.RealmIdentity;
+import org.wildfly.security.auth.server.RealmMapper;
+import org.wildfly.security.auth.server.RealmUnavailableException;
+import org.wildfly.security.auth.server.SecurityDomain;
+import org.wildfly.security.auth.server.SecurityRealm;
+import org.wildfly.security.auth.util.SimpleRegexRealmMapper;
+import org.wildfly.security.authz.AuthorizationIdentity;
+
+/**
+ * Tests of {@link CachingRealmMapper} and it's use by {@link DomainService}.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+public class CachingRealmMapperTestCase {
+
+    private static final Pattern REALM_SUFFIX = Pattern.compile(".*@(.*)");
+
+    @Test
+    public void testMappingCached() {
+        CountingRealmMapper delegate = new CountingRealmMapper(REALM_SUFFIX);
+        CachingRealmMapper realmMapper = new CachingRealmMapper(delegate, 10);
+
+        assertEquals("Two", realmMapper.getRealmMapping("alice@Two"));
+        assertEquals("Two", realmMapper.getRealmMapping("alice@Two"));
+        assertEquals(1, delegate.calls.get());
+    }
+
+    @Test
+    public void testDefaultMappingCached() {
+        CountingRealmMapper delegate = new CountingRealmMapper(REALM_SUFFIX);
+        CachingRealmMapper realmMapper = new CachingRealmMapper(delegate, 10);
+
+        assertNull(realmMapper.getRealmMapping("alice"));
+        assertNull(realmMapper.getRealmMapping("alice"));
+        assertEquals(1, delegate.calls.get());
+    }
+
+    @Test
+    public void testClear() {
+        CountingRealmMapper delegate = new CountingRealmMapper(REALM_SUFFIX);
+        CachingRealmMapper realmMapper = new CachingRealmMapper(delegate, 10);
+
+        realmMapper.getRealmMapping("alice@Two");
+        realmMapper.clear();
+        assertEquals(0, realmMapper.size());
+        assertEquals("Two", realmMapper.getRealmMapping("alice@Two"));
+        assertEquals(2, delegate.calls.get());
+    }
+
+    @Test
+    public void testBounded() {
+        CachingRealmMapper realmMapper = new CachingRealmMapper(new CountingRealmMapper(REALM_SUFFIX), 10);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("Realm" + i, realmMapper.getRealmMapping("user@Realm" + i));
+            assertTrue(realmMapper.size() <= 10);
+        }
+    }
+
+    @Test
+    public void testCustomMapperNotCacheable() {
+        RealmMapper custom = name -> "One";
+        assertTrue(CachingRealmMapper.isCacheable(new SimpleRegexRealmMapper(REALM_SUFFIX)));
+        assertFalse(CachingRealmMapper.isCacheable(custom));
+        assertFalse(CachingRealmMapper.isCacheable(CachingRealmMapper.uncacheable(new SimpleRegexRealmMapper(REALM_SUFFIX, custom))));
+    }
+
+    @Test
+    public void testDomainCachesRegexMapper() throws Exception {
+        CountingRealmMapper realmMapper = new CountingRealmMapper(REALM_SUFFIX);
+        DomainService domainService = createDomainService(realmMapper);
+        domainService.start(null);
+
+        SecurityDomain securityDomain = domainService.getValue();
+        assertEquals("Two", securityDomain.mapName("alice@Two").getName());
+        assertEquals("Two", securityDomain.mapName("alice@Two").getName());
+        assertEquals(1, realmMapper.calls.get());
+        assertEquals(1, domainService.getRealmMappings().size());
+    }
+
+    @Test
+    public void testDomainDoesNotCacheCustomMapper() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        DomainService domainService = createDomainService(name -> {
+            calls.incrementAndGet();
+            return "Two";
+        });
+        domainService.start(null);
+
+        SecurityDomain securityDomain = domainService.getValue();
+        assertEquals("Two", securityDomain.mapName("alice").getName());
+        assertEquals("Two", securityDomain.mapName("alice").getName());
+        assertEquals(2, calls.get());
+        assertNull(domainService.getRealmMappings());
+    }
+
+    @Test
+    public void testMappingDroppedOnReconfiguration() throws Exception {
+        DomainService domainService = createDomainService(new CountingRealmMapper(REALM_SUFFIX));
+        domainService.start(null);
+
+        SecurityDomain previousDomain = domainService.getValue();
+        assertEquals("Two", previousDomain.mapName("alice@Two").getName());
+        CachingRealmMapper previousMappings = domainService.getRealmMappings();
+        assertEquals(1, previousMappings.size());
+
+        // Reconfiguring the realm mapper or the domain stops the domain and starts it again with the new realm mapper.
+        domainService.stop(null);
+        assertNull(domainService.getRealmMappings());
+        assertEquals(0, previousMappings.size());
+
+        domainService.getRealmMapperInjector().uninject();
+        CountingRealmMapper reconfigured = new CountingRealmMapper(Pattern.compile("(.*)@.*"));
+        domainService.getRealmMapperInjector().inject(reconfigured);
+        domainService.start(null);
+
+        SecurityDomain securityDomain = domainService.getValue();
+        assertNotNull(domainService.getRealmMappings());
+        assertEquals("One", securityDomain.mapName("One@Two").getName());
+        assertEquals(1, reconfigured.calls.get());
+    }
+
+    private static DomainService createDomainService(RealmMapper realmMapper) throws Exception {
+        DomainService domainService = new DomainService("TestDomain", "One", false);
+        domainService.createRealmDependency("One").getSecurityRealmInjector().inject(new TestRealm("One"));
+        domainService.createRealmDependency("Two").getSecurityRealmInjector().inject(new TestRealm("Two"));
+        domainService.getRealmMapperInjector().inject(realmMapper);
+
+        return domainService;
+    }
+
+    private static class CountingRealmMapper extends SimpleRegexRealmMapper {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        CountingRealmMapper(Pattern pattern) {
+            super(pattern);
+        }
+
+        @Override
+        public String getRealmMapping(String name) {
+            calls.incrementAndGet();
+            return super.getRealmMapping(name);
+        }
+    }
+
+    /**
+     * A {@link SecurityRealm} where the name of every identity is the name of the realm.
+     */
+    private static class TestRealm implements SecurityRealm {
+
+        private final String realmName;
+
+        TestRealm(final String realmName) {
+            this.realmName = realmName;
+        }
+
+        @Override
+        public RealmIdentity createRealmIdentity(String name) throws RealmUnavailableException {
+            return new RealmIdentity() {
+
+                @Override
+                public String getName() {
+                    return realmName;
+                }
+
+                @Override
+                public CredentialSupport getCredentialSupport(Class<?> credentialType, String algorithmName) {
+                    return CredentialSupport.UNSUPPORTED;
+                }
+
+                @Override
+                public <C> C getCredential(Class<C> credentialType, String algorithmName) {
+                    return null;
+                }
+
+                @Override
+                public boolean verifyCredential(Object credential) {
+                    return false;
+                }
+
+                @Override
+                public boolean exists() {
+                    return true;
+                }
+
+                @Override
+                public AuthorizationIdentity getAuthorizationIdentity() {
+                    return AuthorizationIdentity.EMPTY;
+                }
+            };
+        }
+
+        @Override
+        public CredentialSupport getCredentialSupport(Class<?> credentialType, String algorithmName) throws RealmUnavailableException {
+            return CredentialSupport.UNSUPPORTED;
+        }
+    }
+
+}
@@ -0,0 +1,294 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.net.Socket;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CRLReason;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateRevokedException;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.ManagerFactoryParameters;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.TrustManagerFactorySpi;
+import javax.net.ssl.X509ExtendedTrustManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the results cached by a {@link CachingTrustManager}.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+public class CachingTrustManagerTestCase {
+
+    private static final char[] PASSWORD = "Elytron".toCharArray();
+    private static final String AUTH_TYPE = "RSA";
+
+    private X509Certificate ca;
+    private X509Certificate server;
+    private X509Certificate rogue;
+    private KeyStoreService keyStoreService;
+
+    private final AtomicInteger validations = new AtomicInteger();
+    private final AtomicInteger revocationChecks = new AtomicInteger();
+    private volatile boolean revoked;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyStore source = KeyStore.getInstance("JKS");
+        try (InputStream is = CachingTrustManagerTestCase.class.getResourceAsStream("ocsp.keystore")) {
+            source.load(is, PASSWORD);
+        }
+        ca = (X509Certificate) source.getCertificate("ca");
+        server = (X509Certificate) source.getCertificate("server");
+        rogue = (X509Certificate) source.getCertificate("rogue");
+
+        keyStoreService = KeyStoreService.createFileLessKeyStoreService(null, "JKS", PASSWORD, 0, false);
+        keyStoreService.start(null);
+        keyStoreService.importEntries(Collections.singletonMap("ca", new KeyStore.TrustedCertificateEntry(ca)), Collections.emptyMap());
+    }
+
+    @After
+    public void tearDown() {
+        keyStoreService.stop(null);
+    }
+
+    @Test
+    public void testResultCached() throws Exception {
+        CachingTrustManager trustManager = trustManager(10, null);
+        trustManager.checkServerTrusted(new X509Certificate[] { server, ca }, AUTH_TYPE);
+        trustManager.checkServerTrusted(new X509Certificate[] { server, ca }, AUTH_TYPE);
+        trustManager.checkServerTrusted(new X509Certificate[] { server, ca }, AUTH_TYPE, (SSLEngine) null);
+        assertEquals(1, validations.get());
+    }
+
+    @Test
+    public void testCacheKey() throws Exception {
+        CachingTrustManager trustManager = trustManager(10, null);
+        trustManager.checkServerTrusted(new X509Certificate[] { server, ca }, AUTH_TYPE);
+        // A different chain, authentication type or direction is validated again.
+        trustManager.checkServerTrusted(new X509Certificate[] { server }, AUTH_TYPE);
+        trustManager.checkServerTrusted(new X509Certificate[] { server, ca }, "DHE_RSA");
+        trustManager.checkClientTrusted(new X509Certificate[] { server, ca }, AUTH_TYPE);
+        assertEquals(4, validations.get());
+
+        trustManager.checkServerTrusted(new X509Certificate[] { server }, AUTH_TYPE);
+        trustManager.checkClientTrusted(new X509Certificate[] { server, ca }, AUTH_TYPE);
+        assertEquals(4, validations.get());
+    }
+
+    @Test
+    public void testFailureNotCached() throws Exception {
+        CachingTrustManager trustManager = trustManager(10, null);
+        for (int i = 0; i < 2; i++) {
+            try {
+                trustManager.checkServerTrusted(new X509Certificate[] { rogue }, AUTH_TYPE);
+                fail("Expected CertificateException");
+            } catch (CertificateException e) {
+            }
+        }
+        assertEquals(2, validations.get());
+    }
+
+    @Test
+    public void testNewVersionInvalidates() throws Exception {
+        CachingTrustManager trustManager = trustManager(10, null);
+        trustManager.checkServerTrusted(new X509Certificate[] { server, ca }, AUTH_TYPE);
+        keyStoreService.importEntries(Collections.singletonMap("server", new KeyStore.TrustedCertificateEntry(server)), Collections.emptyMap());
+        trustManager.checkServerTrusted(new X509Certificate[] { server, ca }, AUTH_TYPE);
+        assertEquals(2, validations.get());
+
+        // Once the trusted certificates are replaced the chain is no longer accepted.
+        keyStoreService.importEntries(Collections.singletonMap("rogue", new KeyStore.TrustedCertificateEntry(rogue)), Collections.emptyMap());
+        keyStoreService.removeEntry("ca");
+        keyStoreService.removeEntry("server");
+        try {
+            trustManager.checkServerTrusted(new X509Certificate[] { server, ca }, AUTH_TYPE);
+            fail("Expected CertificateException");
+        } catch (CertificateException e) {
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedDiscarded() throws Exception {
+        CachingTrustManager trustManager = trustManager(2, null);
+        X509Certificate[] first = new X509Certificate[] { server, ca };
+        X509Certificate[] second = new X509Certificate[] { server };
+        X509Certificate[] third = new X509Certificate[] { ca };
+
+        trustManager.checkServerTrusted(first, AUTH_TYPE);
+        trustManager.checkServerTrusted(second, AUTH_TYPE);
+        trustManager.checkServerTrusted(first, AUTH_TYPE);
+        assertEquals(2, validations.get());
+
+        // The second chain is the least recently used so is discarded.
+        trustManager.checkServerTrusted(third, AUTH_TYPE);
+        trustManager.checkServerTrusted(first, AUTH_TYPE);
+        assertEquals(3, validations.get());
+        trustManager.checkServerTrusted(second, AUTH_TYPE);
+        assertEquals(4, validations.get());
+    }
+
+    @Test
+    public void testCachingDisabled() throws Exception {
+        CachingTrustManager trustManager = trustManager(0, null);
+        trustManager.checkServerTrusted(new X509Certificate[] { server, ca }, AUTH_TYPE);
+        trustManager.checkServerTrusted(new X509Certificate[] { server, ca }, AUTH_TYPE);
+        assertEquals(2, validations.get());
+    }
+
+    @Test
+    public void testRevocationCheckedOnCacheHit() throws Exception {
+        CachingTrustManager trustManager = trustManager(10, new CRLCache(null, null, 0) {
+
+            @Override
+            void checkRevoked(X509Certificate[] chain) throws CertificateRevokedException {
+                revocationChecks.incrementAndGet();
+                if (revoked) {
+                    throw new CertificateRevokedException(new Date(), CRLReason.KEY_COMPROMISE, chain[0].getIssuerX500Principal(), Collections.emptyMap());
+                }
+            }
+        });
+
+        trustManager.checkServerTrusted(new X509Certificate[] { server, ca }, AUTH_TYPE);
+        revoked = true;
+        try {
+            trustManager.checkServerTrusted(new X509Certificate[] { server, ca }, AUTH_TYPE);
+            fail("Expected CertificateRevokedException");
+        } catch (CertificateRevokedException e) {
+        }
+        assertEquals(1, validations.get());
+        assertEquals(2, revocationChecks.get());
+
+        // A chain which does not validate is never checked for revocation.
+        try {
+            trustManager.checkServerTrusted(new X509Certificate[] { rogue }, AUTH_TYPE);
+            fail("Expected CertificateException");
+        } catch (CertificateException e) {
+        }
+        assertEquals(2, revocationChecks.get());
+    }
+
+    private CachingTrustManager trustManager(final int maximumSize, final CRLCache crlCache) throws Exception {
+        TrustManagerFactory pkix = TrustManagerFactory.getInstance("PKIX");
+        TrustManagerFactory counting = new TrustManagerFactory(new CountingTrustManagerFactorySpi(pkix), pkix.getProvider(), pkix.getAlgorithm()) {
+        };
+
+        return new CachingTrustManager(keyStoreService.getValue(), counting, maximumSize, 60, crlCache, null);
+    }
+
+    /**
+     * A {@link TrustManagerFactorySpi} counting the chains its trust managers are asked to validate.
+     */
+    private final class CountingTrustManagerFactorySpi extends TrustManagerFactorySpi {
+
+        private final TrustManagerFactory delegate;
+
+        CountingTrustManagerFactorySpi(final TrustManagerFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected void engineInit(KeyStore ks) throws KeyStoreException {
+            delegate.init(ks);
+        }
+
+        @Override
+        protected void engineInit(ManagerFactoryParameters spec) throws InvalidAlgorithmParameterException {
+            delegate.init(spec);
+        }
+
+        @Override
+        protected TrustManager[] engineGetTrustManagers() {
+            for (TrustManager current : delegate.getTrustManagers()) {
+                if (current instanceof X509ExtendedTrustManager) {
+                    return new TrustManager[] { new CountingTrustManager((X509ExtendedTrustManager) current) };
+                }
+            }
+            throw new IllegalStateException(new NoSuchAlgorithmException());
+        }
+    }
+
+    private final class CountingTrustManager extends X509ExtendedTrustManager {
+
+        private final X509ExtendedTrustManager delegate;
+
+        CountingTrustManager(final X509ExtendedTrustManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+            validations.incrementAndGet();
+            delegate.checkClientTrusted(chain, authType);
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+            validations.incrementAndGet();
+            delegate.checkServerTrusted(chain, authType);
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) throws CertificateException {
+            validations.incrementAndGet();
+            delegate.checkClientTrusted(chain, authType, socket);
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) throws CertificateException {
+            validations.incrementAndGet();
+            delegate.checkServerTrusted(chain, authType, socket);
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) throws CertificateException {
+            validations.incrementAndGet();
+            delegate.checkClientTrusted(chain, authType, engine);
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) throws CertificateException {
+            validations.incrementAndGet();
+            delegate.checkServerTrusted(chain, authType, engine);
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return delegate.getAcceptedIssuers();
+        }
+    }
+
+}
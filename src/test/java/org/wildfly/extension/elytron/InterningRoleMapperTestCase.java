@@ -0,0 +1,203 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.wildfly.security.authz.AddPrefixRoleMapper;
+import org.wildfly.security.authz.RoleMapper;
+
+/**
+ * Tests of {@link InterningRoleMapper}.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+public class InterningRoleMapperTestCase {
+
+    private static final List<String> PROBES = Arrays.asList("a", "b", "c", "x", "y", "P_a", "P_b", "P_c", "extra");
+
+    private static final List<Set<String>> INPUTS = Arrays.asList(roles(), roles("a"), roles("a", "b"), roles("a", "b", "c"), roles("x"));
+
+    private static final List<RoleMapper> DELEGATES = Arrays.asList(RoleMapper.IDENTITY_ROLE_MAPPER, RoleMapper.constant(roles("x", "y")),
+            new AddPrefixRoleMapper("P_"), r -> {
+                Set<String> mapped = new HashSet<>(r);
+                mapped.add("extra");
+                return mapped;
+            });
+
+    @Test
+    public void testSameRoles() {
+        for (RoleMapper delegate : DELEGATES) {
+            assertSameRoles(delegate, new InterningRoleMapper(delegate, DomainService.ROLE_MAPPING_CACHE_SIZE));
+        }
+    }
+
+    @Test
+    public void testComposition() {
+        RoleMapper other = RoleMapper.constant(roles("a", "x"));
+        for (RoleMapper delegate : DELEGATES) {
+            RoleMapper interning = new InterningRoleMapper(delegate, DomainService.ROLE_MAPPING_CACHE_SIZE);
+            assertSameRoles(delegate.or(other), interning.or(other));
+            assertSameRoles(other.or(delegate), other.or(interning));
+            assertSameRoles(delegate.and(other), interning.and(other));
+            assertSameRoles(other.and(delegate), other.and(interning));
+            assertSameRoles(delegate.xor(other), interning.xor(other));
+            assertSameRoles(delegate.minus(other), interning.minus(other));
+            assertSameRoles(RoleMapper.aggregate(delegate, other), RoleMapper.aggregate(interning, other));
+        }
+    }
+
+    @Test
+    public void testEqualRoleSetsShared() {
+        RoleMapper interning = new InterningRoleMapper(new AddPrefixRoleMapper("P_"), DomainService.ROLE_MAPPING_CACHE_SIZE);
+
+        Set<String> first = interning.mapRoles(roles("a", "b"));
+        Set<String> second = interning.mapRoles(new HashSet<>(Arrays.asList("b", "a")));
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testInputCopied() {
+        RoleMapper interning = new InterningRoleMapper(RoleMapper.IDENTITY_ROLE_MAPPER, DomainService.ROLE_MAPPING_CACHE_SIZE);
+
+        Set<String> input = roles("a");
+        Set<String> mapped = interning.mapRoles(input);
+        input.add("b");
+        assertEquals(roles("a"), mapped);
+        assertEquals(roles("a"), interning.mapRoles(roles("a")));
+        assertEquals(roles("a", "b"), interning.mapRoles(input));
+    }
+
+    @Test
+    public void testResultUnmodifiable() {
+        RoleMapper interning = new InterningRoleMapper(RoleMapper.IDENTITY_ROLE_MAPPER, DomainService.ROLE_MAPPING_CACHE_SIZE);
+
+        Set<String> mapped = interning.mapRoles(roles("a"));
+        try {
+            mapped.add("b");
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+        }
+        assertEquals(roles("a"), interning.mapRoles(roles("a")));
+    }
+
+    @Test
+    public void testNullNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+        InterningRoleMapper interning = new InterningRoleMapper(r -> {
+            calls.incrementAndGet();
+            return null;
+        }, DomainService.ROLE_MAPPING_CACHE_SIZE);
+
+        assertNull(interning.mapRoles(roles("a")));
+        assertNull(interning.mapRoles(roles("a")));
+        assertEquals(2, calls.get());
+        assertEquals(0, interning.size());
+    }
+
+    @Test
+    public void testBounded() {
+        InterningRoleMapper interning = new InterningRoleMapper(new AddPrefixRoleMapper("P_"), DomainService.ROLE_MAPPING_CACHE_SIZE);
+
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(roles("P_" + i), interning.mapRoles(roles(Integer.toString(i))));
+            assertTrue(interning.size() <= 1024);
+        }
+        assertEquals(1024, DomainService.ROLE_MAPPING_CACHE_SIZE);
+    }
+
+    @Test
+    public void testBoundedConcurrent() throws Exception {
+        final int threads = 8;
+        final int iterations = 5000;
+        final InterningRoleMapper interning = new InterningRoleMapper(new AddPrefixRoleMapper("P_"), DomainService.ROLE_MAPPING_CACHE_SIZE);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger errors = new AtomicInteger();
+
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            final int thread = i;
+            workers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int j = 0; j < iterations; j++) {
+                    String role = thread + "." + j;
+                    if (interning.mapRoles(roles(role)).equals(roles("P_" + role)) == false || interning.size() > 1024) {
+                        errors.incrementAndGet();
+                    }
+                }
+            });
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread current : workers) {
+            current.join();
+        }
+
+        assertEquals(0, errors.get());
+        assertTrue(interning.size() <= 1024);
+    }
+
+    private static void assertSameRoles(RoleMapper expected, RoleMapper actual) {
+        // Twice so the second mapping is from the cache.
+        for (int i = 0; i < 2; i++) {
+            for (Set<String> input : INPUTS) {
+                Set<String> expectedRoles = expected.mapRoles(input);
+                Set<String> actualRoles = actual.mapRoles(input);
+                assertEquals(copy(expectedRoles), copy(actualRoles));
+                for (String probe : PROBES) {
+                    assertEquals(input + " contains " + probe, expectedRoles.contains(probe), actualRoles.contains(probe));
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy by iterating, the sets returned by composed mappers are views which do not all support {@link Set#size()}.
+     */
+    private static Set<String> copy(Set<String> roles) {
+        Set<String> copy = new HashSet<>();
+        for (String current : roles) {
+            copy.add(current);
+        }
+        return copy;
+    }
+
+    private static Set<String> roles(String... roles) {
+        return roles.length == 0 ? Collections.emptySet() : new HashSet<>(Arrays.asList(roles));
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of resolving names and reporting expiry using a {@link KeyStoreAliasIndex}.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+public class KeyStoreAliasIndexTestCase {
+
+    private static final char[] PASSWORD = "Elytron".toCharArray();
+
+    private KeyStore keyStore;
+    private X509Certificate expired;
+
+    @Before
+    public void setUp() throws Exception {
+        keyStore = load("ocsp.keystore");
+        KeyStore expiredKeyStore = load("expired.keystore");
+        expired = (X509Certificate) expiredKeyStore.getCertificate("expired");
+        keyStore.setCertificateEntry("expired", expired);
+    }
+
+    @Test
+    public void testResolveAlias() throws Exception {
+        KeyStoreAliasIndex index = KeyStoreAliasIndex.create(keyStore);
+        assertEquals("server", index.resolve("server").getAlias());
+        // An alias is resolved regardless of the validity of the certificate.
+        assertEquals("expired", index.resolve("expired").getAlias());
+    }
+
+    @Test
+    public void testResolveSubject() throws Exception {
+        KeyStoreAliasIndex index = KeyStoreAliasIndex.create(keyStore);
+        assertEquals("server", index.resolve("CN=localhost, O=Elytron").getAlias());
+        assertEquals("server", index.resolve("cn=localhost,o=elytron").getAlias());
+    }
+
+    @Test
+    public void testExpiredSingleCandidateNotResolved() throws Exception {
+        KeyStoreAliasIndex index = KeyStoreAliasIndex.create(keyStore);
+        assertNull(index.resolve("CN=Expired, O=Elytron"));
+        assertNull(index.resolve(CertificateChainAttributeDefintions.fingerPrint(expired)));
+    }
+
+    @Test
+    public void testSameExpiryAmbiguous() throws Exception {
+        KeyStore keyStore = load("ocsp.keystore");
+        keyStore.setCertificateEntry("copy", keyStore.getCertificate("server"));
+        assertNull(KeyStoreAliasIndex.create(keyStore).resolve("CN=localhost, O=Elytron"));
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        KeyStoreAliasIndex index = KeyStoreAliasIndex.create(keyStore);
+        assertEquals(expired.getNotAfter(), index.getEarliestExpiry());
+        assertEquals(1, index.countExpiringBefore(System.currentTimeMillis()));
+        assertEquals("expired", index.getExpiringBefore(System.currentTimeMillis()).get(0).getAlias());
+        assertEquals(4, index.countExpiringBefore(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testNotAfterCopied() throws Exception {
+        KeyStoreAliasIndex index = KeyStoreAliasIndex.create(keyStore);
+        Date notAfter = index.resolve("expired").getNotAfter();
+        assertNotNull(notAfter);
+        notAfter.setTime(Long.MAX_VALUE);
+        index.getEarliestExpiry().setTime(Long.MAX_VALUE);
+
+        assertEquals(expired.getNotAfter(), index.resolve("expired").getNotAfter());
+        assertEquals(expired.getNotAfter(), index.getEarliestExpiry());
+        assertEquals(1, index.countExpiringBefore(System.currentTimeMillis()));
+    }
+
+    private static KeyStore load(final String name) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (InputStream is = KeyStoreAliasIndexTestCase.class.getResourceAsStream(name)) {
+            keyStore.load(is, PASSWORD);
+        }
+        return keyStore;
+    }
+
+}
@@ -0,0 +1,362 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.KeyStore;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.extension.elytron.KeyStoreService.ImportKey;
+import org.wildfly.extension.elytron.KeyStoreService.LoadKey;
+import org.wildfly.security.auth.server.CredentialSupport;
+import org.wildfly.security.auth.server.SecurityRealm;
+
+/**
+ * Tests of the {@link KeyStoreSnapshot} instances published by a {@link KeyStoreService}.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+public class KeyStoreSnapshotTestCase {
+
+    private static final char[] PASSWORD = "Elytron".toCharArray();
+
+    private KeyStore source;
+    private KeyStore.PrivateKeyEntry serverEntry;
+    private KeyStore.TrustedCertificateEntry caEntry;
+
+    private File directory;
+    private File file;
+    private KeyStoreService keyStoreService;
+
+    @Before
+    public void setUp() throws Exception {
+        source = KeyStore.getInstance("JKS");
+        try (InputStream is = KeyStoreSnapshotTestCase.class.getResourceAsStream("ocsp.keystore")) {
+            source.load(is, PASSWORD);
+        }
+        serverEntry = (KeyStore.PrivateKeyEntry) source.getEntry("server", new KeyStore.PasswordProtection(PASSWORD));
+        caEntry = new KeyStore.TrustedCertificateEntry(source.getCertificate("ca"));
+
+        directory = Files.createTempDirectory("keystore").toFile();
+        file = new File(directory, "test.keystore");
+        write(source, file);
+    }
+
+    @After
+    public void tearDown() {
+        if (keyStoreService != null) {
+            keyStoreService.stop(null);
+        }
+        for (File current : directory.listFiles()) {
+            current.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testVersionIncreases() throws Exception {
+        fileBased();
+        long version = keyStoreService.getSnapshot().getVersion();
+
+        ImportKey importKey = keyStoreService.importEntries(Collections.singletonMap("trusted", caEntry), Collections.emptyMap());
+        version = assertNewVersion(version);
+        keyStoreService.removeEntry("rogue");
+        version = assertNewVersion(version);
+        keyStoreService.revertImport(importKey);
+        version = assertNewVersion(version);
+        LoadKey loadKey = keyStoreService.load();
+        version = assertNewVersion(version);
+        keyStoreService.revertLoad(loadKey);
+        assertNewVersion(version);
+    }
+
+    @Test
+    public void testEarlierSnapshotUnchanged() throws Exception {
+        fileBased();
+        KeyStoreSnapshot earlier = keyStoreService.getSnapshot();
+        KeyStore earlierKeyStore = earlier.getKeyStore();
+        List<String> earlierAliases = Collections.list(earlierKeyStore.aliases());
+
+        keyStoreService.importEntries(Collections.singletonMap("trusted", caEntry), Collections.emptyMap());
+        keyStoreService.importEntries(Collections.singletonMap("ca", serverEntry), Collections.emptyMap());
+        keyStoreService.removeEntry("server");
+
+        assertEquals(earlierAliases, Collections.list(earlierKeyStore.aliases()));
+        assertEquals(3, earlierKeyStore.size());
+        assertFalse(earlierKeyStore.containsAlias("trusted"));
+        assertEquals(caEntry.getTrustedCertificate(), earlierKeyStore.getCertificate("ca"));
+        assertNotNull(earlierKeyStore.getKey("server", PASSWORD));
+        assertNotNull(earlier.getAliasIndex().resolve("server"));
+
+        KeyStore latest = keyStoreService.getSnapshot().getKeyStore();
+        assertEquals(3, latest.size());
+        assertTrue(latest.isCertificateEntry("trusted"));
+        assertEquals(serverEntry.getCertificate(), latest.getCertificate("ca"));
+        assertFalse(latest.containsAlias("server"));
+        assertEquals(null, keyStoreService.getSnapshot().getAliasIndex().resolve("server"));
+    }
+
+    @Test
+    public void testSnapshotReadOnly() throws Exception {
+        fileBased();
+        KeyStore keyStore = keyStoreService.getSnapshot().getKeyStore();
+        try {
+            keyStore.setEntry("trusted", caEntry, null);
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+        }
+        try {
+            keyStoreService.getValue().deleteEntry("server");
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    @Test
+    public void testChangedKeyEntryPassword() throws Exception {
+        fileBased();
+        keyStoreService.importEntries(Collections.singletonMap("imported", serverEntry), Collections.singletonMap("imported", "Key".toCharArray()));
+
+        KeyStore keyStore = keyStoreService.getSnapshot().getKeyStore();
+        assertEquals(serverEntry.getPrivateKey(), keyStore.getKey("imported", "Key".toCharArray()));
+        try {
+            keyStore.getKey("imported", PASSWORD);
+            fail("Expected UnrecoverableKeyException");
+        } catch (UnrecoverableKeyException e) {
+        }
+    }
+
+    @Test
+    public void testCopyDue() throws Exception {
+        KeyStore base = KeyStore.getInstance("JKS");
+        base.load(null, null);
+        KeyStoreSnapshot snapshot = new KeyStoreSnapshot(1, base, () -> null);
+
+        KeyStoreSnapshot changed = snapshot.withChanges(2, trustedEntries("a", 64), alias -> null, () -> null);
+        assertFalse(changed.isCopyDue());
+        assertEquals(64, changed.getKeyStore().size());
+        assertTrue(changed.withChanges(3, trustedEntries("b", 1), alias -> null, () -> null).isCopyDue());
+
+        // With a larger base a quarter of the unchanged entries may be changed.
+        for (Map.Entry<String, KeyStore.Entry> current : trustedEntries("a", 1000).entrySet()) {
+            base.setEntry(current.getKey(), current.getValue(), null);
+        }
+        snapshot = new KeyStoreSnapshot(4, base, () -> null);
+        assertFalse(snapshot.withChanges(5, trustedEntries("a", 200), alias -> null, () -> null).isCopyDue());
+        assertTrue(snapshot.withChanges(5, trustedEntries("a", 201), alias -> null, () -> null).isCopyDue());
+    }
+
+    @Test
+    public void testRebasedOnceCopyDue() throws Exception {
+        fileBased();
+        KeyStore earlier = keyStoreService.getSnapshot().getKeyStore();
+
+        keyStoreService.importEntries(trustedEntries("a", 100), Collections.emptyMap());
+        KeyStoreSnapshot snapshot = keyStoreService.getSnapshot();
+        assertFalse(snapshot.isCopyDue());
+        assertEquals(103, snapshot.getKeyStore().size());
+        assertTrue(snapshot.getKeyStore().isCertificateEntry("a99"));
+        assertEquals(3, earlier.size());
+
+        // The changes are applied to the new base, not the previous one.
+        keyStoreService.importEntries(trustedEntries("b", 10), Collections.emptyMap());
+        assertEquals(113, keyStoreService.getSnapshot().getKeyStore().size());
+        assertEquals(103, snapshot.getKeyStore().size());
+        assertEquals(3, earlier.size());
+    }
+
+    @Test
+    public void testLoadAndRevert() throws Exception {
+        fileBased();
+        KeyStoreSnapshot original = keyStoreService.getSnapshot();
+
+        KeyStore reduced = KeyStore.getInstance("JKS");
+        reduced.load(null, null);
+        reduced.setEntry("ca", caEntry, null);
+        write(reduced, file);
+
+        for (int i = 0; i < 10; i++) {
+            LoadKey loadKey = keyStoreService.load();
+            KeyStore loaded = keyStoreService.getSnapshot().getKeyStore();
+            assertEquals(1, loaded.size());
+            assertTrue(loaded.isCertificateEntry("ca"));
+
+            keyStoreService.revertLoad(loadKey);
+            KeyStoreSnapshot reverted = keyStoreService.getSnapshot();
+            assertTrue(reverted.getVersion() > original.getVersion());
+            assertEquals(Collections.list(original.getKeyStore().aliases()), Collections.list(reverted.getKeyStore().aliases()));
+            assertTrue(reverted.getKeyStore().isKeyEntry("ca"));
+            assertEquals(1, loaded.size());
+        }
+
+        keyStoreService.load();
+        assertEquals(1, keyStoreService.getSnapshot().getKeyStore().size());
+        assertEquals(3, original.getKeyStore().size());
+    }
+
+    @Test
+    public void testRevertImport() throws Exception {
+        fileBased();
+        keyStoreService.importEntries(Collections.singletonMap("first", caEntry), Collections.emptyMap());
+        assertTrue(keyStoreService.isModified());
+
+        ImportKey importKey = keyStoreService.importEntries(Collections.singletonMap("server", serverEntry), Collections.singletonMap("server", "Key".toCharArray()));
+        KeyStore imported = keyStoreService.getSnapshot().getKeyStore();
+        keyStoreService.revertImport(importKey);
+
+        // The replaced entry is restored with its own password.
+        KeyStore reverted = keyStoreService.getSnapshot().getKeyStore();
+        assertEquals(serverEntry.getPrivateKey(), reverted.getKey("server", PASSWORD));
+        assertTrue(reverted.isCertificateEntry("first"));
+        assertTrue(keyStoreService.isModified());
+        assertEquals(serverEntry.getPrivateKey(), imported.getKey("server", "Key".toCharArray()));
+    }
+
+    @Test
+    public void testFileLessBaseNotModified() throws Exception {
+        keyStoreService = KeyStoreService.createFileLessKeyStoreService(null, "JKS", PASSWORD, 0, false);
+        keyStoreService.start(null);
+        KeyStore empty = keyStoreService.getSnapshot().getKeyStore();
+
+        keyStoreService.importEntries(Collections.singletonMap("ca", caEntry), Collections.emptyMap());
+        KeyStoreSnapshot withCa = keyStoreService.getSnapshot();
+        assertTrue(keyStoreService.isModified());
+
+        ImportKey importKey = keyStoreService.importEntries(Collections.singletonMap("server", serverEntry), Collections.emptyMap());
+        keyStoreService.removeEntry("ca");
+
+        KeyStore latest = keyStoreService.getSnapshot().getKeyStore();
+        assertEquals(1, latest.size());
+        assertEquals(serverEntry.getPrivateKey(), latest.getKey("server", PASSWORD));
+        assertEquals(0, empty.size());
+        assertEquals(Collections.singletonList("ca"), Collections.list(withCa.getKeyStore().aliases()));
+
+        keyStoreService.revertImport(importKey);
+        assertEquals(Collections.singletonList("ca"), Collections.list(keyStoreService.getSnapshot().getKeyStore().aliases()));
+        assertTrue(keyStoreService.isModified());
+
+        // Loading again discards the changes held by the snapshots.
+        keyStoreService.load();
+        assertEquals(0, keyStoreService.getSnapshot().getKeyStore().size());
+        assertFalse(keyStoreService.isModified());
+        assertEquals(1, withCa.getKeyStore().size());
+    }
+
+    @Test
+    public void testValueFollowsLatest() throws Exception {
+        fileBased();
+        KeyStore value = keyStoreService.getValue();
+        assertSame(keyStoreService.getSnapshot(), KeyStoreSnapshot.current(value));
+
+        keyStoreService.importEntries(Collections.singletonMap("trusted", caEntry), Collections.emptyMap());
+        assertTrue(value.isCertificateEntry("trusted"));
+        assertEquals(4, value.size());
+        assertSame(keyStoreService.getSnapshot(), KeyStoreSnapshot.current(value));
+
+        KeyStore reduced = KeyStore.getInstance("JKS");
+        reduced.load(null, null);
+        reduced.setEntry("ca", caEntry, null);
+        write(reduced, file);
+        LoadKey loadKey = keyStoreService.load();
+        assertEquals(Collections.singletonList("ca"), Collections.list(value.aliases()));
+
+        keyStoreService.revertLoad(loadKey);
+        assertEquals(4, value.size());
+
+        // Once stopped the content last published is still readable.
+        keyStoreService.stop(null);
+        keyStoreService = null;
+        assertEquals(4, value.size());
+    }
+
+    @Test
+    public void testRealmFollowsLatest() throws Exception {
+        fileBased();
+        X509Certificate server = (X509Certificate) serverEntry.getCertificate();
+        for (boolean certificateLookup : new boolean[] { false, true }) {
+            SecurityRealm securityRealm = new IndexedKeyStoreSecurityRealm(keyStoreService.getValue(), certificateLookup);
+            String alias = "imported" + certificateLookup;
+            assertFalse(found(securityRealm, alias));
+
+            keyStoreService.importEntries(Collections.singletonMap(alias, new KeyStore.TrustedCertificateEntry(server)), Collections.emptyMap());
+            assertTrue(found(securityRealm, alias));
+
+            keyStoreService.removeEntry(alias);
+            assertFalse(found(securityRealm, alias));
+        }
+
+        // A certificate only resolves by subject once imported.
+        keyStoreService.removeEntry("server");
+        SecurityRealm securityRealm = new IndexedKeyStoreSecurityRealm(keyStoreService.getValue(), true);
+        String subject = server.getSubjectX500Principal().getName();
+        assertFalse(found(securityRealm, subject));
+        keyStoreService.importEntries(Collections.singletonMap("renamed", new KeyStore.TrustedCertificateEntry(server)), Collections.emptyMap());
+        assertTrue(found(securityRealm, subject));
+    }
+
+    private static boolean found(SecurityRealm securityRealm, String name) throws Exception {
+        return securityRealm.createRealmIdentity(name).getCredentialSupport(X509Certificate.class, null) == CredentialSupport.FULLY_SUPPORTED;
+    }
+
+    private long assertNewVersion(long previous) {
+        long version = keyStoreService.getSnapshot().getVersion();
+        assertTrue(version > previous);
+        return version;
+    }
+
+    private void fileBased() throws Exception {
+        keyStoreService = KeyStoreService.createFileBasedKeyStoreService(null, "JKS", PASSWORD, null, file.getAbsolutePath(), true, false, 0, false);
+        keyStoreService.getSharedKeyStoreRegistryInjector().inject(new SharedKeyStoreRegistry());
+        keyStoreService.start(null);
+    }
+
+    private Map<String, KeyStore.Entry> trustedEntries(String prefix, int count) {
+        Map<String, KeyStore.Entry> entries = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            entries.put(prefix + i, caEntry);
+        }
+        return entries;
+    }
+
+    private static void write(KeyStore keyStore, File file) throws Exception {
+        try (OutputStream os = new FileOutputStream(file)) {
+            keyStore.store(os, PASSWORD);
+        }
+    }
+
+}
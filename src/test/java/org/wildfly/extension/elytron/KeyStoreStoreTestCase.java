@@ -0,0 +1,207 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.controller.OperationFailedException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.extension.elytron.KeyStoreService.StoreResult;
+
+/**
+ * Tests of storing a {@link KeyStore} to file using a {@link KeyStoreService}.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+public class KeyStoreStoreTestCase {
+
+    private static final char[] PASSWORD = "Elytron".toCharArray();
+
+    private KeyStore.TrustedCertificateEntry caEntry;
+    private File directory;
+    private File file;
+    private byte[] original;
+    private KeyStoreService keyStoreService;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyStore source = KeyStore.getInstance("JKS");
+        try (InputStream is = KeyStoreStoreTestCase.class.getResourceAsStream("ocsp.keystore")) {
+            source.load(is, PASSWORD);
+        }
+        caEntry = new KeyStore.TrustedCertificateEntry(source.getCertificate("ca"));
+
+        directory = Files.createTempDirectory("keystore").toFile();
+        file = new File(directory, "test.keystore");
+        try (OutputStream os = new FileOutputStream(file)) {
+            source.store(os, PASSWORD);
+        }
+        original = Files.readAllBytes(file.toPath());
+
+        keyStoreService = KeyStoreService.createFileBasedKeyStoreService(null, "JKS", PASSWORD, null, file.getAbsolutePath(), true, false, 0, false);
+        keyStoreService.getSharedKeyStoreRegistryInjector().inject(new SharedKeyStoreRegistry());
+        keyStoreService.start(null);
+    }
+
+    @After
+    public void tearDown() {
+        if (keyStoreService != null) {
+            keyStoreService.stop(null);
+        }
+        if (directory.exists()) {
+            for (File current : directory.listFiles()) {
+                current.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void testStore() throws Exception {
+        keyStoreService.importEntries(Collections.singletonMap("trusted", caEntry), Collections.emptyMap());
+        assertTrue(keyStoreService.isModified());
+        assertNull(keyStoreService.getLastStore());
+
+        keyStoreService.save().get(10, TimeUnit.SECONDS);
+
+        KeyStore stored = load(file);
+        assertEquals(4, stored.size());
+        assertEquals(caEntry.getTrustedCertificate(), stored.getCertificate("trusted"));
+        assertTrue(stored.isKeyEntry("server"));
+        assertFalse(keyStoreService.isModified());
+        assertEquals(Collections.singletonList(file.getName()), Arrays.asList(directory.list()));
+
+        StoreResult lastStore = keyStoreService.getLastStore();
+        assertTrue(lastStore.isComplete());
+        assertNull(lastStore.getFailure());
+    }
+
+    @Test
+    public void testPermissionsRetained() throws Exception {
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+        Files.setPosixFilePermissions(file.toPath(), permissions);
+        Object owner = Files.getOwner(file.toPath());
+
+        keyStoreService.importEntries(Collections.singletonMap("trusted", caEntry), Collections.emptyMap());
+        keyStoreService.save().get(10, TimeUnit.SECONDS);
+
+        assertEquals(permissions, Files.getPosixFilePermissions(file.toPath()));
+        assertEquals(owner, Files.getOwner(file.toPath()));
+        assertTrue(load(file).containsAlias("trusted"));
+    }
+
+    @Test
+    public void testStoreUnmodified() throws Exception {
+        // Without a working KeyStore the content last loaded is stored.
+        keyStoreService.save().get(10, TimeUnit.SECONDS);
+        assertEquals(3, load(file).size());
+        assertNull(keyStoreService.getLastStore().getFailure());
+    }
+
+    @Test
+    public void testWriteFailure() throws Exception {
+        keyStoreService.importEntries(Collections.singletonMap("trusted", caEntry), Collections.emptyMap());
+        file.delete();
+        directory.delete();
+
+        CompletableFuture<Void> stored = keyStoreService.save();
+        try {
+            stored.get(10, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+        }
+
+        // The modified flag is restored as nothing was written.
+        assertTrue(keyStoreService.isModified());
+        StoreResult lastStore = keyStoreService.getLastStore();
+        assertTrue(lastStore.isComplete());
+        assertNotNull(lastStore.getFailure());
+        assertFalse(directory.exists());
+    }
+
+    @Test
+    public void testStoppedWhileQueued() throws Exception {
+        keyStoreService.importEntries(Collections.singletonMap("trusted", caEntry), Collections.emptyMap());
+
+        final CompletableFuture<Void> stored;
+        // The store can not start until the lock is released, by which time the service has stopped.
+        synchronized (keyStoreService) {
+            stored = keyStoreService.save();
+            assertFalse(keyStoreService.getLastStore().isComplete());
+            keyStoreService.stop(null);
+        }
+        try {
+            stored.get(10, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        assertTrue(Arrays.equals(original, Files.readAllBytes(file.toPath())));
+        assertEquals(Collections.singletonList(file.getName()), Arrays.asList(directory.list()));
+        assertNotNull(keyStoreService.getLastStore().getFailure());
+
+        try {
+            keyStoreService.save();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+        }
+        keyStoreService = null;
+    }
+
+    @Test(expected = OperationFailedException.class)
+    public void testFileLessNotStored() throws Exception {
+        keyStoreService.stop(null);
+        keyStoreService = KeyStoreService.createFileLessKeyStoreService(null, "JKS", PASSWORD, 0, false);
+        keyStoreService.start(null);
+        keyStoreService.save();
+    }
+
+    private static KeyStore load(File file) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (InputStream is = new FileInputStream(file)) {
+            keyStore.load(is, PASSWORD);
+        }
+        return keyStore;
+    }
+
+}
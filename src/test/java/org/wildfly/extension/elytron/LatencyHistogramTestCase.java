@@ -0,0 +1,152 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link LatencyHistogram}.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+public class LatencyHistogramTestCase {
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(0, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testSmallValuesExact() {
+        for (long value = 0; value < 32; value++) {
+            assertEquals(value, single(value));
+        }
+    }
+
+    @Test
+    public void testBucketBoundaries() {
+        // The first logarithmic range still has a width of one.
+        assertEquals(32, single(32));
+        assertEquals(63, single(63));
+        // From 64 each bucket covers two values and reports the mid point.
+        assertEquals(65, single(64));
+        assertEquals(65, single(65));
+        assertEquals(67, single(66));
+        assertEquals(127, single(127));
+        // From 128 each bucket covers four values.
+        assertEquals(130, single(128));
+        assertEquals(130, single(131));
+        assertEquals(134, single(132));
+    }
+
+    @Test
+    public void testNegativeRecordedAsZero() {
+        assertEquals(0, single(-1));
+        assertEquals(0, single(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void testLargestValue() {
+        long reported = single(Long.MAX_VALUE);
+        assertTrue(reported > 0);
+        assertTrue(Long.MAX_VALUE - reported <= Long.MAX_VALUE / 32);
+    }
+
+    @Test
+    public void testRelativeError() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            long reported = single(value);
+            assertTrue(value + " reported as " + reported, Math.abs(reported - value) <= value / 32);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        assertEquals(31, histogram.getValueAtPercentile(31));
+        assertWithin(50, histogram.getValueAtPercentile(50));
+        assertWithin(95, histogram.getValueAtPercentile(95));
+        assertWithin(99, histogram.getValueAtPercentile(99));
+        assertWithin(100, histogram.getValueAtPercentile(100));
+        assertWithin(100, histogram.getValueAtPercentile(150));
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        final int threads = 8;
+        final int iterations = 100000;
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] recorders = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            // Half of the threads record a low value and half a high value, all into the same two buckets.
+            final long value = i % 2 == 0 ? 10 : 1000;
+            recorders[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int j = 0; j < iterations; j++) {
+                    histogram.record(value);
+                }
+            });
+            recorders[i].start();
+        }
+        start.countDown();
+        for (Thread current : recorders) {
+            current.join();
+        }
+
+        // Exactly half of the values are low, any lost increment would move one of these percentiles.
+        long total = (long) threads * iterations;
+        assertEquals(10, histogram.getValueAtPercentile(50));
+        assertWithin(1000, histogram.getValueAtPercentile(100.0 * (total / 2 + 1) / total));
+        histogram.record(10);
+        assertEquals(10, histogram.getValueAtPercentile(100.0 * (total / 2 + 1) / (total + 1)));
+    }
+
+    private static long single(long value) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(value);
+        return histogram.getValueAtPercentile(100);
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(expected + " reported as " + actual, Math.abs(actual - expected) <= expected / 32);
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.security.MessageDigest;
+import java.security.Provider;
+import java.security.Provider.Service;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests of the deferred instantiation of a {@link Provider} by a {@link LazyProvider}.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+public class LazyProviderTestCase {
+
+    private static final String TYPE = MessageDigest.class.getSimpleName();
+    private static final String ALGORITHM = "Test-Digest";
+
+    private final AtomicInteger instantiated = new AtomicInteger();
+
+    @Test
+    public void testNotInstantiatedUntilRequested() {
+        LazyProvider lazy = new LazyProvider(TestProvider.class.getName(), this::create);
+        assertEquals(TestProvider.class.getName(), lazy.getName());
+        assertFalse(lazy.isLoaded());
+        assertNull(lazy.getLoadedProvider());
+
+        // Indexing the providers does not request any services.
+        ProviderIndex index = ProviderIndex.create(new Provider[] { lazy });
+        index.getProviders(MessageDigest.class);
+        assertEquals(0, instantiated.get());
+        assertFalse(lazy.isLoaded());
+
+        Service service = lazy.getService(TYPE, ALGORITHM);
+        assertEquals(1, instantiated.get());
+        assertTrue(lazy.isLoaded());
+        Provider loaded = lazy.getLoadedProvider();
+        // The service is that of the real provider so it keeps the real name.
+        assertSame(loaded, service.getProvider());
+        assertEquals("Test", service.getProvider().getName());
+    }
+
+    @Test
+    public void testInstantiatedOnce() {
+        LazyProvider lazy = new LazyProvider(TestProvider.class.getName(), this::create);
+        assertNull(lazy.getService(TYPE, "Unknown"));
+        assertEquals(1, lazy.getServices().size());
+        assertSame(lazy.getLoadedProvider(), lazy.getService(TYPE, ALGORITHM).getProvider());
+        assertEquals(1, instantiated.get());
+    }
+
+    @Test
+    public void testFactoryFailure() {
+        AtomicInteger attempts = new AtomicInteger();
+        LazyProvider lazy = new LazyProvider(TestProvider.class.getName(), () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("Failed");
+        });
+
+        // The failure is logged and the provider then offers no services.
+        assertNull(lazy.getService(TYPE, ALGORITHM));
+        assertTrue(lazy.isLoaded());
+        assertNull(lazy.getLoadedProvider());
+
+        // The factory is not called again.
+        assertNull(lazy.getService(TYPE, ALGORITHM));
+        assertTrue(lazy.getServices().isEmpty());
+        assertEquals(1, attempts.get());
+    }
+
+    private Provider create() {
+        instantiated.incrementAndGet();
+        return new TestProvider();
+    }
+
+    private static final class TestProvider extends Provider {
+
+        private static final long serialVersionUID = 1L;
+
+        TestProvider() {
+            super("Test", 1.0, "Test provider");
+            put(TYPE + "." + ALGORITHM, TestProvider.class.getName());
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the handshakes recorded by a {@link MeteredSSLContext}.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+public class MeteredSSLContextTestCase {
+
+    private static final char[] PASSWORD = "Elytron".toCharArray();
+    private static final int BUFFER_SIZE = 65536;
+
+    private MeteredSSLContext serverContext;
+    private SSLContext clientContext;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (InputStream is = MeteredSSLContextTestCase.class.getResourceAsStream("ocsp.keystore")) {
+            keyStore.load(is, PASSWORD);
+        }
+        keyStore.deleteEntry("rogue");
+        keyStore.deleteEntry("ca");
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, PASSWORD);
+
+        SSLContext delegate = SSLContext.getInstance("TLS");
+        delegate.init(keyManagerFactory.getKeyManagers(), null, null);
+        serverContext = MeteredSSLContext.wrap(delegate);
+        clientContext = SSLContext.getInstance("TLS");
+        clientContext.init(null, new TrustManager[] { new TrustAllTrustManager() }, null);
+    }
+
+    @Test
+    public void testResumedTls12() throws Exception {
+        testResumed("TLSv1.2");
+    }
+
+    @Test
+    public void testResumedTls13() throws Exception {
+        testResumed("TLSv1.3");
+    }
+
+    private void testResumed(final String protocol) throws Exception {
+        handshake(protocol, "localhost");
+        assertEquals(1, serverContext.getHandshakeCount());
+        assertEquals(1, serverContext.getFullHandshakeCount());
+        assertEquals(0, serverContext.getResumedHandshakeCount());
+
+        // The session is created in an earlier millisecond than the next handshake starts.
+        Thread.sleep(5);
+        handshake(protocol, "localhost");
+        assertEquals(2, serverContext.getHandshakeCount());
+        assertEquals(1, serverContext.getFullHandshakeCount());
+        assertEquals(1, serverContext.getResumedHandshakeCount());
+
+        // A different peer can not resume the session.
+        handshake(protocol, "other");
+        assertEquals(2, serverContext.getFullHandshakeCount());
+        assertEquals(1, serverContext.getResumedHandshakeCount());
+        assertTrue(serverContext.getAverageHandshakeTime() > 0);
+    }
+
+    private void handshake(final String protocol, final String peerHost) throws Exception {
+        SSLEngine server = serverContext.createSSLEngine();
+        server.setUseClientMode(false);
+        SSLEngine client = clientContext.createSSLEngine(peerHost, 443);
+        client.setUseClientMode(true);
+        client.setEnabledProtocols(new String[] { protocol });
+
+        ByteBuffer clientToServer = ByteBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer serverToClient = ByteBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer application = ByteBuffer.allocate(BUFFER_SIZE);
+        client.beginHandshake();
+        server.beginHandshake();
+        for (int i = 0; i < 100; i++) {
+            step(client, serverToClient, clientToServer, application);
+            step(server, clientToServer, serverToClient, application);
+            if (isHandshaking(client) == false && isHandshaking(server) == false) {
+                // Deliver any session ticket sent once the handshake completed.
+                serverToClient.flip();
+                while (serverToClient.hasRemaining() && client.unwrap(serverToClient, application).bytesConsumed() > 0) {
+                    application.clear();
+                }
+                return;
+            }
+        }
+
+        fail("Handshake did not complete");
+    }
+
+    private static boolean isHandshaking(final SSLEngine engine) {
+        HandshakeStatus status = engine.getHandshakeStatus();
+        return status != HandshakeStatus.NOT_HANDSHAKING && status != HandshakeStatus.FINISHED;
+    }
+
+    private static void step(final SSLEngine engine, final ByteBuffer in, final ByteBuffer out, final ByteBuffer application) throws SSLException {
+        switch (engine.getHandshakeStatus()) {
+            case NEED_TASK:
+                Runnable task;
+                while ((task = engine.getDelegatedTask()) != null) {
+                    task.run();
+                }
+                break;
+            case NEED_WRAP:
+                engine.wrap(ByteBuffer.allocate(0), out);
+                break;
+            case NEED_UNWRAP:
+                in.flip();
+                engine.unwrap(in, application);
+                in.compact();
+                application.clear();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static final class TrustAllTrustManager implements X509TrustManager {
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+    }
+
+}
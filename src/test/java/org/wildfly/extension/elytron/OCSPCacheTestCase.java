@@ -0,0 +1,370 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateRevokedException;
+import java.security.cert.X509Certificate;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.security.auth.x500.X500Principal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.security.asn1.ASN1;
+import org.wildfly.security.asn1.DERDecoder;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests of {@link OCSPCache} against an in-process responder.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+public class OCSPCacheTestCase {
+
+    private static final char[] PASSWORD = "Elytron".toCharArray();
+
+    private static final String OID_OCSP_BASIC = "1.3.6.1.5.5.7.48.1.1";
+    private static final int GOOD = 0;
+    private static final int REVOKED = 1;
+    private static final int UNKNOWN = 2;
+
+    private X509Certificate ca;
+    private PrivateKey caKey;
+    private PrivateKey rogueKey;
+    private X509Certificate server;
+    private Map<X500Principal, X509Certificate> trusted;
+
+    private HttpServer httpServer;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile byte[] response;
+    private final CountDownLatch released = new CountDownLatch(1);
+    private volatile boolean blocked;
+
+    private OCSPCache ocspCache;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (InputStream is = OCSPCacheTestCase.class.getResourceAsStream("ocsp.keystore")) {
+            keyStore.load(is, PASSWORD);
+        }
+        ca = (X509Certificate) keyStore.getCertificate("ca");
+        caKey = (PrivateKey) keyStore.getKey("ca", PASSWORD);
+        rogueKey = (PrivateKey) keyStore.getKey("rogue", PASSWORD);
+        server = (X509Certificate) keyStore.getCertificate("server");
+        trusted = Collections.singletonMap(ca.getSubjectX500Principal(), ca);
+
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            if (blocked) {
+                try {
+                    released.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            try (InputStream is = exchange.getRequestBody()) {
+                while (is.read() != -1) {
+                }
+            }
+            byte[] body = response;
+            exchange.getResponseHeaders().add("Content-Type", "application/ocsp-response");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        httpServer.start();
+    }
+
+    @After
+    public void tearDown() {
+        released.countDown();
+        if (ocspCache != null) {
+            ocspCache.stop();
+        }
+        httpServer.stop(0);
+    }
+
+    @Test
+    public void testGood() throws Exception {
+        response = response(GOOD, caKey, hour(1), false);
+        miss(hardFail());
+        // The cached response is used for the next check.
+        ocspCache.checkRevoked(chain(), trusted);
+        ocspCache.checkRevoked(chain(), trusted);
+        assertEquals(1, requests.get());
+    }
+
+    @Test(expected = CertificateRevokedException.class)
+    public void testRevoked() throws Exception {
+        response = response(REVOKED, caKey, hour(1), false);
+        miss(hardFail());
+        ocspCache.checkRevoked(chain(), trusted);
+    }
+
+    @Test(expected = CertificateException.class)
+    public void testUnknown() throws Exception {
+        response = response(UNKNOWN, caKey, hour(1), false);
+        miss(hardFail());
+        ocspCache.checkRevoked(chain(), trusted);
+    }
+
+    @Test(expected = CertificateException.class)
+    public void testExpired() throws Exception {
+        response = response(GOOD, caKey, hour(-1), false);
+        miss(hardFail());
+        ocspCache.checkRevoked(chain(), trusted);
+    }
+
+    @Test(expected = CertificateException.class)
+    public void testBadSignature() throws Exception {
+        response = response(GOOD, rogueKey, hour(1), false);
+        miss(hardFail());
+        ocspCache.checkRevoked(chain(), trusted);
+    }
+
+    @Test(expected = CertificateException.class)
+    public void testWrongIssuer() throws Exception {
+        response = response(GOOD, caKey, hour(1), true);
+        miss(hardFail());
+        ocspCache.checkRevoked(chain(), trusted);
+    }
+
+    @Test
+    public void testHardFailMissNotWaiting() throws Exception {
+        response = response(GOOD, caKey, hour(1), false);
+        blocked = true;
+        hardFail();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) {
+            try {
+                ocspCache.checkRevoked(chain(), trusted);
+                fail("Expected CertificateException without a cached response.");
+            } catch (CertificateRevokedException e) {
+                throw e;
+            } catch (CertificateException e) {
+            }
+        }
+        assertTrue("Rejected without waiting for the responder.", System.currentTimeMillis() - start < TimeUnit.SECONDS.toMillis(5));
+        assertTrue(ocspCache.isFetching());
+
+        blocked = false;
+        released.countDown();
+        awaitFetched();
+        ocspCache.checkRevoked(chain(), trusted);
+        // The repeated misses shared a single request.
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void testUntrustedChainNotChecked() throws Exception {
+        response = response(REVOKED, caKey, hour(1), false);
+        hardFail().checkRevoked(chain(), Collections.emptyMap());
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    public void testSoftFail() throws Exception {
+        response = response(REVOKED, caKey, hour(1), false);
+        ocspCache = new OCSPCache("test", responderUrl(), 10, true);
+        ocspCache.start();
+        // Accepted while the response is fetched in the background.
+        ocspCache.checkRevoked(chain(), trusted);
+
+        long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (System.currentTimeMillis() < timeout) {
+            try {
+                ocspCache.checkRevoked(chain(), trusted);
+            } catch (CertificateRevokedException e) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Expected CertificateRevokedException once the response was cached.");
+    }
+
+    @Test
+    public void testSoftFailBadSignature() throws Exception {
+        response = response(GOOD, rogueKey, hour(1), false);
+        ocspCache = new OCSPCache("test", responderUrl(), 10, true);
+        ocspCache.start();
+        ocspCache.checkRevoked(chain(), trusted);
+        ocspCache.checkRevoked(chain(), trusted);
+    }
+
+    /**
+     * Check the chain once without a cached response, which must be rejected but not as revoked, and wait for the response to be
+     * fetched in the background.
+     */
+    private void miss(final OCSPCache ocspCache) throws Exception {
+        try {
+            ocspCache.checkRevoked(chain(), trusted);
+            fail("Expected CertificateException without a cached response.");
+        } catch (CertificateRevokedException e) {
+            throw e;
+        } catch (CertificateException e) {
+        }
+        awaitFetched();
+    }
+
+    private void awaitFetched() throws InterruptedException {
+        long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (ocspCache.isFetching() && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertTrue("Response fetched.", ocspCache.isFetching() == false);
+    }
+
+    private OCSPCache hardFail() throws IOException {
+        ocspCache = new OCSPCache("test", responderUrl(), 10, false);
+        ocspCache.start();
+        return ocspCache;
+    }
+
+    private URL responderUrl() throws IOException {
+        return new URL("http", "localhost", httpServer.getAddress().getPort(), "/");
+    }
+
+    private X509Certificate[] chain() {
+        return new X509Certificate[] { server, ca };
+    }
+
+    private static Date hour(int hours) {
+        return new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(hours));
+    }
+
+    /**
+     * Create a successful basic OCSP response for the server certificate.
+     */
+    private byte[] response(final int status, final PrivateKey signingKey, final Date nextUpdate, final boolean wrongIssuer) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        byte[] issuerNameHash = digest.digest(ca.getSubjectX500Principal().getEncoded());
+        byte[] issuerKeyHash = digest.digest(subjectPublicKey(ca));
+        if (wrongIssuer) {
+            issuerNameHash = digest.digest(new X500Principal("CN=Other CA").getEncoded());
+        }
+
+        Date thisUpdate = hour(-2);
+        byte[] certStatus;
+        if (status == REVOKED) {
+            certStatus = der(0xA1, time(thisUpdate));
+        } else {
+            certStatus = der(0x80 | status);
+        }
+
+        byte[] certId = der(0x30, der(0x30, oid(ASN1.OID_SHA1), der(0x05)), der(0x04, issuerNameHash), der(0x04, issuerKeyHash),
+                der(0x02, server.getSerialNumber().toByteArray()));
+        byte[] singleResponse = der(0x30, certId, certStatus, time(thisUpdate), der(0xA0, time(nextUpdate)));
+        byte[] responseData = der(0x30, der(0xA2, der(0x04, issuerKeyHash)), time(new Date()), der(0x30, singleResponse));
+
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(signingKey);
+        signature.update(responseData);
+        byte[] signed = signature.sign();
+        byte[] bitString = new byte[signed.length + 1];
+        System.arraycopy(signed, 0, bitString, 1, signed.length);
+
+        byte[] basic = der(0x30, responseData, der(0x30, oid(ASN1.OID_SHA256_WITH_RSA), der(0x05)), der(0x03, bitString));
+
+        return der(0x30, der(0x0A, new byte[] { 0 }), der(0xA0, der(0x30, oid(OID_OCSP_BASIC), der(0x04, basic))));
+    }
+
+    private static byte[] subjectPublicKey(X509Certificate certificate) {
+        DERDecoder decoder = new DERDecoder(certificate.getPublicKey().getEncoded());
+        decoder.startSequence();
+        decoder.skipElement();
+        return decoder.decodeBitString();
+    }
+
+    private static byte[] time(final Date date) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyyMMddHHmmss'Z'");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return der(0x18, format.format(date).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] oid(final String oid) {
+        String[] parts = oid.split("\\.");
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        encoded.write(Integer.parseInt(parts[0]) * 40 + Integer.parseInt(parts[1]));
+        for (int i = 2; i < parts.length; i++) {
+            long value = Long.parseLong(parts[i]);
+            byte[] base128 = new byte[10];
+            int length = 0;
+            do {
+                base128[length++] = (byte) (value & 0x7F);
+                value >>>= 7;
+            } while (value != 0);
+            for (int j = length - 1; j >= 0; j--) {
+                encoded.write(base128[j] | (j > 0 ? 0x80 : 0));
+            }
+        }
+        return der(0x06, encoded.toByteArray());
+    }
+
+    private static byte[] der(final int tag, final byte[]... contents) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (byte[] current : contents) {
+            content.write(current, 0, current.length);
+        }
+        int length = content.size();
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(length + 6);
+        encoded.write(tag);
+        if (length < 0x80) {
+            encoded.write(length);
+        } else if (length < 0x100) {
+            encoded.write(0x81);
+            encoded.write(length);
+        } else {
+            encoded.write(0x82);
+            encoded.write(length >> 8);
+            encoded.write(length);
+        }
+        byte[] bytes = content.toByteArray();
+        encoded.write(bytes, 0, bytes.length);
+        return encoded.toByteArray();
+    }
+
+}
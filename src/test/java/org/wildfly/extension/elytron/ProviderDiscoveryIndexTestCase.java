@@ -0,0 +1,117 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of writing and reading the {@link ProviderDiscoveryIndex} of a module.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+public class ProviderDiscoveryIndexTestCase {
+
+    private static final String MODULE = "org.test.providers";
+    private static final List<String> CLASS_NAMES = Arrays.asList("org.test.FirstProvider", "org.test.SecondProvider");
+
+    private Path modulePath;
+    private File moduleDir;
+    private String originalModulePath;
+
+    @Before
+    public void setUp() throws IOException {
+        modulePath = Files.createTempDirectory("modules");
+        moduleDir = modulePath.resolve("org/test/providers/main").toFile();
+        moduleDir.mkdirs();
+        Files.write(new File(moduleDir, "module.xml").toPath(), "<module name=\"org.test.providers\"/>".getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(moduleDir, "providers.jar").toPath(), new byte[] { 1, 2, 3 });
+        originalModulePath = System.getProperty("module.path");
+        System.setProperty("module.path", modulePath.toString());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (originalModulePath != null) {
+            System.setProperty("module.path", originalModulePath);
+        } else {
+            System.clearProperty("module.path");
+        }
+        try (Stream<Path> paths = Files.walk(modulePath)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        assertNull(ProviderDiscoveryIndex.read(MODULE, null, null));
+
+        File indexFile = ProviderDiscoveryIndex.write(MODULE, null, null, CLASS_NAMES);
+        assertEquals(new File(moduleDir, ProviderDiscoveryIndex.INDEX_FILE), indexFile);
+        assertEquals(CLASS_NAMES, ProviderDiscoveryIndex.read(MODULE, null, null));
+        assertEquals(CLASS_NAMES, ProviderDiscoveryIndex.read(MODULE, "main", null));
+        // Only the index remains, the temporary file has been moved over it.
+        assertEquals(3, moduleDir.list().length);
+    }
+
+    @Test
+    public void testRewrite() throws IOException {
+        ProviderDiscoveryIndex.write(MODULE, null, null, CLASS_NAMES);
+        ProviderDiscoveryIndex.write(MODULE, null, null, CLASS_NAMES.subList(1, 2));
+        assertEquals(CLASS_NAMES.subList(1, 2), ProviderDiscoveryIndex.read(MODULE, null, null));
+        assertEquals(3, moduleDir.list().length);
+    }
+
+    @Test
+    public void testStaleWhenModuleChanges() throws IOException {
+        ProviderDiscoveryIndex.write(MODULE, null, null, CLASS_NAMES);
+        Files.write(new File(moduleDir, "other.jar").toPath(), new byte[] { 4 });
+        assertNull(ProviderDiscoveryIndex.read(MODULE, null, null));
+    }
+
+    @Test
+    public void testLeftoverTemporaryFileIgnored() throws IOException {
+        ProviderDiscoveryIndex.write(MODULE, null, null, CLASS_NAMES);
+        File leftover = new File(moduleDir, "." + ProviderDiscoveryIndex.INDEX_FILE + "-1.tmp");
+        assertTrue(leftover.createNewFile());
+        assertEquals(CLASS_NAMES, ProviderDiscoveryIndex.read(MODULE, null, null));
+    }
+
+    @Test
+    public void testModuleNotOnModulePath() throws IOException {
+        assertNull(ProviderDiscoveryIndex.write("org.test.missing", null, null, CLASS_NAMES));
+        assertNull(ProviderDiscoveryIndex.read("org.test.missing", null, null));
+    }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.Provider;
+import java.security.Provider.Service;
+import java.security.Security;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.crypto.Cipher;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+import org.junit.Test;
+
+/**
+ * Tests of selecting services and providers using a {@link ProviderIndex}.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+public class ProviderIndexTestCase {
+
+    private static final String TYPE = MessageDigest.class.getSimpleName();
+    private static final String ALGORITHM = "Test-Digest";
+
+    private final Provider first = new TestProvider("First", ALGORITHM, null);
+    private final Provider second = new TestProvider("Second", ALGORITHM, "Test-Alias");
+    private final Provider other = new TestProvider("Other", "Other-Digest", null);
+
+    @Test
+    public void testProviderOrder() {
+        ProviderIndex index = ProviderIndex.create(new Provider[] { first, other, second });
+        assertEquals(Arrays.asList(first, second), providers(index.getServices(TYPE, ALGORITHM)));
+        assertSame(first, index.getProvider(null, MessageDigest.class, ALGORITHM));
+        assertSame(second, index.getProvider("Second", MessageDigest.class, ALGORITHM));
+        assertNull(index.getProvider("Other", MessageDigest.class, ALGORITHM));
+        assertNull(index.getProvider(null, MessageDigest.class, "Unknown"));
+        assertTrue(index.getServices(TYPE, "Unknown").isEmpty());
+        assertTrue(index.getServices("Unknown", ALGORITHM).isEmpty());
+
+        index = ProviderIndex.create(new Provider[] { second, first });
+        assertEquals(Arrays.asList(second, first), providers(index.getServices(TYPE, ALGORITHM)));
+        assertSame(second, index.getProvider(null, MessageDigest.class, ALGORITHM));
+    }
+
+    @Test
+    public void testAlias() {
+        ProviderIndex index = ProviderIndex.create(new Provider[] { first, second });
+        List<Service> services = index.getServices(TYPE, "Test-Alias");
+        assertEquals(1, services.size());
+        assertSame(second.getService(TYPE, ALGORITHM), services.get(0));
+        assertSame(second, index.getProvider(null, MessageDigest.class, "Test-Alias"));
+        // The alias and algorithm of the same provider are listed once.
+        assertEquals(Arrays.asList(first, second), providers(index.getServices(TYPE, ALGORITHM)));
+    }
+
+    @Test
+    public void testCaseInsensitiveAlgorithm() {
+        ProviderIndex index = ProviderIndex.create(new Provider[] { first, second });
+        assertEquals(Arrays.asList(first, second), providers(index.getServices(TYPE, ALGORITHM.toLowerCase())));
+        assertEquals(Arrays.asList(second), providers(index.getServices(TYPE, "TEST-ALIAS")));
+        assertSame(first, index.getProvider(null, MessageDigest.class, "test-digest"));
+        // The type is matched exactly as it is by Provider.getService.
+        assertTrue(index.getServices(TYPE.toUpperCase(), ALGORITHM).isEmpty());
+    }
+
+    @Test
+    public void testPreferred() {
+        ProviderIndex index = ProviderIndex.create(new Provider[] { first, other, second });
+        assertTrue(index.prefer(TYPE, ALGORITHM, second));
+        assertEquals(Arrays.asList(second, first), providers(index.getServices(TYPE, ALGORITHM)));
+        assertEquals(Arrays.asList(second, first), providers(index.getServices(TYPE, ALGORITHM.toLowerCase())));
+        assertSame(second, index.getProvider(null, MessageDigest.class, ALGORITHM));
+        // A lookup by name still selects the named provider.
+        assertSame(first, index.getProvider("First", MessageDigest.class, ALGORITHM));
+        // Other algorithms are unaffected.
+        assertSame(other, index.getProvider(null, MessageDigest.class, "Other-Digest"));
+
+        assertFalse(index.prefer(TYPE, ALGORITHM, other));
+        assertSame(second, index.getProvider(null, MessageDigest.class, ALGORITHM));
+    }
+
+    @Test
+    public void testLazyInterleaving() {
+        TestProvider lazyTarget = new TestProvider("Lazy", ALGORITHM, null);
+        LazyProvider lazy = new LazyProvider(TestProvider.class.getName(), () -> lazyTarget);
+        ProviderIndex index = ProviderIndex.create(new Provider[] { first, lazy, second });
+
+        // The lookup is satisfied by a provider ahead of the LazyProvider so it is not instantiated.
+        assertSame(first, index.getProvider(null, MessageDigest.class, ALGORITHM));
+        assertFalse(lazy.isLoaded());
+
+        // The LazyProvider is offered for every type in it's original position.
+        assertEquals(Arrays.asList(first, lazy, second), Arrays.asList(index.getProviders(MessageDigest.class)));
+        assertEquals(Arrays.asList(lazy), Arrays.asList(index.getProviders(Cipher.class)));
+        assertFalse(lazy.isLoaded());
+
+        assertSame(lazyTarget, index.getProvider("Lazy", MessageDigest.class, ALGORITHM));
+        assertTrue(lazy.isLoaded());
+        assertEquals(Arrays.asList(first, lazyTarget, second), providers(index.getServices(TYPE, ALGORITHM)));
+    }
+
+    @Test
+    public void testLazyAfterIndexed() {
+        TestProvider lazyTarget = new TestProvider("Lazy", ALGORITHM, null);
+        LazyProvider lazy = new LazyProvider(TestProvider.class.getName(), () -> lazyTarget);
+        ProviderIndex index = ProviderIndex.create(new Provider[] { other, lazy });
+
+        // No indexed provider matches so the LazyProvider is reached.
+        assertSame(lazyTarget, index.getProvider(null, MessageDigest.class, ALGORITHM));
+        assertEquals(Arrays.asList(lazyTarget), providers(index.getServices(TYPE, ALGORITHM)));
+    }
+
+    @Test
+    public void testGetProviders() {
+        ProviderIndex index = ProviderIndex.create(new Provider[] { first, other, second });
+        assertEquals(Arrays.asList(first, other, second), Arrays.asList(index.getProviders(MessageDigest.class)));
+        assertEquals(0, index.getProviders(Cipher.class).length);
+
+        // The array returned is a copy.
+        index.getProviders(MessageDigest.class)[0] = null;
+        assertSame(first, index.getProviders(MessageDigest.class)[0]);
+    }
+
+    @Test
+    public void testSameAsIdentifyProvider() {
+        List<Provider> candidates = new ArrayList<Provider>(Arrays.asList(Security.getProviders()));
+        candidates.add(1, first);
+        candidates.add(other);
+        candidates.add(second);
+        Provider[] providers = candidates.toArray(new Provider[candidates.size()]);
+        ProviderIndex index = ProviderIndex.create(providers);
+
+        List<String> names = new ArrayList<String>();
+        names.add(null);
+        names.add("Unknown");
+        for (Provider current : providers) {
+            names.add(current.getName());
+        }
+
+        Class<?>[] types = { MessageDigest.class, Signature.class, Cipher.class, KeyStore.class, KeyManagerFactory.class, SSLContext.class };
+        String[] algorithms = { ALGORITHM, "test-alias", "Other-Digest", "SHA-256", "sha256", "SHA", "SHA256withRSA", "AES",
+                "AES/GCM/NoPadding", "JKS", "pkcs12", "SunX509", "PKIX", "TLSv1.2", "TLS", "Unknown" };
+        for (String name : names) {
+            for (Class<?> type : types) {
+                for (String algorithm : algorithms) {
+                    assertSame(name + " " + type.getSimpleName() + " " + algorithm, ProviderUtil.identifyProvider(providers, name, type, algorithm),
+                            index.getProvider(name, type, algorithm));
+                }
+            }
+        }
+    }
+
+    private static List<Provider> providers(final List<Service> services) {
+        List<Provider> providers = new ArrayList<Provider>(services.size());
+        for (Service current : services) {
+            providers.add(current.getProvider());
+        }
+
+        return providers;
+    }
+
+    private static final class TestProvider extends Provider {
+
+        private static final long serialVersionUID = 1L;
+
+        TestProvider(final String name, final String algorithm, final String alias) {
+            super(name, 1.0, "Test provider " + name);
+            put(TYPE + "." + algorithm, TestProvider.class.getName());
+            if (alias != null) {
+                put("Alg.Alias." + TYPE + "." + alias, algorithm);
+            }
+        }
+    }
+
+}
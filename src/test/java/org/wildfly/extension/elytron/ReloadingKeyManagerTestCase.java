@@ -0,0 +1,142 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.net.ssl.KeyManagerFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the {@link ReloadingKeyManager} following changes to a {@link KeyStore} managed by a {@link KeyStoreService}.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+public class ReloadingKeyManagerTestCase {
+
+    private static final char[] PASSWORD = "Elytron".toCharArray();
+
+    private KeyStore.PrivateKeyEntry serverEntry;
+    private KeyStore.PrivateKeyEntry caEntry;
+    private KeyStoreService keyStoreService;
+    private ReloadingKeyManager keyManager;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyStore source = KeyStore.getInstance("JKS");
+        try (InputStream is = ReloadingKeyManagerTestCase.class.getResourceAsStream("ocsp.keystore")) {
+            source.load(is, PASSWORD);
+        }
+        KeyStore.PasswordProtection protection = new KeyStore.PasswordProtection(PASSWORD);
+        serverEntry = (KeyStore.PrivateKeyEntry) source.getEntry("server", protection);
+        caEntry = (KeyStore.PrivateKeyEntry) source.getEntry("ca", protection);
+
+        keyStoreService = KeyStoreService.createFileLessKeyStoreService(null, "JKS", PASSWORD, 0, false);
+        keyStoreService.start(null);
+        keyStoreService.importEntries(Collections.singletonMap("server", serverEntry), Collections.emptyMap());
+
+        keyManager = new ReloadingKeyManager(keyStoreService.getValue(), KeyManagerFactory.getInstance("SunX509"), PASSWORD);
+    }
+
+    @After
+    public void tearDown() {
+        keyStoreService.stop(null);
+    }
+
+    @Test
+    public void testChooseAlias() throws Exception {
+        String alias = keyManager.chooseServerAlias("RSA", null, null);
+        assertEquals("server", ReloadingKeyManager.untag(alias));
+        assertEquals(serverEntry.getPrivateKey(), keyManager.getPrivateKey(alias));
+        assertTrue(Arrays.equals(serverEntry.getCertificateChain(), keyManager.getCertificateChain(alias)));
+        // An alias which has not been chosen can still be used.
+        assertEquals(serverEntry.getPrivateKey(), keyManager.getPrivateKey("server"));
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        assertEquals(Collections.singletonList("server"), Arrays.asList(keyManager.getServerAliases("RSA", null)));
+
+        keyStoreService.importEntries(Collections.singletonMap("ca", caEntry), Collections.emptyMap());
+        String[] aliases = keyManager.getServerAliases("RSA", null);
+        Arrays.sort(aliases);
+        assertEquals(Arrays.asList("ca", "server"), Arrays.asList(aliases));
+        assertEquals(caEntry.getPrivateKey(), keyManager.getPrivateKey("ca"));
+
+        keyStoreService.removeEntry("server");
+        assertEquals(Collections.singletonList("ca"), Arrays.asList(keyManager.getServerAliases("RSA", null)));
+        assertNull(keyManager.getPrivateKey("server"));
+    }
+
+    @Test
+    public void testChosenAliasSurvivesReload() throws Exception {
+        String alias = keyManager.chooseServerAlias("RSA", null, null);
+        keyStoreService.removeEntry("server");
+        keyStoreService.importEntries(Collections.singletonMap("ca", caEntry), Collections.emptyMap());
+        assertEquals("ca", ReloadingKeyManager.untag(keyManager.chooseServerAlias("RSA", null, null)));
+
+        // The key and chain come from the delegate which chose the alias, not the current delegate.
+        PrivateKey privateKey = keyManager.getPrivateKey(alias);
+        X509Certificate[] certificateChain = keyManager.getCertificateChain(alias);
+        assertEquals(serverEntry.getPrivateKey(), privateKey);
+        assertTrue(Arrays.equals(serverEntry.getCertificateChain(), certificateChain));
+        assertNull(keyManager.getPrivateKey("server"));
+    }
+
+    @Test
+    public void testOnlyPreviousDelegateRetained() throws Exception {
+        String alias = keyManager.chooseServerAlias("RSA", null, null);
+        keyStoreService.removeEntry("server");
+        keyStoreService.importEntries(Collections.singletonMap("ca", caEntry), Collections.emptyMap());
+        keyManager.getServerAliases("RSA", null);
+        keyStoreService.importEntries(Collections.singletonMap("other", caEntry), Collections.emptyMap());
+        keyManager.getServerAliases("RSA", null);
+
+        // Two versions later the current delegate resolves the alias.
+        assertNull(keyManager.getPrivateKey(alias));
+    }
+
+    @Test
+    public void testTag() {
+        String tagged = ReloadingKeyManager.tag(12, "[1]server");
+        assertEquals(12, ReloadingKeyManager.version(tagged));
+        assertEquals("[1]server", ReloadingKeyManager.untag(tagged));
+        assertNull(ReloadingKeyManager.tag(12, null));
+
+        assertEquals(-1, ReloadingKeyManager.version("server"));
+        assertEquals(-1, ReloadingKeyManager.version("[]server"));
+        assertEquals(-1, ReloadingKeyManager.version("[x]server"));
+        assertEquals("[x]server", ReloadingKeyManager.untag("[x]server"));
+        assertFalse(ReloadingKeyManager.version(null) >= 0);
+    }
+
+}
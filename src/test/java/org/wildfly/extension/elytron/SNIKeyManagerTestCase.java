@@ -0,0 +1,250 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.KeyStore;
+import java.security.Principal;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the server certificate selected by a {@link SNIKeyManager} for the host name requested by the client.
+ *
+ * The test key store contains entries for 'localhost' by common name, 'www.example.com' and 'example.com' by subject
+ * alternative name, '*.example.com' as a wildcard, an expired entry for 'old.example.com' and an entry with no matching name.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+public class SNIKeyManagerTestCase {
+
+    private static final char[] PASSWORD = "Elytron".toCharArray();
+    private static final int BUFFER_SIZE = 65536;
+
+    private KeyStore source;
+    private KeyStoreService keyStoreService;
+
+    @Before
+    public void setUp() throws Exception {
+        source = KeyStore.getInstance("JKS");
+        try (InputStream is = SNIKeyManagerTestCase.class.getResourceAsStream("sni.keystore")) {
+            source.load(is, PASSWORD);
+        }
+
+        keyStoreService = KeyStoreService.createFileLessKeyStoreService(null, "JKS", PASSWORD, 0, false);
+        keyStoreService.start(null);
+        Enumeration<String> aliases = source.aliases();
+        while (aliases.hasMoreElements()) {
+            String alias = aliases.nextElement();
+            keyStoreService.importEntries(Collections.singletonMap(alias, entry(alias)), Collections.emptyMap());
+        }
+    }
+
+    @After
+    public void tearDown() {
+        keyStoreService.stop(null);
+    }
+
+    @Test
+    public void testCommonName() throws Exception {
+        assertEquals(source.getCertificate("localhost"), handshake(keyManager(), "localhost"));
+    }
+
+    @Test
+    public void testSubjectAlternativeName() throws Exception {
+        SNIKeyManager keyManager = keyManager();
+        assertEquals(source.getCertificate("www"), handshake(keyManager, "www.example.com"));
+        assertEquals(source.getCertificate("www"), handshake(keyManager, "example.com"));
+        assertEquals(source.getCertificate("www"), handshake(keyManager, "WWW.Example.COM"));
+    }
+
+    @Test
+    public void testWildcard() throws Exception {
+        assertEquals(source.getCertificate("wildcard"), handshake(keyManager(), "api.example.com"));
+    }
+
+    @Test
+    public void testExpiredNotSelected() throws Exception {
+        // The exact match has expired so the wildcard is preferred.
+        assertEquals(source.getCertificate("wildcard"), handshake(keyManager(), "old.example.com"));
+    }
+
+    @Test
+    public void testFallback() throws Exception {
+        ReloadingKeyManager delegate = delegate();
+        SNIKeyManager keyManager = new SNIKeyManager(keyStoreService.getValue(), PASSWORD, delegate);
+        Certificate expected = source.getCertificate(ReloadingKeyManager.untag(delegate.chooseEngineServerAlias("RSA", null, null)));
+
+        // A wildcard only matches a single label.
+        assertEquals(expected, handshake(keyManager, "a.b.example.com"));
+        assertEquals(expected, handshake(keyManager, "unknown.example.net"));
+        assertEquals(expected, handshake(keyManager, null));
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        SNIKeyManager keyManager = keyManager();
+        keyStoreService.removeEntry("www");
+        assertEquals(source.getCertificate("wildcard"), handshake(keyManager, "www.example.com"));
+
+        keyStoreService.importEntries(Collections.singletonMap("renamed", entry("www")), Collections.emptyMap());
+        assertEquals(source.getCertificate("www"), handshake(keyManager, "www.example.com"));
+    }
+
+    @Test
+    public void testReloadDuringHandshake() throws Exception {
+        final AtomicBoolean reloaded = new AtomicBoolean();
+        SNIKeyManager keyManager = new SNIKeyManager(keyStoreService.getValue(), PASSWORD, delegate()) {
+
+            @Override
+            public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
+                String alias = super.chooseEngineServerAlias(keyType, issuers, engine);
+                if (alias != null && reloaded.compareAndSet(false, true)) {
+                    try {
+                        keyStoreService.removeEntry("www");
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return alias;
+            }
+        };
+
+        // The key and chain come from the index the alias was selected from.
+        assertEquals(source.getCertificate("www"), handshake(keyManager, "www.example.com"));
+        assertNull(keyManager.getPrivateKey("www"));
+    }
+
+    private KeyStore.PrivateKeyEntry entry(final String alias) throws Exception {
+        return (KeyStore.PrivateKeyEntry) source.getEntry(alias, new KeyStore.PasswordProtection(PASSWORD));
+    }
+
+    private ReloadingKeyManager delegate() throws Exception {
+        return new ReloadingKeyManager(keyStoreService.getValue(), KeyManagerFactory.getInstance("SunX509"), PASSWORD);
+    }
+
+    private SNIKeyManager keyManager() throws Exception {
+        return new SNIKeyManager(keyStoreService.getValue(), PASSWORD, delegate());
+    }
+
+    /**
+     * Complete a handshake between a client requesting the host name and a server using the key manager.
+     *
+     * @return the certificate presented by the server.
+     */
+    private static X509Certificate handshake(final KeyManager keyManager, final String hostName) throws Exception {
+        SSLContext serverContext = SSLContext.getInstance("TLS");
+        serverContext.init(new KeyManager[] { keyManager }, null, null);
+        SSLContext clientContext = SSLContext.getInstance("TLS");
+        clientContext.init(null, new TrustManager[] { new TrustAllTrustManager() }, null);
+
+        SSLEngine server = serverContext.createSSLEngine();
+        server.setUseClientMode(false);
+        SSLEngine client = clientContext.createSSLEngine();
+        client.setUseClientMode(true);
+        if (hostName != null) {
+            SSLParameters parameters = client.getSSLParameters();
+            parameters.setServerNames(Collections.singletonList(new SNIHostName(hostName)));
+            client.setSSLParameters(parameters);
+        }
+
+        ByteBuffer clientToServer = ByteBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer serverToClient = ByteBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer application = ByteBuffer.allocate(BUFFER_SIZE);
+        client.beginHandshake();
+        server.beginHandshake();
+        for (int i = 0; i < 100; i++) {
+            step(client, serverToClient, clientToServer, application);
+            step(server, clientToServer, serverToClient, application);
+            if (isHandshaking(client) == false && isHandshaking(server) == false) {
+                return (X509Certificate) client.getSession().getPeerCertificates()[0];
+            }
+        }
+
+        fail("Handshake did not complete");
+        return null;
+    }
+
+    private static boolean isHandshaking(final SSLEngine engine) {
+        HandshakeStatus status = engine.getHandshakeStatus();
+        return status != HandshakeStatus.NOT_HANDSHAKING && status != HandshakeStatus.FINISHED;
+    }
+
+    private static void step(final SSLEngine engine, final ByteBuffer in, final ByteBuffer out, final ByteBuffer application) throws SSLException {
+        switch (engine.getHandshakeStatus()) {
+            case NEED_TASK:
+                Runnable task;
+                while ((task = engine.getDelegatedTask()) != null) {
+                    task.run();
+                }
+                break;
+            case NEED_WRAP:
+                engine.wrap(ByteBuffer.allocate(0), out);
+                break;
+            case NEED_UNWRAP:
+                in.flip();
+                engine.unwrap(in, application);
+                in.compact();
+                application.clear();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static final class TrustAllTrustManager implements X509TrustManager {
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+    }
+
+}
@@ -0,0 +1,211 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2015 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.elytron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.FilePermission;
+import java.security.AllPermission;
+import java.security.Permission;
+import java.security.PermissionCollection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PropertyPermission;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.wildfly.extension.elytron.SimplePermissionMapper.Mapping;
+
+/**
+ * Tests of {@link SimplePermissionMapper}.
+ *
+ * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
+ */
+public class SimplePermissionMapperTestCase {
+
+    private static final Permission READ_USER_HOME = new PropertyPermission("user.home", "read");
+    private static final Permission EXIT_VM = new RuntimePermission("exitVM");
+    private static final Permission READ_TMP = new FilePermission("/tmp/-", "read");
+    private static final Permission WRITE_TMP = new FilePermission("/tmp/file", "write");
+
+    private final SimplePermissionMapper permissionMapper = new SimplePermissionMapper(Arrays.asList(
+            new Mapping(roles("user", "admin"), Arrays.asList(READ_USER_HOME, READ_TMP)),
+            new Mapping(roles("admin"), Collections.singletonList(EXIT_VM)),
+            new Mapping(roles("super"), Collections.singletonList(new AllPermission()))));
+
+    @Test
+    public void testPermissionsMapped() {
+        PermissionCollection user = permissionMapper.mapPermissions(null, roles("user"));
+        assertTrue(user.implies(READ_USER_HOME));
+        assertTrue(user.implies(new FilePermission("/tmp/file", "read")));
+        assertFalse(user.implies(WRITE_TMP));
+        assertFalse(user.implies(EXIT_VM));
+        assertEquals(2, count(user));
+
+        PermissionCollection admin = permissionMapper.mapPermissions(null, roles("admin"));
+        assertTrue(admin.implies(READ_USER_HOME));
+        assertTrue(admin.implies(EXIT_VM));
+        assertFalse(admin.implies(WRITE_TMP));
+        assertEquals(3, count(admin));
+
+        PermissionCollection superUser = permissionMapper.mapPermissions(null, roles("super"));
+        assertTrue(superUser.implies(WRITE_TMP));
+        assertTrue(superUser.implies(EXIT_VM));
+    }
+
+    @Test
+    public void testNoMatch() {
+        for (Set<String> roles : Arrays.asList(null, roles(), roles("other"))) {
+            PermissionCollection permissionCollection = permissionMapper.mapPermissions(null, roles);
+            assertTrue(permissionCollection.isReadOnly());
+            assertFalse(permissionCollection.implies(READ_USER_HOME));
+            assertEquals(0, count(permissionCollection));
+        }
+    }
+
+    @Test
+    public void testReadOnly() {
+        for (Set<String> roles : Arrays.asList(roles(), roles("user"), roles("admin"), roles("super"))) {
+            PermissionCollection permissionCollection = permissionMapper.mapPermissions(null, roles);
+            assertTrue(permissionCollection.isReadOnly());
+            try {
+                permissionCollection.add(WRITE_TMP);
+                fail("Expected SecurityException");
+            } catch (SecurityException e) {
+            }
+            try {
+                permissionCollection.add(new AllPermission());
+                fail("Expected SecurityException");
+            } catch (SecurityException e) {
+            }
+            assertEquals(roles.contains("super"), permissionCollection.implies(WRITE_TMP));
+        }
+
+        // The next identity with the same roles receives the same unmodified collection.
+        PermissionCollection user = permissionMapper.mapPermissions(null, roles("user"));
+        assertFalse(user.implies(WRITE_TMP));
+        assertEquals(2, count(user));
+    }
+
+    @Test
+    public void testElementsUnmodifiable() {
+        PermissionCollection permissionCollection = permissionMapper.mapPermissions(null, roles("user"));
+        List<Permission> elements = Collections.list(permissionCollection.elements());
+        elements.clear();
+        assertEquals(2, count(permissionCollection));
+    }
+
+    @Test
+    public void testCollectionShared() {
+        PermissionCollection user = permissionMapper.mapPermissions(null, roles("user"));
+        assertSame(user, permissionMapper.mapPermissions(null, roles("user", "other")));
+
+        PermissionCollection admin = permissionMapper.mapPermissions(null, roles("admin"));
+        assertSame(admin, permissionMapper.mapPermissions(null, roles("user", "admin")));
+        assertNotSame(user, admin);
+    }
+
+    @Test
+    public void testSharedConcurrently() throws Exception {
+        final int threads = 8;
+        final int iterations = 2000;
+        final List<Set<String>> roleSets = Arrays.asList(roles("user"), roles("admin"), roles("user", "admin"), roles("super"),
+                roles("user", "other"));
+        final PermissionCollection[][] seen = new PermissionCollection[threads][roleSets.size()];
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger errors = new AtomicInteger();
+
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            final int thread = i;
+            workers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int j = 0; j < iterations; j++) {
+                    int index = (thread + j) % roleSets.size();
+                    Set<String> roles = roleSets.get(index);
+                    PermissionCollection permissionCollection = permissionMapper.mapPermissions(null, roles);
+                    if (seen[thread][index] == null) {
+                        seen[thread][index] = permissionCollection;
+                    }
+
+                    boolean superUser = roles.contains("super");
+                    boolean admin = roles.contains("admin");
+                    if (permissionCollection.isReadOnly() == false
+                            || permissionCollection.implies(READ_USER_HOME) == false
+                            || permissionCollection.implies(EXIT_VM) != (admin || superUser)
+                            || permissionCollection.implies(WRITE_TMP) != superUser
+                            || count(permissionCollection) != (superUser ? 1 : admin ? 3 : 2)) {
+                        errors.incrementAndGet();
+                    }
+                    try {
+                        permissionCollection.add(WRITE_TMP);
+                        errors.incrementAndGet();
+                    } catch (SecurityException e) {
+                    }
+                }
+            });
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread current : workers) {
+            current.join();
+        }
+
+        assertEquals(0, errors.get());
+        // Once cached every thread is handed the same collection for the same roles.
+        for (int i = 0; i < roleSets.size(); i++) {
+            PermissionCollection expected = permissionMapper.mapPermissions(null, roleSets.get(i));
+            for (int j = 0; j < threads; j++) {
+                assertEquals(expected.getClass(), seen[j][i].getClass());
+                assertEquals(Collections.list(expected.elements()), Collections.list(seen[j][i].elements()));
+            }
+            assertSame(expected, permissionMapper.mapPermissions(null, roleSets.get(i)));
+        }
+    }
+
+    private static int count(PermissionCollection permissionCollection) {
+        int count = 0;
+        Enumeration<Permission> elements = permissionCollection.elements();
+        while (elements.hasMoreElements()) {
+            elements.nextElement();
+            count++;
+        }
+        return count;
+    }
+
+    private static Set<String> roles(String... roles) {
+        return new HashSet<>(Arrays.asList(roles));
+    }
+
+}